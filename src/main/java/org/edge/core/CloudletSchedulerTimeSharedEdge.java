@@ -14,6 +14,8 @@ import java.util.Map;
 import org.cloudbus.cloudsim.*;
 import org.cloudbus.cloudsim.core.CloudSim;
 import org.edge.core.feature.EdgeLet;
+import org.edge.core.feature.EdgeLetPool;
+import org.edge.core.kernel.SimulationContext;
 
 import static java.lang.System.exit;
 
@@ -43,6 +45,15 @@ public class CloudletSchedulerTimeSharedEdge extends CloudletScheduler {
     /** The current cp us. */
     protected int currentCPUs;
 
+    /** The number of PEs requested by the cloudlets in the exec list. */
+    protected int pesInUse;
+
+    /** The sum of the sensor weights of the cloudlets in the exec list. */
+    protected int sensorWeightInUse;
+
+    /** The pool of the run the scheduler was created in. */
+    protected final EdgeLetPool edgeLetPool;
+
     /**
      * Creates a new CloudletSchedulerTimeShared object. This method must be invoked before starting
      * the actual simulation.
@@ -56,10 +67,14 @@ public class CloudletSchedulerTimeSharedEdge extends CloudletScheduler {
         cloudletPausedList = new ArrayList<ResEdgeLet>();
         cloudletFinishedList = new ArrayList<ResEdgeLet>();
         currentCPUs = 0;
+        pesInUse = 0;
+        sensorWeightInUse = 0;
+        edgeLetPool = SimulationContext.current().getEdgeLetPool();
     }
 
     public void setSensorMap(Map<String, Integer> sensorMap) {
         this.sensorMap = sensorMap;
+        recountExecList();
     }
 
     public Map<String, Integer> getSensorMap() {
@@ -79,6 +94,7 @@ public class CloudletSchedulerTimeSharedEdge extends CloudletScheduler {
     public double updateVmProcessing(double currentTime, List<Double> mipsShare) {
         setCurrentMipsShare(mipsShare);
         double timeSpam = currentTime - getPreviousTime();
+        double capacity = getCapacity(mipsShare);
 
         for (ResEdgeLet rcl : getCloudletExecList()) {
             //System.out.println("Type of sensor" + rcl.edgelet.sensorType + "-- the capacity :" + getCapacity(mipsShare));
@@ -90,7 +106,7 @@ public class CloudletSchedulerTimeSharedEdge extends CloudletScheduler {
                 System.out.println("Cloudlet before updating:" + rcl.getRemainingCloudletLength());
                 System.out.println("Updated amount:" + (getCapacity(mipsShare) * timeSpam * rcl.getNumberOfPes() * sensorMap.get(rcl.edgelet.sensorType) * Consts.MILLION));
             }*/
-            rcl.updateCloudletFinishedSoFar((long) (getCapacity(mipsShare) * timeSpam * rcl.getNumberOfPes() * sensorMap.get(rcl.edgelet.sensorType) * Consts.MILLION));
+            rcl.updateCloudletFinishedSoFar((long) (capacity * timeSpam * rcl.getNumberOfPes() * sensorMap.get(rcl.edgelet.sensorType) * Consts.MILLION));
         }
 
         if (getCloudletExecList().size() == 0) {
@@ -105,15 +121,17 @@ public class CloudletSchedulerTimeSharedEdge extends CloudletScheduler {
             long remainingLength = rcl.getRemainingCloudletLength();
             if (remainingLength == 0) {// finished: remove from the list
                 toRemove.add(rcl);
+                execListRemoved(rcl);
                 cloudletFinish(rcl);
             }
         }
         getCloudletExecList().removeAll(toRemove);
 
         // estimate finish time of cloudlets
+        capacity = getCapacity(mipsShare);
         for (ResEdgeLet rcl : getCloudletExecList()) {
             double estimatedFinishTime = currentTime
-                    + (rcl.getRemainingCloudletLength() / (getCapacity(mipsShare) * rcl.getNumberOfPes()));
+                    + (rcl.getRemainingCloudletLength() / (capacity * rcl.getNumberOfPes()));
             if (estimatedFinishTime - currentTime < CloudSim.getMinTimeBetweenEvents()) {
                 estimatedFinishTime = currentTime + CloudSim.getMinTimeBetweenEvents();
             }
@@ -128,7 +146,9 @@ public class CloudletSchedulerTimeSharedEdge extends CloudletScheduler {
     }
 
     /**
-     * Gets the capacity.
+     * Gets the capacity. The PEs and sensor weights in use are running totals kept
+     * up to date whenever a cloudlet enters or leaves the exec list, so this only
+     * walks the mips share of the VM.
      *
      * @param mipsShare the mips share
      * @return the capacity
@@ -144,22 +164,59 @@ public class CloudletSchedulerTimeSharedEdge extends CloudletScheduler {
         }
         currentCPUs = cpus;
 
-        int pesInUse = 0;
-        for (ResEdgeLet rcl : getCloudletExecList()) {
-            pesInUse += rcl.getNumberOfPes();
-        }
+        int m1 = Math.max(pesInUse, currentCPUs);
+        capacity /= Math.max(m1, sensorWeightInUse);
 
-        int sensorweight = 0;
-        for (ResEdgeLet rcl : getCloudletExecList()) {
-            if(sensorMap.get(rcl.edgelet.sensorType) != null) {
-                sensorweight += sensorMap.get(rcl.edgelet.sensorType);
-            }
+        return capacity;
+    }
+
+    /**
+     * Gets the weight of the sensor type of a cloudlet.
+     *
+     * @param rcl the cloudlet
+     * @return the weight from the sensor map, 0 if the sensor type is not mapped
+     */
+    protected int getSensorWeight(ResEdgeLet rcl) {
+        if (sensorMap == null) {
+            return 0;
         }
+        Integer weight = sensorMap.get(rcl.edgelet.sensorType);
+        return weight == null ? 0 : weight;
+    }
 
-        int m1 = Math.max(pesInUse, currentCPUs);
-        capacity /= Math.max(m1, sensorweight);
+    /**
+     * Accounts for a cloudlet that has been added to the exec list.
+     *
+     * @param rcl the cloudlet
+     */
+    protected void execListAdded(ResEdgeLet rcl) {
+        pesInUse += rcl.getNumberOfPes();
+        sensorWeightInUse += getSensorWeight(rcl);
+    }
 
-        return capacity;
+    /**
+     * Accounts for a cloudlet that has been removed from the exec list.
+     *
+     * @param rcl the cloudlet
+     */
+    protected void execListRemoved(ResEdgeLet rcl) {
+        pesInUse -= rcl.getNumberOfPes();
+        sensorWeightInUse -= getSensorWeight(rcl);
+    }
+
+    /**
+     * Recomputes the running totals from scratch, used when the exec list or the
+     * sensor map is replaced.
+     */
+    protected void recountExecList() {
+        pesInUse = 0;
+        sensorWeightInUse = 0;
+        if (cloudletExecList == null) {
+            return;
+        }
+        for (ResEdgeLet rcl : getCloudletExecList()) {
+            execListAdded(rcl);
+        }
     }
 
     /**
@@ -201,6 +258,7 @@ public class CloudletSchedulerTimeSharedEdge extends CloudletScheduler {
 
         if (found) {
             ResEdgeLet rcl = getCloudletExecList().remove(position);
+            execListRemoved(rcl);
             if (rcl.getRemainingCloudletLength() == 0) {
                 cloudletFinish(rcl);
             } else {
@@ -252,6 +310,7 @@ public class CloudletSchedulerTimeSharedEdge extends CloudletScheduler {
         if (found) {
             // remove cloudlet from the exec list and put it in the paused list
             ResEdgeLet rcl = getCloudletExecList().remove(position);
+            execListRemoved(rcl);
             if (rcl.getRemainingCloudletLength() == 0) {
                 cloudletFinish(rcl);
             } else {
@@ -311,6 +370,7 @@ public class CloudletSchedulerTimeSharedEdge extends CloudletScheduler {
             ResEdgeLet rgl = getCloudletPausedList().remove(position);
             rgl.setCloudletStatus(Cloudlet.INEXEC);
             getCloudletExecList().add(rgl);
+            execListAdded(rgl);
 
             // calculate the expected time for cloudlet completion
             // first: how many PEs do we have?
@@ -335,21 +395,23 @@ public class CloudletSchedulerTimeSharedEdge extends CloudletScheduler {
      * @post $none
      */
     public double cloudletSubmit(EdgeLet cloudlet, double fileTransferTime) {
-        ResEdgeLet rcl = new ResEdgeLet(cloudlet);
+        ResEdgeLet rcl = edgeLetPool.newResEdgeLet(cloudlet);
         rcl.setCloudletStatus(Cloudlet.INEXEC);
         for (int i = 0; i < cloudlet.getNumberOfPes(); i++) {
             rcl.setMachineAndPeId(0, i);
         }
 
         getCloudletExecList().add(rcl);
+        execListAdded(rcl);
 
         // use the current capacity to estimate the extra amount of
         // time to file transferring. It must be added to the cloudlet length
-        double extraSize = getCapacity(getCurrentMipsShare()) * fileTransferTime;
+        double capacity = getCapacity(getCurrentMipsShare());
+        double extraSize = capacity * fileTransferTime;
         long length = (long) (cloudlet.getCloudletLength() + extraSize);
         cloudlet.setCloudletLength(length);
 
-        return cloudlet.getCloudletLength() / getCapacity(getCurrentMipsShare());
+        return cloudlet.getCloudletLength() / capacity;
     }
 
     public double cloudletSubmit(Cloudlet cloudlet, double fileTransferTime) {
@@ -439,7 +501,10 @@ public class CloudletSchedulerTimeSharedEdge extends CloudletScheduler {
     @Override
     public Cloudlet getNextFinishedCloudlet() {
         if (getCloudletFinishedList().size() > 0) {
-            return getCloudletFinishedList().remove(0).getCloudlet();
+            ResEdgeLet rcl = this.<ResEdgeLet> getCloudletFinishedList().remove(0);
+            Cloudlet cloudlet = rcl.getCloudlet();
+            edgeLetPool.release(rcl);
+            return cloudlet;
         }
         return null;
     }
@@ -466,12 +531,14 @@ public class CloudletSchedulerTimeSharedEdge extends CloudletScheduler {
     @Override
     public Cloudlet migrateCloudlet() {
         ResEdgeLet rgl = getCloudletExecList().remove(0);
+        execListRemoved(rgl);
         rgl.finalizeCloudlet();
         return rgl.getCloudlet();
     }
 
     /**
-     * Gets the cloudlet exec list.
+     * Gets the cloudlet exec list. Subclasses that add or remove cloudlets directly must
+     * call {@link #execListAdded(ResEdgeLet)} and {@link #execListRemoved(ResEdgeLet)}.
      *
      * @param <T> the generic type
      * @return the cloudlet exec list
@@ -494,6 +561,7 @@ public class CloudletSchedulerTimeSharedEdge extends CloudletScheduler {
      */
     protected <T extends ResEdgeLet> void setCloudletExecList(List<T> cloudletExecList) {
         this.cloudletExecList = cloudletExecList;
+        recountExecList();
     }
     /**
      * Gets the cloudlet paused list.
@@ -0,0 +1,370 @@
+package org.edge.core;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+import org.cloudbus.cloudsim.Cloudlet;
+import org.cloudbus.cloudsim.Consts;
+import org.cloudbus.cloudsim.ResCloudlet;
+import org.cloudbus.cloudsim.core.CloudSim;
+import org.edge.core.feature.EdgeLet;
+
+/**
+ * CloudletSchedulerVirtualTimeEdge shares the VM between edgelets like
+ * {@link CloudletSchedulerTimeSharedEdge}, but instead of updating every edgelet on every
+ * tick it keeps a virtual clock, as fair-queuing schedulers do.
+ * <p>
+ * All running edgelets progress at <tt>capacity * pes * sensorWeight</tt>, so the virtual
+ * clock advances by <tt>capacity</tt> per unit of simulation time and an edgelet with a
+ * remaining length of <tt>L</tt> finishes once the virtual clock has moved by
+ * <tt>L / (pes * sensorWeight)</tt>. The parent predicts the next event as
+ * <tt>L / (capacity * pes)</tt>, leaving the sensor weight out, and this scheduler keeps
+ * that prediction so both finish the edgelets at the same times. The edgelets are kept in
+ * one min-heap per pes and sensor weight keyed on their virtual finish time, as within
+ * such a heap that order is also the order of the predictions, so finding the finished
+ * edgelets and the next event is O(log n) per heap.
+ * <p>
+ * It is selected through <tt>cloudletSchedulerClassName</tt> of a MEL in the configuration.
+ * Unlike the parent, which fails on a sensor type that is missing from the sensor map, an
+ * unmapped sensor type, or one mapped to a weight below 1, counts with a weight of 1 both
+ * for its progress and for the capacity of the VM.
+ */
+public class CloudletSchedulerVirtualTimeEdge extends CloudletSchedulerTimeSharedEdge {
+
+    /**
+     * An edgelet in the heap. Entries are removed lazily: pausing or cancelling an edgelet
+     * only marks its entry as dead.
+     */
+    private static final class Entry implements Comparable<Entry> {
+        final ResEdgeLet rcl;
+        final int rate;
+        final double virtualStart;
+        final double virtualFinish;
+        final long serial;
+        boolean live = true;
+
+        Entry(ResEdgeLet rcl, int rate, double virtualStart, long serial) {
+            this.rcl = rcl;
+            this.rate = rate;
+            this.virtualStart = virtualStart;
+            this.virtualFinish = virtualStart + (double) rcl.getRemainingCloudletLength() / rate;
+            this.serial = serial;
+        }
+
+        @Override
+        public int compareTo(Entry o) {
+            int c = Double.compare(virtualFinish, o.virtualFinish);
+            return c != 0 ? c : Long.compare(serial, o.serial);
+        }
+    }
+
+    /** The running edgelets by cloudlet id, in submission order. */
+    private final Map<Integer, Entry> running;
+
+    /** The running edgelets by pes and sensor weight, ordered by virtual finish time. */
+    private final Map<Long, PriorityQueue<Entry>> finishQueues;
+
+    private static final Comparator<Entry> SUBMISSION_ORDER = new Comparator<Entry>() {
+        @Override
+        public int compare(Entry a, Entry b) {
+            return Long.compare(a.serial, b.serial);
+        }
+    };
+
+    /** The virtual clock, as of {@link #getPreviousTime()}. */
+    private double virtualTime;
+
+    private long serial;
+
+    public CloudletSchedulerVirtualTimeEdge() {
+        super();
+        running = new LinkedHashMap<Integer, Entry>();
+        finishQueues = new HashMap<Long, PriorityQueue<Entry>>();
+        virtualTime = 0;
+        serial = 0;
+    }
+
+    @Override
+    public double updateVmProcessing(double currentTime, List<Double> mipsShare) {
+        setCurrentMipsShare(mipsShare);
+        double timeSpam = currentTime - getPreviousTime();
+        virtualTime += getCapacity(mipsShare) * timeSpam;
+
+        if (running.isEmpty()) {
+            // nothing depends on the virtual clock, rebase it to keep it small
+            virtualTime = 0;
+            finishQueues.clear();
+            setPreviousTime(currentTime);
+            return 0.0;
+        }
+
+        // check finished cloudlets, they finish in the order they were submitted as in the
+        // exec list of the parent
+        List<Entry> finished = new ArrayList<Entry>();
+        for (PriorityQueue<Entry> finishQueue : finishQueues.values()) {
+            Entry head;
+            while ((head = peekLive(finishQueue)) != null && getRemaining(head) < 1) {
+                finishQueue.poll();
+                finished.add(head);
+            }
+        }
+        Collections.sort(finished, SUBMISSION_ORDER);
+        for (Entry entry : finished) {
+            cloudletFinish(stopRunning(entry));
+        }
+
+        setPreviousTime(currentTime);
+        if (running.isEmpty()) {
+            virtualTime = 0;
+            finishQueues.clear();
+            return 0.0;
+        }
+
+        // estimate finish time of cloudlets, the earliest of each heap
+        double capacity = getCapacity(mipsShare);
+        double nextEvent = Double.MAX_VALUE;
+        for (PriorityQueue<Entry> finishQueue : finishQueues.values()) {
+            Entry head = peekLive(finishQueue);
+            if (head == null) {
+                continue;
+            }
+            double estimatedFinishTime = currentTime
+                    + getRemaining(head) / (capacity * head.rcl.getNumberOfPes());
+            if (estimatedFinishTime - currentTime < CloudSim.getMinTimeBetweenEvents()) {
+                estimatedFinishTime = currentTime + CloudSim.getMinTimeBetweenEvents();
+            }
+            if (estimatedFinishTime < nextEvent) {
+                nextEvent = estimatedFinishTime;
+            }
+        }
+        return nextEvent;
+    }
+
+    @Override
+    public double cloudletSubmit(EdgeLet cloudlet, double fileTransferTime) {
+        ResEdgeLet rcl = edgeLetPool.newResEdgeLet(cloudlet);
+        rcl.setCloudletStatus(Cloudlet.INEXEC);
+        for (int i = 0; i < cloudlet.getNumberOfPes(); i++) {
+            rcl.setMachineAndPeId(0, i);
+        }
+
+        // the capacity accounts for the new cloudlet, but its length must be final
+        // before the entry computes its virtual finish time
+        execListAdded(rcl);
+        double capacity = getCapacity(getCurrentMipsShare());
+        double extraSize = capacity * fileTransferTime;
+        long length = (long) (cloudlet.getCloudletLength() + extraSize);
+        cloudlet.setCloudletLength(length);
+        enqueue(rcl);
+
+        return cloudlet.getCloudletLength() / capacity;
+    }
+
+    @Override
+    public Cloudlet cloudletCancel(int cloudletId) {
+        Iterator<ResEdgeLet> finished = this.<ResEdgeLet> getCloudletFinishedList().iterator();
+        while (finished.hasNext()) {
+            ResEdgeLet rcl = finished.next();
+            if (rcl.getCloudletId() == cloudletId) {
+                finished.remove();
+                return rcl.getCloudlet();
+            }
+        }
+
+        Entry entry = running.get(cloudletId);
+        if (entry != null) {
+            ResEdgeLet rcl = stopRunning(entry);
+            if (rcl.getRemainingCloudletLength() == 0) {
+                cloudletFinish(rcl);
+            } else {
+                rcl.setCloudletStatus(Cloudlet.CANCELED);
+            }
+            return rcl.getCloudlet();
+        }
+
+        Iterator<ResEdgeLet> paused = this.<ResEdgeLet> getCloudletPausedList().iterator();
+        while (paused.hasNext()) {
+            ResEdgeLet rcl = paused.next();
+            if (rcl.getCloudletId() == cloudletId) {
+                rcl.setCloudletStatus(Cloudlet.CANCELED);
+                paused.remove();
+                return rcl.getCloudlet();
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public boolean cloudletPause(int cloudletId) {
+        Entry entry = running.get(cloudletId);
+        if (entry == null) {
+            return false;
+        }
+        ResEdgeLet rcl = stopRunning(entry);
+        if (rcl.getRemainingCloudletLength() == 0) {
+            cloudletFinish(rcl);
+        } else {
+            rcl.setCloudletStatus(Cloudlet.PAUSED);
+            getCloudletPausedList().add(rcl);
+        }
+        return true;
+    }
+
+    @Override
+    public double cloudletResume(int cloudletId) {
+        Iterator<ResEdgeLet> paused = this.<ResEdgeLet> getCloudletPausedList().iterator();
+        while (paused.hasNext()) {
+            ResEdgeLet rgl = paused.next();
+            if (rgl.getCloudletId() == cloudletId) {
+                paused.remove();
+                rgl.setCloudletStatus(Cloudlet.INEXEC);
+                execListAdded(rgl);
+                enqueue(rgl);
+
+                double remainingLength = rgl.getRemainingCloudletLength();
+                return CloudSim.clock()
+                        + (remainingLength / (getCapacity(getCurrentMipsShare()) * rgl.getNumberOfPes()));
+            }
+        }
+        return 0.0;
+    }
+
+    @Override
+    public int getCloudletStatus(int cloudletId) {
+        Entry entry = running.get(cloudletId);
+        if (entry != null) {
+            return entry.rcl.getCloudletStatus();
+        }
+        for (ResEdgeLet rcl : this.<ResEdgeLet> getCloudletPausedList()) {
+            if (rcl.getCloudletId() == cloudletId) {
+                return rcl.getCloudletStatus();
+            }
+        }
+        return -1;
+    }
+
+    @Override
+    public double getTotalUtilizationOfCpu(double time) {
+        double totalUtilization = 0;
+        for (Entry entry : running.values()) {
+            totalUtilization += entry.rcl.getCloudlet().getUtilizationOfCpu(time);
+        }
+        return totalUtilization;
+    }
+
+    @Override
+    public int runningCloudlets() {
+        return running.size();
+    }
+
+    @Override
+    public Cloudlet migrateCloudlet() {
+        Entry entry = running.values().iterator().next();
+        ResEdgeLet rgl = stopRunning(entry);
+        rgl.finalizeCloudlet();
+        return rgl.getCloudlet();
+    }
+
+    @Override
+    public double getCurrentRequestedUtilizationOfRam() {
+        double ram = 0;
+        for (Entry entry : running.values()) {
+            ram += entry.rcl.getCloudlet().getUtilizationOfRam(CloudSim.clock());
+        }
+        return ram;
+    }
+
+    @Override
+    public double getCurrentRequestedUtilizationOfBw() {
+        double bw = 0;
+        for (Entry entry : running.values()) {
+            bw += entry.rcl.getCloudlet().getUtilizationOfBw(CloudSim.clock());
+        }
+        return bw;
+    }
+
+    @Override
+    public double getTotalCurrentAvailableMipsForCloudlet(ResCloudlet rcl, List<Double> mipsShare) {
+        return getCapacity(getCurrentMipsShare());
+    }
+
+    @Override
+    protected void recountExecList() {
+        pesInUse = 0;
+        sensorWeightInUse = 0;
+        if (running == null) {
+            return;
+        }
+        for (Entry entry : running.values()) {
+            execListAdded(entry.rcl);
+        }
+    }
+
+    /**
+     * @return the weight from the sensor map, 1 if the sensor type is not mapped or its
+     *         weight is below 1
+     */
+    @Override
+    protected int getSensorWeight(ResEdgeLet rcl) {
+        return Math.max(1, super.getSensorWeight(rcl));
+    }
+
+    /**
+     * Adds an edgelet that has already been accounted for by {@link #execListAdded(ResEdgeLet)}
+     * to the running set.
+     */
+    private void enqueue(ResEdgeLet rcl) {
+        int pes = rcl.getNumberOfPes();
+        int weight = getSensorWeight(rcl);
+        Entry entry = new Entry(rcl, pes * weight, virtualTime, serial++);
+        running.put(rcl.getCloudletId(), entry);
+        long key = ((long) pes << 32) | weight;
+        PriorityQueue<Entry> finishQueue = finishQueues.get(key);
+        if (finishQueue == null) {
+            finishQueue = new PriorityQueue<Entry>();
+            finishQueues.put(key, finishQueue);
+        }
+        finishQueue.add(entry);
+    }
+
+    private void removeRunning(Entry entry) {
+        entry.live = false;
+        running.remove(entry.rcl.getCloudletId());
+        execListRemoved(entry.rcl);
+    }
+
+    /**
+     * Takes a running edgelet out of the heap and writes the work it has done so far back
+     * to it.
+     */
+    private ResEdgeLet stopRunning(Entry entry) {
+        removeRunning(entry);
+        entry.rcl.updateCloudletFinishedSoFar(
+                (long) ((virtualTime - entry.virtualStart) * entry.rate * Consts.MILLION));
+        return entry.rcl;
+    }
+
+    private Entry peekLive(PriorityQueue<Entry> finishQueue) {
+        Entry head = finishQueue.peek();
+        while (head != null && !head.live) {
+            finishQueue.poll();
+            head = finishQueue.peek();
+        }
+        return head;
+    }
+
+    /**
+     * @return the remaining length in MI of a running edgelet
+     */
+    private double getRemaining(Entry entry) {
+        return (entry.virtualFinish - virtualTime) * entry.rate;
+    }
+
+}
@@ -6,8 +6,8 @@ import org.edge.core.feature.EdgeLet;
 
 public class ResEdgeLet {
 
-    /** The Cloudlet object. */
-    public final EdgeLet edgelet;
+    /** The Cloudlet object, replaced when the object is reused by {@link #reuse(EdgeLet)}. */
+    public EdgeLet edgelet;
 
     /** The Cloudlet arrival time for the first time. */
     private double arrivalTime;
@@ -108,6 +108,21 @@ public class ResEdgeLet {
         init();
     }
 
+    /**
+     * Sets this object up for another edgelet as if it had been created for it. Only objects
+     * created without a reservation can be reused.
+     *
+     * @param edgelet an edgelet object
+     * @see org.edge.core.feature.EdgeLetPool
+     */
+    public void reuse(EdgeLet edgelet) {
+        this.edgelet = edgelet;
+        machineArrayId = null;
+        peArrayId = null;
+
+        init();
+    }
+
     /**
      * Gets the Cloudlet or reservation start time.
      *
@@ -0,0 +1,154 @@
+package org.edge.core.edge;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+
+import org.edge.entity.ConnectionHeader;
+
+/**
+ * the connections between iot devices and vms the broker knows about, keyed by
+ * (ioTId, vmId). inserting, removing and looking up a connection are O(1) and
+ * the connections are iterated in the order they have been added.
+ * <p>
+ * a connection header is mutable, when the vm of a registered header is
+ * changed the registry must be told by {@link #update(ConnectionHeader)}.
+ */
+public class ConnectionRegistry {
+
+	private final LinkedHashMap<Long, ConnectionHeader> connections;
+	/**
+	 * the key each registered header has been stored under
+	 */
+	private final IdentityHashMap<ConnectionHeader, Long> keys;
+	private final Map<Integer, Set<ConnectionHeader>> byVm;
+	private final Map<Integer, Set<ConnectionHeader>> byIoT;
+
+	public ConnectionRegistry() {
+		this.connections = new LinkedHashMap<>();
+		this.keys = new IdentityHashMap<>();
+		this.byVm = new HashMap<>();
+		this.byIoT = new HashMap<>();
+	}
+
+	/**
+	 * @param header
+	 * @return false if there already is a connection between the iot device and
+	 *         the vm, the registry keeps one connection per pair
+	 */
+	public boolean add(ConnectionHeader header) {
+		long key = key(header.ioTId, header.vmId);
+		if (this.connections.containsKey(key) || this.keys.containsKey(header))
+			return false;
+		this.connections.put(key, header);
+		this.keys.put(header, key);
+		this.byVm.computeIfAbsent(header.vmId, id -> new LinkedHashSet<>()).add(header);
+		this.byIoT.computeIfAbsent(header.ioTId, id -> new LinkedHashSet<>()).add(header);
+		return true;
+	}
+
+	public void addAll(Collection<ConnectionHeader> headers) {
+		for (ConnectionHeader header : headers) {
+			this.add(header);
+		}
+	}
+
+	/**
+	 * @param ioTId
+	 * @param vmId
+	 * @return the removed connection or null
+	 */
+	public ConnectionHeader remove(int ioTId, int vmId) {
+		ConnectionHeader header = this.connections.remove(key(ioTId, vmId));
+		if (header == null)
+			return null;
+		this.keys.remove(header);
+		removeFromView(this.byVm, vmId, header);
+		removeFromView(this.byIoT, ioTId, header);
+		return header;
+	}
+
+	/**
+	 * move a registered header to its current (ioTId, vmId), nothing happens if the
+	 * header is not registered
+	 *
+	 * @param header
+	 */
+	public void update(ConnectionHeader header) {
+		Long key = this.keys.get(header);
+		if (key == null || key == key(header.ioTId, header.vmId))
+			return;
+		this.remove((int) (key >> 32), (int) (long) key);
+		this.add(header);
+	}
+
+	public ConnectionHeader get(int ioTId, int vmId) {
+		return this.connections.get(key(ioTId, vmId));
+	}
+
+	public boolean contains(int ioTId, int vmId) {
+		return this.connections.containsKey(key(ioTId, vmId));
+	}
+
+	/**
+	 * @param vmId
+	 * @return the connections of the vm, read only
+	 */
+	public Set<ConnectionHeader> getByVm(int vmId) {
+		return view(this.byVm, vmId);
+	}
+
+	/**
+	 * @param ioTId
+	 * @return the connections of the iot device, read only
+	 */
+	public Set<ConnectionHeader> getByIoT(int ioTId) {
+		return view(this.byIoT, ioTId);
+	}
+
+	/**
+	 * @return all the connections in the order they have been added, read only
+	 */
+	public Collection<ConnectionHeader> getConnections() {
+		return Collections.unmodifiableCollection(this.connections.values());
+	}
+
+	public boolean isEmpty() {
+		return this.connections.isEmpty();
+	}
+
+	public int size() {
+		return this.connections.size();
+	}
+
+	public void clear() {
+		this.connections.clear();
+		this.keys.clear();
+		this.byVm.clear();
+		this.byIoT.clear();
+	}
+
+	private static long key(int ioTId, int vmId) {
+		return ((long) ioTId << 32) | (vmId & 0xffffffffL);
+	}
+
+	private static Set<ConnectionHeader> view(Map<Integer, Set<ConnectionHeader>> views, int id) {
+		Set<ConnectionHeader> set = views.get(id);
+		return set == null ? Collections.emptySet() : Collections.unmodifiableSet(set);
+	}
+
+	private static void removeFromView(Map<Integer, Set<ConnectionHeader>> views, int id, ConnectionHeader header) {
+		Set<ConnectionHeader> set = views.get(id);
+		if (set == null)
+			return;
+		set.remove(header);
+		if (set.isEmpty())
+			views.remove(id);
+	}
+
+}
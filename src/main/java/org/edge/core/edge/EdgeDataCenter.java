@@ -1,6 +1,10 @@
 package org.edge.core.edge;
 
+import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 import org.cloudbus.cloudsim.*;
 import org.cloudbus.cloudsim.core.CloudSim;
@@ -10,9 +14,12 @@ import org.edge.core.CloudletSchedulerTimeSharedEdge;
 import org.edge.core.feature.EdgeLet;
 import org.edge.core.feature.EdgeState;
 import org.edge.core.iot.IoTDevice;
+import org.edge.core.kernel.SimulationContext;
 import org.edge.entity.ConnectionHeader;
 import org.edge.entity.DevicesInfo;
 import org.edge.protocol.CommunicationProtocol;
+import org.edge.utils.EventTrace;
+import org.edge.utils.EventTraceRecord;
 import org.edge.utils.LogUtil;
 
 
@@ -34,11 +41,29 @@ public class EdgeDataCenter extends Datacenter {
 		this.characteristics = characteristics;
 	}
 
+	private EdgeDeviceIndex edgeDeviceIndex;
+	private final SimulationContext context;
+	/**
+	 * the vms created in this data center by id, a vm knows its edge device
+	 */
+	private final Map<Integer, Vm> vmsById = new HashMap<>();
+
+	/**
+	 * @return the spatial index over the edge devices of this data center, built
+	 *         on first use so that every device has got its location by then
+	 */
+	public EdgeDeviceIndex getEdgeDeviceIndex() {
+		if (this.edgeDeviceIndex == null)
+			this.edgeDeviceIndex = new EdgeDeviceIndex(this.getHostList());
+		return this.edgeDeviceIndex;
+	}
+
 	public EdgeDataCenter(String name, EdgeDatacenterCharacteristics characteristics,
 			VmAllocationPolicy vmAllocationPolicy, List<Storage> storageList, double schedulingInterval)
 					throws Exception {
 		super(name, characteristics, vmAllocationPolicy, storageList, schedulingInterval);
 		this.characteristics = characteristics;
+		this.context = SimulationContext.current();
 	}
 
 	@Override
@@ -63,6 +88,7 @@ public class EdgeDataCenter extends Datacenter {
 
 		if (result) {
 			getVmList().add(vm);
+			this.vmsById.put(vm.getId(), vm);
 
 			if (vm.isBeingInstantiated()) {
 				vm.setBeingInstantiated(false);
@@ -74,13 +100,59 @@ public class EdgeDataCenter extends Datacenter {
 
 	}
 
+	@Override
+	protected void processVmDestroy(SimEvent ev, boolean ack) {
+		Vm vm = (Vm) ev.getData();
+		super.processVmDestroy(ev, ack);
+		this.vmsById.remove(vm.getId());
+	}
+
 	@Override
 	protected void processCloudletSubmit(SimEvent ev, boolean ack) {
 		updateCloudletProcessing();
 
+		double estimatedFinishTime = this.submitEdgeLet(ev.getData(), ack);
+		if (estimatedFinishTime > 0.0) {
+			send(getId(), estimatedFinishTime, CloudSimTags.VM_DATACENTER_EVENT);
+		}
+
+		checkCloudletCompletion();
+	}
+
+	/**
+	 * submit the edgelets the broker has batched up with one update of the
+	 * cloudlet processing before and one completion check after them
+	 *
+	 * @param ev its data is the list of edgelets
+	 */
+	protected void processCloudletSubmitBatch(SimEvent ev) {
+		updateCloudletProcessing();
+
+		List<?> edgeLets = (List<?>) ev.getData();
+		// one event is enough for the edgelets that finish at the same time
+		Set<Double> estimatedFinishTimes = new LinkedHashSet<>();
+		for (Object edgeLet : edgeLets) {
+			double estimatedFinishTime = this.submitEdgeLet(edgeLet, false);
+			if (estimatedFinishTime > 0.0)
+				estimatedFinishTimes.add(estimatedFinishTime);
+		}
+		for (double estimatedFinishTime : estimatedFinishTimes) {
+			send(getId(), estimatedFinishTime, CloudSimTags.VM_DATACENTER_EVENT);
+		}
+
+		checkCloudletCompletion();
+	}
+
+	/**
+	 * @param edgeLet the submitted edgelet
+	 * @param ack
+	 * @return the delay until the edgelet is estimated to finish, 0 if it is not
+	 *         executing
+	 */
+	private double submitEdgeLet(Object edgeLet, boolean ack) {
 		try {
 			// gets the Cloudlet object
-			EdgeLet cl = (EdgeLet) ev.getData();
+			EdgeLet cl = (EdgeLet) edgeLet;
 
 			// checks whether this Cloudlet has finished or not
 			if (cl.isFinished()) {
@@ -108,7 +180,7 @@ public class EdgeDataCenter extends Datacenter {
 
 				sendNow(cl.getUserId(), CloudSimTags.CLOUDLET_RETURN, cl);
 
-				return;
+				return 0.0;
 			}
 
 			// process this Cloudlet to this CloudResource
@@ -130,7 +202,8 @@ public class EdgeDataCenter extends Datacenter {
 			// if this cloudlet is in the exec queue
 			if (estimatedFinishTime > 0.0 && !Double.isInfinite(estimatedFinishTime)) {
 				estimatedFinishTime += fileTransferTime;
-				send(getId(), estimatedFinishTime, CloudSimTags.VM_DATACENTER_EVENT);
+			} else {
+				estimatedFinishTime = 0.0;
 			}
 
 			if (ack) {
@@ -143,6 +216,7 @@ public class EdgeDataCenter extends Datacenter {
 				int tag = CloudSimTags.CLOUDLET_SUBMIT_ACK;
 				sendNow(cl.getUserId(), tag, data);
 			}
+			return estimatedFinishTime;
 		} catch (ClassCastException c) {
 			Log.printLine(getName() + ".processCloudletSubmit(): " + "ClassCastException error.");
 			c.printStackTrace();
@@ -150,14 +224,14 @@ public class EdgeDataCenter extends Datacenter {
 			Log.printLine(getName() + ".processCloudletSubmit(): " + "Exception error.");
 			e.printStackTrace();
 		}
-
-		checkCloudletCompletion();
+		return 0.0;
 	}
 
+
 	@Override
 	public void processEvent(SimEvent ev) {
 		// TODO Auto-generated method stub
-
+		EventTrace.record(ev, EventTraceRecord.NONE);
 		super.processEvent(ev);
 	}
 
@@ -173,6 +247,9 @@ public class EdgeDataCenter extends Datacenter {
 		case EdgeState.LOST_CONNECTION:
 			this.processConnectionLost(ev);
 			break;
+		case EdgeState.CLOUDLET_SUBMIT_BATCH:
+			this.processCloudletSubmitBatch(ev);
+			break;
 
 		default:
 			break;
@@ -258,10 +335,19 @@ public class EdgeDataCenter extends Datacenter {
 
 	/**
 	 * get network delay between edge device and iot device.
-	 * for now, it simply return 0
 	 * @param devicesInfo 
 	 */
 	private double getNeworkDelay(DevicesInfo devicesInfo) {
-		return 0;
+		IoTDevice ioTDevice = (IoTDevice) CloudSim.getEntity(devicesInfo.ioTDeviceId);
+		return this.context.getNetworkDelays().getDelay(ioTDevice, this.getEdgeDevice(devicesInfo.vmId));
+	}
+
+	/**
+	 * @param vmId
+	 * @return the edge device hosting the vm, null if it is not in this data center
+	 */
+	private EdgeDevice getEdgeDevice(int vmId) {
+		Vm vm = this.vmsById.get(vmId);
+		return vm == null ? null : (EdgeDevice) vm.getHost();
 	}
-}
\ No newline at end of file
+}
@@ -1,13 +1,13 @@
 package org.edge.core.edge;
 
 import java.util.ArrayList;
-import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 import org.cloudbus.cloudsim.*;
 import org.cloudbus.cloudsim.core.CloudSim;
 import org.cloudbus.cloudsim.core.CloudSimTags;
-import org.cloudbus.cloudsim.core.SimEntity;
 import org.cloudbus.cloudsim.core.SimEvent;
 import org.cloudbus.cloudsim.lists.VmList;
 import org.edge.core.CloudletSchedulerTimeSharedEdge;
@@ -15,11 +15,16 @@ import org.edge.core.feature.EdgeLet;
 import org.edge.core.feature.EdgeState;
 import org.edge.core.feature.Mobility.Location;
 import org.edge.core.iot.IoTDevice;
+import org.edge.core.kernel.SimulationContext;
 import org.edge.entity.ConnectionHeader;
 import org.edge.entity.ConnectionHeader.Direction;
 import org.edge.entity.DevicesInfo;
+import org.edge.entity.EdgeLetBundle;
 import org.edge.exception.MicroElementNotFoundException;
+import org.edge.utils.EventTrace;
+import org.edge.utils.EventTraceRecord;
 import org.edge.utils.LogUtil;
+import org.edge.utils.LogUtil.Level;
 
 /**
  * this a network manager and decision maker for setting up connection and event
@@ -30,24 +35,142 @@ import org.edge.utils.LogUtil;
  */
 public class EdgeDataCenterBroker extends DatacenterBroker {
 
-	private List<ConnectionHeader> connectionInfos;
+	private final ConnectionRegistry connectionRegistry;
 	private boolean init = false;
+	private final MicroElementIndex microElementIndex;
+	/**
+	 * edgelets waiting to be submitted, by data center
+	 */
+	private final Map<Integer, List<Cloudlet>> submitBatches;
+	private double submitBatchWindow = -1;
+	private boolean flushScheduled = false;
+	private final EdgeLetMetrics metrics;
+	private final SimulationContext context;
+	private boolean retainEdgeLets = false;
+
+	public MicroElementIndex getMicroElementIndex() {
+		return this.microElementIndex;
+	}
 
+	public ConnectionRegistry getConnectionRegistry() {
+		return this.connectionRegistry;
+	}
+
+	/**
+	 * @return a copy of the connections in the order they have been submitted
+	 */
 	public List<ConnectionHeader> getConnectionInfos() {
-		return this.connectionInfos;
+		return new ArrayList<>(this.connectionRegistry.getConnections());
 	}
 
 	public void setConnectionInfos(List<ConnectionHeader> connectionInfos) {
-		this.connectionInfos = connectionInfos;
+		this.connectionRegistry.clear();
+		this.connectionRegistry.addAll(connectionInfos);
 	}
 
 	public EdgeDataCenterBroker(String name) throws Exception {
 		super(name);
-		this.connectionInfos = new ArrayList<>();
+		this.connectionRegistry = new ConnectionRegistry();
+		this.microElementIndex = new MicroElementIndex();
+		this.submitBatches = new LinkedHashMap<>();
+		this.metrics = new EdgeLetMetrics();
+		this.context = SimulationContext.current();
+	}
+
+	/**
+	 * @return the statistics of the edgelets returned so far
+	 */
+	public EdgeLetMetrics getMetrics() {
+		return this.metrics;
+	}
+
+	public boolean isRetainEdgeLets() {
+		return this.retainEdgeLets;
+	}
+
+	/**
+	 * keep every submitted and received edgelet in the cloudlet submitted and
+	 * received lists. they are not kept by default, the metrics are enough for
+	 * the report; pooled edgelets are never kept.
+	 *
+	 * @param retainEdgeLets
+	 */
+	public void setRetainEdgeLets(boolean retainEdgeLets) {
+		this.retainEdgeLets = retainEdgeLets;
+	}
+
+	private boolean keepsEdgeLets() {
+		return this.retainEdgeLets && !this.context.getEdgeLetPool().isEnabled();
+	}
+
+	public double getSubmitBatchWindow() {
+		return this.submitBatchWindow;
+	}
+
+	/**
+	 * edgelets submitted to the same data center within the window are sent to it
+	 * in one event and processed in one scheduler update
+	 *
+	 * @param submitBatchWindow in simulation time, 0 batches the edgelets
+	 *                          submitted at the same instant, a negative window
+	 *                          sends every edgelet on its own
+	 */
+	public void setSubmitBatchWindow(double submitBatchWindow) {
+		this.submitBatchWindow = submitBatchWindow;
+	}
+
+	@Override
+	public void submitVmList(List<? extends Vm> list) {
+		super.submitVmList(list);
+		for (Vm vm : list) {
+			if (vm instanceof MicroELement) {
+				this.microElementIndex.register((MicroELement) vm);
+			}
+		}
+	}
+
+	/**
+	 * besides the default behaviour, the created vm will be bound to its edge
+	 * device and data center in the index
+	 */
+	@Override
+	protected void processVmCreate(SimEvent ev) {
+		super.processVmCreate(ev);
+		int[] data = (int[]) ev.getData();
+		int datacenterId = data[0];
+		int vmId = data[1];
+		if (data[2] != CloudSimTags.TRUE)
+			return;
+		MicroELement microELement = this.microElementIndex.getMicroElement(vmId);
+		if (microELement == null)
+			return;
+		Host host = microELement.getHost();
+		EdgeDevice device = host instanceof EdgeDevice ? (EdgeDevice) host : null;
+		this.microElementIndex.bind(vmId, device, (EdgeDataCenter) CloudSim.getEntity(datacenterId));
+	}
+
+	@Override
+	protected void clearDatacenters() {
+		super.clearDatacenters();
+		this.microElementIndex.unbindAll();
+	}
+
+	/**
+	 * @param vmId
+	 * @return the MicroELement with this id
+	 * @throws MicroElementNotFoundException if the vm has not been submitted to
+	 *                                       this broker
+	 */
+	private MicroELement getMicroElement(int vmId) {
+		MicroELement microELement = this.microElementIndex.getMicroElement(vmId);
+		if (microELement == null)
+			throw new MicroElementNotFoundException("cannot find MicroElement " + vmId);
+		return microELement;
 	}
 
 	@Override
 	public void processEvent(SimEvent ev) {
+		EventTrace.record(ev, EventTraceRecord.NONE);
 		switch (ev.getTag()) {
 		// Resource characteristics request
 		case CloudSimTags.RESOURCE_CHARACTERISTICS_REQUEST:
@@ -68,6 +191,7 @@ public class EdgeDataCenterBroker extends DatacenterBroker {
 			// LogUtil.info("actuing");
 			dataShrinkAndSendToDownLink(ev);
 			//this.actuating(ev);
+			this.context.getEdgeLetPool().release((EdgeLet) ev.getData());
 			break;
 		// if the simulation finishes
 		case CloudSimTags.END_OF_SIMULATION:
@@ -85,25 +209,27 @@ public class EdgeDataCenterBroker extends DatacenterBroker {
 
 		EdgeLet data = (EdgeLet) ev.getData();
 		int vmId = data.getVmId();
-		List<Vm> vmList2 = getVmList();
-		MicroELement findFirst = (MicroELement) vmList2.stream().filter(t -> t.getId() == vmId).findFirst()
-				.orElseThrow(MicroElementNotFoundException::new);
+		MicroELement findFirst = this.getMicroElement(vmId);
 		List<MicroELement> downLink = findFirst.getDownLink();
 		double shrinkingFactor = findFirst.getEdgeOperation().getShinkingFactor();
 		for (MicroELement microELement : downLink) {
-			EdgeLet newInstance = data.newInstance(IoTDevice.cloudLetId++, shrinkingFactor);
+			EdgeLet newInstance = data.newInstance(this.context.nextEdgeLetId(), shrinkingFactor);
 			newInstance.sensorType = data.sensorType;
+			newInstance.sensoryData = data.sensoryData;
 
 			// added by Areeb
-			LogUtil.info("microELement.getId() " + microELement.getId());
+			if (LogUtil.isEnabled(Level.INFOR))
+				LogUtil.info("microELement.getId() " + microELement.getId());
 
 			data.getConnectionHeader().vmId=microELement.getId();
 			newInstance.setConnectionHeader(data.getConnectionHeader());
 			newInstance.setVmId(microELement.getId());
 			newInstance.setUserId(this.getId());
 			
-			LogUtil.info("shrinked Edgelet " + newInstance.getCloudletId() + " sent from microELement "
-					+ findFirst.getId() + " to microELement " + microELement.getId());
+			if (LogUtil.isEnabled(Level.INFOR)) {
+				LogUtil.info("shrinked Edgelet " + newInstance.getCloudletId() + " sent from microELement "
+						+ findFirst.getId() + " to microELement " + microELement.getId());
+			}
 			this.send(getId(), 0, EdgeState.SENDING_TO_EDGE, newInstance);
 
 		}
@@ -112,8 +238,11 @@ public class EdgeDataCenterBroker extends DatacenterBroker {
 	@Override
 	protected void processCloudletReturn(SimEvent ev) {
 		EdgeLet cloudlet = (EdgeLet) ev.getData();
-		this.getCloudletReceivedList().add(cloudlet);
-		Log.printLine(CloudSim.clock() + ": " + getName() + ": Cloudlet " + cloudlet.getCloudletId() + " received");
+		this.metrics.record(cloudlet);
+		if (this.keepsEdgeLets())
+			this.getCloudletReceivedList().add(cloudlet);
+		if (!Log.isDisabled())
+			Log.printLine(CloudSim.clock() + ": " + getName() + ": Cloudlet " + cloudlet.getCloudletId() + " received");
 		this.cloudletsSubmitted--;
 
 		/*
@@ -137,20 +266,25 @@ public class EdgeDataCenterBroker extends DatacenterBroker {
 		double networkDelay = this.getNetworkDelay(new DevicesInfo(connectionHeader.ioTId, connectionHeader.vmId));
 		boolean availible = this.checkAvailiability(connectionHeader);
 		if (availible) {
-			LogUtil.info(CloudSim.clock() + " the edgelet " + let.getCloudletId() + " has been processed");
+			if (LogUtil.isEnabled(Level.INFOR))
+				LogUtil.info(CloudSim.clock() + " the edgelet " + let.getCloudletId() + " has been processed");
 			this.send(connectionHeader.ioTId, networkDelay, EdgeState.REQUEST_ACTUATING, let);
 		} else {
-			LogUtil.info(CloudSim.clock() + " the edgelet " + let.getCloudletId()
-					+ " has been processed but cannot find the ioT device, so try to pass edgelet to a near edge device");
+			if (LogUtil.isEnabled(Level.INFOR)) {
+				LogUtil.info(CloudSim.clock() + " the edgelet " + let.getCloudletId()
+						+ " has been processed but cannot find the ioT device, so try to pass edgelet to a near edge device");
+			}
 			Direction direction = connectionHeader.direction;
 			EdgeDevice availiableDevice = this.getNearByEdgeDevice(direction, connectionHeader);
 			// should not enter this step unless there are not available edge devices at
 			// all;
 			if (availiableDevice == null) {
-				LogUtil.info("lost connection with iot " + connectionHeader.ioTId + " when actuating");
+				LogUtil.info("lost connection with iot {} when actuating", connectionHeader.ioTId);
 			} else {
-				LogUtil.info("found a near edge " + availiableDevice.getId() + " and give  edgelet "
-						+ let.getCloudletId() + " to it");
+				if (LogUtil.isEnabled(Level.INFOR)) {
+					LogUtil.info("found a near edge " + availiableDevice.getId() + " and give  edgelet "
+							+ let.getCloudletId() + " to it");
+				}
 
 				availiableDevice.addPendingResponse(let);
 
@@ -162,46 +296,19 @@ public class EdgeDataCenterBroker extends DatacenterBroker {
 	}
 
 	private EdgeDevice getNearByEdgeDevice(Direction direction, ConnectionHeader connectionHeader) {
-		EdgeDataCenter entity = (EdgeDataCenter) CloudSim
-				.getEntity(this.getVmsToDatacentersMap().get(connectionHeader.vmId));
-		List<Host> hostList = entity.getHostList();
-		EdgeDevice device = null;
-		EdgeDevice previousDevice = null;
-		for (Host host : hostList) {
-			List<Vm> vmList2 = host.getVmList();
-			for (Vm vm : vmList2) {
-				if (vm.getId() == connectionHeader.vmId) {
-					previousDevice = (EdgeDevice) host;
-				}
-			}
-		}
+		MicroElementIndex.Entry entry = this.microElementIndex.get(connectionHeader.vmId);
 		// theoretically it cannot be null;
-		if (previousDevice == null)
+		if (entry == null || entry.device == null)
 			return null;
+		EdgeDevice previousDevice = entry.device;
+		EdgeDeviceIndex deviceIndex = entry.datacenter.getEdgeDeviceIndex();
+		double x = previousDevice.getLocation().location.x;
 		EdgeDevice availiableDevice = null;
-		for (Host host : hostList) {
-
-			device = (EdgeDevice) host;
-			// left direction
-			if (direction == Direction.LEFT) {
-				// if this device is on the left side of the previous device
-				if (device.getLocation().location.x < previousDevice.getLocation().location.x) {
-					// if there are enabled vm in this edgedevice
-					if (host.getVmList().size() > 0 && device.isEnabled()) {
-						availiableDevice = device;
-					}
-
-				}
-			} else if (direction == Direction.RIGHT) {
-				// if this device is on the right side of the previous device
-				if (device.getLocation().location.x > previousDevice.getLocation().location.x) {
-					// if there are enabled vm in this edgedevice
-					if (host.getVmList().size() > 0 && device.isEnabled()) {
-						availiableDevice = device;
-					}
-				}
-			}
-
+		// the index only holds enabled devices, it still needs to have got a vm
+		if (direction == Direction.LEFT) {
+			availiableDevice = deviceIndex.findNearestLeft(x, device -> device.getVmList().size() > 0);
+		} else if (direction == Direction.RIGHT) {
+			availiableDevice = deviceIndex.findNearestRight(x, device -> device.getVmList().size() > 0);
 		}
 
 		return availiableDevice;
@@ -214,57 +321,37 @@ public class EdgeDataCenterBroker extends DatacenterBroker {
 	 * @param connectionHeader
 	 */
 	private void updateHostBattery(ConnectionHeader connectionHeader) {
-		
-		EdgeDataCenter entity = (EdgeDataCenter) CloudSim
-				.getEntity(this.getVmsToDatacentersMap().get(connectionHeader.vmId));
-		List<Host> hostList = entity.getHostList();
-		for (Host host : hostList) {
-			List<Vm> vmList2 = host.getVmList();
-			for (Vm vm : vmList2) {
-				if (vm.getId() == connectionHeader.vmId) {
-					EdgeDevice device = (EdgeDevice) host;
-
-					//(double fileSize, double shrinkFactor,double drangeRateForProcess,double drangeRateForSending)
-					float shrink = vm.dataShrinkFactor;
-					if(vm.getId()==1)
-					device.updateBatteryByProcessingCloudLetAndSend(1000, shrink,0.1,0.6);
-					else
-						device.updateBatteryByProcessingCloudLetAndSend2(1000, shrink,0.1,0.6);
-					
-				}
-			}
-		}
+		MicroElementIndex.Entry entry = this.microElementIndex.get(connectionHeader.vmId);
+		if (entry == null || entry.device == null)
+			return;
+		EdgeDevice device = entry.device;
+		Vm vm = entry.microElement;
+
+		//(double fileSize, double shrinkFactor,double drangeRateForProcess,double drangeRateForSending)
+		float shrink = vm.dataShrinkFactor;
+		double capacity = device.getCurrentBatteryCapacity();
+		if(vm.getId()==1)
+		device.updateBatteryByProcessingCloudLetAndSend(1000, shrink,0.1,0.6);
+		else
+			device.updateBatteryByProcessingCloudLetAndSend2(1000, shrink,0.1,0.6);
+		this.metrics.addEnergy(vm.getId(), capacity - device.getCurrentBatteryCapacity());
 	}
 
 	private boolean checkAvailiability(ConnectionHeader connectionInfo) {
-		EdgeDataCenter entity = (EdgeDataCenter) CloudSim
-				.getEntity(this.getVmsToDatacentersMap().get(connectionInfo.vmId));
-		
-		//LogUtil.info("connectionInfo.vmId " + connectionInfo.vmId);
-		List<Host> hostList = entity.getHostList();
-		EdgeDevice device = null;
-		for (Host host : hostList) {
-			List<Vm> vmList2 = host.getVmList();
-			for (Vm vm : vmList2) {
-				if (vm.getId() == connectionInfo.vmId) {
-					device = (EdgeDevice) host;
-					IoTDevice entity2 = (IoTDevice) CloudSim.getEntity(connectionInfo.ioTId);
-					//LogUtil.info("connectionInfo.vmId " + connectionInfo.vmId);
-					Location location = device.getLocation().location;
-					Location location2 = entity2.getMobility().location;
-					double singalRange = device.getLocation().signalRange;
-					double distance = Math.sqrt( Math.pow(location2.x - location.x,2) +
-							Math.pow(location2.y - location.y,2) +
-							Math.pow(location2.z - location.z,2));
-					if (singalRange >= distance && device.isEnabled())
-						return true;
-
-				}
-			}
-
-		}
+		MicroElementIndex.Entry entry = this.microElementIndex.get(connectionInfo.vmId);
+		EdgeDevice device = entry == null ? null : entry.device;
 		if (device != null) {
-			this.send(entity.getId(), 0, EdgeState.LOST_CONNECTION, connectionInfo);
+			IoTDevice entity2 = (IoTDevice) CloudSim.getEntity(connectionInfo.ioTId);
+			//LogUtil.info("connectionInfo.vmId " + connectionInfo.vmId);
+			Location location = device.getLocation().location;
+			Location location2 = entity2.getMobility().location;
+			double singalRange = device.getLocation().signalRange;
+			double distance = Math.sqrt( Math.pow(location2.x - location.x,2) +
+					Math.pow(location2.y - location.y,2) +
+					Math.pow(location2.z - location.z,2));
+			if (singalRange >= distance && device.isEnabled())
+				return true;
+			this.send(entry.datacenter.getId(), 0, EdgeState.LOST_CONNECTION, connectionInfo);
 		}
 		// LogUtil.info("lost connection with ioT "+connectionInfo.ioTId);
 		return false;
@@ -301,10 +388,10 @@ public class EdgeDataCenterBroker extends DatacenterBroker {
 
 			ConnectionHeader header = (ConnectionHeader) ev.getData();
 			if (header.getSourceType()) {
-				LogUtil.info("broker received  connection ack  from ioT " + header.ioTId);
+				LogUtil.info("broker received  connection ack  from ioT {}", header.ioTId);
 				this.processConnectionAckFromIoT(ev);
 			} else {
-				LogUtil.info("broker received  connection ack  from vm " + header.vmId);
+				LogUtil.info("broker received  connection ack  from vm {}", header.vmId);
 				this.processConnectionAckFromEdge(ev);
 			}
 
@@ -316,7 +403,7 @@ public class EdgeDataCenterBroker extends DatacenterBroker {
 
 		case EdgeState.BATTERY_DRAINED:
 			DevicesInfo info3 = (DevicesInfo) ev.getData();
-			LogUtil.info("networkManager: remove iot device " + info3.ioTDeviceId + "'s connection");
+			LogUtil.info("networkManager: remove iot device {}'s connection", info3.ioTDeviceId);
 			this.removeConnection(info3);
 			break;
 
@@ -324,6 +411,14 @@ public class EdgeDataCenterBroker extends DatacenterBroker {
 			this.sendingDataToEdge(ev);
 			break;
 
+		case EdgeState.SENDING_BUNDLE_TO_EDGE:
+			this.sendingBundleToEdge(ev);
+			break;
+
+		case EdgeState.FLUSH_SUBMIT_BATCH:
+			this.flushSubmitBatches();
+			break;
+
 		}
 
 	}
@@ -336,16 +431,20 @@ public class EdgeDataCenterBroker extends DatacenterBroker {
 		
 		
 		// added by areeb to fix the problem if the header that is not fixed in sending from ML to ML
-		LogUtil.info("VMiD "+data.getVmId());
-		LogUtil.info("VMiD c "+data.getConnectionHeader().vmId);
+		if (LogUtil.isEnabled(Level.INFOR)) {
+			LogUtil.info("VMiD "+data.getVmId());
+			LogUtil.info("VMiD c "+data.getConnectionHeader().vmId);
+		}
 		
 		data.getConnectionHeader().vmId=data.getVmId();
 		boolean available = this.checkAvailiability(data.getConnectionHeader());
 		
 		
 		if (available) {
-			LogUtil.info(CloudSim.clock() + " broker received edgeLet " + data.getCloudletId() + " from iot "
-					+ data.getConnectionHeader().ioTId + " and send it to VM " + data.getConnectionHeader().vmId);
+			if (LogUtil.isEnabled(Level.INFOR)) {
+				LogUtil.info(CloudSim.clock() + " broker received edgeLet " + data.getCloudletId() + " from iot "
+						+ data.getConnectionHeader().ioTId + " and send it to VM " + data.getConnectionHeader().vmId);
+			}
 			List<EdgeLet> list = new ArrayList<>();
 			list.add(data);
 			this.submitCloudletList(list);
@@ -368,19 +467,22 @@ public class EdgeDataCenterBroker extends DatacenterBroker {
 				// assume that it can get connected
 				// send(entity.getId(),0,EdgeState.REQUEST_CONNECTION,data.getConnectionHeader());
 
-				LogUtil.info("broker received edgeLet " + data.getCloudletId() + " from iot "
-
-						+ data.getConnectionHeader().ioTId + " and its connection has switched to edge "
-						+ availableDevice.getId());
+				if (LogUtil.isEnabled(Level.INFOR)) {
+					LogUtil.info("broker received edgeLet " + data.getCloudletId() + " from iot "
+	
+							+ data.getConnectionHeader().ioTId + " and its connection has switched to edge "
+							+ availableDevice.getId());
+				}
 
-				data.setVmId(availableDevice.getVmList().get(0).getId());
+				// the header follows the switch, as for a bundle
+				int vmId = availableDevice.getVmList().get(0).getId();
+				data.getConnectionHeader().vmId = vmId;
+				data.setVmId(vmId);
 				List<EdgeLet> list = new ArrayList<>();
 				list.add(data);
 
-				int vmId = data.getVmId();
 				// increase the edgelet size by a factor of "increasingFactor"
-				MicroELement findFirst = (MicroELement) getVmList().stream().filter(vm -> vm.getId() == vmId)
-						.findFirst().orElseThrow(MicroElementNotFoundException::new);
+				MicroELement findFirst = this.getMicroElement(vmId);
 				double increasingFactor = findFirst.getEdgeOperation().getIncreasingFactor();
 
 				long value = (long) (data.getCloudletLength() * increasingFactor);
@@ -392,29 +494,84 @@ public class EdgeDataCenterBroker extends DatacenterBroker {
 			 
 			else {
 				LogUtil.info("Not Aval 2");
-				EdgeDataCenter entity = (EdgeDataCenter) CloudSim
-						.getEntity(this.getVmsToDatacentersMap().get(data.getConnectionHeader().vmId));
-				List<Host> hostList = entity.getHostList();
-				boolean allBatteriesEmpty = true;
-				inner: for (Host host : hostList) {
-					EdgeDevice device = (EdgeDevice) host;
-					double current_battery_capacity = device.getCurrentBatteryCapacity();
-					if (current_battery_capacity > 0) {
-						allBatteriesEmpty = false;
-						break inner;
-					}
+				this.noAvailableDevice(data.getConnectionHeader());
+			}
+		}
 
-				}
-				LogUtil.info("no available devices");
-				if (allBatteriesEmpty) {
-					LogUtil.info(
-							"there are no available edge devices in the environment so the simuation will be shutting down");
-					// CloudSim.abruptallyTerminate();
-					CloudSim.terminateSimulation();
-				}
+	}
+
+	/**
+	 * the edgelets of a bundle share one check of the connection, they are
+	 * submitted to the vm of the iot device or all switched to the same available
+	 * edge device
+	 *
+	 * @param ev its data is an EdgeLetBundle
+	 */
+	private void sendingBundleToEdge(SimEvent ev) {
+		EdgeLetBundle bundle = (EdgeLetBundle) ev.getData();
+		ConnectionHeader header = bundle.connectionHeader;
+		List<EdgeLet> edgeLets = bundle.edgeLets;
+		if (edgeLets.isEmpty())
+			return;
+
+		boolean available = this.checkAvailiability(header);
+		double increasingFactor = 1;
+		if (available) {
+			if (LogUtil.isEnabled(Level.INFOR)) {
+				LogUtil.info(CloudSim.clock() + " broker received a bundle of " + edgeLets.size() + " edgeLets from iot "
+						+ header.ioTId + " and send it to VM " + header.vmId);
 			}
+		} else {
+			EdgeDevice availableDevice = this.findAvailiableDevice(header);
+			if (availableDevice == null) {
+				this.noAvailableDevice(header);
+				return;
+			}
+			if (LogUtil.isEnabled(Level.INFOR)) {
+				LogUtil.info("broker received a bundle of " + edgeLets.size() + " edgeLets from iot " + header.ioTId
+						+ " and its connection has switched to edge " + availableDevice.getId());
+			}
+			header.vmId = availableDevice.getVmList().get(0).getId();
+			// increase the edgelet size by a factor of "increasingFactor"
+			increasingFactor = this.getMicroElement(header.vmId).getEdgeOperation().getIncreasingFactor();
 		}
 
+		for (EdgeLet edgeLet : edgeLets) {
+			edgeLet.getConnectionHeader().vmId = header.vmId;
+			edgeLet.setVmId(header.vmId);
+			if (!available)
+				edgeLet.setCloudletLength((long) (edgeLet.getCloudletLength() * increasingFactor));
+		}
+		this.submitCloudletList(edgeLets);
+		this.submitCloudlets(header, edgeLets.size());
+	}
+
+	/**
+	 * neither the vm of the iot device nor another edge device can take its data,
+	 * the simulation ends when every edge device has run out of battery
+	 *
+	 * @param connectionHeader
+	 */
+	private void noAvailableDevice(ConnectionHeader connectionHeader) {
+		EdgeDataCenter entity = this.microElementIndex.getDatacenter(connectionHeader.vmId);
+		List<Host> hostList = entity.getHostList();
+		boolean allBatteriesEmpty = true;
+		inner: for (Host host : hostList) {
+			EdgeDevice device = (EdgeDevice) host;
+			double current_battery_capacity = device.getCurrentBatteryCapacity();
+			if (current_battery_capacity > 0) {
+				allBatteriesEmpty = false;
+				break inner;
+			}
+
+		}
+		LogUtil.info("no available devices");
+		if (allBatteriesEmpty) {
+			LogUtil.info(
+					"there are no available edge devices in the environment so the simuation will be shutting down");
+			// CloudSim.abruptallyTerminate();
+			CloudSim.terminateSimulation();
+		}
 	}
 
 	/**
@@ -426,9 +583,68 @@ public class EdgeDataCenterBroker extends DatacenterBroker {
 	 * @param connectionHeader
 	 */
 	protected void submitCloudlets(ConnectionHeader connectionHeader) {
-		super.submitCloudlets();
+		this.submitCloudlets(connectionHeader, 1);
+	}
+
+	/**
+	 * @param connectionHeader
+	 * @param edgeLets         the number of edgelets of the iot device in the
+	 *                         cloudlet list, the battery is updated for each
+	 */
+	protected void submitCloudlets(ConnectionHeader connectionHeader, int edgeLets) {
+		if (this.submitBatchWindow < 0) {
+			super.submitCloudlets();
+			if (!this.keepsEdgeLets())
+				this.getCloudletSubmittedList().clear();
+		} else {
+			this.batchCloudlets();
+		}
 		this.checkAndSendCorrespondingReponse(connectionHeader);
-		this.updateHostBattery(connectionHeader);
+		for (int i = 0; i < edgeLets; i++) {
+			this.updateHostBattery(connectionHeader);
+		}
+	}
+
+	/**
+	 * move the cloudlets of the cloudlet list into the batches of their data
+	 * centers, the batches are flushed once the window has passed
+	 */
+	private void batchCloudlets() {
+		List<Cloudlet> batched = new ArrayList<>();
+		for (Cloudlet cloudlet : this.getCloudletList()) {
+			Vm vm = VmList.getById(this.getVmsCreatedList(), cloudlet.getVmId());
+			if (vm == null) {
+				if (!Log.isDisabled()) {
+					Log.printLine(CloudSim.clock() + ": " + this.getName() + ": Postponing execution of cloudlet "
+							+ cloudlet.getCloudletId() + ": bount VM not available");
+				}
+				continue;
+			}
+			if (!Log.isDisabled()) {
+				Log.printLine(CloudSim.clock() + ": " + this.getName() + ": Sending cloudlet "
+						+ cloudlet.getCloudletId() + " to VM #" + vm.getId());
+			}
+			int datacenterId = this.getVmsToDatacentersMap().get(vm.getId());
+			this.submitBatches.computeIfAbsent(datacenterId, id -> new ArrayList<>()).add(cloudlet);
+			batched.add(cloudlet);
+		}
+		this.getCloudletList().removeAll(batched);
+		if (!batched.isEmpty() && !this.flushScheduled) {
+			this.flushScheduled = true;
+			this.schedule(this.getId(), this.submitBatchWindow, EdgeState.FLUSH_SUBMIT_BATCH);
+		}
+	}
+
+	private void flushSubmitBatches() {
+		this.flushScheduled = false;
+		for (Map.Entry<Integer, List<Cloudlet>> entry : this.submitBatches.entrySet()) {
+			List<Cloudlet> batch = entry.getValue();
+			this.sendNow(entry.getKey(), EdgeState.CLOUDLET_SUBMIT_BATCH, batch);
+			this.cloudletsSubmitted += batch.size();
+			if (this.keepsEdgeLets())
+				this.getCloudletSubmittedList().addAll(batch);
+		}
+		this.submitBatches.clear();
 	}
 
 	/**
@@ -439,35 +655,17 @@ public class EdgeDataCenterBroker extends DatacenterBroker {
 	 */
 	private void checkAndSendCorrespondingReponse(ConnectionHeader connectionHeader) {
 		int vmId = connectionHeader.vmId;
-		EdgeDataCenter entity = (EdgeDataCenter) CloudSim.getEntity(this.getVmsToDatacentersMap().get(vmId));
-		List<Host> hostList = entity.getHostList();
-		EdgeDevice device = null;
-		for (Host host : hostList) {
-			List<Vm> vmList2 = host.getVmList();
-			for (Vm vm : vmList2) {
-				if (vm.getId() == vmId) {
-					device = (EdgeDevice) host;
-					List<EdgeLet> pendingResponse = device.getPendingResponse();
-					Iterator<EdgeLet> iterator = pendingResponse.iterator();
-					while (iterator.hasNext()) {
-						EdgeLet edgeLet = iterator.next();
-						ConnectionHeader connectionHeader2 = edgeLet.getConnectionHeader();
-						int ioTId = connectionHeader2.ioTId;
-
-						// found
-						if (connectionHeader.ioTId == ioTId) {
-							iterator.remove();
-							LogUtil.info(CloudSim.clock() + " send pending cloudlet " + edgeLet.getCloudletId()
-									+ " from VM " + vmId + " to ioT " + ioTId);
-							this.send(connectionHeader.ioTId, this.getNetworkDelay(new DevicesInfo(ioTId, vmId)),
-									EdgeState.REQUEST_ACTUATING, edgeLet);
-						}
-					}
-
-					break;
-				}
+		EdgeDevice device = this.microElementIndex.getDevice(vmId);
+		if (device == null)
+			return;
+		int ioTId = connectionHeader.ioTId;
+		for (EdgeLet edgeLet : device.getPendingResponse().drain(ioTId, CloudSim.clock())) {
+			if (LogUtil.isEnabled(Level.INFOR)) {
+				LogUtil.info(CloudSim.clock() + " send pending cloudlet " + edgeLet.getCloudletId() + " from VM "
+						+ vmId + " to ioT " + ioTId);
 			}
-
+			this.send(ioTId, this.getNetworkDelay(new DevicesInfo(ioTId, vmId)), EdgeState.REQUEST_ACTUATING,
+					edgeLet);
 		}
 
 	}
@@ -476,6 +674,7 @@ public class EdgeDataCenterBroker extends DatacenterBroker {
 		// TODO Auto-generated method stub
 		ConnectionHeader connectionInfo = (ConnectionHeader) ev.getData();
 		EdgeDevice device = this.findAvailiableDevice(connectionInfo);
+		this.updateSignalBoundaries(connectionInfo);
 		if (device != null) {
 			this.send(connectionInfo.ioTId,
 					this.getNetworkDelay(new DevicesInfo(connectionInfo.ioTId, connectionInfo.vmId)),
@@ -494,14 +693,8 @@ public class EdgeDataCenterBroker extends DatacenterBroker {
 	 * @param info3
 	 */
 	private void removeConnection(DevicesInfo info3) {
-		for (ConnectionHeader header2 : this.connectionInfos) {
-			if (header2.vmId == info3.vmId && header2.ioTId == info3.ioTDeviceId) {
-				this.connectionInfos.remove(header2);
-				break;
-			}
-
-		}
-		if (this.connectionInfos.isEmpty()) {
+		this.connectionRegistry.remove(info3.ioTDeviceId, info3.vmId);
+		if (this.connectionRegistry.isEmpty()) {
 			LogUtil.info("all sensors are offline");
 			this.clearDatacenters();
 			this.finishExecution();
@@ -512,14 +705,13 @@ public class EdgeDataCenterBroker extends DatacenterBroker {
 		ConnectionHeader connectionInfo = (ConnectionHeader) ev.getData();
 		if (connectionInfo.state == EdgeState.SUCCESS) {
 
-			LogUtil.info("send ack to ioT " + connectionInfo.ioTId
-					+ " that the connection has been successfully established");
+			LogUtil.info("send ack to ioT {} that the connection has been successfully established",
+					connectionInfo.ioTId);
 			this.send(connectionInfo.ioTId,
 					this.getNetworkDelay(new DevicesInfo(connectionInfo.ioTId, connectionInfo.vmId)),
 					EdgeState.CONNECTION_ESTABLISHED, connectionInfo);
 		} else {
-			LogUtil.info(
-					"vm " + connectionInfo.vmId + " doesn't accept this connection from ioT " + connectionInfo.ioTId);
+			LogUtil.info("vm {} doesn't accept this connection from ioT {}", connectionInfo.vmId, connectionInfo.ioTId);
 		}
 
 	}
@@ -532,19 +724,21 @@ public class EdgeDataCenterBroker extends DatacenterBroker {
 					this.getNetworkDelay(new DevicesInfo(connectionInfo.ioTId, connectionInfo.vmId)),
 					EdgeState.REQUEST_CONNECTION, connectionInfo);
 		} else {
-			LogUtil.info("connection failure from ioT " + connectionInfo.ioTId);
+			LogUtil.info("connection failure from ioT {}", connectionInfo.ioTId);
 		}
 
 	}
 
 	private void setupConnection(SimEvent ev) {
+		// findAvailiableDevice may move a connection to another vm, walk a copy
 		List<ConnectionHeader> connectionInfos2 = this.getConnectionInfos();
 		for (ConnectionHeader connectionInfo : connectionInfos2) {
 			// request iot connection
 			if (!Log.isDisabled()) {
-				LogUtil.info("request connection with ioT " + connectionInfo.ioTId);
+				LogUtil.info("request connection with ioT {}", connectionInfo.ioTId);
 			}
 			EdgeDevice device = this.findAvailiableDevice(connectionInfo);
+			this.updateSignalBoundaries(connectionInfo);
 			if (device != null) {
 				this.send(connectionInfo.ioTId,
 						this.getNetworkDelay(new DevicesInfo(connectionInfo.ioTId, connectionInfo.vmId)),
@@ -562,6 +756,19 @@ public class EdgeDataCenterBroker extends DatacenterBroker {
 
 	EdgeDataCenter edgeDatacenter = null;
 
+	/**
+	 * hand the signal range boundaries of the edge devices to the ioT device, so
+	 * that an analytically moving device knows when it may change coverage
+	 *
+	 * @param connectionInfo
+	 */
+	private void updateSignalBoundaries(ConnectionHeader connectionInfo) {
+		if (this.edgeDatacenter == null)
+			return;
+		IoTDevice iot = (IoTDevice) CloudSim.getEntity(connectionInfo.ioTId);
+		iot.setSignalBoundaries(this.edgeDatacenter.getEdgeDeviceIndex().getSignalBoundaries());
+	}
+
 	/**
 	 * firstly will try to connect assigned ioT and edge and if it fails, will try
 	 * to connect an available edge device. otherwise, return null
@@ -571,93 +778,56 @@ public class EdgeDataCenterBroker extends DatacenterBroker {
 	 */
 	@SuppressWarnings("unused")
 	private EdgeDevice findAvailiableDevice(ConnectionHeader connectionInfo) {
-		Integer integer = this.getVmsToDatacentersMap().get(connectionInfo.vmId);
-		if (integer == null) {
+		MicroElementIndex.Entry entry = this.microElementIndex.get(connectionInfo.vmId);
+		if (entry == null || entry.datacenter == null) {
 			if (edgeDatacenter == null)
 				return null;
 		} else {
-			SimEntity ent = CloudSim.getEntity(integer);
-			edgeDatacenter = (EdgeDataCenter) ent;
+			edgeDatacenter = entry.datacenter;
 		}
-		@SuppressWarnings("null")
-		List<Host> hostList = edgeDatacenter.getHostList();
-
-		fo: for (Host host : hostList) {
-			List<Vm> vmList2 = host.getVmList();
-			for (Vm vm : vmList2) {
-				if (vm.getId() == connectionInfo.vmId) {
-					EdgeDevice device = (EdgeDevice) host;
-					IoTDevice iot = (IoTDevice) CloudSim.getEntity(connectionInfo.ioTId);
-					Location edgeLocation = device.getLocation().location;
-					Location iotLocation = iot.getMobility().location;
-					double range = device.getLocation().signalRange;
-					double distance = Math.abs(iotLocation.x - edgeLocation.x);
-					if (range >= distance && device.isEnabled()) {
-						LogUtil.info("got the required device!");
-						return device;
-					}
-					break fo;
-				}
+		EdgeDevice device = entry == null ? null : entry.device;
+		if (device != null) {
+			IoTDevice iot = (IoTDevice) CloudSim.getEntity(connectionInfo.ioTId);
+			Location edgeLocation = device.getLocation().location;
+			Location iotLocation = iot.getMobility().location;
+			double range = device.getLocation().signalRange;
+			double distance = Math.abs(iotLocation.x - edgeLocation.x);
+			if (range >= distance && device.isEnabled()) {
+				LogUtil.info("got the required device!");
+				return device;
 			}
 		}
 
-		for (Host host : hostList) {
-			EdgeDevice edgeDevice = (EdgeDevice) host;
-			IoTDevice iotDevice = (IoTDevice) CloudSim.getEntity(connectionInfo.ioTId);
-			Location edgeLocation = edgeDevice.getLocation().location;
-			Location ioTLocation = iotDevice.getMobility().location;
-			double range = edgeDevice.getLocation().signalRange;
-			double distance = Math.abs(ioTLocation.x - edgeLocation.x);
-			if (range >= distance) {
-				if (edgeDevice.getAvailability()) {
-					LogUtil.info("got the desired device!");
-					// TODO send connection request to host
-					connectionInfo.vmId = host.getVmList().get(0).getId();
-					iotDevice.setAttachedEdgeDeviceVMId(host.getVmList().get(0).getId());
-					return edgeDevice;
-				}
-
-			}
+		IoTDevice iotDevice = (IoTDevice) CloudSim.getEntity(connectionInfo.ioTId);
+		Location ioTLocation = iotDevice.getMobility().location;
+		EdgeDevice edgeDevice = edgeDatacenter.getEdgeDeviceIndex().findFirstInRange(ioTLocation.x,
+				EdgeDevice::getAvailability);
+		if (edgeDevice != null) {
+			LogUtil.info("got the desired device!");
+			// TODO send connection request to host
+			connectionInfo.vmId = edgeDevice.getVmList().get(0).getId();
+			this.connectionRegistry.update(connectionInfo);
+			iotDevice.setAttachedEdgeDeviceVMId(edgeDevice.getVmList().get(0).getId());
+			return edgeDevice;
 		}
-		LogUtil.info("no device availiable for iot " + connectionInfo.ioTId);
+		LogUtil.info("no device availiable for iot {}", connectionInfo.ioTId);
 		return null;
 	}
 
+	/**
+	 * @param devicesInfo
+	 * @return the network delay between the iot device and the edge device of the
+	 *         vm, only the transmission if the vm is unknown
+	 */
 	public double getNetworkDelay(DevicesInfo devicesInfo) {
-		/*
-		 * int ioTDeviceId = devicesInfo.ioTDeviceId; IoTDevice ioTDevice =
-		 * ioTDevices.get(ioTDeviceId); Location location = ioTDevice.getLocation(); int
-		 * edgeDeviceId = devicesInfo.vmId; EdgeDevice edgeDevice =
-		 * edgeDevices.get(edgeDeviceId); Location location2 = edgeDevice.getLocation();
-		 * NetworkType netWorkType = ioTDevice.getNetworkModel().getNetWorkType();
-		 double speedRate = netWorkType.getSpeedRate();
-		 */
-		return 0;
-
-		/*
-		 * switch (netWorkType) { NetworkType netWorkType =
-		 * ioTDevice.getNetworkModel().getNetWorkType(); case WIFI:
-		 *
-		 * break; case WLAN:
-		 *
-		 * break; case FourG:
-		 *
-		 * break; case ThreeG:
-		 *
-		 * break; case BLUETOOTH:
-		 *
-		 * break; case LAN:
-		 *
-		 * break;
-		 *
-		 * default: break; }
-		 */
-
+		IoTDevice ioTDevice = (IoTDevice) CloudSim.getEntity(devicesInfo.ioTDeviceId);
+		return this.context.getNetworkDelays().getDelay(ioTDevice,
+				this.microElementIndex.getDevice(devicesInfo.vmId));
 	}
 
 	public void submitConnection(List<ConnectionHeader> connectionInfos) {
 
-		this.getConnectionInfos().addAll(connectionInfos);
+		this.connectionRegistry.addAll(connectionInfos);
 
 	}
 
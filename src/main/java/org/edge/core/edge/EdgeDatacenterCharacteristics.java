@@ -33,6 +33,23 @@ public class EdgeDatacenterCharacteristics extends DatacenterCharacteristics{
 		
 	}
 
+	public EdgeDatacenterCharacteristics(String architecture, String os, String vmm,
+			List<? extends EdgeDevice> hostList,
+			double timeZone, double costPerSec, double costPerMem, double costPerStorage, double costPerBw,
+			List<Class<? extends CommunicationProtocol>> communicationProtocolSupported,
+			List<Class<? extends IoTDevice>> ioTDeviceSupported) {
+		this(architecture, os, vmm, hostList, timeZone, costPerSec, costPerMem, costPerStorage, costPerBw,
+				toArray(communicationProtocolSupported), toArray(ioTDeviceSupported));
+	}
+
+	/**
+	 * an array of a generic type can only be made by an unchecked conversion
+	 */
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	private static <T> Class<? extends T>[] toArray(List<Class<? extends T>> classes) {
+		return classes.toArray(new Class[classes.size()]);
+	}
+
 	public Class<? extends IoTDevice>[] getIoTDeviceSupported() {
 		return ioTDeviceSupported;
 	}
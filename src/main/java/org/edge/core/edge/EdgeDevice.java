@@ -16,11 +16,12 @@ import org.edge.core.feature.Mobility;
 import org.edge.entity.ConnectionHeader;
 import org.edge.network.NetworkModel;
 import org.edge.utils.LogUtil;
+import org.edge.utils.LogUtil.Level;
 
 public class EdgeDevice extends Host{
 
-	private List<EdgeLet> pendingResponse;
-	public List<EdgeLet> getPendingResponse() {
+	private PendingResponseQueue pendingResponse;
+	public PendingResponseQueue getPendingResponse() {
 		return this.pendingResponse;
 	}
 
@@ -59,7 +60,7 @@ public class EdgeDevice extends Host{
 
 		this.attached_IoTDevices=new ArrayList<>();
 		this.battery=new Battery(max_battery_capacity, current_battery_capacity);
-		this.pendingResponse=new ArrayList<>();
+		this.pendingResponse=new PendingResponseQueue();
 	}
 
 
@@ -99,6 +100,32 @@ public class EdgeDevice extends Host{
 	}
 	public void setMobility(Mobility geo_location) {
 		this.geo_location = geo_location;
+		if (this.deviceIndex != null)
+			this.deviceIndex.update(this);
+	}
+
+	/**
+	 * move the device and keep the spatial index of its data center up to date
+	 *
+	 * @param x
+	 * @param y
+	 * @param z
+	 */
+	public void moveTo(double x, double y, double z) {
+		this.geo_location.location.x = x;
+		this.geo_location.location.y = y;
+		this.geo_location.location.z = z;
+		if (this.deviceIndex != null)
+			this.deviceIndex.update(this);
+	}
+
+	/**
+	 * the spatial index this device belongs to, if any
+	 */
+	private EdgeDeviceIndex deviceIndex;
+
+	void setDeviceIndex(EdgeDeviceIndex deviceIndex) {
+		this.deviceIndex = deviceIndex;
 	}
 
 
@@ -110,7 +137,10 @@ public class EdgeDevice extends Host{
 		return this.enabled;
 	}
 	public void setEnabled(boolean enabled) {
+		boolean changed = this.enabled != enabled;
 		this.enabled = enabled;
+		if (changed && this.deviceIndex != null)
+			this.deviceIndex.update(this);
 	}
 
 
@@ -173,7 +203,7 @@ public class EdgeDevice extends Host{
 		//		LogUtil.info(battery.getMaxCapacity()+" "+battery.getCurrentCapacity() +" "+battery_drainage_rate);
 		this.battery.setCurrentCapacity(this.battery.getCurrentCapacity()-this.battery_drainage_rate);
 		if(this.battery.getCurrentCapacity()<=0) {
-			LogUtil.info("Edge Device "+  this.getId()+"( vm "+this.getVmList().get(0).getId()+" )"+"'s battery has drained");
+			LogUtil.info("Edge Device {}( vm {} )'s battery has drained", this.getId(), this.getVmList().get(0).getId());
 			this.setEnabled(false);
 		}
 	}
@@ -186,13 +216,14 @@ public class EdgeDevice extends Host{
 		double updateByProcess= fileSize*(1-shrinkFactor)*drangeRateForProcess;
 		double updateBySending=fileSize*shrinkFactor*drangeRateForSending;
 		
-		LogUtil.info("Edge Device "+  this.getId()+" -  "+this.getVmList().get(0).getId()+" ( updateByProcess = "+updateByProcess+" )"  +" ( updateBySending = "+updateBySending+" )");
+		if (LogUtil.isEnabled(Level.INFOR))
+			LogUtil.info("Edge Device "+  this.getId()+" -  "+this.getVmList().get(0).getId()+" ( updateByProcess = "+updateByProcess+" )"  +" ( updateBySending = "+updateBySending+" )");
 		this.battery.setCurrentCapacity(this.battery.getCurrentCapacity()-(updateByProcess+updateBySending));
 		
 		
 		
 		if(this.battery.getCurrentCapacity()<=0) {
-			LogUtil.info("Edge Device "+  this.getId()+"( vm "+this.getVmList().get(0).getId()+" )"+"'s battery has drained");
+			LogUtil.info("Edge Device {}( vm {} )'s battery has drained", this.getId(), this.getVmList().get(0).getId());
 			this.setEnabled(false);
 			CloudSim.terminateSimulation();
 		}
@@ -209,13 +240,14 @@ public void updateBatteryByProcessingCloudLetAndSend2(double fileSize, float shr
 		double updateByProcess= fileSize*(1-shrinkFactor)*drangeRateForProcess;
 		double updateBySending=fileSize*shrinkFactor*drangeRateForSending;
 		
-		LogUtil.info("Edge Device "+  this.getId()+" -  "+this.getVmList().get(0).getId()+" ( updateByProcess = "+updateByProcess+" )"  +" ( updateBySending = "+updateBySending+" )");
+		if (LogUtil.isEnabled(Level.INFOR))
+			LogUtil.info("Edge Device "+  this.getId()+" -  "+this.getVmList().get(0).getId()+" ( updateByProcess = "+updateByProcess+" )"  +" ( updateBySending = "+updateBySending+" )");
 		this.battery.setCurrentCapacity(this.battery.getCurrentCapacity()-(updateByProcess+updateBySending));
 		
 		
 		
 		if(this.battery.getCurrentCapacity()<=0) {
-			LogUtil.info("Edge Device "+  this.getId()+"( vm "+this.getVmList().get(0).getId()+" )"+"'s battery has drained");
+			LogUtil.info("Edge Device {}( vm {} )'s battery has drained", this.getId(), this.getVmList().get(0).getId());
 			this.setEnabled(false);
 		}
 		
@@ -236,8 +268,9 @@ public void updateBatteryByProcessingCloudLetAndSend2(double fileSize, float shr
 		ConnectionHeader connectionHeader = let.getConnectionHeader();
 		connectionHeader.vmId=this.getVmList().get(0).getId();
 		let.setVmId(connectionHeader.vmId);
-		this.pendingResponse.add(let);
-				LogUtil.info("add pending " +pendingResponse.size()+" VmId");
+		this.pendingResponse.add(let, CloudSim.clock());
+				if (LogUtil.isEnabled(Level.INFOR))
+					LogUtil.info("add pending " +pendingResponse.size()+" VmId");
 	}
 
 
@@ -0,0 +1,192 @@
+package org.edge.core.edge;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.TreeSet;
+import java.util.function.Predicate;
+
+import org.cloudbus.cloudsim.Host;
+import org.edge.core.feature.Mobility;
+
+/**
+ * spatial index over the enabled edge devices of an edge data center, sorted on
+ * the x coordinate of their location. the broker uses it for range queries and
+ * for looking up the nearest device on the left or right of a position in
+ * O(log n) instead of walking the host list.
+ * <p>
+ * a device is indexed under the location it had when it was added, so devices
+ * must move through {@link EdgeDevice#moveTo(double, double, double)} or
+ * {@link EdgeDevice#setMobility(Mobility)}. disabled devices are removed from
+ * the index and come back once they are enabled again.
+ */
+public class EdgeDeviceIndex {
+
+	/**
+	 * a device together with the key it has been indexed under
+	 */
+	private static final class Node implements Comparable<Node> {
+		final double x;
+		/**
+		 * position of the device in the host list, keeps the original iteration
+		 * order of the host list among devices of the same x
+		 */
+		final int order;
+		final EdgeDevice device;
+
+		Node(double x, int order, EdgeDevice device) {
+			this.x = x;
+			this.order = order;
+			this.device = device;
+		}
+
+		@Override
+		public int compareTo(Node o) {
+			int c = Double.compare(this.x, o.x);
+			return c != 0 ? c : Integer.compare(this.order, o.order);
+		}
+	}
+
+	private final TreeSet<Node> nodes;
+	private final Map<EdgeDevice, Node> indexed;
+	private final Map<EdgeDevice, Integer> orders;
+
+	/**
+	 * the largest signal range seen so far, every device in range of a position is
+	 * within this distance of it on the x axis.
+	 */
+	private double maxSignalRange;
+
+	/**
+	 * cached result of {@link #getSignalBoundaries()}, dropped on every update
+	 */
+	private double[] signalBoundaries;
+
+	public EdgeDeviceIndex(List<? extends Host> hostList) {
+		this.nodes = new TreeSet<>();
+		this.indexed = new HashMap<>();
+		this.orders = new HashMap<>();
+		this.maxSignalRange = 0;
+		for (Host host : hostList) {
+			EdgeDevice device = (EdgeDevice) host;
+			this.orders.put(device, this.orders.size());
+			device.setDeviceIndex(this);
+			this.update(device);
+		}
+	}
+
+	/**
+	 * re-index a device after its location or its enabled flag has changed
+	 *
+	 * @param device
+	 */
+	public void update(EdgeDevice device) {
+		Integer order = this.orders.get(device);
+		if (order == null)
+			return;
+		this.signalBoundaries = null;
+		Node node = this.indexed.remove(device);
+		if (node != null)
+			this.nodes.remove(node);
+
+		Mobility mobility = device.getLocation();
+		if (!device.isEnabled() || mobility == null || mobility.location == null)
+			return;
+		this.maxSignalRange = Math.max(this.maxSignalRange, mobility.signalRange);
+		node = new Node(mobility.location.x, order, device);
+		this.nodes.add(node);
+		this.indexed.put(device, node);
+	}
+
+	/**
+	 * @param x
+	 * @return the enabled devices that may cover the position x, ordered by x.
+	 *         callers still have to check the distance against the signal range of
+	 *         each device.
+	 */
+	public List<EdgeDevice> getCandidatesInRange(double x) {
+		List<EdgeDevice> candidates = new ArrayList<>();
+		for (Node node : this.subSet(x)) {
+			candidates.add(node.device);
+		}
+		return candidates;
+	}
+
+	/**
+	 * @param x
+	 * @param filter
+	 * @return the first enabled device in host list order whose signal range
+	 *         covers x on the x axis and that passes the filter, or null
+	 */
+	public EdgeDevice findFirstInRange(double x, Predicate<EdgeDevice> filter) {
+		Node found = null;
+		for (Node node : this.subSet(x)) {
+			if (found != null && node.order > found.order)
+				continue;
+			double range = node.device.getLocation().signalRange;
+			if (range >= Math.abs(x - node.x) && filter.test(node.device))
+				found = node;
+		}
+		return found == null ? null : found.device;
+	}
+
+	/**
+	 * @param x
+	 * @param filter
+	 * @return the enabled device passing the filter with the largest x strictly
+	 *         smaller than x, or null
+	 */
+	public EdgeDevice findNearestLeft(double x, Predicate<EdgeDevice> filter) {
+		for (Node node : this.nodes.headSet(new Node(x, -1, null), false).descendingSet()) {
+			if (filter.test(node.device))
+				return node.device;
+		}
+		return null;
+	}
+
+	/**
+	 * @param x
+	 * @param filter
+	 * @return the enabled device passing the filter with the smallest x strictly
+	 *         larger than x, or null
+	 */
+	public EdgeDevice findNearestRight(double x, Predicate<EdgeDevice> filter) {
+		for (Node node : this.nodes.tailSet(new Node(x, Integer.MAX_VALUE, null), false)) {
+			if (filter.test(node.device))
+				return node.device;
+		}
+		return null;
+	}
+
+	/**
+	 * @return the sorted x coordinates where the signal range of an enabled device
+	 *         begins or ends. the array is shared and must not be modified.
+	 */
+	public double[] getSignalBoundaries() {
+		if (this.signalBoundaries == null) {
+			double[] boundaries = new double[this.nodes.size() * 2];
+			int i = 0;
+			for (Node node : this.nodes) {
+				double range = node.device.getLocation().signalRange;
+				boundaries[i++] = node.x - range;
+				boundaries[i++] = node.x + range;
+			}
+			Arrays.sort(boundaries);
+			this.signalBoundaries = boundaries;
+		}
+		return this.signalBoundaries;
+	}
+
+	public int size() {
+		return this.nodes.size();
+	}
+
+	private NavigableSet<Node> subSet(double x) {
+		return this.nodes.subSet(new Node(x - this.maxSignalRange, -1, null), true,
+				new Node(x + this.maxSignalRange, Integer.MAX_VALUE, null), true);
+	}
+
+}
@@ -0,0 +1,245 @@
+package org.edge.core.edge;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.edge.core.feature.EdgeLet;
+
+/**
+ * statistics of the edgelets returned to the broker, kept while the simulation
+ * runs so that the edgelets themselves do not have to be kept for the report.
+ * the execution time of every edgelet is counted overall, by sensor type and by
+ * MicroELement; the energy the edge devices spend on them is summed by
+ * MicroELement.
+ */
+public class EdgeLetMetrics {
+
+	/**
+	 * count, mean, min, max and percentiles of a series of values. the
+	 * percentiles come from a histogram with 64 buckets per power of two, they
+	 * are within 1% of the exact ones.
+	 */
+	public static final class Statistics {
+
+		/**
+		 * the bucket of a positive double is its exponent and the first mantissa
+		 * bits
+		 */
+		private static final int MANTISSA_SHIFT = 52 - 6;
+
+		private long count;
+		private double sum;
+		private double min = Double.POSITIVE_INFINITY;
+		private double max = Double.NEGATIVE_INFINITY;
+		/**
+		 * values of 0 or less, they are the lowest ones
+		 */
+		private long nonPositive;
+		private long[] buckets = new long[0];
+		private int firstBucket;
+
+		public void add(double value) {
+			if (Double.isNaN(value))
+				return;
+			this.count++;
+			this.sum += value;
+			if (value < this.min)
+				this.min = value;
+			if (value > this.max)
+				this.max = value;
+			if (value <= 0) {
+				this.nonPositive++;
+				return;
+			}
+			int bucket = (int) (Double.doubleToRawLongBits(value) >>> MANTISSA_SHIFT);
+			if (this.buckets.length == 0) {
+				this.buckets = new long[16];
+				this.firstBucket = bucket;
+			} else if (bucket < this.firstBucket || bucket >= this.firstBucket + this.buckets.length) {
+				this.grow(bucket);
+			}
+			this.buckets[bucket - this.firstBucket]++;
+		}
+
+		/**
+		 * at least double the buckets, the room is added on the side of the new
+		 * bucket
+		 */
+		private void grow(int bucket) {
+			int last = this.firstBucket + this.buckets.length - 1;
+			int length = Math.max(Math.max(last, bucket) - Math.min(this.firstBucket, bucket) + 1,
+					2 * this.buckets.length);
+			int first = bucket < this.firstBucket ? last - length + 1 : this.firstBucket;
+			long[] grown = new long[length];
+			System.arraycopy(this.buckets, 0, grown, this.firstBucket - first, this.buckets.length);
+			this.buckets = grown;
+			this.firstBucket = first;
+		}
+
+		public long getCount() {
+			return this.count;
+		}
+
+		public double getSum() {
+			return this.sum;
+		}
+
+		/**
+		 * @return the mean, NaN if nothing has been added
+		 */
+		public double getMean() {
+			return this.sum / this.count;
+		}
+
+		/**
+		 * @return the minimum, NaN if nothing has been added
+		 */
+		public double getMin() {
+			return this.count == 0 ? Double.NaN : this.min;
+		}
+
+		/**
+		 * @return the maximum, NaN if nothing has been added
+		 */
+		public double getMax() {
+			return this.count == 0 ? Double.NaN : this.max;
+		}
+
+		/**
+		 * @param percentile between 0 and 100
+		 * @return the value below which this percentage of the values lie, NaN if
+		 *         nothing has been added
+		 */
+		public double getPercentile(double percentile) {
+			if (this.count == 0)
+				return Double.NaN;
+			long rank = Math.max(1, (long) Math.ceil(percentile / 100 * this.count));
+			if (rank >= this.count)
+				return this.max;
+			long seen = this.nonPositive;
+			if (seen >= rank)
+				return Math.min(0, this.max);
+			for (int i = 0; i < this.buckets.length; i++) {
+				seen += this.buckets[i];
+				if (seen >= rank) {
+					long bucket = this.firstBucket + i;
+					double lower = Double.longBitsToDouble(bucket << MANTISSA_SHIFT);
+					double upper = Double.longBitsToDouble((bucket + 1) << MANTISSA_SHIFT);
+					return Math.max(this.min, Math.min(this.max, (lower + upper) / 2));
+				}
+			}
+			return this.max;
+		}
+
+		@Override
+		public String toString() {
+			return String.format("count %d, mean %.2f, min %.2f, max %.2f, p50 %.2f, p95 %.2f, p99 %.2f", this.count,
+					this.getMean(), this.getMin(), this.getMax(), this.getPercentile(50), this.getPercentile(95),
+					this.getPercentile(99));
+		}
+	}
+
+	private Statistics all;
+	private final Map<String, Statistics> bySensorType;
+	private final Map<Integer, Statistics> byMicroElement;
+	private final Map<Integer, double[]> energyByMicroElement;
+	private double energy;
+	private double lastFinishTime;
+
+	public EdgeLetMetrics() {
+		this.all = new Statistics();
+		this.bySensorType = new LinkedHashMap<>();
+		this.byMicroElement = new TreeMap<>();
+		this.energyByMicroElement = new TreeMap<>();
+	}
+
+	/**
+	 * count a returned edgelet
+	 *
+	 * @param edgeLet
+	 */
+	public void record(EdgeLet edgeLet) {
+		double executionTime = edgeLet.getActualCPUTime();
+		this.all.add(executionTime);
+		this.bySensorType.computeIfAbsent(String.valueOf(edgeLet.sensorType), type -> new Statistics())
+				.add(executionTime);
+		this.byMicroElement.computeIfAbsent(edgeLet.getVmId(), id -> new Statistics()).add(executionTime);
+		this.lastFinishTime = edgeLet.getFinishTime();
+	}
+
+	/**
+	 * @param vmId   the MicroELement whose edge device spent the energy
+	 * @param energy
+	 */
+	public void addEnergy(int vmId, double energy) {
+		this.energyByMicroElement.computeIfAbsent(vmId, id -> new double[1])[0] += energy;
+		this.energy += energy;
+	}
+
+	/**
+	 * @return the execution times of all the edgelets
+	 */
+	public Statistics getAll() {
+		return this.all;
+	}
+
+	/**
+	 * @param sensorType
+	 * @return the execution times of the edgelets of this sensor type, empty if
+	 *         there were none
+	 */
+	public Statistics getBySensorType(String sensorType) {
+		Statistics statistics = this.bySensorType.get(sensorType);
+		return statistics == null ? new Statistics() : statistics;
+	}
+
+	/**
+	 * @return the execution times by sensor type, in the order the types were
+	 *         first returned
+	 */
+	public Map<String, Statistics> getBySensorType() {
+		return Collections.unmodifiableMap(this.bySensorType);
+	}
+
+	/**
+	 * @return the execution times by MicroELement id
+	 */
+	public Map<Integer, Statistics> getByMicroElement() {
+		return Collections.unmodifiableMap(this.byMicroElement);
+	}
+
+	/**
+	 * @param vmId
+	 * @return the energy spent on the edgelets of this MicroELement
+	 */
+	public double getEnergy(int vmId) {
+		double[] energy = this.energyByMicroElement.get(vmId);
+		return energy == null ? 0 : energy[0];
+	}
+
+	/**
+	 * @return the energy spent on all the edgelets
+	 */
+	public double getEnergy() {
+		return this.energy;
+	}
+
+	/**
+	 * @return the finish time of the edgelet returned last, 0 if none has
+	 */
+	public double getLastFinishTime() {
+		return this.lastFinishTime;
+	}
+
+	public void clear() {
+		this.all = new Statistics();
+		this.bySensorType.clear();
+		this.byMicroElement.clear();
+		this.energyByMicroElement.clear();
+		this.energy = 0;
+		this.lastFinishTime = 0;
+	}
+
+}
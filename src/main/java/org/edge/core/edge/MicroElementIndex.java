@@ -0,0 +1,120 @@
+package org.edge.core.edge;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.cloudbus.cloudsim.Host;
+
+/**
+ * lookup table owned by the broker, which maps a vmId to its MicroELement, the
+ * edge device hosting it and the edge data center the device belongs to.
+ * it saves the broker from walking every host and every vm of a data center
+ * whenever an event refers to a vmId.
+ */
+public class MicroElementIndex {
+
+	/**
+	 * one row of the index
+	 */
+	public static final class Entry {
+		public final MicroELement microElement;
+		public EdgeDevice device;
+		public EdgeDataCenter datacenter;
+
+		private Entry(MicroELement microElement) {
+			this.microElement = microElement;
+		}
+	}
+
+	private final Map<Integer, Entry> entries;
+
+	public MicroElementIndex() {
+		this.entries = new HashMap<>();
+	}
+
+	/**
+	 * register a MicroELement that has been submitted to the broker, it is not yet
+	 * bound to any device
+	 *
+	 * @param microElement
+	 */
+	public void register(MicroELement microElement) {
+		Entry entry = this.entries.get(microElement.getId());
+		if (entry == null || entry.microElement != microElement) {
+			this.entries.put(microElement.getId(), new Entry(microElement));
+		}
+	}
+
+	/**
+	 * bind the vm to the device and the data center it has been created in
+	 *
+	 * @param vmId
+	 * @param device
+	 * @param datacenter
+	 */
+	public void bind(int vmId, EdgeDevice device, EdgeDataCenter datacenter) {
+		Entry entry = this.entries.get(vmId);
+		if (entry == null)
+			return;
+		entry.device = device;
+		entry.datacenter = datacenter;
+	}
+
+	/**
+	 * refresh the device of a vm after it has been re-attached to another host.
+	 *
+	 * @param vmId
+	 */
+	public void rebind(int vmId) {
+		Entry entry = this.entries.get(vmId);
+		if (entry == null)
+			return;
+		Host host = entry.microElement.getHost();
+		entry.device = host instanceof EdgeDevice ? (EdgeDevice) host : null;
+	}
+
+	/**
+	 * the vms have been destroyed, they are kept as MicroELements but no longer
+	 * bound to any device
+	 */
+	public void unbindAll() {
+		for (Entry entry : this.entries.values()) {
+			entry.device = null;
+			entry.datacenter = null;
+		}
+	}
+
+	/**
+	 * @param vmId
+	 * @return the row of this vm, or null if the vm has never been registered. if
+	 *         the vm has been moved to another host since it was bound, the row is
+	 *         refreshed before being returned.
+	 */
+	public Entry get(int vmId) {
+		Entry entry = this.entries.get(vmId);
+		if (entry != null && entry.device != null && entry.microElement.getHost() != entry.device) {
+			this.rebind(vmId);
+		}
+		return entry;
+	}
+
+	public MicroELement getMicroElement(int vmId) {
+		Entry entry = this.entries.get(vmId);
+		return entry == null ? null : entry.microElement;
+	}
+
+	public EdgeDevice getDevice(int vmId) {
+		Entry entry = this.get(vmId);
+		return entry == null ? null : entry.device;
+	}
+
+	public EdgeDataCenter getDatacenter(int vmId) {
+		Entry entry = this.entries.get(vmId);
+		return entry == null ? null : entry.datacenter;
+	}
+
+	public int size() {
+		return this.entries.size();
+	}
+
+}
@@ -0,0 +1,195 @@
+package org.edge.core.edge;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+import org.edge.core.feature.EdgeLet;
+
+/**
+ * processed edgelets an edge device keeps for iot devices that have moved out
+ * of range of their vm, until they connect to this device. the edgelets are
+ * indexed by ioTId, so handing the backlog of an iot device over costs O(k) in
+ * the number of its edgelets.
+ * <p>
+ * the queue can be bounded by a capacity, the oldest edgelet is evicted when it
+ * is full, and by a time to live in simulation time.
+ */
+public class PendingResponseQueue {
+
+	private static final class Entry {
+		final EdgeLet edgeLet;
+		final int ioTId;
+		final double time;
+		/**
+		 * drained or evicted, the entry is dropped from the age queue lazily
+		 */
+		boolean removed;
+
+		Entry(EdgeLet edgeLet, int ioTId, double time) {
+			this.edgeLet = edgeLet;
+			this.ioTId = ioTId;
+			this.time = time;
+		}
+	}
+
+	private final Map<Integer, ArrayDeque<Entry>> byIoT;
+	/**
+	 * all the entries in the order they have been added, which is also the order
+	 * of their time
+	 */
+	private final ArrayDeque<Entry> byAge;
+	private int size;
+	private int capacity = Integer.MAX_VALUE;
+	private double timeToLive = Double.MAX_VALUE;
+	private long evicted;
+
+	public PendingResponseQueue() {
+		this.byIoT = new HashMap<>();
+		this.byAge = new ArrayDeque<>();
+	}
+
+	/**
+	 * @param capacity the maximum number of edgelets kept, 0 or less for no limit
+	 */
+	public void setCapacity(int capacity) {
+		this.capacity = capacity > 0 ? capacity : Integer.MAX_VALUE;
+	}
+
+	public int getCapacity() {
+		return this.capacity;
+	}
+
+	/**
+	 * @param timeToLive how long in simulation time an edgelet is kept, 0 or less
+	 *                   for no limit
+	 */
+	public void setTimeToLive(double timeToLive) {
+		this.timeToLive = timeToLive > 0 ? timeToLive : Double.MAX_VALUE;
+	}
+
+	public double getTimeToLive() {
+		return this.timeToLive;
+	}
+
+	/**
+	 * keep the edgelet for the iot device in its connection header
+	 *
+	 * @param edgeLet
+	 * @param now     current simulation time
+	 */
+	public void add(EdgeLet edgeLet, double now) {
+		this.expire(now);
+		Entry entry = new Entry(edgeLet, edgeLet.getConnectionHeader().ioTId, now);
+		this.byIoT.computeIfAbsent(entry.ioTId, id -> new ArrayDeque<>()).add(entry);
+		this.byAge.add(entry);
+		this.size++;
+		while (this.size > this.capacity) {
+			this.evict(this.pollOldest());
+		}
+	}
+
+	/**
+	 * remove the edgelets kept for the iot device
+	 *
+	 * @param ioTId
+	 * @param now   current simulation time
+	 * @return the edgelets in the order they have been added
+	 */
+	public List<EdgeLet> drain(int ioTId, double now) {
+		this.expire(now);
+		ArrayDeque<Entry> entries = this.byIoT.remove(ioTId);
+		if (entries == null)
+			return Collections.emptyList();
+		List<EdgeLet> drained = new ArrayList<>(entries.size());
+		for (Entry entry : entries) {
+			entry.removed = true;
+			drained.add(entry.edgeLet);
+		}
+		this.size -= drained.size();
+		this.compact();
+		return drained;
+	}
+
+	/**
+	 * @return the number of edgelets kept
+	 */
+	public int size() {
+		return this.size;
+	}
+
+	public boolean isEmpty() {
+		return this.size == 0;
+	}
+
+	/**
+	 * @param ioTId
+	 * @return the number of edgelets kept for the iot device
+	 */
+	public int size(int ioTId) {
+		ArrayDeque<Entry> entries = this.byIoT.get(ioTId);
+		return entries == null ? 0 : entries.size();
+	}
+
+	/**
+	 * @return the number of edgelets dropped because the queue was full or they
+	 *         had expired
+	 */
+	public long getEvictedCount() {
+		return this.evicted;
+	}
+
+	private void expire(double now) {
+		if (this.timeToLive == Double.MAX_VALUE)
+			return;
+		while (true) {
+			Entry oldest = this.peekOldest();
+			if (oldest == null || now - oldest.time <= this.timeToLive)
+				break;
+			this.evict(this.pollOldest());
+		}
+	}
+
+	private void evict(Entry entry) {
+		entry.removed = true;
+		ArrayDeque<Entry> entries = this.byIoT.get(entry.ioTId);
+		// the oldest entry of the queue is the oldest one of its iot device
+		entries.pollFirst();
+		if (entries.isEmpty())
+			this.byIoT.remove(entry.ioTId);
+		this.size--;
+		this.evicted++;
+	}
+
+	private Entry peekOldest() {
+		Entry entry;
+		while ((entry = this.byAge.peekFirst()) != null && entry.removed) {
+			this.byAge.pollFirst();
+		}
+		return entry;
+	}
+
+	private Entry pollOldest() {
+		this.peekOldest();
+		return this.byAge.pollFirst();
+	}
+
+	/**
+	 * drop the drained entries from the age queue once they are the majority, so
+	 * that it does not grow behind an old entry that is never drained
+	 */
+	private void compact() {
+		if (this.byAge.size() <= 2 * this.size + 16)
+			return;
+		Iterator<Entry> iterator = this.byAge.iterator();
+		while (iterator.hasNext()) {
+			if (iterator.next().removed)
+				iterator.remove();
+		}
+	}
+
+}
@@ -1,15 +1,21 @@
 package org.edge.core.feature;
 
+import java.util.LinkedList;
 import java.util.List;
 
 import org.cloudbus.cloudsim.Cloudlet;
 import org.cloudbus.cloudsim.UtilizationModel;
+import org.edge.core.kernel.SimulationContext;
 import org.edge.entity.ConnectionHeader;
 
 public class EdgeLet extends Cloudlet {
 	
-	public static int id = 0;
-	public static double sensoryData = 0;
+	/**
+	 * the id of the templates the iot devices create their edgelets from, the
+	 * ids of the edgelets come from the SimulationContext
+	 */
+	public static final int TEMPLATE_ID = -1;
+	public double sensoryData = 0;
 	private ConnectionHeader header;
 	private boolean edgeRecord;
 	public String sensorType;
@@ -43,20 +49,16 @@ public class EdgeLet extends Cloudlet {
 	}
 	
 	public EdgeLet  newInstance(int id) {
-		EdgeLet edgeLet=null;
-		if(getRequiredFiles()!=null && !getRequiredFiles().isEmpty()) {
-			 edgeLet=new EdgeLet(id, getCloudletLength(), getNumberOfPes(),
-					getCloudletFileSize(), getCloudletOutputSize(), getUtilizationModelCpu(), 
-					getUtilizationModelRam(), getUtilizationModelBw(),edgeRecord);
-		}
-		else {
-			 edgeLet=new EdgeLet(id, getCloudletLength(), getNumberOfPes(),
-					getCloudletFileSize(), getCloudletOutputSize(), getUtilizationModelCpu(), 
-					getUtilizationModelRam(), getUtilizationModelBw(),getRequiredFiles());	
-		}
-		return edgeLet;
+		EdgeLetPool pool = SimulationContext.current().getEdgeLetPool();
+		if (pool.isEnabled())
+			return pool.newInstance(this, id);
+		return this.createInstance(id);
 	}
 	public EdgeLet  newInstance(int id,double shrinkFactor) {
+		return this.newInstance(id);
+	}
+
+	EdgeLet createInstance(int id) {
 		EdgeLet edgeLet=null;
 		if(getRequiredFiles()!=null && !getRequiredFiles().isEmpty()) {
 			 edgeLet=new EdgeLet(id, getCloudletLength(), getNumberOfPes(),
@@ -71,6 +73,34 @@ public class EdgeLet extends Cloudlet {
 		return edgeLet;
 	}
 
+	/**
+	 * turn a pooled edgelet into the one {@link #createInstance(int)} of the
+	 * template would create
+	 */
+	void reuse(int id, EdgeLet template) {
+		EdgeLetPool.resetCloudlet(this, id, template.getCloudletFileSize(), template.getCloudletOutputSize());
+		this.setUserId(-1);
+		this.setCloudletLength(template.getCloudletLength());
+		this.setNumberOfPes(template.getNumberOfPes());
+		this.setUtilizationModelCpu(template.getUtilizationModelCpu());
+		this.setUtilizationModelRam(template.getUtilizationModelRam());
+		this.setUtilizationModelBw(template.getUtilizationModelBw());
+		this.vmId = -1;
+		this.accumulatedBwCost = 0;
+		this.costPerBw = 0;
+		List<String> requiredFiles = template.getRequiredFiles();
+		if (requiredFiles != null && !requiredFiles.isEmpty()) {
+			this.setRequiredFiles(new LinkedList<>());
+			this.edgeRecord = template.edgeRecord;
+		} else {
+			this.setRequiredFiles(requiredFiles);
+			this.edgeRecord = false;
+		}
+		this.header = null;
+		this.sensorType = null;
+		this.sensoryData = 0;
+	}
+
 
 	public EdgeLet(int cloudletId, double cloudletLength, int pesNumber, double cloudletFileSize, double cloudletOutputSize,
 			UtilizationModel utilizationModelCpu, UtilizationModel utilizationModelRam,
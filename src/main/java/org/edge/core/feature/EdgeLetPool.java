@@ -0,0 +1,214 @@
+package org.edge.core.feature;
+
+import java.lang.reflect.Field;
+import java.util.ArrayDeque;
+import java.util.List;
+
+import org.cloudbus.cloudsim.Cloudlet;
+import org.edge.core.ResEdgeLet;
+import org.edge.core.kernel.SimulationContext;
+
+/**
+ * recycles finished edgelets and the ResEdgeLets the schedulers wrap them in,
+ * so that a long simulation does not allocate a new edgelet for every reading
+ * and every hop between MELs. it is off unless it is enabled.
+ * <p>
+ * each run has its own pool in its {@link SimulationContext}, a new run starts
+ * with a disabled and empty one.
+ * <p>
+ * an edgelet must not be released while anything still refers to it, when the
+ * pool is enabled the broker and the iot devices keep no finished edgelets and
+ * the broker releases each edgelet once it has handled its return. edgelets
+ * that record their history are never pooled.
+ */
+public class EdgeLetPool {
+
+	public static final int DEFAULT_CAPACITY = 1 << 16;
+
+	private boolean enabled = false;
+	private int capacity = DEFAULT_CAPACITY;
+	private final ArrayDeque<EdgeLet> edgeLets = new ArrayDeque<>();
+	private final ArrayDeque<ResEdgeLet> resEdgeLets = new ArrayDeque<>();
+	private long created;
+	private long reused;
+
+	/**
+	 * the state Cloudlet keeps in private fields, the final ones included, that a
+	 * reused edgelet must get back to the values of a new one
+	 */
+	private static final Field CLOUDLET_ID;
+	private static final Field FILE_SIZE;
+	private static final Field OUTPUT_SIZE;
+	private static final Field STATUS;
+	private static final Field EXEC_START_TIME;
+	private static final Field FINISH_TIME;
+	private static final Field RESERVATION_ID;
+	private static final Field INDEX;
+	private static final Field CLASS_TYPE;
+	private static final Field NET_TOS;
+	private static final Field RECORD;
+	private static final Field RES_LIST;
+
+	static {
+		try {
+			CLOUDLET_ID = cloudletField("cloudletId");
+			FILE_SIZE = cloudletField("cloudletFileSize");
+			OUTPUT_SIZE = cloudletField("cloudletOutputSize");
+			STATUS = cloudletField("status");
+			EXEC_START_TIME = cloudletField("execStartTime");
+			FINISH_TIME = cloudletField("finishTime");
+			RESERVATION_ID = cloudletField("reservationId");
+			INDEX = cloudletField("index");
+			CLASS_TYPE = cloudletField("classType");
+			NET_TOS = cloudletField("netToS");
+			RECORD = cloudletField("record");
+			RES_LIST = cloudletField("resList");
+		} catch (NoSuchFieldException e) {
+			throw new ExceptionInInitializerError(e);
+		}
+	}
+
+	private static Field cloudletField(String name) throws NoSuchFieldException {
+		Field field = Cloudlet.class.getDeclaredField(name);
+		field.setAccessible(true);
+		return field;
+	}
+
+	public boolean isEnabled() {
+		return this.enabled;
+	}
+
+	/**
+	 * @param enabled the pooled objects are dropped when the pool is disabled
+	 */
+	public void setEnabled(boolean enabled) {
+		this.enabled = enabled;
+		if (!enabled)
+			this.clear();
+	}
+
+	/**
+	 * @param capacity the number of edgelets and of ResEdgeLets kept for reuse
+	 */
+	public void setCapacity(int capacity) {
+		this.capacity = capacity;
+		while (this.edgeLets.size() > capacity) {
+			this.edgeLets.poll();
+		}
+		while (this.resEdgeLets.size() > capacity) {
+			this.resEdgeLets.poll();
+		}
+	}
+
+	public int getCapacity() {
+		return this.capacity;
+	}
+
+	public void clear() {
+		this.edgeLets.clear();
+		this.resEdgeLets.clear();
+		this.created = 0;
+		this.reused = 0;
+	}
+
+	/**
+	 * @return the number of edgelets and ResEdgeLets created because the pool was
+	 *         empty
+	 */
+	public long getCreatedCount() {
+		return this.created;
+	}
+
+	/**
+	 * @return the number of edgelets and ResEdgeLets taken from the pool
+	 */
+	public long getReusedCount() {
+		return this.reused;
+	}
+
+	/**
+	 * @param template
+	 * @param id
+	 * @return an edgelet equal to the one template.newInstance(id) creates
+	 */
+	EdgeLet newInstance(EdgeLet template, int id) {
+		List<String> requiredFiles = template.getRequiredFiles();
+		boolean record = requiredFiles != null && !requiredFiles.isEmpty() && template.isEdgeRecord();
+		EdgeLet edgeLet = record ? null : this.edgeLets.poll();
+		if (edgeLet == null) {
+			this.created++;
+			return template.createInstance(id);
+		}
+		this.reused++;
+		edgeLet.reuse(id, template);
+		return edgeLet;
+	}
+
+	/**
+	 * give an edgelet nothing refers to anymore back to the pool
+	 *
+	 * @param edgeLet
+	 */
+	public void release(EdgeLet edgeLet) {
+		if (!this.enabled || this.edgeLets.size() >= this.capacity)
+			return;
+		try {
+			if (RECORD.getBoolean(edgeLet))
+				return;
+		} catch (IllegalAccessException e) {
+			throw new IllegalStateException(e);
+		}
+		edgeLet.setConnectionHeader(null);
+		this.edgeLets.push(edgeLet);
+	}
+
+	/**
+	 * @param edgeLet
+	 * @return a ResEdgeLet for the submitted edgelet
+	 */
+	public ResEdgeLet newResEdgeLet(EdgeLet edgeLet) {
+		ResEdgeLet resEdgeLet = this.enabled ? this.resEdgeLets.poll() : null;
+		if (resEdgeLet == null) {
+			if (this.enabled)
+				this.created++;
+			return new ResEdgeLet(edgeLet);
+		}
+		this.reused++;
+		resEdgeLet.reuse(edgeLet);
+		return resEdgeLet;
+	}
+
+	/**
+	 * give back a ResEdgeLet the scheduler is done with
+	 *
+	 * @param resEdgeLet
+	 */
+	public void release(ResEdgeLet resEdgeLet) {
+		if (!this.enabled || this.resEdgeLets.size() >= this.capacity)
+			return;
+		resEdgeLet.edgelet = null;
+		this.resEdgeLets.push(resEdgeLet);
+	}
+
+	/**
+	 * set the private state of Cloudlet back to the values of a new cloudlet
+	 */
+	static void resetCloudlet(Cloudlet cloudlet, int id, long fileSize, long outputSize) {
+		try {
+			CLOUDLET_ID.setInt(cloudlet, id);
+			FILE_SIZE.setLong(cloudlet, Math.max(1, fileSize));
+			OUTPUT_SIZE.setLong(cloudlet, Math.max(1, outputSize));
+			STATUS.setInt(cloudlet, Cloudlet.CREATED);
+			EXEC_START_TIME.setDouble(cloudlet, 0.0);
+			FINISH_TIME.setDouble(cloudlet, -1.0);
+			RESERVATION_ID.setInt(cloudlet, -1);
+			INDEX.setInt(cloudlet, -1);
+			CLASS_TYPE.setInt(cloudlet, 0);
+			NET_TOS.setInt(cloudlet, 0);
+			((List<?>) RES_LIST.get(cloudlet)).clear();
+		} catch (IllegalAccessException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+}
@@ -52,6 +52,18 @@ public class EdgeState {
 	public static final int PROCESS_COMPLETED = BASE+26;
 	public static final int NO_AVAILIBLE_DEVICE = BASE+27;
 	public static final int LOST_CONNECTION = BASE+28;
+	/**
+	 * the broker sends the edgelets it has batched up
+	 */
+	public static final int FLUSH_SUBMIT_BATCH = BASE+29;
+	/**
+	 * a list of edgelets submitted to a data center in one event
+	 */
+	public static final int CLOUDLET_SUBMIT_BATCH = BASE+30;
+	/**
+	 * an iot device sends the edgelets it has stored to the broker in one bundle
+	 */
+	public static final int SENDING_BUNDLE_TO_EDGE = BASE+31;
 
 	public static final String UNSUPPORTED_IOT_DEVICE="unsupported_iot_device";
 	public static final String UNSUPPORTED_COMMUNICATION_PROTOCOL = "unsupported_communication_protocol";
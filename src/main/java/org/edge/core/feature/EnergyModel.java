@@ -0,0 +1,134 @@
+package org.edge.core.feature;
+
+/**
+ * continuous energy model of a device. every power state the device is in
+ * draws a constant power from the battery, so the battery level at any time and
+ * the time it will be drained are known without charging the battery on every
+ * event. the battery is only brought up to date when a state changes or when it
+ * is read.
+ */
+public class EnergyModel {
+
+	public enum PowerState {
+		/**
+		 * drawn all the time, whatever the other states are
+		 */
+		IDLE, SENSING, TRANSMITTING, PROCESSING, MOVING
+	}
+
+	private final Battery battery;
+	/**
+	 * battery capacity drawn per second in each state
+	 */
+	private final double[] draws;
+	private final boolean[] active;
+	/**
+	 * time up to which the battery has been charged
+	 */
+	private double lastUpdateTime;
+
+	public EnergyModel(Battery battery) {
+		this.battery = battery;
+		this.draws = new double[PowerState.values().length];
+		this.active = new boolean[PowerState.values().length];
+		this.active[PowerState.IDLE.ordinal()] = true;
+	}
+
+	/**
+	 * charge the battery from the given time on, the time the model is attached
+	 * to its device
+	 *
+	 * @param now
+	 */
+	public void start(double now) {
+		this.lastUpdateTime = now;
+	}
+
+	public void setDraw(PowerState state, double draw) {
+		this.draws[state.ordinal()] = draw;
+	}
+
+	public double getDraw(PowerState state) {
+		return this.draws[state.ordinal()];
+	}
+
+	public boolean isActive(PowerState state) {
+		return this.active[state.ordinal()];
+	}
+
+	/**
+	 * @return the power currently drawn from the battery
+	 */
+	public double getPower() {
+		double power = 0;
+		for (int i = 0; i < this.draws.length; i++) {
+			if (this.active[i])
+				power += this.draws[i];
+		}
+		return power;
+	}
+
+	/**
+	 * charge the battery up to now, a drained battery stays at 0
+	 *
+	 * @param now
+	 */
+	public void update(double now) {
+		if (now <= this.lastUpdateTime)
+			return;
+		double capacity = this.battery.getCurrentCapacity() - this.getPower() * (now - this.lastUpdateTime);
+		this.battery.setCurrentCapacity(Math.max(capacity, 0));
+		this.lastUpdateTime = now;
+	}
+
+	/**
+	 * enter or leave a state at the given time
+	 *
+	 * @param state
+	 * @param active
+	 * @param now
+	 * @return true if the state has changed
+	 */
+	public boolean setActive(PowerState state, boolean active, double now) {
+		if (this.active[state.ordinal()] == active)
+			return false;
+		this.update(now);
+		this.active[state.ordinal()] = active;
+		return true;
+	}
+
+	/**
+	 * leave every state, nothing is drawn from the battery anymore
+	 *
+	 * @param now
+	 */
+	public void stop(double now) {
+		this.update(now);
+		for (int i = 0; i < this.active.length; i++) {
+			this.active[i] = false;
+		}
+	}
+
+	/**
+	 * @param now
+	 * @return true if the battery is empty at the given time
+	 */
+	public boolean isDrained(double now) {
+		this.update(now);
+		return this.battery.getCurrentCapacity() <= 0;
+	}
+
+	/**
+	 * @param now
+	 * @return the time the battery will be empty if no state changes, or
+	 *         Double.MAX_VALUE if nothing is drawn
+	 */
+	public double getDepletionTime(double now) {
+		this.update(now);
+		double power = this.getPower();
+		if (power <= 0)
+			return Double.MAX_VALUE;
+		return now + this.battery.getCurrentCapacity() / power;
+	}
+
+}
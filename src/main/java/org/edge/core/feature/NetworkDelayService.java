@@ -0,0 +1,172 @@
+package org.edge.core.feature;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.edge.core.edge.EdgeDevice;
+import org.edge.core.feature.policy.AnalyticMovingPolicy;
+import org.edge.core.iot.DeviceStateStore;
+import org.edge.core.iot.IoTDevice;
+import org.edge.network.NetworkModel;
+import org.edge.network.NetworkType;
+import org.edge.protocol.CommunicationProtocol;
+
+/**
+ * the network delay of the messages between an iot device and an edge device,
+ * computed as SimpleNetworkDelayCalculator does: a transmission term of the
+ * slower of the protocol and the network type, and a term for the distance
+ * between the two devices.
+ * <p>
+ * the transmission term is computed once per protocol and network type. the
+ * distance of a device is kept in its row and computed again only once the
+ * device has moved, read from its position in the state store, talks to
+ * another edge device, or the edge device has moved.
+ */
+public class NetworkDelayService {
+
+	/**
+	 * the delay of a unit of distance
+	 */
+	private double delayPerDistance = 1;
+	/**
+	 * transmission terms by protocol class, indexed by network type, NaN until
+	 * computed
+	 */
+	private final Map<Class<?>, double[]> transmissionDelays;
+
+	private final DeviceStateStore states;
+	/**
+	 * by row of the state store: the edge device and the positions of both
+	 * devices the distance has been computed for
+	 */
+	private EdgeDevice[] edgeDevices;
+	private double[] x;
+	private double[] y;
+	private double[] z;
+	private double[] edgeX;
+	private double[] edgeY;
+	private double[] edgeZ;
+	private double[] distances;
+	private long distancesComputed;
+
+	public NetworkDelayService(DeviceStateStore states) {
+		this.states = states;
+		this.transmissionDelays = new HashMap<>();
+		this.edgeDevices = new EdgeDevice[0];
+		this.x = new double[0];
+		this.y = new double[0];
+		this.z = new double[0];
+		this.edgeX = new double[0];
+		this.edgeY = new double[0];
+		this.edgeZ = new double[0];
+		this.distances = new double[0];
+	}
+
+	public double getDelayPerDistance() {
+		return this.delayPerDistance;
+	}
+
+	/**
+	 * @param delayPerDistance the delay of a unit of distance, 0 leaves the
+	 *                         distance out
+	 */
+	public void setDelayPerDistance(double delayPerDistance) {
+		this.delayPerDistance = delayPerDistance;
+	}
+
+	/**
+	 * @param device
+	 * @param edgeDevice null if the device is not attached, then only the
+	 *                   transmission term is counted
+	 * @return the delay of a message between the devices
+	 */
+	public double getDelay(IoTDevice device, EdgeDevice edgeDevice) {
+		NetworkModel networkModel = device.getNetworkModel();
+		double delay = networkModel == null ? 0
+				: this.getTransmissionDelay(networkModel.getCommunicationProtocol(), networkModel.getNetWorkType());
+		if (edgeDevice == null || edgeDevice.getLocation() == null || this.delayPerDistance == 0)
+			return delay;
+		return delay + this.delayPerDistance * this.getDistance(device, edgeDevice);
+	}
+
+	/**
+	 * @param protocol
+	 * @param networkType
+	 * @return the time to transmit with the slower of the two
+	 */
+	public double getTransmissionDelay(CommunicationProtocol protocol, NetworkType networkType) {
+		if (protocol == null || networkType == null)
+			return 0;
+		double[] delays = this.transmissionDelays.get(protocol.getClass());
+		if (delays == null) {
+			delays = new double[NetworkType.values().length];
+			Arrays.fill(delays, Double.NaN);
+			this.transmissionDelays.put(protocol.getClass(), delays);
+		}
+		double delay = delays[networkType.ordinal()];
+		if (Double.isNaN(delay)) {
+			double minSpeed = Math.min(protocol.getTransmissionSpeed(), networkType.getSpeedRate());
+			delay = (long) minSpeed / minSpeed;
+			delays[networkType.ordinal()] = delay;
+		}
+		return delay;
+	}
+
+	/**
+	 * @return the distances computed so far, the others have been found in the
+	 *         rows
+	 */
+	public long getDistancesComputed() {
+		return this.distancesComputed;
+	}
+
+	private double getDistance(IoTDevice device, EdgeDevice edgeDevice) {
+		// an analytic policy writes the position to the row when asked for it
+		if (device.getMovingPolicy() instanceof AnalyticMovingPolicy)
+			device.getMobility();
+		DeviceStateStore states = device.getStateStore();
+		int row = device.getStateIndex();
+		double px = states.getX(row);
+		double py = states.getY(row);
+		double pz = states.getZ(row);
+		Mobility.Location location = edgeDevice.getLocation().location;
+		boolean cached = states == this.states;
+		if (cached && row < this.distances.length && this.edgeDevices[row] == edgeDevice && this.x[row] == px
+				&& this.y[row] == py && this.z[row] == pz && this.edgeX[row] == location.x
+				&& this.edgeY[row] == location.y && this.edgeZ[row] == location.z)
+			return this.distances[row];
+
+		double dx = location.x - px;
+		double dy = location.y - py;
+		double dz = location.z - pz;
+		double distance = Math.sqrt(dx * dx + dy * dy + dz * dz);
+		this.distancesComputed++;
+		if (cached) {
+			if (row >= this.distances.length)
+				this.grow(row + 1);
+			this.edgeDevices[row] = edgeDevice;
+			this.x[row] = px;
+			this.y[row] = py;
+			this.z[row] = pz;
+			this.edgeX[row] = location.x;
+			this.edgeY[row] = location.y;
+			this.edgeZ[row] = location.z;
+			this.distances[row] = distance;
+		}
+		return distance;
+	}
+
+	private void grow(int rows) {
+		int capacity = Math.max(rows, Math.max(16, this.distances.length * 2));
+		this.edgeDevices = Arrays.copyOf(this.edgeDevices, capacity);
+		this.x = Arrays.copyOf(this.x, capacity);
+		this.y = Arrays.copyOf(this.y, capacity);
+		this.z = Arrays.copyOf(this.z, capacity);
+		this.edgeX = Arrays.copyOf(this.edgeX, capacity);
+		this.edgeY = Arrays.copyOf(this.edgeY, capacity);
+		this.edgeZ = Arrays.copyOf(this.edgeZ, capacity);
+		this.distances = Arrays.copyOf(this.distances, capacity);
+	}
+
+}
@@ -0,0 +1,41 @@
+package org.edge.core.feature.policy;
+
+import org.edge.core.feature.Mobility;
+
+/**
+ * a moving policy that gives the location as a function of the simulation
+ * time, so that the device does not have to be moved step by step. the
+ * location is only computed when it is asked for.
+ */
+public interface AnalyticMovingPolicy extends MovingPolicy {
+
+	/**
+	 * start moving from the current location of the mobility
+	 *
+	 * @param mobility
+	 * @param time the simulation time the movement starts at
+	 */
+	public void start(Mobility mobility, double time);
+
+	public boolean isStarted();
+
+	/**
+	 * move the mobility to where it is at the given time. it does nothing if the
+	 * movement has not started yet.
+	 *
+	 * @param mobility
+	 * @param time
+	 */
+	public void locate(Mobility mobility, double time);
+
+	/**
+	 * @param mobility
+	 * @param time
+	 * @param boundaries sorted x coordinates, such as the edges of the signal
+	 *                   range of the edge devices
+	 * @return the first time after the given time the device reaches one of the
+	 *         boundaries, Double.MAX_VALUE if it never does
+	 */
+	public double getNextCrossingTime(Mobility mobility, double time, double[] boundaries);
+
+}
@@ -0,0 +1,259 @@
+package org.edge.core.feature.policy;
+
+import java.util.Arrays;
+
+import org.edge.core.feature.Mobility;
+import org.edge.core.feature.Mobility.Location;
+import org.edge.core.feature.Mobility.MovingRange;
+
+/**
+ * the on-demand counterpart of {@link SimpleMovingPolicy}: the device takes
+ * the very same steps, one every step interval since the start, but they are
+ * only taken when the location is asked for, without an event per step.
+ * <p>
+ * the axes share the velocity, so the bounces do not fold into a closed form.
+ * instead the steps are replayed, and once the device is back in a state it
+ * had right after turning around, the movement repeats and whole periods are
+ * skipped in constant time.
+ */
+public class AnalyticSimpleMovingPolicy implements AnalyticMovingPolicy {
+
+	/**
+	 * crossings closer than this are considered to have already happened
+	 */
+	private static final double EPSILON = 1e-9;
+	/**
+	 * the states kept to find the period, a device that has not repeated itself
+	 * after this many turns keeps being replayed step by step
+	 */
+	private static final int TURNS = 32;
+	/**
+	 * steps searched for the next crossing before the period is known, the device
+	 * is moved after the last one and searches again
+	 */
+	private static final int CROSSING_LOOKAHEAD = 4096;
+
+	/**
+	 * simulation time it takes to move by the velocity once
+	 */
+	private final double stepInterval;
+
+	private boolean started;
+	private double startTime;
+	private double startDistance;
+	private double stepTime;
+	private MovingRange range;
+	private final Step start = new Step();
+	private final Step current = new Step();
+
+	/**
+	 * the states right after the device turned around
+	 */
+	private final Step[] turns = new Step[TURNS];
+	private int turnCount;
+	/**
+	 * from step periodStart on the device repeats itself every period steps, 0
+	 * until that is known
+	 */
+	private long periodStart;
+	private long period;
+
+	public AnalyticSimpleMovingPolicy() {
+		this(0.5);
+	}
+
+	public AnalyticSimpleMovingPolicy(double stepInterval) {
+		this.stepInterval = stepInterval;
+	}
+
+	@Override
+	public void start(Mobility mobility, double time) {
+		this.started = true;
+		this.startTime = time;
+		this.startDistance = mobility.totalMovingDistance;
+		this.stepTime = time;
+		this.range = mobility.range;
+		this.start.set(mobility.location.x, mobility.location.y, mobility.location.z, mobility.volecity, 0);
+		this.current.copy(this.start);
+		this.turnCount = 0;
+		this.period = 0;
+	}
+
+	@Override
+	public boolean isStarted() {
+		return this.started;
+	}
+
+	@Override
+	public void locate(Mobility mobility, double time) {
+		if (!this.started)
+			return;
+		long steps = (long) Math.floor((time - this.startTime) / this.stepInterval + EPSILON);
+		this.advance(this.current, Math.max(steps, 0));
+		Location location = mobility.location;
+		location.x = this.current.x;
+		location.y = this.current.y;
+		location.z = this.current.z;
+		mobility.volecity = this.current.volecity;
+		mobility.totalMovingDistance = this.startDistance + this.current.step * Math.abs(this.start.volecity);
+	}
+
+	/**
+	 * move one step further from the current location, as
+	 * {@link SimpleMovingPolicy} would.
+	 */
+	@Override
+	public void updateLocation(Mobility mobility) {
+		if (!this.started)
+			this.start(mobility, 0);
+		this.stepTime += this.stepInterval;
+		this.locate(mobility, this.stepTime);
+	}
+
+	/**
+	 * the device jumps by a step at a time, it crosses a boundary at the step
+	 * that takes it onto or over the boundary
+	 */
+	@Override
+	public double getNextCrossingTime(Mobility mobility, double time, double[] boundaries) {
+		if (!this.started || this.start.volecity == 0 || boundaries == null || boundaries.length == 0)
+			return Double.MAX_VALUE;
+		this.locate(mobility, time);
+		Step ahead = new Step();
+		ahead.copy(this.current);
+		for (long walked = 1;; walked++) {
+			double x = ahead.x;
+			this.step(ahead);
+			if (crosses(boundaries, x, ahead.x))
+				return this.startTime + ahead.step * this.stepInterval;
+			// a whole period without crossing anything, it never will
+			if (this.period > 0 && walked >= this.period && ahead.step >= this.periodStart + this.period)
+				return Double.MAX_VALUE;
+			if (this.period == 0 && walked >= CROSSING_LOOKAHEAD)
+				return this.startTime + ahead.step * this.stepInterval;
+		}
+	}
+
+	/**
+	 * take the steps up to the given number of steps since the start, skipping
+	 * whole periods once they are known
+	 */
+	private void advance(Step state, long steps) {
+		if (steps < state.step)
+			state.copy(this.start);
+		while (state.step < steps) {
+			if (this.period > 0 && state.step >= this.periodStart) {
+				state.step += (steps - state.step) / this.period * this.period;
+				if (state.step == steps)
+					return;
+			}
+			this.step(state);
+		}
+	}
+
+	/**
+	 * one step of SimpleMovingPolicy: move by the velocity on every axis, the
+	 * velocity turns around for every axis that reaches the end of its range
+	 */
+	private void step(Step state) {
+		MovingRange range = this.range;
+		double x = state.x, y = state.y, z = state.z;
+		double volecity = state.volecity;
+		double v = volecity;
+		double px = x + v;
+		double py = y + v;
+		double pz = z + v;
+		if (px >= range.endX || px <= range.beginX) {
+			v = -v;
+			px = Math.max(Math.min(px, range.endX), range.beginX);
+		}
+		if (py >= range.endY || py <= range.beginY) {
+			v = -v;
+			py = Math.max(Math.min(py, range.endY), range.beginY);
+		}
+		if (pz >= range.endZ || pz <= range.beginZ) {
+			v = -v;
+			pz = Math.max(Math.min(pz, range.endZ), range.beginZ);
+		}
+		state.set(px, py, pz, v, state.step + 1);
+		if (this.period > 0)
+			return;
+		if (px == x && py == y && pz == z && v == volecity) {
+			// it no longer moves
+			this.period = 1;
+			this.periodStart = state.step - 1;
+		} else if (v != volecity) {
+			this.turned(state);
+		}
+	}
+
+	private void turned(Step state) {
+		for (int i = 0; i < this.turnCount; i++) {
+			Step turn = this.turns[i];
+			if (turn.step == state.step)
+				return;
+			if (turn.x == state.x && turn.y == state.y && turn.z == state.z && turn.volecity == state.volecity) {
+				this.periodStart = turn.step;
+				this.period = state.step - turn.step;
+				return;
+			}
+		}
+		if (this.turnCount < TURNS) {
+			Step turn = new Step();
+			turn.copy(state);
+			this.turns[this.turnCount++] = turn;
+		}
+	}
+
+	/**
+	 * @return whether a boundary lies on the way from x to the next x, the
+	 *         boundaries the device leaves from are not crossed again
+	 */
+	private static boolean crosses(double[] boundaries, double x, double next) {
+		if (next > x) {
+			int ahead = firstAbove(boundaries, x + EPSILON);
+			return ahead < boundaries.length && boundaries[ahead] <= next;
+		}
+		if (next < x) {
+			int ahead = firstAbove(boundaries, x - EPSILON) - 1;
+			return ahead >= 0 && boundaries[ahead] >= next;
+		}
+		return false;
+	}
+
+	/**
+	 * @return the index of the first boundary strictly greater than x
+	 */
+	private static int firstAbove(double[] boundaries, double x) {
+		int index = Arrays.binarySearch(boundaries, x);
+		if (index < 0)
+			return -index - 1;
+		while (index < boundaries.length && boundaries[index] <= x)
+			index++;
+		return index;
+	}
+
+	/**
+	 * where the device is after a number of steps
+	 */
+	private static final class Step {
+		double x;
+		double y;
+		double z;
+		double volecity;
+		long step;
+
+		void set(double x, double y, double z, double volecity, long step) {
+			this.x = x;
+			this.y = y;
+			this.z = z;
+			this.volecity = volecity;
+			this.step = step;
+		}
+
+		void copy(Step other) {
+			this.set(other.x, other.y, other.z, other.volecity, other.step);
+		}
+	}
+
+}
@@ -0,0 +1,227 @@
+package org.edge.core.feature.policy;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+
+/**
+ * recorded tracks, such as vehicle gps traces converted to simulation
+ * coordinates, read from a binary file mapped into memory. the samples are
+ * only paged in when a track is replayed, a trace of many gigabytes does not
+ * have to fit in the heap.
+ * <p>
+ * the file holds big-endian values:
+ *
+ * <pre>
+ * int    magic, "EDGT"
+ * int    version, 1
+ * int    number of tracks
+ * for every track
+ *   long first sample
+ *   int  number of samples
+ * for every sample, the samples of a track sorted by time
+ *   double time, the simulation time
+ *   double x
+ *   double y
+ *   double z
+ * </pre>
+ *
+ * {@link Writer} writes such a file.
+ */
+public class MobilityTrace {
+
+	private static final int MAGIC = 0x45444754;
+	private static final int VERSION = 1;
+	private static final int HEADER_SIZE = 12;
+	private static final int TRACK_SIZE = 12;
+	private static final int SAMPLE_SIZE = 32;
+	/**
+	 * the samples are mapped 1 GiB at a time, a mapping is limited to 2 GiB
+	 */
+	private static final int WINDOW_BITS = 30;
+
+	private final String path;
+	private final int trackCount;
+	private final ByteBuffer tracks;
+	private final MappedByteBuffer[] windows;
+
+	/**
+	 * @param path
+	 * @throws IOException if the file cannot be read or is not a trace
+	 */
+	public MobilityTrace(String path) throws IOException {
+		this.path = path;
+		try (RandomAccessFile file = new RandomAccessFile(path, "r")) {
+			FileChannel channel = file.getChannel();
+			ByteBuffer header = channel.map(MapMode.READ_ONLY, 0, HEADER_SIZE);
+			if (header.getInt() != MAGIC || header.getInt() != VERSION)
+				throw new IOException(path + " is not a mobility trace");
+			this.trackCount = header.getInt();
+			this.tracks = channel.map(MapMode.READ_ONLY, HEADER_SIZE, (long) TRACK_SIZE * this.trackCount);
+			long samplesOffset = HEADER_SIZE + (long) TRACK_SIZE * this.trackCount;
+			long samplesSize = channel.size() - samplesOffset;
+			this.windows = new MappedByteBuffer[(int) ((samplesSize >>> WINDOW_BITS) + 1)];
+			// the mappings stay valid once the channel is closed
+			for (int i = 0; i < this.windows.length; i++) {
+				long position = (long) i << WINDOW_BITS;
+				this.windows[i] = channel.map(MapMode.READ_ONLY, samplesOffset + position,
+						Math.min(1L << WINDOW_BITS, samplesSize - position));
+			}
+		}
+	}
+
+	public String getPath() {
+		return this.path;
+	}
+
+	/**
+	 * @return the number of tracks
+	 */
+	public int size() {
+		return this.trackCount;
+	}
+
+	/**
+	 * @param index
+	 * @return the track at the index
+	 * @throws IndexOutOfBoundsException if there is no such track
+	 */
+	public Track getTrack(int index) {
+		if (index < 0 || index >= this.trackCount)
+			throw new IndexOutOfBoundsException("track " + index + " of " + this.trackCount + " in " + this.path);
+		int position = index * TRACK_SIZE;
+		return new Track(this, this.tracks.getLong(position), this.tracks.getInt(position + 8));
+	}
+
+	private double get(long sample, int field) {
+		long position = sample * SAMPLE_SIZE + field * 8;
+		return this.windows[(int) (position >>> WINDOW_BITS)].getDouble((int) (position & ((1 << WINDOW_BITS) - 1)));
+	}
+
+	/**
+	 * the samples of one device, read from the mapped file
+	 */
+	public static class Track {
+
+		private final MobilityTrace trace;
+		private final long first;
+		private final int size;
+
+		Track(MobilityTrace trace, long first, int size) {
+			this.trace = trace;
+			this.first = first;
+			this.size = size;
+		}
+
+		/**
+		 * @return the number of samples
+		 */
+		public int size() {
+			return this.size;
+		}
+
+		public double getTime(int sample) {
+			return this.trace.get(this.first + sample, 0);
+		}
+
+		public double getX(int sample) {
+			return this.trace.get(this.first + sample, 1);
+		}
+
+		public double getY(int sample) {
+			return this.trace.get(this.first + sample, 2);
+		}
+
+		public double getZ(int sample) {
+			return this.trace.get(this.first + sample, 3);
+		}
+
+		/**
+		 * @param time
+		 * @return the last sample at or before the time, -1 if the track starts
+		 *         after it
+		 */
+		public int find(double time) {
+			int low = 0;
+			int high = this.size - 1;
+			while (low <= high) {
+				int middle = (low + high) >>> 1;
+				if (this.getTime(middle) <= time)
+					low = middle + 1;
+				else
+					high = middle - 1;
+			}
+			return high;
+		}
+	}
+
+	/**
+	 * writes a trace one track after another, the number of tracks is known
+	 * before hand
+	 */
+	public static class Writer implements Closeable {
+
+		private final RandomAccessFile file;
+		private final FileChannel channel;
+		private final int trackCount;
+		private int tracks;
+		private long samples;
+
+		public Writer(String path, int trackCount) throws IOException {
+			this.file = new RandomAccessFile(path, "rw");
+			this.file.setLength(0);
+			this.channel = this.file.getChannel();
+			this.trackCount = trackCount;
+			ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+			header.putInt(MAGIC).putInt(VERSION).putInt(trackCount).flip();
+			this.channel.write(header, 0);
+			// the index is filled as the tracks are written
+			this.file.setLength(HEADER_SIZE + (long) TRACK_SIZE * trackCount);
+		}
+
+		/**
+		 * add the next track
+		 *
+		 * @param times sorted simulation times
+		 * @param xs
+		 * @param ys
+		 * @param zs
+		 * @throws IOException
+		 */
+		public void write(double[] times, double[] xs, double[] ys, double[] zs) throws IOException {
+			if (this.tracks == this.trackCount)
+				throw new IllegalStateException("the trace has " + this.trackCount + " tracks");
+			ByteBuffer track = ByteBuffer.allocate(TRACK_SIZE);
+			track.putLong(this.samples).putInt(times.length).flip();
+			this.channel.write(track, HEADER_SIZE + (long) TRACK_SIZE * this.tracks);
+			ByteBuffer samples = ByteBuffer.allocate(SAMPLE_SIZE * times.length);
+			for (int i = 0; i < times.length; i++) {
+				samples.putDouble(times[i]).putDouble(xs[i]).putDouble(ys[i]).putDouble(zs[i]);
+			}
+			samples.flip();
+			long position = HEADER_SIZE + (long) TRACK_SIZE * this.trackCount + this.samples * SAMPLE_SIZE;
+			while (samples.hasRemaining()) {
+				position += this.channel.write(samples, position);
+			}
+			this.samples += times.length;
+			this.tracks++;
+		}
+
+		/**
+		 * @throws IOException
+		 * @throws IllegalStateException if tracks are missing
+		 */
+		@Override
+		public void close() throws IOException {
+			this.file.close();
+			if (this.tracks != this.trackCount)
+				throw new IllegalStateException(
+						"only " + this.tracks + " of the " + this.trackCount + " tracks have been written");
+		}
+	}
+
+}
@@ -0,0 +1,186 @@
+package org.edge.core.feature.policy;
+
+import java.util.SplittableRandom;
+
+import org.edge.core.feature.Mobility;
+import org.edge.core.feature.Mobility.Location;
+import org.edge.core.feature.Mobility.MovingRange;
+import org.edge.core.kernel.SimulationContext;
+
+/**
+ * the random waypoint model: the device picks a random point of its moving
+ * range, goes there on a straight line, pauses, and picks the next one. it
+ * moves by the absolute value of its velocity every step, the velocity of the
+ * mobility is negative while x decreases. the mobility must have a range.
+ * <p>
+ * the waypoints come from a seeded generator, a run is repeated exactly.
+ */
+public class RandomWaypointMovingPolicy implements AnalyticMovingPolicy {
+
+	/**
+	 * crossings closer than this are considered to have already happened
+	 */
+	private static final double EPSILON = 1e-9;
+
+	/**
+	 * simulation time it takes to move by the velocity once
+	 */
+	private final double stepInterval;
+	/**
+	 * simulation time the device waits at a waypoint
+	 */
+	private final double pauseTime;
+	private final SplittableRandom random;
+
+	private boolean started;
+	private double stepTime;
+	/**
+	 * distance moved per step
+	 */
+	private double speed;
+	private MovingRange range;
+	/**
+	 * the current leg, from the departure to the arrival at the waypoint
+	 */
+	private double fromX, fromY, fromZ;
+	private double toX, toY, toZ;
+	private double departure;
+	private double arrival;
+	private double legLength;
+	/**
+	 * the distance moved before the current leg
+	 */
+	private double legDistance;
+
+	/**
+	 * without pauses, seeded by the simulation context
+	 */
+	public RandomWaypointMovingPolicy() {
+		this(0.5, 0, SimulationContext.current().nextRandomSeed());
+	}
+
+	public RandomWaypointMovingPolicy(double stepInterval, double pauseTime, long seed) {
+		this.stepInterval = stepInterval;
+		this.pauseTime = pauseTime;
+		this.random = new SplittableRandom(seed);
+	}
+
+	@Override
+	public void start(Mobility mobility, double time) {
+		this.started = true;
+		this.stepTime = time;
+		this.speed = Math.abs(mobility.volecity);
+		this.range = mobility.range;
+		this.legDistance = mobility.totalMovingDistance;
+		this.fromX = mobility.location.x;
+		this.fromY = mobility.location.y;
+		this.fromZ = mobility.location.z;
+		this.departure = time;
+		this.nextWaypoint();
+		this.locate(mobility, time);
+	}
+
+	@Override
+	public boolean isStarted() {
+		return this.started;
+	}
+
+	@Override
+	public void locate(Mobility mobility, double time) {
+		if (!this.started)
+			return;
+		while (time >= this.arrival + this.pauseTime) {
+			this.legDistance += this.legLength;
+			this.fromX = this.toX;
+			this.fromY = this.toY;
+			this.fromZ = this.toZ;
+			this.departure = this.arrival + this.pauseTime;
+			this.nextWaypoint();
+		}
+		double f = this.progress(time);
+		Location location = mobility.location;
+		location.x = this.fromX + f * (this.toX - this.fromX);
+		location.y = this.fromY + f * (this.toY - this.fromY);
+		location.z = this.fromZ + f * (this.toZ - this.fromZ);
+		mobility.totalMovingDistance = this.legDistance + f * this.legLength;
+		mobility.volecity = this.toX < this.fromX ? -this.speed : this.speed;
+	}
+
+	/**
+	 * move one step further in time
+	 */
+	@Override
+	public void updateLocation(Mobility mobility) {
+		if (!this.started)
+			this.start(mobility, 0);
+		this.stepTime += this.stepInterval;
+		this.locate(mobility, this.stepTime);
+	}
+
+	/**
+	 * only looks at the current leg, if the device crosses no boundary on it
+	 * this returns the end of the pause at the waypoint
+	 */
+	@Override
+	public double getNextCrossingTime(Mobility mobility, double time, double[] boundaries) {
+		if (!this.started || boundaries == null || this.arrival == Double.POSITIVE_INFINITY)
+			return Double.MAX_VALUE;
+		this.locate(mobility, time);
+		double x = mobility.location.x;
+		double crossing = Double.NaN;
+		if (this.toX > x) {
+			for (double boundary : boundaries) {
+				if (boundary > x + EPSILON) {
+					if (boundary <= this.toX)
+						crossing = boundary;
+					break;
+				}
+			}
+		} else if (this.toX < x) {
+			for (int i = boundaries.length - 1; i >= 0; i--) {
+				if (boundaries[i] < x - EPSILON) {
+					if (boundaries[i] >= this.toX)
+						crossing = boundaries[i];
+					break;
+				}
+			}
+		}
+		if (Double.isNaN(crossing))
+			return this.arrival + this.pauseTime;
+		double start = Math.max(time, this.departure);
+		return start + (crossing - x) / (this.toX - x) * (this.arrival - start);
+	}
+
+	private void nextWaypoint() {
+		MovingRange range = this.range;
+		this.toX = range.beginX + this.random.nextDouble() * (range.endX - range.beginX);
+		this.toY = range.beginY + this.random.nextDouble() * (range.endY - range.beginY);
+		this.toZ = range.beginZ + this.random.nextDouble() * (range.endZ - range.beginZ);
+		double dx = this.toX - this.fromX;
+		double dy = this.toY - this.fromY;
+		double dz = this.toZ - this.fromZ;
+		this.legLength = Math.sqrt(dx * dx + dy * dy + dz * dz);
+		// a device that does not move, or has nowhere to go, stays where it is
+		if (this.speed == 0 || this.legLength == 0) {
+			this.toX = this.fromX;
+			this.toY = this.fromY;
+			this.toZ = this.fromZ;
+			this.legLength = 0;
+			this.arrival = Double.POSITIVE_INFINITY;
+		} else {
+			this.arrival = this.departure + this.legLength / this.speed * this.stepInterval;
+		}
+	}
+
+	/**
+	 * @return the part of the current leg done at the time
+	 */
+	private double progress(double time) {
+		if (this.legLength == 0 || time <= this.departure)
+			return 0;
+		if (time >= this.arrival)
+			return 1;
+		return (time - this.departure) / (this.arrival - this.departure);
+	}
+
+}
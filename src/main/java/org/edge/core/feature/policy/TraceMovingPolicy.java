@@ -0,0 +1,212 @@
+package org.edge.core.feature.policy;
+
+import java.util.Arrays;
+
+import org.edge.core.feature.Mobility;
+import org.edge.core.feature.Mobility.Location;
+import org.edge.core.feature.policy.MobilityTrace.Track;
+
+/**
+ * replays a recorded track: the device is where the track puts it at the
+ * simulation time, moving on a straight line from one sample to the next.
+ * before the first sample it waits there, after the last sample it stays at
+ * the last one. the samples are read from the mapped trace as they are
+ * reached, the track is never loaded.
+ * <p>
+ * the velocity of the mobility is the distance moved per step, negative while
+ * x decreases, and 0 while the device does not move.
+ */
+public class TraceMovingPolicy implements AnalyticMovingPolicy {
+
+	/**
+	 * crossings closer than this are considered to have already happened
+	 */
+	private static final double EPSILON = 1e-9;
+	/**
+	 * segments searched for the next crossing, the device is moved at the end of
+	 * the last one and searches again
+	 */
+	private static final int CROSSING_LOOKAHEAD = 256;
+
+	private final Track track;
+	/**
+	 * simulation time of a step, as with {@link SimpleMovingPolicy}
+	 */
+	private final double stepInterval;
+
+	private boolean started;
+	private double stepTime;
+	private double startDistance;
+	/**
+	 * the distance along the track at the start
+	 */
+	private double startAlong;
+	/**
+	 * the last sample at or before the time located, -1 before the first one
+	 */
+	private int sample = -1;
+	/**
+	 * the distance along the track up to the sample
+	 */
+	private double sampleAlong;
+
+	public TraceMovingPolicy(Track track) {
+		this(track, 0.5);
+	}
+
+	public TraceMovingPolicy(Track track, double stepInterval) {
+		this.track = track;
+		this.stepInterval = stepInterval;
+	}
+
+	public Track getTrack() {
+		return this.track;
+	}
+
+	@Override
+	public void start(Mobility mobility, double time) {
+		this.started = true;
+		this.stepTime = time;
+		this.startDistance = mobility.totalMovingDistance;
+		this.seek(time);
+		this.startAlong = this.along(time);
+		this.locate(mobility, time);
+	}
+
+	@Override
+	public boolean isStarted() {
+		return this.started;
+	}
+
+	@Override
+	public void locate(Mobility mobility, double time) {
+		if (!this.started || this.track.size() == 0)
+			return;
+		this.seek(time);
+		Location location = mobility.location;
+		int i = this.sample;
+		if (i < 0 || i == this.track.size() - 1) {
+			int at = i < 0 ? 0 : i;
+			location.x = this.track.getX(at);
+			location.y = this.track.getY(at);
+			location.z = this.track.getZ(at);
+			mobility.volecity = 0;
+		} else {
+			double t0 = this.track.getTime(i);
+			double t1 = this.track.getTime(i + 1);
+			double f = t1 > t0 ? (time - t0) / (t1 - t0) : 0;
+			double x0 = this.track.getX(i);
+			double y0 = this.track.getY(i);
+			double z0 = this.track.getZ(i);
+			double dx = this.track.getX(i + 1) - x0;
+			double dy = this.track.getY(i + 1) - y0;
+			double dz = this.track.getZ(i + 1) - z0;
+			location.x = x0 + f * dx;
+			location.y = y0 + f * dy;
+			location.z = z0 + f * dz;
+			double speed = t1 > t0 ? Math.sqrt(dx * dx + dy * dy + dz * dz) / (t1 - t0) * this.stepInterval : 0;
+			mobility.volecity = dx < 0 ? -speed : speed;
+		}
+		mobility.totalMovingDistance = this.startDistance + this.along(time) - this.startAlong;
+	}
+
+	/**
+	 * move one step further in time
+	 */
+	@Override
+	public void updateLocation(Mobility mobility) {
+		if (!this.started)
+			this.start(mobility, 0);
+		this.stepTime += this.stepInterval;
+		this.locate(mobility, this.stepTime);
+	}
+
+	/**
+	 * searches the next CROSSING_LOOKAHEAD segments, if the device crosses none
+	 * of the boundaries in them it returns the end of the last one
+	 */
+	@Override
+	public double getNextCrossingTime(Mobility mobility, double time, double[] boundaries) {
+		if (!this.started || boundaries == null || this.track.size() < 2)
+			return Double.MAX_VALUE;
+		this.locate(mobility, time);
+		int last = this.track.size() - 1;
+		int from = Math.max(this.sample, 0);
+		if (from >= last)
+			return Double.MAX_VALUE;
+		double x = this.sample < 0 ? this.track.getX(0) : mobility.location.x;
+		double t = Math.max(time, this.track.getTime(from));
+		int j = from;
+		for (; j < last && j < from + CROSSING_LOOKAHEAD; j++) {
+			double x1 = this.track.getX(j + 1);
+			double t1 = this.track.getTime(j + 1);
+			double crossing = Double.NaN;
+			if (x1 > x) {
+				int ahead = firstAbove(boundaries, x + EPSILON);
+				if (ahead < boundaries.length && boundaries[ahead] <= x1)
+					crossing = boundaries[ahead];
+			} else if (x1 < x) {
+				int ahead = firstAbove(boundaries, x - EPSILON) - 1;
+				if (ahead >= 0 && boundaries[ahead] >= x1)
+					crossing = boundaries[ahead];
+			}
+			if (!Double.isNaN(crossing))
+				return t + (crossing - x) / (x1 - x) * (t1 - t);
+			x = x1;
+			t = t1;
+		}
+		return j == last ? Double.MAX_VALUE : t;
+	}
+
+	/**
+	 * bring the sample up to the time, going through the samples passed
+	 */
+	private void seek(double time) {
+		if (this.sample >= 0 && this.track.getTime(this.sample) > time) {
+			// the time went back, measure the track again from its beginning
+			this.sample = -1;
+			this.sampleAlong = 0;
+		}
+		int last = this.track.size() - 1;
+		while (this.sample < last && this.track.getTime(this.sample + 1) <= time) {
+			if (this.sample >= 0)
+				this.sampleAlong += this.length(this.sample);
+			this.sample++;
+		}
+	}
+
+	/**
+	 * @return the distance along the track at the time, once seeked to it
+	 */
+	private double along(double time) {
+		int i = this.sample;
+		if (i < 0 || i == this.track.size() - 1)
+			return this.sampleAlong;
+		double t0 = this.track.getTime(i);
+		double t1 = this.track.getTime(i + 1);
+		return this.sampleAlong + (t1 > t0 ? (time - t0) / (t1 - t0) : 0) * this.length(i);
+	}
+
+	/**
+	 * @return the length of the segment from the sample to the next one
+	 */
+	private double length(int i) {
+		double dx = this.track.getX(i + 1) - this.track.getX(i);
+		double dy = this.track.getY(i + 1) - this.track.getY(i);
+		double dz = this.track.getZ(i + 1) - this.track.getZ(i);
+		return Math.sqrt(dx * dx + dy * dy + dz * dz);
+	}
+
+	/**
+	 * @return the index of the first boundary strictly greater than x
+	 */
+	private static int firstAbove(double[] boundaries, double x) {
+		int index = Arrays.binarySearch(boundaries, x);
+		if (index < 0)
+			return -index - 1;
+		while (index < boundaries.length && boundaries[index] <= x)
+			index++;
+		return index;
+	}
+
+}
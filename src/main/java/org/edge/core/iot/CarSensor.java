@@ -15,7 +15,7 @@ public class CarSensor extends IoTDevice {
 
 	static EdgeLet edgeLet;
 	static {
-		edgeLet = new EdgeLet(EdgeLet.id++,1000, 1, 30, 10, new UtilizationModelFull(), new UtilizationModelFull(),
+		edgeLet = new EdgeLet(EdgeLet.TEMPLATE_ID,1000, 1, 30, 10, new UtilizationModelFull(), new UtilizationModelFull(),
 				new UtilizationModelFull());
 	}
 	public static final double DATA_GENERATION_TIME = 1;
@@ -44,7 +44,7 @@ public class CarSensor extends IoTDevice {
 
 	@Override
 	public boolean updateBatteryBySensing(Battery battery) {
-		battery.setCurrentCapacity(battery.getCurrentCapacity()-this.battery_drainage_rate);
+		battery.setCurrentCapacity(battery.getCurrentCapacity()-this.getBatteryDrainageRate());
 		if(battery.getCurrentCapacity()<0)
 			return  true;
 		return false;
@@ -131,7 +131,8 @@ public class CarSensor extends IoTDevice {
 		NetworkDelayCalculationPolicy networkDelayCalculationPolicy = this.getNetworkDelayCalculationPolicy();
 		if(networkDelayCalculationPolicy==null) {
 			networkDelayCalculationPolicy=new SimpleNetworkDelayCalculator();
-			this.setNetworkDelayCalculationPolicy(networkDelayCalculationPolicy);
+			// the default is kept for the whole group
+			this.getGroup().setNetworkDelayCalculationPolicy(networkDelayCalculationPolicy);
 		}
 
 		double networkDelay = networkDelayCalculationPolicy.getNetworkDelay(this.getNetworkModel(), edgeLet, this.getMobility(), null);
@@ -0,0 +1,258 @@
+package org.edge.core.iot;
+
+import java.util.Arrays;
+import java.util.BitSet;
+
+import org.edge.core.feature.Battery;
+
+/**
+ * the changing state of the iot devices of a run, kept column by column: one
+ * array per value, one row per device. a device holds its row, its battery is
+ * a view of the row, so a pass over the whole fleet such as a battery report
+ * walks a few arrays instead of every device.
+ * <p>
+ * the position, velocity and moved distance of a movable device are kept here,
+ * its Mobility is brought up to date from its row when it is read.
+ */
+public class DeviceStateStore {
+
+	private static final int INITIAL_CAPACITY = 64;
+
+	private double[] x;
+	private double[] y;
+	private double[] z;
+	private double[] velocity;
+	private double[] distance;
+	private double[] battery;
+	private double[] maxBattery;
+	private int[] attachedVm;
+	private final BitSet enabled;
+	private int size;
+
+	public DeviceStateStore() {
+		this.x = new double[INITIAL_CAPACITY];
+		this.y = new double[INITIAL_CAPACITY];
+		this.z = new double[INITIAL_CAPACITY];
+		this.velocity = new double[INITIAL_CAPACITY];
+		this.distance = new double[INITIAL_CAPACITY];
+		this.battery = new double[INITIAL_CAPACITY];
+		this.maxBattery = new double[INITIAL_CAPACITY];
+		this.attachedVm = new int[INITIAL_CAPACITY];
+		this.enabled = new BitSet(INITIAL_CAPACITY);
+	}
+
+	/**
+	 * @return the row of a new device, every value 0 and disabled
+	 */
+	public int add() {
+		if (this.size == this.x.length) {
+			int capacity = this.x.length * 2;
+			this.x = Arrays.copyOf(this.x, capacity);
+			this.y = Arrays.copyOf(this.y, capacity);
+			this.z = Arrays.copyOf(this.z, capacity);
+			this.velocity = Arrays.copyOf(this.velocity, capacity);
+			this.distance = Arrays.copyOf(this.distance, capacity);
+			this.battery = Arrays.copyOf(this.battery, capacity);
+			this.maxBattery = Arrays.copyOf(this.maxBattery, capacity);
+			this.attachedVm = Arrays.copyOf(this.attachedVm, capacity);
+		}
+		return this.size++;
+	}
+
+	/**
+	 * @return the number of devices
+	 */
+	public int size() {
+		return this.size;
+	}
+
+	public double getX(int device) {
+		return this.x[device];
+	}
+
+	public double getY(int device) {
+		return this.y[device];
+	}
+
+	public double getZ(int device) {
+		return this.z[device];
+	}
+
+	public void setPosition(int device, double x, double y, double z) {
+		this.x[device] = x;
+		this.y[device] = y;
+		this.z[device] = z;
+	}
+
+	public double getVelocity(int device) {
+		return this.velocity[device];
+	}
+
+	public void setVelocity(int device, double velocity) {
+		this.velocity[device] = velocity;
+	}
+
+	/**
+	 * @return the distance the device has moved
+	 */
+	public double getDistance(int device) {
+		return this.distance[device];
+	}
+
+	public void setDistance(int device, double distance) {
+		this.distance[device] = distance;
+	}
+
+	public double getBattery(int device) {
+		return this.battery[device];
+	}
+
+	public void setBattery(int device, double capacity) {
+		this.battery[device] = capacity;
+	}
+
+	public double getMaxBattery(int device) {
+		return this.maxBattery[device];
+	}
+
+	public void setMaxBattery(int device, double capacity) {
+		this.maxBattery[device] = capacity;
+	}
+
+	/**
+	 * @return the vm the device sends to, -1 if it is not connected
+	 */
+	public int getAttachedVm(int device) {
+		return this.attachedVm[device];
+	}
+
+	public void setAttachedVm(int device, int vm) {
+		this.attachedVm[device] = vm;
+	}
+
+	public boolean isEnabled(int device) {
+		return this.enabled.get(device);
+	}
+
+	public void setEnabled(int device, boolean enabled) {
+		this.enabled.set(device, enabled);
+	}
+
+	/**
+	 * @return the number of enabled devices
+	 */
+	public int countEnabled() {
+		return this.enabled.cardinality();
+	}
+
+	/**
+	 * @return the number of devices whose battery has run out
+	 */
+	public int countDrained() {
+		double[] battery = this.battery;
+		int drained = 0;
+		for (int i = 0; i < this.size; i++) {
+			if (battery[i] <= 0)
+				drained++;
+		}
+		return drained;
+	}
+
+	/**
+	 * @return the battery capacity left in the whole fleet
+	 */
+	public double getRemainingBattery() {
+		double[] battery = this.battery;
+		double remaining = 0;
+		for (int i = 0; i < this.size; i++) {
+			remaining += Math.max(battery[i], 0);
+		}
+		return remaining;
+	}
+
+	/**
+	 * @return the battery capacity the whole fleet has used, a drained battery
+	 *         has used all of it
+	 */
+	public double getConsumedBattery() {
+		double[] battery = this.battery;
+		double[] maxBattery = this.maxBattery;
+		double consumed = 0;
+		for (int i = 0; i < this.size; i++) {
+			consumed += maxBattery[i] - Math.max(battery[i], 0);
+		}
+		return consumed;
+	}
+
+	// the columns, for the passes over many rows; they are replaced when the
+	// store grows
+
+	double[] xs() {
+		return this.x;
+	}
+
+	double[] ys() {
+		return this.y;
+	}
+
+	double[] zs() {
+		return this.z;
+	}
+
+	double[] velocities() {
+		return this.velocity;
+	}
+
+	double[] distances() {
+		return this.distance;
+	}
+
+	double[] batteries() {
+		return this.battery;
+	}
+
+	int[] attachedVms() {
+		return this.attachedVm;
+	}
+
+	/**
+	 * @param device
+	 * @return the battery of the device, reading and writing its row
+	 */
+	Battery batteryOf(int device) {
+		return new StoredBattery(this, device);
+	}
+
+	private static class StoredBattery extends Battery {
+
+		private final DeviceStateStore store;
+		private final int device;
+
+		StoredBattery(DeviceStateStore store, int device) {
+			super(0, 0);
+			this.store = store;
+			this.device = device;
+		}
+
+		@Override
+		public double getCurrentCapacity() {
+			return this.store.battery[this.device];
+		}
+
+		@Override
+		public void setCurrentCapacity(double currentCapacity) {
+			this.store.battery[this.device] = currentCapacity;
+		}
+
+		@Override
+		public double getMaxCapacity() {
+			return this.store.maxBattery[this.device];
+		}
+
+		@Override
+		public void setMaxCapacity(double maxCapacity) {
+			this.store.maxBattery[this.device] = maxCapacity;
+		}
+	}
+
+}
@@ -0,0 +1,317 @@
+package org.edge.core.iot;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+import org.cloudbus.cloudsim.core.CloudSim;
+import org.cloudbus.cloudsim.core.SimEntity;
+import org.cloudbus.cloudsim.core.SimEvent;
+import org.edge.core.feature.EdgeState;
+import org.edge.core.feature.EnergyModel.PowerState;
+import org.edge.core.feature.Mobility;
+import org.edge.core.feature.Mobility.MovingRange;
+import org.edge.core.feature.policy.MovingPolicy;
+import org.edge.core.feature.policy.SimpleMovingPolicy;
+import org.edge.core.kernel.SimulationContext;
+import org.edge.utils.LogUtil;
+import org.edge.utils.LogUtil.Level;
+
+/**
+ * moves the movable iot devices of a run together: one MOVING event every
+ * MOVE_INTERVAL advances all of them over the columns of the state store,
+ * instead of one MOVING event per device. a device takes the same steps as
+ * with SimpleMovingPolicy, asks for a connection while it has none and stops
+ * when moving has drained its battery.
+ * <p>
+ * devices created one after another with the same moving range are moved as a
+ * run of rows, in one plain loop over the columns. runs of at least
+ * parallelThreshold devices are split across the common fork-join pool, their
+ * locations are logged beforehand in one pass.
+ */
+public class FleetMobility extends SimEntity {
+
+	/**
+	 * rows moved by one fork-join task
+	 */
+	private static final int CHUNK = 8192;
+
+	private final DeviceStateStore states;
+	private final List<Run> runs;
+	private int parallelThreshold = Integer.MAX_VALUE;
+
+	public FleetMobility(String name) {
+		super(name);
+		this.states = SimulationContext.current().getDeviceStates();
+		this.runs = new ArrayList<>();
+	}
+
+	/**
+	 * @param parallelThreshold runs of at least this many devices are moved in
+	 *                          parallel
+	 */
+	public void setParallelThreshold(int parallelThreshold) {
+		this.parallelThreshold = parallelThreshold;
+	}
+
+	/**
+	 * move the device with the others from now on, it must have its mobility,
+	 * moving policy and energy model and the simulation must not have started
+	 *
+	 * @param device
+	 * @return false if the device keeps its own MOVING events: it does not move,
+	 *         or it moves with another policy than SimpleMovingPolicy
+	 */
+	public boolean add(IoTDevice device) {
+		Mobility mobility = device.getMobility();
+		MovingPolicy policy = device.getMovingPolicy();
+		if (mobility == null || !mobility.movable || mobility.range == null
+				|| (policy != null && policy.getClass() != SimpleMovingPolicy.class)
+				|| device.getStateStore() != this.states || device.getFleetMobility() != null)
+			return false;
+		Run run = this.runs.isEmpty() ? null : this.runs.get(this.runs.size() - 1);
+		if (run == null || !run.continuedBy(device)) {
+			run = new Run(device);
+			this.runs.add(run);
+		}
+		run.add(device);
+		device.setFleetMobility(this);
+		return true;
+	}
+
+	/**
+	 * @return the number of devices moved together
+	 */
+	public int size() {
+		int size = 0;
+		for (Run run : this.runs) {
+			size += run.size;
+		}
+		return size;
+	}
+
+	@Override
+	public void startEntity() {
+		// the devices moving on their own start at the same time
+		if (!this.runs.isEmpty())
+			this.send(this.getId(), IoTDevice.MOVE_INTERVAL + 2, EdgeState.MOVING);
+	}
+
+	@Override
+	public void processEvent(SimEvent ev) {
+		if (ev.getTag() != EdgeState.MOVING)
+			return;
+		if (this.move(CloudSim.clock()))
+			this.send(this.getId(), IoTDevice.MOVE_INTERVAL, EdgeState.MOVING);
+	}
+
+	@Override
+	public void shutdownEntity() {
+	}
+
+	/**
+	 * one step of every device still moving
+	 *
+	 * @param now
+	 * @return whether any device is still moving
+	 */
+	public boolean move(double now) {
+		boolean moving = false;
+		for (Run run : this.runs) {
+			if (run.moving > 0) {
+				run.moving = this.move(run, now);
+				moving |= run.moving > 0;
+			}
+		}
+		return moving;
+	}
+
+	private int move(Run run, double now) {
+		int[] attachedVms = this.states.attachedVms();
+		boolean[] stopped = run.stopped;
+		int from = run.from;
+		// what a device does on its own MOVING event before moving
+		for (int i = 0; i < run.size; i++) {
+			if (attachedVms[from + i] == -1 && !stopped[i])
+				run.devices[i].requestConnection();
+		}
+		if (run.energyModels) {
+			for (int i = 0; i < run.size; i++) {
+				if (stopped[i])
+					continue;
+				IoTDevice device = run.devices[i];
+				device.setPowerState(PowerState.MOVING, true);
+				stopped[i] = device.getEnergyModel().isDrained(now);
+			}
+		}
+
+		// the locations are logged one device after another, before the step
+		if (LogUtil.isEnabled(Level.INFOR))
+			this.log(run);
+		if (run.size >= this.parallelThreshold)
+			return ForkJoinPool.commonPool().invoke(new Step(run, 0, run.size));
+		return this.step(run, 0, run.size);
+	}
+
+	/**
+	 * log the location of every device the step is going to move, where it is
+	 * before it moves
+	 */
+	private void log(Run run) {
+		double[] battery = this.states.batteries();
+		for (int i = 0; i < run.size; i++) {
+			int r = run.from + i;
+			if (run.stopped[i] || (!run.energyModels && battery[r] - IoTDevice.BATTERY_DRAIN_BY_MOVING <= 0))
+				continue;
+			IoTDevice device = run.devices[i];
+			LogUtil.info(device.getClass().getSimpleName() + " " + device.getId() + " Location is: ("
+					+ this.states.getX(r) + ',' + this.states.getY(r) + ',' + this.states.getZ(r) + ')');
+		}
+	}
+
+	/**
+	 * what SimpleMovingPolicy does, in one pass over the rows: charge the battery
+	 * for the step, the devices drained stop; move by the velocity on every axis,
+	 * then turn back at the bounds of the range
+	 *
+	 * @return the number of devices still moving
+	 */
+	private int step(Run run, int lo, int hi) {
+		double[] x = this.states.xs();
+		double[] y = this.states.ys();
+		double[] z = this.states.zs();
+		double[] velocity = this.states.velocities();
+		double[] distance = this.states.distances();
+		double[] battery = this.states.batteries();
+		boolean[] stopped = run.stopped;
+		boolean charged = !run.energyModels;
+		int from = run.from;
+		double beginX = run.beginX, endX = run.endX;
+		double beginY = run.beginY, endY = run.endY;
+		double beginZ = run.beginZ, endZ = run.endZ;
+
+		int moving = 0;
+		for (int i = lo; i < hi; i++) {
+			if (stopped[i])
+				continue;
+			int r = from + i;
+			if (charged) {
+				double capacity = battery[r] - IoTDevice.BATTERY_DRAIN_BY_MOVING;
+				battery[r] = capacity;
+				if (capacity <= 0) {
+					stopped[i] = true;
+					continue;
+				}
+			}
+			moving++;
+			double v = velocity[r];
+			double px = x[r] + v;
+			double py = y[r] + v;
+			double pz = z[r] + v;
+			distance[r] += Math.abs(v);
+			if (px >= endX || px <= beginX) {
+				v = -v;
+				px = px > endX ? endX : px;
+				px = px < beginX ? beginX : px;
+			}
+			if (py >= endY || py <= beginY) {
+				v = -v;
+				py = py > endY ? endY : py;
+				py = py < beginY ? beginY : py;
+			}
+			if (pz >= endZ || pz <= beginZ) {
+				v = -v;
+				pz = pz > endZ ? endZ : pz;
+				pz = pz < beginZ ? beginZ : pz;
+			}
+			x[r] = px;
+			y[r] = py;
+			z[r] = pz;
+			velocity[r] = v;
+		}
+		return moving;
+	}
+
+	/**
+	 * devices on consecutive rows of the state store sharing a moving range
+	 */
+	private static class Run {
+
+		final int from;
+		int size;
+		final MovingRange range;
+		final double beginX, endX, beginY, endY, beginZ, endZ;
+		/**
+		 * whether the devices have an energy model, then their battery is not
+		 * charged for every step
+		 */
+		final boolean energyModels;
+		IoTDevice[] devices;
+		/**
+		 * whether the device has run out of battery and stopped for good
+		 */
+		boolean[] stopped;
+		int moving;
+
+		Run(IoTDevice first) {
+			this.from = first.getStateIndex();
+			this.range = first.getMobility().range;
+			this.beginX = this.range.beginX;
+			this.endX = this.range.endX;
+			this.beginY = this.range.beginY;
+			this.endY = this.range.endY;
+			this.beginZ = this.range.beginZ;
+			this.endZ = this.range.endZ;
+			this.energyModels = first.getEnergyModel() != null;
+			this.devices = new IoTDevice[16];
+			this.stopped = new boolean[16];
+		}
+
+		boolean continuedBy(IoTDevice device) {
+			return device.getStateIndex() == this.from + this.size && device.getMobility().range == this.range
+					&& (device.getEnergyModel() != null) == this.energyModels;
+		}
+
+		void add(IoTDevice device) {
+			if (this.size == this.devices.length) {
+				this.devices = Arrays.copyOf(this.devices, this.size * 2);
+				this.stopped = Arrays.copyOf(this.stopped, this.size * 2);
+			}
+			this.devices[this.size] = device;
+			this.size++;
+			this.moving++;
+		}
+	}
+
+	/**
+	 * a step of part of a run, split until it is a chunk
+	 */
+	private class Step extends RecursiveTask<Integer> {
+
+		private static final long serialVersionUID = 1L;
+
+		private final Run run;
+		private final int lo;
+		private final int hi;
+
+		Step(Run run, int lo, int hi) {
+			this.run = run;
+			this.lo = lo;
+			this.hi = hi;
+		}
+
+		@Override
+		protected Integer compute() {
+			if (this.hi - this.lo <= CHUNK)
+				return FleetMobility.this.step(this.run, this.lo, this.hi);
+			int mid = (this.lo + this.hi) >>> 1;
+			Step left = new Step(this.run, this.lo, mid);
+			left.fork();
+			int right = new Step(this.run, mid, this.hi).compute();
+			return left.join() + right;
+		}
+	}
+
+}
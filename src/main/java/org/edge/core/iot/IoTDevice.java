@@ -1,6 +1,7 @@
 package org.edge.core.iot;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 
 import org.cloudbus.cloudsim.core.CloudSim;
@@ -9,17 +10,23 @@ import org.cloudbus.cloudsim.core.SimEvent;
 import org.edge.core.feature.Battery;
 import org.edge.core.feature.EdgeLet;
 import org.edge.core.feature.EdgeState;
+import org.edge.core.feature.EnergyModel;
+import org.edge.core.feature.EnergyModel.PowerState;
 import org.edge.core.feature.IoTType;
 import org.edge.core.feature.Mobility;
+import org.edge.core.feature.policy.AnalyticMovingPolicy;
 import org.edge.core.feature.policy.MovingPolicy;
 import org.edge.core.feature.policy.NetworkDelayCalculationPolicy;
 import org.edge.core.feature.policy.SimpleMovingPolicy;
 import org.edge.entity.ConnectionHeader;
 import org.edge.entity.ConnectionHeader.Direction;
 import org.edge.entity.DevicesInfo;
+import org.edge.entity.EdgeLetBundle;
 import org.edge.exception.NullConnectionException;
 import org.edge.network.NetworkModel;
+import org.edge.utils.EventTrace;
 import org.edge.utils.LogUtil;
+import org.edge.utils.LogUtil.Level;
 
 /**
  * can LoT devices store sensed data if the data cannot be sent at a time? can
@@ -30,39 +37,55 @@ import org.edge.utils.LogUtil;
  */
 public abstract class IoTDevice extends SimEntity {
 
-	private static final double BATTERY_DRAIN_BY_MOVING = 0.000001;
+	static final double BATTERY_DRAIN_BY_MOVING = 0.000001;
 	private static final int NULL_DEVICE = -1;
 	private static final int pesNumber = 1;
-	public static int cloudLetId = 0;
-	private static final double MOVE_INTERVAL = 0.5d;
+	static final double MOVE_INTERVAL = 0.5d;
 	private boolean logPrinted=false;
 	/**
 	 * size of the data package
 	 */
 	private int brokerId;
-	private int assigmentIoTId;
+	/**
+	 * the configuration shared with identical devices
+	 */
+	private IoTDeviceGroup group;
+
+	public IoTDeviceGroup getGroup() {
+		return this.group;
+	}
+
+	void setGroup(IoTDeviceGroup group) {
+		this.group = group;
+	}
+
 	public NetworkDelayCalculationPolicy getNetworkDelayCalculationPolicy() {
-		return this.networkDelayCalculationPolicy;
+		return this.group.networkDelayCalculationPolicy;
 	}
 
+	/**
+	 * for this device only, see {@link IoTDeviceGroup} to set it for the group
+	 *
+	 * @param networkDelayCalculationPolicy
+	 */
 	public void setNetworkDelayCalculationPolicy(NetworkDelayCalculationPolicy networkDelayCalculationPolicy) {
-		this.networkDelayCalculationPolicy = networkDelayCalculationPolicy;
+		if (this.group.networkDelayCalculationPolicy != networkDelayCalculationPolicy)
+			this.group.detach(this).networkDelayCalculationPolicy = networkDelayCalculationPolicy;
 	}
 
-	private NetworkDelayCalculationPolicy networkDelayCalculationPolicy;
 	public int getAssigmentIoTId() {
-		return this.assigmentIoTId;
-	}
-
-	public void setAssigmentIoTId(int assigmentIoTId) {
-		this.assigmentIoTId = assigmentIoTId;
+		return this.group.assigmentIoTId;
 	}
 
 	/**
-	 * used to show how fast can this device process data
+	 * for this device only, see {@link IoTDeviceGroup} to set it for the group
+	 *
+	 * @param assigmentIoTId
 	 */
-	private double processingAbility;
-	private int complexityOfDataPackage;
+	public void setAssigmentIoTId(int assigmentIoTId) {
+		if (this.group.assigmentIoTId != assigmentIoTId)
+			this.group.detach(this).assigmentIoTId = assigmentIoTId;
+	}
 
 	public double getRunningTime() {
 		return this.runningTime;
@@ -74,37 +97,136 @@ public abstract class IoTDevice extends SimEntity {
 
 	private Mobility mobility;
 
+	/**
+	 * the position of a movable device is read from its row of the state store,
+	 * with an analytic moving policy it is brought up to the current simulation
+	 * time before being returned
+	 *
+	 * @return
+	 */
 	public Mobility getMobility() {
+		if (this.mobility != null && this.mobility.movable) {
+			this.loadPosition();
+			if (this.movingPolicy instanceof AnalyticMovingPolicy) {
+				((AnalyticMovingPolicy) this.movingPolicy).locate(this.mobility, CloudSim.clock());
+				this.storePosition();
+			}
+		}
 		return this.mobility;
 	}
 
-	private IoTType ioTType;
-
+	/**
+	 * the location is copied to the state store
+	 *
+	 * @param location
+	 */
 	public void setMobility(Mobility location) {
 		this.mobility = location;
+		if (location != null)
+			this.storePosition();
+	}
+
+	private void loadPosition() {
+		this.mobility.location.x = this.states.getX(this.stateIndex);
+		this.mobility.location.y = this.states.getY(this.stateIndex);
+		this.mobility.location.z = this.states.getZ(this.stateIndex);
+		this.mobility.volecity = this.states.getVelocity(this.stateIndex);
+		this.mobility.totalMovingDistance = this.states.getDistance(this.stateIndex);
+	}
+
+	private void storePosition() {
+		this.states.setPosition(this.stateIndex, this.mobility.location.x, this.mobility.location.y,
+				this.mobility.location.z);
+		this.states.setVelocity(this.stateIndex, this.mobility.volecity);
+		this.states.setDistance(this.stateIndex, this.mobility.totalMovingDistance);
+	}
+
+	/**
+	 * the store holding the state of this device
+	 */
+	public DeviceStateStore getStateStore() {
+		return this.states;
+	}
+
+	/**
+	 * @return the row of this device in its state store
+	 */
+	public int getStateIndex() {
+		return this.stateIndex;
 	}
 
 	private double runningTime = 0;
 	public String sensed_data_type;
 
-	private double data_frequency;
+	/**
+	 * created when the first edgelet is kept
+	 */
 	private List<EdgeLet> dataPackagesSent;
 	private List<EdgeLet> storedPackages;
-	private List<EdgeLet> dataPackagesUnderTransmission;
 
-	private boolean isMoving = false;
-	private Battery battery;
+	private final DeviceStateStore states;
+	private final int stateIndex;
+	/**
+	 * a view of the row of this device
+	 */
+	private final Battery battery;
 
 	public Battery getBattery() {
+		if (this.energyModel != null)
+			this.energyModel.update(CloudSim.clock());
 		return this.battery;
 	}
 
-	protected double transfer_frequency;
-	protected double send_data_size;
-	protected double battery_drainage_rate;
-	private int attachedEdgeDeviceVMId;
+	/**
+	 * when set, the battery is drawn continuously by the power states of the
+	 * device and a single BATTERY event is scheduled for the time it will be
+	 * drained, instead of charging the battery on every event.
+	 */
+	private EnergyModel energyModel;
+	/**
+	 * only the BATTERY event carrying the current version is still valid, the
+	 * others have been scheduled before the last change of power state
+	 */
+	private int batteryEventVersion;
+	private boolean batteryDrainedReported;
+
+	public EnergyModel getEnergyModel() {
+		return this.energyModel;
+	}
+
+	/**
+	 * set once the battery capacity is set. the model draws from the battery from
+	 * now on, the first BATTERY event is scheduled when the device starts, or right
+	 * away if the simulation is running.
+	 *
+	 * @param energyModel null to charge the battery on every event
+	 */
+	public void setEnergyModel(EnergyModel energyModel) {
+		this.energyModel = energyModel;
+		if (energyModel == null)
+			return;
+		energyModel.start(CloudSim.clock());
+		if (CloudSim.running())
+			this.scheduleBatteryEvent();
+	}
+
+	/**
+	 * @return an energy model drawing on average what the per event charges of
+	 *         this device would draw
+	 */
+	public EnergyModel createEnergyModel() {
+		EnergyModel model = new EnergyModel(this.battery);
+		// a device connected senses and sends once per cycle
+		double cycle = this.group.dataFrequency + this.group.dataGenerationTime;
+		model.setDraw(PowerState.SENSING, this.group.batteryDrainageRate / cycle);
+		model.setDraw(PowerState.TRANSMITTING,
+				this.group.networkModel.getCommunicationProtocol().getBatteryDrainageRate() / cycle);
+		model.setDraw(PowerState.MOVING, BATTERY_DRAIN_BY_MOVING / MOVE_INTERVAL);
+		return model;
+	}
+
 	public void setAttachedEdgeDeviceVMId(int attachedEdgeDeviceVMId) {
-		this.attachedEdgeDeviceVMId = attachedEdgeDeviceVMId;
+		this.states.setAttachedVm(this.stateIndex, attachedEdgeDeviceVMId);
 	}
 	private MovingPolicy movingPolicy;
 
@@ -118,39 +240,44 @@ public abstract class IoTDevice extends SimEntity {
 
 	private double timeRemainingTosendData = 0;
 
-	public int getAttachedEdgeDeviceId() {
-		return this.attachedEdgeDeviceVMId;
+	/**
+	 * sorted x coordinates where the signal range of an edge device begins or ends.
+	 * with an analytic moving policy, MOVING events are only scheduled when the
+	 * device reaches one of them.
+	 */
+	private double[] signalBoundaries;
+
+	public void setSignalBoundaries(double[] signalBoundaries) {
+		this.signalBoundaries = signalBoundaries;
 	}
 
 	/**
-	 * whether this device can store data or not
+	 * time of the last MOVING event, the battery drained by moving is charged
+	 * from then on
 	 */
-	private long capacityToStore = 0;
-	private NetworkModel networkModel;
-	private EdgeLet dataTemplate;
+	private double lastMovingTime;
+
+	public int getAttachedEdgeDeviceId() {
+		return this.states.getAttachedVm(this.stateIndex);
+	}
 
 	public IoTDevice(IoTType type, String name, double data_frequency, double dataGenerationTime,
 			int complexityOfDataPackage, int dataSize, NetworkModel networkModel, double max_battery_capacity,
 			double battery_drainage_rate, double processingAbility, EdgeLet dataTemplate) {
 		super(name);
-		this.ioTType = type;
-		this.dataTemplate = dataTemplate;
-		this.battery = new Battery(max_battery_capacity, max_battery_capacity);
-		this.processingAbility = processingAbility;
-		this.dataGenerationTime = dataGenerationTime;
-
-		this.attachedEdgeDeviceVMId = NULL_DEVICE;
-		this.data_frequency = data_frequency;
-		this.complexityOfDataPackage = complexityOfDataPackage;
 		if (networkModel == null || networkModel.getCommunicationProtocol() == null)
 			throw new NullConnectionException(
 					"null networkmodel or null communication is not supported for IOT Device");
-		this.networkModel = networkModel;
-		this.battery_drainage_rate = battery_drainage_rate;
-		this.dataPackagesSent = new ArrayList<>();
-		this.dataPackagesUnderTransmission = new ArrayList<>();
-		this.enabled = true;
-		this.capacityToStore = 0;
+		this.group = new IoTDeviceGroup(this, type, data_frequency, dataGenerationTime, complexityOfDataPackage,
+				networkModel, battery_drainage_rate, processingAbility, dataTemplate);
+		this.states = this.group.context.getDeviceStates();
+		this.stateIndex = this.states.add();
+		this.battery = this.states.batteryOf(this.stateIndex);
+		this.battery.setMaxCapacity(max_battery_capacity);
+		this.battery.setCurrentCapacity(max_battery_capacity);
+
+		this.setAttachedEdgeDeviceVMId(NULL_DEVICE);
+		this.setEnabled(true);
 
 	}
 
@@ -161,22 +288,28 @@ public abstract class IoTDevice extends SimEntity {
 
 		this(type, name, data_frequency, dataGenerationTime, complexityOfDataPackage, dataSize, networkModel,
 				max_battery_capacity, battery_drainage_rate, processingAbility, dataTemplate);
-		this.transfer_frequency = transfer_frequency;
+		this.group.transferFrequency = transfer_frequency;
+		this.group.capacityToStore = capacityToStore;
 		this.timeRemainingTosendData = transfer_frequency;
-		this.capacityToStore = capacityToStore;
 		this.storedPackages = new ArrayList<>();
 	}
 
 	public double getProcessingAbility() {
-		return this.processingAbility;
+		return this.group.processingAbility;
 	}
 
+	/**
+	 * for this device only, see {@link IoTDeviceGroup} to set it for the group
+	 *
+	 * @param processingAbility
+	 */
 	public void setProcessingAbility(double processingAbility) {
-		this.processingAbility = processingAbility;
+		if (this.group.processingAbility != processingAbility)
+			this.group.detach(this).processingAbility = processingAbility;
 	}
 
 	public IoTType getType() {
-		return this.ioTType;
+		return this.group.type;
 	}
 
 	int connectingEdgeDeviceId = -1;
@@ -186,31 +319,32 @@ public abstract class IoTDevice extends SimEntity {
 	}
 
 	public double getBatteryDrainageRate() {
-		return this.battery_drainage_rate;
+		return this.group.batteryDrainageRate;
 	}
 
+	/**
+	 * for this device only, see {@link IoTDeviceGroup} to set it for the group
+	 *
+	 * @param battery_drainage_rate
+	 */
 	public void setBatteryDrainageRate(double battery_drainage_rate) {
-		this.battery_drainage_rate = battery_drainage_rate;
+		if (this.group.batteryDrainageRate != battery_drainage_rate)
+			this.group.detach(this).batteryDrainageRate = battery_drainage_rate;
 	}
 
 	public NetworkModel getNetworkModel() {
-		return this.networkModel;
+		return this.group.networkModel;
 	}
 
 	/**
-	 * if there is not networkModel or battery drained
+	 * false if there is not networkModel or battery drained
 	 */
-	private boolean enabled;
-
-	private double dataGenerationTime = 1;
-
 	public boolean isEnabled() {
-		return this.enabled;
+		return this.states.isEnabled(this.stateIndex);
 	}
 
 	public void setEnabled(boolean enabled) {
-
-		this.enabled = enabled;
+		this.states.setEnabled(this.stateIndex, enabled);
 	}
 
 	/**
@@ -220,11 +354,44 @@ public abstract class IoTDevice extends SimEntity {
 	 */
 	private void generateData() {
 		//		LogUtil.info("iot " + getId() + " is generating data");
-		this.schedule(this.getId(), this.dataGenerationTime, EdgeState.GENERATING);
+		this.schedule(this.getId(), this.group.dataGenerationTime, EdgeState.GENERATING);
+	}
+
+	public boolean isRetainSentEdgeLets() {
+		return this.group.retainSentEdgeLets;
 	}
 
 	/**
-	 * send a batch of data at a time
+	 * keep every edgelet this device has sent, they are not kept by default;
+	 * pooled edgelets are never kept. see {@link IoTDeviceGroup} to set it for the
+	 * group
+	 *
+	 * @param retainSentEdgeLets
+	 */
+	public void setRetainSentEdgeLets(boolean retainSentEdgeLets) {
+		if (this.group.retainSentEdgeLets != retainSentEdgeLets)
+			this.group.detach(this).retainSentEdgeLets = retainSentEdgeLets;
+	}
+
+	/**
+	 * @return the edgelets this device has sent, empty unless they are retained
+	 */
+	public List<EdgeLet> getDataPackagesSent() {
+		return this.dataPackagesSent == null ? Collections.<EdgeLet>emptyList() : this.dataPackagesSent;
+	}
+
+	private boolean keepsSentEdgeLets() {
+		return this.group.retainSentEdgeLets && !this.group.context.getEdgeLetPool().isEnabled();
+	}
+
+	private List<EdgeLet> sentEdgeLets() {
+		if (this.dataPackagesSent == null)
+			this.dataPackagesSent = new ArrayList<>();
+		return this.dataPackagesSent;
+	}
+
+	/**
+	 * send a batch of data at a time, the broker gets them in one event
 	 *
 	 * @param dataPackages
 	 */
@@ -232,16 +399,25 @@ public abstract class IoTDevice extends SimEntity {
 		boolean transerable = this.checkTranserable();
 		if (!transerable)
 			return;
-		this.dataPackagesSent.addAll(dataPackages);
-		List<EdgeLet> sendingPackage = new ArrayList<>();
-		sendingPackage.addAll(dataPackages);
+		if (LogUtil.isEnabled(Level.INFOR))
+			LogUtil.info(CloudSim.clock() + " " + this.getClass().getSimpleName() + " " + this.getId() + " is sending "
+					+ dataPackages.size() + " stored data");
+		List<EdgeLet> sendingPackage = new ArrayList<>(dataPackages.size());
+		for (EdgeLet dataPackage : dataPackages) {
+			dataPackage.setConnectionHeader(this.createConnectionHeader());
+			sendingPackage.add(dataPackage);
+		}
+		if (this.keepsSentEdgeLets())
+			this.sentEdgeLets().addAll(sendingPackage);
 
-		this.send(this.attachedEdgeDeviceVMId, this.getNetworkDelay(), EdgeState.SENDING_TO_EDGE, sendingPackage);
+		this.send(this.brokerId, this.getNetworkDelay(), EdgeState.SENDING_BUNDLE_TO_EDGE,
+				new EdgeLetBundle(this.createConnectionHeader(), sendingPackage));
 
 	}
 
 	/**
-	 * for now, it can only send one edge let at a time
+	 * send the edge let right away, or store it and send the stored ones every
+	 * transfer_frequency if the device can store data
 	 * @param dataPackage
 	 */
 	private void sendData(EdgeLet dataPackage) {
@@ -249,19 +425,19 @@ public abstract class IoTDevice extends SimEntity {
 		if (!transerable)
 			return;
 
-		if (this.capacityToStore == 0) {
+		if (this.group.capacityToStore == 0) {
 			// if previous data is under transmitting then stop sensing
 			this.sending(dataPackage);
 		}
-		// TODO to be capable of storing
 		else {
-			this.timeRemainingTosendData -= this.data_frequency;
+			this.timeRemainingTosendData -= this.group.dataFrequency;
 			this.storedPackages.add(dataPackage);
 			if (this.timeRemainingTosendData <= 0) {
-				this.timeRemainingTosendData = this.transfer_frequency;
+				this.timeRemainingTosendData = this.group.transferFrequency;
 				this.sendDataBundle(this.storedPackages);
 				this.storedPackages.clear();
 			}
+			this.send(this.getId(), this.group.dataFrequency, EdgeState.SENSING);
 		}
 		// send(getId(), data_frequency, EdgeState.SENSING);
 	}
@@ -271,26 +447,38 @@ public abstract class IoTDevice extends SimEntity {
 	 * @param dataPackage
 	 */
 	private void sending(EdgeLet dataPackage) {
-		LogUtil.info(CloudSim.clock()+ " "+this.getClass().getSimpleName()+" " + this.getId() + " is sending data");
-		ConnectionHeader connectionHeader = new ConnectionHeader(this.attachedEdgeDeviceVMId, this.getId(), this.brokerId,
+		if (LogUtil.isEnabled(Level.INFOR))
+			LogUtil.info(CloudSim.clock()+ " "+this.getClass().getSimpleName()+" " + this.getId() + " is sending data");
+		dataPackage.setConnectionHeader(this.createConnectionHeader());
+//		double speed = this.getTransmissionSpeed();
+
+		this.send(this.brokerId, this.getNetworkDelay(), EdgeState.SENDING_TO_EDGE, dataPackage);
+		if (this.keepsSentEdgeLets())
+			this.sentEdgeLets().add(dataPackage);
+		this.send(this.getId(),this.group.dataFrequency , EdgeState.SENSING);
+	}
+
+	/**
+	 * @return a header for data sent to the attached edge device now
+	 */
+	private ConnectionHeader createConnectionHeader() {
+		ConnectionHeader connectionHeader = new ConnectionHeader(this.getAttachedEdgeDeviceId(), this.getId(), this.brokerId,
 				this.getNetworkModel().getCommunicationProtocol().getClass());
 		if(this.getMobility().movable) {
 			connectionHeader.direction=this.getMobility().volecity>0?Direction.RIGHT:Direction.LEFT;
 			
 		}
-		dataPackage.setConnectionHeader(connectionHeader);
-//		double speed = this.getTransmissionSpeed();
-
-		this.send(this.brokerId, this.getNetworkDelay(), EdgeState.SENDING_TO_EDGE, dataPackage);
-		this.dataPackagesSent.add(dataPackage);
-		this.send(this.getId(),this.data_frequency , EdgeState.SENSING);
+		return connectionHeader;
 	}
 
 	public abstract double getNetworkDelay();
 
 	private boolean checkTranserable() {
 		// if the battery is drained,
-		if (this.updateBatteryByTransmission(this.battery)) {
+		if (this.energyModel != null ? this.energyModel.isDrained(CloudSim.clock())
+				: this.updateBatteryByTransmission(this.battery)) {
+			if (this.batteryDrainedReported)
+				return false;
 			this.runningTime = CloudSim.clock();
 			LogUtil.info(this.getClass().getSimpleName()+" "+this.getId()+"'s battery has ran out when transmitting");
 			if(this.getMobility().movable) {
@@ -300,17 +488,35 @@ public abstract class IoTDevice extends SimEntity {
 			return false;
 		}
 
-		if (this.attachedEdgeDeviceVMId == -1) {
+		if (this.getAttachedEdgeDeviceId() == -1) {
 			this.setEnabled(false);
+			this.setConnectedPowerStates(false);
 			LogUtil.info("there is no target edge device connected to this loT: " + this.getId());
 			return false;
 		}
 		return true;
 	}
 
+	/**
+	 * moves this device with the others instead of its own MOVING events
+	 */
+	private FleetMobility fleetMobility;
+
+	public FleetMobility getFleetMobility() {
+		return this.fleetMobility;
+	}
+
+	void setFleetMobility(FleetMobility fleetMobility) {
+		this.fleetMobility = fleetMobility;
+	}
+
 	@Override
 	public void startEntity() {
-		this.isMoving = true;
+		// a device drawing only while idle has no change of state to predict from
+		if (this.energyModel != null)
+			this.scheduleBatteryEvent();
+		if (this.fleetMobility != null)
+			return;
 		// plus 10 make sure eveything has started
 		this.send(this.getId(), MOVE_INTERVAL + 2, EdgeState.MOVING);
 	}
@@ -355,27 +561,35 @@ public abstract class IoTDevice extends SimEntity {
 
 		if(this.movingPolicy!=null) {
 			//this.getMobility().location.x=this.getMobility().location.x+this.getMobility().volecity;
-			LogUtil.info(this.getClass().getSimpleName()+" " + this.getId() +" Location is: ("+this.getMobility().location.x + ',' + this.getMobility().location.y
-			+ ',' + this.getMobility().location.z + ')');
+			if (LogUtil.isEnabled(Level.INFOR)) {
+				LogUtil.info(this.getClass().getSimpleName()+" " + this.getId() +" Location is: ("+this.getMobility().location.x + ',' + this.getMobility().location.y
+				+ ',' + this.getMobility().location.z + ')');
+			}
 			this.movingPolicy.updateLocation(this.getMobility());
+			this.storePosition();
 		}else {
 			this.movingPolicy=new SimpleMovingPolicy();
 			//this.getMobility().location.x=this.getMobility().location.x+this.getMobility().volecity;
-			LogUtil.info(this.getClass().getSimpleName()+" " + this.getId() +" Location is: ("+this.getMobility().location.x + ',' + this.getMobility().location.y
-					+ ',' + this.getMobility().location.z + ')');
-			this.movingPolicy.updateLocation(this.mobility);
+			if (LogUtil.isEnabled(Level.INFOR)) {
+				LogUtil.info(this.getClass().getSimpleName()+" " + this.getId() +" Location is: ("+this.getMobility().location.x + ',' + this.getMobility().location.y
+						+ ',' + this.getMobility().location.z + ')');
+			}
+			this.movingPolicy.updateLocation(this.getMobility());
+			this.storePosition();
 		}
 	}
 
 	@Override
 	public void processEvent(SimEvent ev) {
+		EventTrace.record(ev, this.getBattery().getCurrentCapacity());
 		int tag = ev.getTag();
 		switch (tag) {
 
 		case EdgeState.REQUEST_DISCONNECTION:
-			this.attachedEdgeDeviceVMId = -1;
+			this.setAttachedEdgeDeviceVMId(-1);
 			this.setEnabled(false);
-			LogUtil.info(this.getClass().getSimpleName()+" " + this.getId() + " gets disconnected with edge device " + this.attachedEdgeDeviceVMId);
+			this.setConnectedPowerStates(false);
+			LogUtil.info(this.getClass().getSimpleName()+" " + this.getId() + " gets disconnected with edge device " + this.getAttachedEdgeDeviceId());
 			if (ev.getData() != null && ev.getData() instanceof String) {
 				String data = (String) ev.getData();
 				LogUtil.info(data);
@@ -384,12 +598,12 @@ public abstract class IoTDevice extends SimEntity {
 		case EdgeState.REQUEST_CONNECTION:
 
 			ConnectionHeader info = (ConnectionHeader) ev.getData();
-			LogUtil.info("received request for connection from broker" + info.brokeId);
+			LogUtil.info("received request for connection from broker{}", info.brokeId);
 			info.sourceId = info.ioTId;
-			if (this.attachedEdgeDeviceVMId == NULL_DEVICE) {
+			if (this.getAttachedEdgeDeviceId() == NULL_DEVICE) {
 				this.brokerId = info.brokeId;
 				info.state = EdgeState.SUCCESS;
-				LogUtil.info("ack request to broker " + info.brokeId);
+				LogUtil.info("ack request to broker {}", info.brokeId);
 				this.send(info.brokeId, this.getNetworkDelay(), EdgeState.CONNECTING_ACK, info);
 			} else {
 				info.state = EdgeState.FAILURE;
@@ -400,11 +614,12 @@ public abstract class IoTDevice extends SimEntity {
 		case EdgeState.CONNECTION_ESTABLISHED:
 
 			ConnectionHeader info2 = (ConnectionHeader) ev.getData();
-			this.attachedEdgeDeviceVMId = info2.vmId;
+			this.setAttachedEdgeDeviceVMId(info2.vmId);
 			LogUtil.info(CloudSim.clock()+ " "+
 					this.getClass().getSimpleName()+" " + this.getId() + " has established connection with vm " + info2.vmId + " and start to sense");
 			this.setEnabled(true);
-			this.send(this.getId(), this.data_frequency, EdgeState.SENSING);
+			this.setConnectedPowerStates(true);
+			this.send(this.getId(), this.group.dataFrequency, EdgeState.SENSING);
 			break;
 		case EdgeState.DISCONNECTED:
 			Object data = ev.getData();
@@ -415,8 +630,9 @@ public abstract class IoTDevice extends SimEntity {
 				}
 
 			}else {
-				this.attachedEdgeDeviceVMId = NULL_DEVICE;
+				this.setAttachedEdgeDeviceVMId(NULL_DEVICE);
 				this.setEnabled(false);
+				this.setConnectedPowerStates(false);
 			}
 			break;
 
@@ -432,6 +648,7 @@ public abstract class IoTDevice extends SimEntity {
 		case EdgeState.PROCESS_COMPLETED:
 
 			EdgeLet processedData = (EdgeLet) ev.getData();
+			this.setPowerState(PowerState.PROCESSING, false);
 
 			this.sendData(processedData);
 
@@ -447,22 +664,29 @@ public abstract class IoTDevice extends SimEntity {
 		case EdgeState.NO_AVAILIBLE_DEVICE:
 			ConnectionHeader connectionHeader = (ConnectionHeader) ev.getData();
 			this.brokerId = connectionHeader.brokeId;
-			this.attachedEdgeDeviceVMId = -1;
-			this.enabled = false;
+			this.setAttachedEdgeDeviceVMId(-1);
+			this.setEnabled(false);
+			this.setConnectedPowerStates(false);
 			break;
 
-		case EdgeState.MOVING:
+		case EdgeState.BATTERY:
+			if (this.energyModel != null && ev.getData() instanceof Integer
+					&& (Integer) ev.getData() == this.batteryEventVersion)
+				this.batteryDrained();
+			break;
 
-			if (this.attachedEdgeDeviceVMId == NULL_DEVICE) {
-				ConnectionHeader connectionHeader2 =new ConnectionHeader(attachedEdgeDeviceVMId,getId(),brokerId,getNetworkModel().getCommunicationProtocol().getClass());
-				connectionHeader2.brokeId=brokerId;
-				connectionHeader2.ioTId=getId();
+		case EdgeState.MOVING:
 
-				this.send(this.brokerId, 0, EdgeState.REQUEST_CONNECTION, connectionHeader2);
-			}
+			if (this.getAttachedEdgeDeviceId() == NULL_DEVICE)
+				this.requestConnection();
 			if(!this.getMobility().movable)
 				return ;
-			if (this.updateBatteryByMoving())
+			this.setPowerState(PowerState.MOVING, true);
+			if (this.movingPolicy instanceof AnalyticMovingPolicy) {
+				this.moveAnalytically(ev);
+				break;
+			}
+			if (this.energyModel != null ? this.energyModel.isDrained(CloudSim.clock()) : this.updateBatteryByMoving())
 				return;
 			this.updateGeolocation();
 			this.send(this.getId(), MOVE_INTERVAL, EdgeState.MOVING, ev.getData());
@@ -471,8 +695,66 @@ public abstract class IoTDevice extends SimEntity {
 
 	}
 
+	/**
+	 * ask the broker for a connection again
+	 */
+	void requestConnection() {
+		ConnectionHeader connectionHeader2 =new ConnectionHeader(this.getAttachedEdgeDeviceId(),getId(),brokerId,getNetworkModel().getCommunicationProtocol().getClass());
+		connectionHeader2.brokeId=brokerId;
+		connectionHeader2.ioTId=getId();
+
+		this.send(this.brokerId, 0, EdgeState.REQUEST_CONNECTION, connectionHeader2);
+	}
+
+	/**
+	 * instead of moving every MOVE_INTERVAL, schedule the next MOVING event when
+	 * the device reaches a signal range boundary or when moving will have drained
+	 * its battery, whichever comes first.
+	 *
+	 * @param ev
+	 */
+	private void moveAnalytically(SimEvent ev) {
+		AnalyticMovingPolicy policy = (AnalyticMovingPolicy) this.movingPolicy;
+		double now = CloudSim.clock();
+		this.loadPosition();
+		if (!policy.isStarted()) {
+			policy.start(this.mobility, now);
+			this.lastMovingTime = now;
+		}
+		if (this.energyModel != null) {
+			if (this.energyModel.isDrained(now))
+				return;
+		} else {
+			// charge the battery as if a MOVING event had happened every MOVE_INTERVAL
+			double steps = (now - this.lastMovingTime) / MOVE_INTERVAL;
+			this.lastMovingTime = now;
+			this.battery.setCurrentCapacity(this.battery.getCurrentCapacity() - steps * BATTERY_DRAIN_BY_MOVING);
+			if (this.battery.getCurrentCapacity() <= 0)
+				return;
+		}
+
+		policy.locate(this.mobility, now);
+		this.storePosition();
+		if (LogUtil.isEnabled(Level.INFOR)) {
+			LogUtil.info(this.getClass().getSimpleName() + " " + this.getId() + " Location is: (" + this.mobility.location.x
+					+ ',' + this.mobility.location.y + ',' + this.mobility.location.z + ')');
+		}
+
+		double next = this.signalBoundaries == null ? now + MOVE_INTERVAL
+				: policy.getNextCrossingTime(this.mobility, now, this.signalBoundaries);
+		if (this.energyModel == null) {
+			double drained = now + this.battery.getCurrentCapacity() / BATTERY_DRAIN_BY_MOVING * MOVE_INTERVAL;
+			next = Math.min(next, drained);
+		}
+		if (next < Double.MAX_VALUE)
+			this.send(this.getId(), Math.max(next - now, CloudSim.getMinTimeBetweenEvents()), EdgeState.MOVING,
+					ev.getData());
+	}
+
 	private void shutDownDevice() {
 		LogUtil.info("iot "+getId()+ " is shuting down");
+		if (this.energyModel != null)
+			this.energyModel.stop(CloudSim.clock());
 		getBattery().setCurrentCapacity(0);
 		setEnabled(false);
 
@@ -488,31 +770,87 @@ public abstract class IoTDevice extends SimEntity {
 
 	private EdgeLet generateEdgeLet() {
 
-		EdgeLet newInstance = this.dataTemplate.newInstance(cloudLetId);
+		EdgeLet newInstance = this.group.dataTemplate.newInstance(this.group.context.nextEdgeLetId());
 		newInstance.setUserId(this.brokerId);
 		// LogUtil.info(attachedEdgeDeviceVMId);
-		newInstance.setVmId(this.attachedEdgeDeviceVMId);
-		cloudLetId++;
+		newInstance.setVmId(this.getAttachedEdgeDeviceId());
 		return newInstance;
 	}
 
 	private void sensing() {
 
 		// if the battery is drained,
-		boolean died = this.updateBatteryBySensing(this.battery);
+		boolean died = this.energyModel != null ? this.energyModel.isDrained(CloudSim.clock())
+				: this.updateBatteryBySensing(this.battery);
 		if (died) {
-			LogUtil.info(this.getClass().getSimpleName() + " running time： " + CloudSim.clock());
-
-			this.setEnabled(false);
-			LogUtil.info(this.getClass().getSimpleName()+" " + this.getId() + "'s battery has been drained");
-			this.runningTime = CloudSim.clock();
-			this.schedule(this.brokerId, 0, EdgeState.BATTERY_DRAINED, new DevicesInfo(this.getId(), this.attachedEdgeDeviceVMId));
+			this.batteryDrained();
 			return;
 		}
 
+		// busy from generating the data up to having processed it
+		this.setPowerState(PowerState.PROCESSING, true);
 		this.generateData();
 	}
 
+	private void batteryDrained() {
+		if (this.batteryDrainedReported)
+			return;
+		this.batteryDrainedReported = true;
+		if (this.energyModel != null) {
+			this.energyModel.stop(CloudSim.clock());
+			this.battery.setCurrentCapacity(0);
+		}
+		LogUtil.info(this.getClass().getSimpleName() + " running time： " + CloudSim.clock());
+
+		this.setEnabled(false);
+		LogUtil.info(this.getClass().getSimpleName()+" " + this.getId() + "'s battery has been drained");
+		this.runningTime = CloudSim.clock();
+		this.schedule(this.brokerId, 0, EdgeState.BATTERY_DRAINED, new DevicesInfo(this.getId(), this.getAttachedEdgeDeviceId()));
+	}
+
+	/**
+	 * sensing and transmitting go on as long as the device is connected
+	 *
+	 * @param connected
+	 */
+	private void setConnectedPowerStates(boolean connected) {
+		this.setPowerState(PowerState.SENSING, connected);
+		this.setPowerState(PowerState.TRANSMITTING, connected);
+	}
+
+	/**
+	 * enter or leave a power state, and predict again when the battery will be
+	 * drained if the power drawn has changed
+	 *
+	 * @param state
+	 * @param active
+	 */
+	protected void setPowerState(PowerState state, boolean active) {
+		if (this.energyModel == null || this.batteryDrainedReported)
+			return;
+		double now = CloudSim.clock();
+		if (!this.energyModel.setActive(state, active, now))
+			return;
+		// the power drawn is the same, so is the time the battery is drained
+		if (this.energyModel.getDraw(state) == 0)
+			return;
+		this.scheduleBatteryEvent();
+	}
+
+	/**
+	 * schedule the BATTERY event for the time the battery will be drained, the
+	 * one scheduled before is ignored from now on
+	 */
+	private void scheduleBatteryEvent() {
+		if (this.batteryDrainedReported)
+			return;
+		double now = CloudSim.clock();
+		this.batteryEventVersion++;
+		double depletion = this.energyModel.getDepletionTime(now);
+		if (depletion < Double.MAX_VALUE)
+			this.schedule(this.getId(), depletion - now, EdgeState.BATTERY, this.batteryEventVersion);
+	}
+
 	public abstract boolean updateBatteryBySensing(Battery battery);
 
 	/**
@@ -536,16 +874,22 @@ public abstract class IoTDevice extends SimEntity {
 	 * if this device can actuate, then override this method
 	 */
 	public void actuating(SimEvent ev) {
-		boolean updateBatteryByActuating = this.updateBatteryByActuating(this.battery);
+		if (this.energyModel != null && this.energyModel.isDrained(CloudSim.clock())) {
+			this.batteryDrained();
+			return;
+		}
+		boolean updateBatteryByActuating = this.energyModel == null && this.updateBatteryByActuating(this.battery);
 		if (updateBatteryByActuating) {
 			this.setEnabled(false);
-			this.schedule(this.brokerId, 0, EdgeState.BATTERY_DRAINED, new DevicesInfo(this.getId(), this.attachedEdgeDeviceVMId));
+			this.schedule(this.brokerId, 0, EdgeState.BATTERY_DRAINED, new DevicesInfo(this.getId(), this.getAttachedEdgeDeviceId()));
 			LogUtil.info(this.getClass().getSimpleName() +" "+this.getId()+ " running time： " + CloudSim.clock());
 		} else {
 			if(isEnabled()) {
 				EdgeLet edgeLet = (EdgeLet) ev.getData();
-				LogUtil.info("Insied IoT "+this.assigmentIoTId +"EdgeLet"+edgeLet.getCloudletId() +"edgeLet lenght"+ edgeLet.getCloudletLength());
-				LogUtil.info(CloudSim.clock()+ " "+this.getClass().getSimpleName()+" "+this.getId()+" received processed edgelet "+edgeLet.getCloudletId()+" from vm "+edgeLet.getVmId()  + " and start actuating");
+				if (LogUtil.isEnabled(Level.INFOR)) {
+					LogUtil.info("Insied IoT "+this.group.assigmentIoTId +"EdgeLet"+edgeLet.getCloudletId() +"edgeLet lenght"+ edgeLet.getCloudletLength());
+					LogUtil.info(CloudSim.clock()+ " "+this.getClass().getSimpleName()+" "+this.getId()+" received processed edgelet "+edgeLet.getCloudletId()+" from vm "+edgeLet.getVmId()  + " and start actuating");
+				}
 			}else {
 				if(!logPrinted) {
 					LogUtil.info(CloudSim.clock()+" "+this.getClass().getSimpleName()+" "+this.getId()+"  has offline");
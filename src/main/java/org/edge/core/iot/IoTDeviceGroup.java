@@ -0,0 +1,183 @@
+package org.edge.core.iot;
+
+import org.edge.core.feature.EdgeLet;
+import org.edge.core.feature.IoTType;
+import org.edge.core.feature.policy.NetworkDelayCalculationPolicy;
+import org.edge.core.kernel.SimulationContext;
+import org.edge.network.NetworkModel;
+
+/**
+ * the configuration that identical iot devices share: their data template,
+ * network model, rates and limits. a device keeps only its own state, its
+ * battery, location, connection and the edgelets it holds.
+ * <p>
+ * a device created on its own is the only one of its group. the
+ * ScenarioBuilder puts the copies of an iot device entity into the group of
+ * the first one. setting one of these values on a device that shares its group
+ * moves the device into a copy of the group of its own, the setters of the
+ * group set a value for all its devices.
+ */
+public class IoTDeviceGroup {
+
+	private final Class<? extends IoTDevice> deviceClass;
+	final IoTType type;
+	final double dataFrequency;
+	final double dataGenerationTime;
+	final int complexityOfDataPackage;
+	final NetworkModel networkModel;
+	final EdgeLet dataTemplate;
+	final SimulationContext context;
+	double processingAbility;
+	double batteryDrainageRate;
+	/**
+	 * 0 if the devices send every edgelet right away
+	 */
+	long capacityToStore;
+	double transferFrequency;
+	int assigmentIoTId;
+	boolean retainSentEdgeLets;
+	NetworkDelayCalculationPolicy networkDelayCalculationPolicy;
+	private int size;
+
+	/**
+	 * the group of a device being created
+	 */
+	IoTDeviceGroup(IoTDevice device, IoTType type, double dataFrequency, double dataGenerationTime,
+			int complexityOfDataPackage, NetworkModel networkModel, double batteryDrainageRate,
+			double processingAbility, EdgeLet dataTemplate) {
+		this.deviceClass = device.getClass();
+		this.type = type;
+		this.dataFrequency = dataFrequency;
+		this.dataGenerationTime = dataGenerationTime;
+		this.complexityOfDataPackage = complexityOfDataPackage;
+		this.networkModel = networkModel;
+		this.batteryDrainageRate = batteryDrainageRate;
+		this.processingAbility = processingAbility;
+		this.dataTemplate = dataTemplate;
+		this.context = SimulationContext.current();
+		this.size = 1;
+	}
+
+	/**
+	 * a copy of a group for one of its devices
+	 */
+	private IoTDeviceGroup(IoTDeviceGroup group) {
+		this.deviceClass = group.deviceClass;
+		this.type = group.type;
+		this.dataFrequency = group.dataFrequency;
+		this.dataGenerationTime = group.dataGenerationTime;
+		this.complexityOfDataPackage = group.complexityOfDataPackage;
+		this.networkModel = group.networkModel;
+		this.dataTemplate = group.dataTemplate;
+		this.context = group.context;
+		this.processingAbility = group.processingAbility;
+		this.batteryDrainageRate = group.batteryDrainageRate;
+		this.capacityToStore = group.capacityToStore;
+		this.transferFrequency = group.transferFrequency;
+		this.assigmentIoTId = group.assigmentIoTId;
+		this.retainSentEdgeLets = group.retainSentEdgeLets;
+		this.networkDelayCalculationPolicy = group.networkDelayCalculationPolicy;
+		this.size = 1;
+	}
+
+	/**
+	 * move a device created the same way as the devices of this group into it,
+	 * it takes the values set on the group
+	 *
+	 * @param device the only one of its group
+	 * @throws IllegalArgumentException if the device has been created another
+	 *                                  way
+	 */
+	public void add(IoTDevice device) {
+		IoTDeviceGroup own = device.getGroup();
+		if (own == this)
+			return;
+		if (device.getClass() != this.deviceClass || own.size > 1 || own.networkModel != this.networkModel
+				|| own.dataTemplate != this.dataTemplate || own.capacityToStore != this.capacityToStore
+				|| own.transferFrequency != this.transferFrequency)
+			throw new IllegalArgumentException(
+					"iot device " + device.getId() + " has not been created like the devices of this group");
+		device.setGroup(this);
+		this.size++;
+	}
+
+	/**
+	 * move a device of this group into a copy of the group, unless it is the only
+	 * one, before one of its values is set
+	 *
+	 * @param device a device of this group
+	 * @return the group the device is the only one of
+	 */
+	IoTDeviceGroup detach(IoTDevice device) {
+		if (this.size == 1)
+			return this;
+		IoTDeviceGroup group = new IoTDeviceGroup(this);
+		device.setGroup(group);
+		this.size--;
+		return group;
+	}
+
+	/**
+	 * @return the devices in this group
+	 */
+	public int size() {
+		return this.size;
+	}
+
+	public IoTType getType() {
+		return this.type;
+	}
+
+	public NetworkModel getNetworkModel() {
+		return this.networkModel;
+	}
+
+	public EdgeLet getDataTemplate() {
+		return this.dataTemplate;
+	}
+
+	public double getProcessingAbility() {
+		return this.processingAbility;
+	}
+
+	public void setProcessingAbility(double processingAbility) {
+		this.processingAbility = processingAbility;
+	}
+
+	public double getBatteryDrainageRate() {
+		return this.batteryDrainageRate;
+	}
+
+	public void setBatteryDrainageRate(double batteryDrainageRate) {
+		this.batteryDrainageRate = batteryDrainageRate;
+	}
+
+	public long getCapacityToStore() {
+		return this.capacityToStore;
+	}
+
+	public int getAssigmentIoTId() {
+		return this.assigmentIoTId;
+	}
+
+	public void setAssigmentIoTId(int assigmentIoTId) {
+		this.assigmentIoTId = assigmentIoTId;
+	}
+
+	public boolean isRetainSentEdgeLets() {
+		return this.retainSentEdgeLets;
+	}
+
+	public void setRetainSentEdgeLets(boolean retainSentEdgeLets) {
+		this.retainSentEdgeLets = retainSentEdgeLets;
+	}
+
+	public NetworkDelayCalculationPolicy getNetworkDelayCalculationPolicy() {
+		return this.networkDelayCalculationPolicy;
+	}
+
+	public void setNetworkDelayCalculationPolicy(NetworkDelayCalculationPolicy networkDelayCalculationPolicy) {
+		this.networkDelayCalculationPolicy = networkDelayCalculationPolicy;
+	}
+
+}
@@ -19,7 +19,7 @@ public class LightSensor extends IoTDevice {
 		long length = 50;
 		long fileSize = 10;
 		long outputSize = 10;
-		edgeLet = new EdgeLet(EdgeLet.id++, length, 1, fileSize, outputSize, new UtilizationModelFull(), new UtilizationModelFull(),
+		edgeLet = new EdgeLet(EdgeLet.TEMPLATE_ID, length, 1, fileSize, outputSize, new UtilizationModelFull(), new UtilizationModelFull(),
 				new UtilizationModelFull(),"lightSensor");
 	}
 	public static final double DATA_GENERATION_TIME=1;
@@ -58,7 +58,7 @@ public class LightSensor extends IoTDevice {
 
 	@Override
 	public boolean updateBatteryBySensing(Battery battery) {
-		battery.setCurrentCapacity(battery.getCurrentCapacity()-this.battery_drainage_rate);
+		battery.setCurrentCapacity(battery.getCurrentCapacity()-this.getBatteryDrainageRate());
 		if(battery.getCurrentCapacity()<0)
 			return  true;
 		return false;
@@ -147,7 +147,8 @@ public class LightSensor extends IoTDevice {
 		NetworkDelayCalculationPolicy networkDelayCalculationPolicy = this.getNetworkDelayCalculationPolicy();
 		if(networkDelayCalculationPolicy==null) {
 			networkDelayCalculationPolicy=new SimpleNetworkDelayCalculator();
-			this.setNetworkDelayCalculationPolicy(networkDelayCalculationPolicy);
+			// the default is kept for the whole group
+			this.getGroup().setNetworkDelayCalculationPolicy(networkDelayCalculationPolicy);
 		}
 
 		double networkDelay = networkDelayCalculationPolicy.getNetworkDelay(this.getNetworkModel(), edgeLet, this.getMobility(), null);
@@ -20,7 +20,7 @@ public class TemperatureSensor extends IoTDevice {
 		long length = 100;
 		long fileSize = 30;
 		long outputSize = 10;
-		edgeLet = new EdgeLet(EdgeLet.id++, length, 1, fileSize, outputSize, new UtilizationModelFull(), new UtilizationModelFull(),
+		edgeLet = new EdgeLet(EdgeLet.TEMPLATE_ID, length, 1, fileSize, outputSize, new UtilizationModelFull(), new UtilizationModelFull(),
 				new UtilizationModelFull(), "temperatureSensor");
 	}
 	public static final double DATA_GENERATION_TIME=1;
@@ -59,7 +59,7 @@ public class TemperatureSensor extends IoTDevice {
 
 	@Override
 	public boolean updateBatteryBySensing(Battery battery) {
-		battery.setCurrentCapacity(battery.getCurrentCapacity()-this.battery_drainage_rate);
+		battery.setCurrentCapacity(battery.getCurrentCapacity()-this.getBatteryDrainageRate());
 		if(battery.getCurrentCapacity()<0)
 			return  true;
 		return false;
@@ -148,7 +148,8 @@ public class TemperatureSensor extends IoTDevice {
 		NetworkDelayCalculationPolicy networkDelayCalculationPolicy = this.getNetworkDelayCalculationPolicy();
 		if(networkDelayCalculationPolicy==null) {
 			networkDelayCalculationPolicy=new SimpleNetworkDelayCalculator();
-			this.setNetworkDelayCalculationPolicy(networkDelayCalculationPolicy);
+			// the default is kept for the whole group
+			this.getGroup().setNetworkDelayCalculationPolicy(networkDelayCalculationPolicy);
 		}
 
 		double networkDelay = networkDelayCalculationPolicy.getNetworkDelay(this.getNetworkModel(), edgeLet, this.getMobility(), null);
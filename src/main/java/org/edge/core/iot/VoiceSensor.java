@@ -10,7 +10,7 @@ public class VoiceSensor extends IoTDevice {
 
 	static EdgeLet edgeLet;
 	static {
-		edgeLet = new EdgeLet(EdgeLet.id++,500, 1, 10, 10, new UtilizationModelFull(), new UtilizationModelFull(),
+		edgeLet = new EdgeLet(EdgeLet.TEMPLATE_ID,500, 1, 10, 10, new UtilizationModelFull(), new UtilizationModelFull(),
 				new UtilizationModelFull());
 	}
 	public static final double DATA_GENERATION_TIME = 1;
@@ -69,7 +69,7 @@ public class VoiceSensor extends IoTDevice {
 
 	@Override
 	public boolean updateBatteryBySensing(Battery battery) {
-		battery.setCurrentCapacity(battery.getCurrentCapacity()-battery_drainage_rate);
+		battery.setCurrentCapacity(battery.getCurrentCapacity()-this.getBatteryDrainageRate());
 		if(battery.getCurrentCapacity()<=0)
 			return true;
 		return false;
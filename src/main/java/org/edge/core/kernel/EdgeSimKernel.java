@@ -0,0 +1,80 @@
+package org.edge.core.kernel;
+
+import java.util.Iterator;
+
+import org.cloudbus.cloudsim.core.CloudSim;
+import org.cloudbus.cloudsim.core.FutureQueue;
+import org.cloudbus.cloudsim.core.SimEvent;
+
+/**
+ * lets a simulation replace the future event queue of the CloudSim kernel. it
+ * must be called after CloudSim.init, which creates a new stock queue, and
+ * before the simulation starts.
+ *
+ * <pre>
+ * CloudSim.init(numUser, calendar, traceFlag);
+ * EdgeSimKernel.useFutureQueue(EventQueueType.QUATERNARY_HEAP);
+ * </pre>
+ */
+public class EdgeSimKernel extends CloudSim {
+
+	public enum EventQueueType {
+		/**
+		 * the TreeSet based queue of CloudSim
+		 */
+		CLOUDSIM,
+		/**
+		 * {@link QuaternaryHeapFutureQueue}
+		 */
+		QUATERNARY_HEAP;
+
+		public FutureQueue create() {
+			switch (this) {
+			case QUATERNARY_HEAP:
+				return new QuaternaryHeapFutureQueue();
+			default:
+				return new FutureQueue();
+			}
+		}
+
+		/**
+		 * @param name case insensitive name of the type, e.g. quaternary_heap
+		 * @return CLOUDSIM if the name is null
+		 */
+		public static EventQueueType of(String name) {
+			if (name == null)
+				return CLOUDSIM;
+			return valueOf(name.toUpperCase());
+		}
+	}
+
+	private EdgeSimKernel() {
+	}
+
+	public static void useFutureQueue(EventQueueType type) {
+		useFutureQueue(type.create());
+	}
+
+	/**
+	 * replace the future event queue, the events already scheduled are moved to
+	 * the new queue in order
+	 *
+	 * @param queue
+	 */
+	public static void useFutureQueue(FutureQueue queue) {
+		if (running())
+			throw new IllegalStateException("the event queue cannot be replaced while the simulation is running");
+		if (future == null)
+			throw new IllegalStateException("CloudSim.init must be called first");
+		Iterator<SimEvent> iterator = future.iterator();
+		while (iterator.hasNext()) {
+			queue.addEvent(iterator.next());
+		}
+		future = queue;
+	}
+
+	public static FutureQueue getFutureQueue() {
+		return future;
+	}
+
+}
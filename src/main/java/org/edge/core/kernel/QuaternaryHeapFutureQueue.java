@@ -0,0 +1,300 @@
+package org.edge.core.kernel;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+import org.cloudbus.cloudsim.core.FutureQueue;
+import org.cloudbus.cloudsim.core.SimEvent;
+
+/**
+ * future event queue of the simulation kernel backed by a 4-ary heap. the keys
+ * of the heap, event time and insertion serial, are kept in primitive arrays
+ * next to the events, so sifting compares doubles and longs only and adding an
+ * event does not allocate a tree node.
+ * <p>
+ * events are ordered like in {@link FutureQueue}: by time, then in the order
+ * they have been added, events added by {@link #addEventFirst(SimEvent)} coming
+ * before the others of the same time.
+ * <p>
+ * the kernel only ever removes the earliest events. any other event removed,
+ * e.g. by CloudSim.cancel, is left in the heap as an empty slot and is dropped
+ * once it reaches the top.
+ */
+public class QuaternaryHeapFutureQueue extends FutureQueue {
+
+	private static final int ARITY = 4;
+	private static final int DEFAULT_CAPACITY = 1024;
+
+	private double[] times;
+	private long[] serials;
+	/**
+	 * null for a removed event that is still in the heap
+	 */
+	private SimEvent[] events;
+	/**
+	 * slots in use, removed events included
+	 */
+	private int slots;
+	private int removed;
+
+	private long serial;
+	/**
+	 * serials of the events added first, always lower than the serials of the
+	 * other events
+	 */
+	private long firstSerial = Long.MIN_VALUE;
+
+	public QuaternaryHeapFutureQueue() {
+		this(DEFAULT_CAPACITY);
+	}
+
+	public QuaternaryHeapFutureQueue(int capacity) {
+		capacity = Math.max(capacity, ARITY);
+		this.times = new double[capacity];
+		this.serials = new long[capacity];
+		this.events = new SimEvent[capacity];
+	}
+
+	@Override
+	public void addEvent(SimEvent newEvent) {
+		this.insert(newEvent, this.serial++);
+	}
+
+	@Override
+	public void addEventFirst(SimEvent newEvent) {
+		this.insert(newEvent, this.firstSerial++);
+	}
+
+	/**
+	 * @return the events in the order they will be processed. removing through
+	 *         the iterator is supported.
+	 */
+	@Override
+	public Iterator<SimEvent> iterator() {
+		this.dropRemovedTop();
+		return new OrderedIterator();
+	}
+
+	@Override
+	public int size() {
+		return this.slots - this.removed;
+	}
+
+	@Override
+	public boolean remove(SimEvent event) {
+		this.dropRemovedTop();
+		if (this.slots > 0 && this.events[0] == event) {
+			this.removeTop();
+			return true;
+		}
+		for (int i = 1; i < this.slots; i++) {
+			if (this.events[i] == event) {
+				this.removeAt(i);
+				return true;
+			}
+		}
+		return false;
+	}
+
+	@Override
+	public boolean removeAll(Collection<SimEvent> events) {
+		boolean changed = false;
+		for (SimEvent event : events) {
+			changed |= this.remove(event);
+		}
+		return changed;
+	}
+
+	@Override
+	public void clear() {
+		Arrays.fill(this.events, 0, this.slots, null);
+		this.slots = 0;
+		this.removed = 0;
+	}
+
+	private void insert(SimEvent event, long serial) {
+		if (this.slots == this.events.length) {
+			this.grow();
+		}
+		this.siftUp(this.slots++, event.eventTime(), serial, event);
+	}
+
+	private void grow() {
+		int capacity = this.events.length * 2;
+		this.times = Arrays.copyOf(this.times, capacity);
+		this.serials = Arrays.copyOf(this.serials, capacity);
+		this.events = Arrays.copyOf(this.events, capacity);
+	}
+
+	/**
+	 * leave an empty slot, the heap keeps its shape
+	 */
+	private void removeAt(int index) {
+		this.events[index] = null;
+		this.removed++;
+	}
+
+	private void removeTop() {
+		int last = --this.slots;
+		double time = this.times[last];
+		long serial = this.serials[last];
+		SimEvent event = this.events[last];
+		this.events[last] = null;
+		if (last > 0) {
+			this.siftDown(0, time, serial, event);
+		}
+	}
+
+	private void dropRemovedTop() {
+		while (this.slots > 0 && this.events[0] == null) {
+			this.removed--;
+			this.removeTop();
+		}
+	}
+
+	private boolean less(double time, long serial, int index) {
+		return time < this.times[index] || time == this.times[index] && serial < this.serials[index];
+	}
+
+	private void siftUp(int index, double time, long serial, SimEvent event) {
+		while (index > 0) {
+			int parent = (index - 1) / ARITY;
+			if (!this.less(time, serial, parent))
+				break;
+			this.set(index, parent);
+			index = parent;
+		}
+		this.times[index] = time;
+		this.serials[index] = serial;
+		this.events[index] = event;
+	}
+
+	private void siftDown(int index, double time, long serial, SimEvent event) {
+		while (true) {
+			int first = index * ARITY + 1;
+			if (first >= this.slots)
+				break;
+			int smallest = first;
+			int end = Math.min(first + ARITY, this.slots);
+			for (int child = first + 1; child < end; child++) {
+				if (this.less(this.times[child], this.serials[child], smallest))
+					smallest = child;
+			}
+			if (!this.less(this.times[smallest], this.serials[smallest], time, serial))
+				break;
+			this.set(index, smallest);
+			index = smallest;
+		}
+		this.times[index] = time;
+		this.serials[index] = serial;
+		this.events[index] = event;
+	}
+
+	private boolean less(double time, long serial, double otherTime, long otherSerial) {
+		return time < otherTime || time == otherTime && serial < otherSerial;
+	}
+
+	private void set(int to, int from) {
+		this.times[to] = this.times[from];
+		this.serials[to] = this.serials[from];
+		this.events[to] = this.events[from];
+	}
+
+	/**
+	 * walks the heap in order without modifying it, a small heap of candidate
+	 * slots holds the children of the slots returned so far. getting the k
+	 * earliest events costs O(k log k), whatever the size of the queue.
+	 */
+	private final class OrderedIterator implements Iterator<SimEvent> {
+
+		private int[] candidates = new int[16];
+		private int size;
+		private int last = -1;
+
+		OrderedIterator() {
+			if (QuaternaryHeapFutureQueue.this.slots > 0)
+				this.push(0);
+			this.skipRemoved();
+		}
+
+		@Override
+		public boolean hasNext() {
+			return this.size > 0;
+		}
+
+		@Override
+		public SimEvent next() {
+			if (this.size == 0)
+				throw new NoSuchElementException();
+			this.last = this.pop();
+			this.skipRemoved();
+			return QuaternaryHeapFutureQueue.this.events[this.last];
+		}
+
+		@Override
+		public void remove() {
+			if (this.last < 0 || QuaternaryHeapFutureQueue.this.events[this.last] == null)
+				throw new IllegalStateException();
+			QuaternaryHeapFutureQueue.this.removeAt(this.last);
+		}
+
+		/**
+		 * pop the next slot and push its children
+		 */
+		private int pop() {
+			int slot = this.candidates[0];
+			int moved = this.candidates[--this.size];
+			int index = 0;
+			while (true) {
+				int child = index * 2 + 1;
+				if (child >= this.size)
+					break;
+				if (child + 1 < this.size && this.before(this.candidates[child + 1], this.candidates[child]))
+					child++;
+				if (!this.before(this.candidates[child], moved))
+					break;
+				this.candidates[index] = this.candidates[child];
+				index = child;
+			}
+			this.candidates[index] = moved;
+			int first = slot * ARITY + 1;
+			int end = Math.min(first + ARITY, QuaternaryHeapFutureQueue.this.slots);
+			for (int child = first; child < end; child++) {
+				this.push(child);
+			}
+			return slot;
+		}
+
+		private void push(int slot) {
+			if (this.size == this.candidates.length)
+				this.candidates = Arrays.copyOf(this.candidates, this.size * 2);
+			int index = this.size++;
+			while (index > 0) {
+				int parent = (index - 1) / 2;
+				if (!this.before(slot, this.candidates[parent]))
+					break;
+				this.candidates[index] = this.candidates[parent];
+				index = parent;
+			}
+			this.candidates[index] = slot;
+		}
+
+		/**
+		 * removed events are not returned but their children still have to be
+		 * walked
+		 */
+		private void skipRemoved() {
+			while (this.size > 0 && QuaternaryHeapFutureQueue.this.events[this.candidates[0]] == null) {
+				this.pop();
+			}
+		}
+
+		private boolean before(int a, int b) {
+			return QuaternaryHeapFutureQueue.this.less(QuaternaryHeapFutureQueue.this.times[a],
+					QuaternaryHeapFutureQueue.this.serials[a], b);
+		}
+	}
+
+}
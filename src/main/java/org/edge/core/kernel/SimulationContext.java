@@ -0,0 +1,101 @@
+package org.edge.core.kernel;
+
+import java.util.SplittableRandom;
+
+import org.edge.core.feature.EdgeLetPool;
+import org.edge.core.feature.NetworkDelayService;
+import org.edge.core.iot.DeviceStateStore;
+
+/**
+ * the state of one simulation run that used to be kept in static counters, so
+ * that runs in the same JVM do not share it. a new context is started next to
+ * CloudSim.init, entities bind to the current context when they are created and
+ * keep using it afterwards.
+ *
+ * <pre>
+ * CloudSim.init(numUser, calendar, traceFlag);
+ * SimulationContext.init();
+ * </pre>
+ *
+ * the CloudSim kernel itself is static, so two runs in one JVM still have to
+ * follow each other; runs in parallel need a JVM each.
+ */
+public class SimulationContext {
+
+	private static SimulationContext current = new SimulationContext();
+
+	private int nextEdgeLetId = 0;
+	private DeviceStateStore deviceStates;
+	private NetworkDelayService networkDelays;
+	private final EdgeLetPool edgeLetPool = new EdgeLetPool();
+	/**
+	 * the same seeds in every run, so that random entities repeat their runs
+	 */
+	private final SplittableRandom seeds = new SplittableRandom(0);
+
+	/**
+	 * start a new run
+	 *
+	 * @return the new current context
+	 */
+	public static SimulationContext init() {
+		current = new SimulationContext();
+		return current;
+	}
+
+	/**
+	 * @return the context of the run being set up or running
+	 */
+	public static SimulationContext current() {
+		return current;
+	}
+
+	/**
+	 * @return a new edgelet id, unique within this run
+	 */
+	public int nextEdgeLetId() {
+		return this.nextEdgeLetId++;
+	}
+
+	/**
+	 * @return the number of edgelet ids handed out
+	 */
+	public int getEdgeLetCount() {
+		return this.nextEdgeLetId;
+	}
+
+	/**
+	 * @return a seed for the random numbers of an entity, the n-th seed is the
+	 *         same in every run
+	 */
+	public long nextRandomSeed() {
+		return this.seeds.nextLong();
+	}
+
+	/**
+	 * @return the state of the iot devices created in this run
+	 */
+	public DeviceStateStore getDeviceStates() {
+		if (this.deviceStates == null)
+			this.deviceStates = new DeviceStateStore();
+		return this.deviceStates;
+	}
+
+	/**
+	 * @return the network delays between the iot devices and the edge devices of
+	 *         this run
+	 */
+	public NetworkDelayService getNetworkDelays() {
+		if (this.networkDelays == null)
+			this.networkDelays = new NetworkDelayService(this.getDeviceStates());
+		return this.networkDelays;
+	}
+
+	/**
+	 * @return the edgelets and ResEdgeLets this run recycles
+	 */
+	public EdgeLetPool getEdgeLetPool() {
+		return this.edgeLetPool;
+	}
+
+}
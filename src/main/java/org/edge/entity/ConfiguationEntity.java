@@ -4,6 +4,7 @@ import java.util.List;
 import java.util.Map;
 
 import org.edge.core.feature.Mobility.Location;
+import org.edge.utils.AsyncLogWriter;
 
 import lombok.Data;
 
@@ -18,10 +19,62 @@ public class ConfiguationEntity {
 		private boolean saveLogToFile;
 		private String logFilePath;
 		private boolean append;
+		/**
+		 * write the log file from a background thread
+		 */
+		private boolean asyncSaving;
+		/**
+		 * lines the background writer can hold before blocking or dropping
+		 */
+		private int logBufferCapacity = AsyncLogWriter.DEFAULT_CAPACITY;
+		/**
+		 * when the buffer is full, wait for the writer instead of dropping the line
+		 */
+		private boolean blockWhenBufferFull = true;
+		/**
+		 * print logged messages to the console as well
+		 */
+		private boolean consoleEcho = true;
+		/**
+		 * file to record a binary trace of the processed events into, no trace if
+		 * it is not set
+		 */
+		private String eventTraceFilePath;
 	}
 
 	private boolean trace_flag;
 	private int numUser;
+	/**
+	 * optional, the future event queue of the kernel, cloudsim or
+	 * quaternary_heap
+	 */
+	private String eventQueue;
+	/**
+	 * recycle finished edgelets, the broker then keeps no list of the received
+	 * ones
+	 */
+	private boolean poolEdgeLets;
+	/**
+	 * keep every sent, submitted and received edgelet for the report, otherwise
+	 * it only has their statistics
+	 */
+	private boolean retainEdgeLets;
+	/**
+	 * move the iot devices using the simple moving policy together, in one event
+	 * per interval instead of one event per device
+	 */
+	private boolean fleetMobility;
+	/**
+	 * optional, with fleetMobility, devices of the same entity are moved in
+	 * parallel when there are at least this many, whatever the log level. the
+	 * locations are still logged one device after another
+	 */
+	private Integer fleetMobilityParallelThreshold;
+	/**
+	 * optional, the network delay of a unit of distance between an iot device and
+	 * its edge device, 1 by default
+	 */
+	private Double networkDelayPerDistance;
 	private List<IotDeviceEntity> ioTDeviceEntities;
 	private List<MELEntities> MELEntities;
 
@@ -69,6 +122,13 @@ public class ConfiguationEntity {
 		double max_battery_capacity;
 		double battery_drainage_rate;
 		double current_battery_capacity;
+		/**
+		 * bounds of the responses kept for iot devices that moved away, 0 for no
+		 * limit. the oldest response is dropped when the device keeps too many, a
+		 * response is dropped after pendingResponseTimeToLive in simulation time
+		 */
+		int pendingResponseCapacity;
+		double pendingResponseTimeToLive;
 
 	}
 
@@ -138,6 +198,11 @@ public class ConfiguationEntity {
 	public static class BrokerEntity {
 
 		String name;
+		/**
+		 * optional, edgelets submitted to the same data center within this window
+		 * of simulation time are sent in one event, 0 for the same instant
+		 */
+		Double submitBatchWindow;
 	}
 
 	@Data
@@ -178,9 +243,32 @@ public class ConfiguationEntity {
 		double battery_drainage_rate;
 		double processingAbility;
 		EdgeLetEntity dataTemplate;
+		/**
+		 * optional, draw the battery continuously instead of on every event
+		 */
+		EnergyModelEntity energyModel;
+		/**
+		 * optional, a device that can store data sends what it has sensed every
+		 * transfer_frequency in one bundle
+		 */
+		long capacityToStore;
+		double transfer_frequency;
 
 	}
 
+	/**
+	 * battery capacity drawn per second in each power state. a missing value is
+	 * derived from the per event drainage rates of the device.
+	 */
+	@Data
+	public static class EnergyModelEntity {
+		private Double idle;
+		private Double sensing;
+		private Double transmitting;
+		private Double processing;
+		private Double moving;
+	}
+
 	@Data
 	public static class EdgeLetEntity {
 
@@ -219,6 +307,18 @@ public class ConfiguationEntity {
 		private MovingRangeEntity range;
 		private double signalRange;
 		private Location location;
+		/**
+		 * optional, the moving policy of a movable device, e.g.
+		 * org.edge.core.feature.policy.AnalyticSimpleMovingPolicy
+		 */
+		private String movingPolicyClassName;
+		/**
+		 * optional, a mobility trace file of a movable device. the devices of the
+		 * entity replay one track each, from track firstTrack on, and their moving
+		 * policy is a org.edge.core.feature.policy.TraceMovingPolicy
+		 */
+		private String traceFile;
+		private int firstTrack;
 		public MobilityEntity(Location location) {
 			super();
 			this.location = location;
@@ -0,0 +1,22 @@
+package org.edge.entity;
+
+import java.util.List;
+
+import org.edge.core.feature.EdgeLet;
+
+/**
+ * the edgelets an iot device has stored and sends to the broker in one event.
+ * the broker checks the connection in the header once for the whole bundle.
+ */
+public final class EdgeLetBundle {
+
+	public final ConnectionHeader connectionHeader;
+	public final List<EdgeLet> edgeLets;
+
+	public EdgeLetBundle(ConnectionHeader connectionHeader, List<EdgeLet> edgeLets) {
+		super();
+		this.connectionHeader = connectionHeader;
+		this.edgeLets = edgeLets;
+	}
+
+}
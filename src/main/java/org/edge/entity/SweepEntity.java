@@ -0,0 +1,59 @@
+package org.edge.entity;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+
+import com.google.gson.JsonElement;
+
+import lombok.Data;
+
+/**
+ * a parameter sweep: a base configuration and the values to try for some of
+ * its fields, every combination of them is run as a scenario.
+ *
+ * <pre>
+ * {
+ *   "scenarioClassName": "org.edge.examples.Example1",
+ *   "baseConfig": "healthcare_system.json",
+ *   "parameters": {
+ *     "ioTDeviceEntities[*].numberofEntity": [5, 10, 20],
+ *     "edgeDatacenter[0].characteristics.hostListEntities[*].max_battery_capacity": [1000, 2000]
+ *   }
+ * }
+ * </pre>
+ */
+@Data
+public class SweepEntity {
+
+	/**
+	 * a class implementing org.edge.scenario.Scenario
+	 */
+	private String scenarioClassName;
+	/**
+	 * a file, or a resource on the classpath if there is no such file
+	 */
+	private String baseConfig;
+	/**
+	 * the values of each field, by its path in the configuration: names
+	 * separated by dots, [i] for an element of a list and [*] for all of them
+	 */
+	private LinkedHashMap<String, List<JsonElement>> parameters;
+	/**
+	 * scenarios run at the same time, 0 for one per core
+	 */
+	private int workers;
+	/**
+	 * where every scenario gets a directory, its working directory, and where
+	 * the summary is written
+	 */
+	private String outputDir = "sweep";
+	/**
+	 * options of the worker JVMs, e.g. -Xmx1g
+	 */
+	private List<String> jvmOptions;
+	/**
+	 * seconds a worker may run its scenario before it is killed, 0 for no limit
+	 */
+	private double workerTimeout;
+
+}
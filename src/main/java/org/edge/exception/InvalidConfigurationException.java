@@ -0,0 +1,19 @@
+package org.edge.exception;
+
+/**
+ * a configuration names a class, a constructor or a value the simulation cannot
+ * be built from
+ */
+public class InvalidConfigurationException extends RuntimeException {
+
+	private static final long serialVersionUID = 1L;
+
+	public InvalidConfigurationException(String message) {
+		super(message);
+	}
+
+	public InvalidConfigurationException(String message, Throwable cause) {
+		super(message, cause);
+	}
+
+}
@@ -0,0 +1,127 @@
+package org.edge.scenario;
+
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.util.function.Consumer;
+
+import org.edge.entity.ConfiguationEntity;
+import org.edge.entity.ConfiguationEntity.ConnectionEntity;
+import org.edge.entity.ConfiguationEntity.IotDeviceEntity;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import com.google.gson.stream.JsonReader;
+
+/**
+ * a configuration document read as a stream. the iot device entities and the
+ * connections, the parts of a generated configuration that grow with the
+ * fleet, are handed out one at a time and never kept; the rest of the
+ * document is read into a ConfiguationEntity without them. every read opens
+ * the document again, so the entities can be created in the order the
+ * simulation needs whatever the order of the document.
+ */
+public class ConfigurationStream {
+
+	static final String IOT_DEVICE_ENTITIES = "ioTDeviceEntities";
+	static final String CONNECTIONS = "connections";
+
+	/**
+	 * opens the document
+	 */
+	public interface Source {
+		Reader open() throws IOException;
+	}
+
+	private final Source source;
+	private final Gson gson;
+
+	public ConfigurationStream(Source source) {
+		this.source = source;
+		this.gson = new Gson();
+	}
+
+	/**
+	 * @param name a resource on the classpath
+	 */
+	public static ConfigurationStream ofResource(String name) {
+		return new ConfigurationStream(() -> {
+			InputStream in = ConfigurationStream.class.getClassLoader().getResourceAsStream(name);
+			if (in == null)
+				throw new IOException("cannot find configuration " + name);
+			return new InputStreamReader(in, StandardCharsets.UTF_8);
+		});
+	}
+
+	public static ConfigurationStream ofFile(String path) {
+		return new ConfigurationStream(
+				() -> new InputStreamReader(new FileInputStream(path), StandardCharsets.UTF_8));
+	}
+
+	/**
+	 * @return the configuration without its iot device entities and connections
+	 * @throws IOException
+	 */
+	public ConfiguationEntity readSettings() throws IOException {
+		JsonObject settings = new JsonObject();
+		try (JsonReader reader = new JsonReader(this.source.open())) {
+			JsonParser parser = new JsonParser();
+			reader.beginObject();
+			while (reader.hasNext()) {
+				String name = reader.nextName();
+				if (IOT_DEVICE_ENTITIES.equals(name) || CONNECTIONS.equals(name)) {
+					reader.skipValue();
+				} else {
+					settings.add(name, parser.parse(reader));
+				}
+			}
+			reader.endObject();
+		}
+		return this.gson.fromJson(settings, ConfiguationEntity.class);
+	}
+
+	/**
+	 * hand every iot device entity to the action as it is parsed
+	 *
+	 * @param action
+	 * @throws IOException
+	 */
+	public void forEachIoTDeviceEntity(Consumer<IotDeviceEntity> action) throws IOException {
+		this.forEach(IOT_DEVICE_ENTITIES, IotDeviceEntity.class, action);
+	}
+
+	/**
+	 * hand every connection to the action as it is parsed
+	 *
+	 * @param action
+	 * @throws IOException
+	 */
+	public void forEachConnection(Consumer<ConnectionEntity> action) throws IOException {
+		this.forEach(CONNECTIONS, ConnectionEntity.class, action);
+	}
+
+	private <T> void forEach(String array, Class<T> type, Consumer<T> action) throws IOException {
+		try (JsonReader reader = new JsonReader(this.source.open())) {
+			reader.beginObject();
+			while (reader.hasNext()) {
+				if (!array.equals(reader.nextName())) {
+					reader.skipValue();
+					continue;
+				}
+				reader.beginArray();
+				while (reader.hasNext()) {
+					T element = this.gson.fromJson(reader, type);
+					action.accept(element);
+				}
+				reader.endArray();
+				// the document has one array of each
+				return;
+			}
+		}
+	}
+
+}
@@ -0,0 +1,32 @@
+package org.edge.scenario;
+
+import java.util.List;
+
+import org.edge.core.edge.EdgeDataCenter;
+import org.edge.core.edge.EdgeDataCenterBroker;
+import org.edge.entity.ConfiguationEntity;
+
+/**
+ * a simulation that is built from a configuration and runs it, the examples
+ * are scenarios. {@link org.edge.sweep.ScenarioWorker} runs one in its own
+ * JVM.
+ */
+public interface Scenario {
+
+	/**
+	 * build the simulation from the configuration and run it to the end
+	 *
+	 * @param conf
+	 */
+	void initFromConfiguation(ConfiguationEntity conf);
+
+	/**
+	 * @return the broker of the last run
+	 */
+	EdgeDataCenterBroker getBroker();
+
+	/**
+	 * @return the data centers of the last run
+	 */
+	List<EdgeDataCenter> getDatacenters();
+}
@@ -0,0 +1,744 @@
+package org.edge.scenario;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Calendar;
+import java.util.HashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+
+import org.cloudbus.cloudsim.CloudletScheduler;
+import org.cloudbus.cloudsim.Pe;
+import org.cloudbus.cloudsim.Storage;
+import org.cloudbus.cloudsim.VmAllocationPolicy;
+import org.cloudbus.cloudsim.VmScheduler;
+import org.cloudbus.cloudsim.core.CloudSim;
+import org.cloudbus.cloudsim.provisioners.BwProvisioner;
+import org.cloudbus.cloudsim.provisioners.PeProvisioner;
+import org.cloudbus.cloudsim.provisioners.RamProvisioner;
+import org.edge.core.CloudletSchedulerTimeSharedEdge;
+import org.edge.core.VmAllocationPolicyEdge;
+import org.edge.core.edge.EdgeDataCenter;
+import org.edge.core.edge.EdgeDataCenterBroker;
+import org.edge.core.edge.EdgeDatacenterCharacteristics;
+import org.edge.core.edge.EdgeDevice;
+import org.edge.core.edge.MicroELement;
+import org.edge.core.feature.EdgeType;
+import org.edge.core.feature.EnergyModel;
+import org.edge.core.feature.EnergyModel.PowerState;
+import org.edge.core.feature.Mobility;
+import org.edge.core.feature.Mobility.MovingRange;
+import org.edge.core.feature.operation.EdgeOperation;
+import org.edge.core.feature.policy.AnalyticMovingPolicy;
+import org.edge.core.feature.policy.MobilityTrace;
+import org.edge.core.feature.policy.MovingPolicy;
+import org.edge.core.feature.policy.TraceMovingPolicy;
+import org.edge.core.iot.FleetMobility;
+import org.edge.core.iot.IoTDevice;
+import org.edge.core.iot.IoTDeviceGroup;
+import org.edge.core.kernel.EdgeSimKernel;
+import org.edge.core.kernel.EdgeSimKernel.EventQueueType;
+import org.edge.core.kernel.SimulationContext;
+import org.edge.entity.ConfiguationEntity;
+import org.edge.entity.ConfiguationEntity.BrokerEntity;
+import org.edge.entity.ConfiguationEntity.BwProvisionerEntity;
+import org.edge.entity.ConfiguationEntity.ConnectionEntity;
+import org.edge.entity.ConfiguationEntity.EdgeDataCenterEntity;
+import org.edge.entity.ConfiguationEntity.EdgeDatacenterCharacteristicsEntity;
+import org.edge.entity.ConfiguationEntity.EnergyModelEntity;
+import org.edge.entity.ConfiguationEntity.HostEntity;
+import org.edge.entity.ConfiguationEntity.IotDeviceEntity;
+import org.edge.entity.ConfiguationEntity.LogEntity;
+import org.edge.entity.ConfiguationEntity.MELEntities;
+import org.edge.entity.ConfiguationEntity.MobilityEntity;
+import org.edge.entity.ConfiguationEntity.NetworkModelEntity;
+import org.edge.entity.ConfiguationEntity.PeEntity;
+import org.edge.entity.ConfiguationEntity.RamProvisionerEntity;
+import org.edge.entity.ConfiguationEntity.VmAllcationPolicyEntity;
+import org.edge.entity.ConnectionHeader;
+import org.edge.entity.MicroElementTopologyEntity;
+import org.edge.exception.InvalidConfigurationException;
+import org.edge.exception.MicroElementNotFoundException;
+import org.edge.network.NetworkModel;
+import org.edge.network.NetworkType;
+import org.edge.protocol.AMQPProtocol;
+import org.edge.protocol.CoAPProtocol;
+import org.edge.protocol.CommunicationProtocol;
+import org.edge.protocol.MQTTProtocol;
+import org.edge.protocol.XMPPProtocol;
+import org.edge.utils.AsyncLogWriter.FullPolicy;
+import org.edge.utils.EventTrace;
+import org.edge.utils.LogUtil;
+import org.edge.utils.LogUtil.Level;
+
+/**
+ * builds the entities of a simulation from its configuration. a class named in
+ * the configuration is looked up once together with its constructor, the
+ * resulting handle is kept and every host, pe, provisioner and device of that
+ * class is created through it.
+ * <p>
+ * the entities get their CloudSim ids in the order they are created, a
+ * scenario builds them in this order:
+ *
+ * <pre>
+ * ScenarioBuilder builder = new ScenarioBuilder(conf);
+ * builder.initCloudSim();
+ * EdgeDataCenterBroker broker = builder.createBroker();
+ * List&lt;IoTDevice&gt; devices = builder.createIoTDevices();
+ * List&lt;EdgeDataCenter&gt; datacenters = builder.createDataCenters();
+ * List&lt;MicroELement&gt; mels = builder.createMicroElements(broker);
+ * List&lt;ConnectionHeader&gt; headers = builder.createConnections(devices, broker.getId());
+ * builder.connectMicroElements(mels);
+ * broker.submitVmList(mels);
+ * broker.submitConnection(headers);
+ * builder.initLog();
+ * </pre>
+ *
+ * built from a {@link ConfigurationStream} the iot device entities and the
+ * connections are read while their devices and connection headers are
+ * created, the configuration never holds them.
+ */
+public class ScenarioBuilder {
+
+	private static final MethodHandles.Lookup LOOKUP = MethodHandles.publicLookup();
+
+	private final ConfiguationEntity conf;
+	/**
+	 * where the iot device entities and the connections are read from, null if
+	 * the configuration has them
+	 */
+	private final ConfigurationStream stream;
+	private final Map<String, Class<?>> classes;
+	/**
+	 * constructors by class name and parameter types, adapted to return the
+	 * type the builder needs
+	 */
+	private final Map<String, MethodHandle> constructors;
+	/**
+	 * the mean location of the iot device entities created so far
+	 */
+	private final Mobility.Location avgLocation;
+	private int ioTDeviceEntityCount;
+	/**
+	 * moves the devices together if the configuration asks for it
+	 */
+	private FleetMobility fleetMobility;
+	/**
+	 * the mobility traces opened, by path, each is mapped once
+	 */
+	private final Map<String, MobilityTrace> traces;
+
+	public ScenarioBuilder(ConfiguationEntity conf) {
+		this(conf, null);
+	}
+
+	/**
+	 * read the configuration but its iot device entities and connections
+	 *
+	 * @throws UncheckedIOException if the document cannot be read
+	 */
+	public ScenarioBuilder(ConfigurationStream stream) {
+		this(readSettings(stream), stream);
+	}
+
+	private ScenarioBuilder(ConfiguationEntity conf, ConfigurationStream stream) {
+		this.conf = conf;
+		this.stream = stream;
+		this.classes = new HashMap<>();
+		this.constructors = new HashMap<>();
+		this.traces = new HashMap<>();
+		this.avgLocation = new Mobility.Location(0, 0, 0);
+	}
+
+	private static ConfiguationEntity readSettings(ConfigurationStream stream) {
+		try {
+			return stream.readSettings();
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	public ConfiguationEntity getConfiguration() {
+		return this.conf;
+	}
+
+	/**
+	 * init CloudSim, a new SimulationContext and the kernel options
+	 */
+	public void initCloudSim() {
+		CloudSim.init(this.conf.getNumUser(), Calendar.getInstance(), this.conf.isTrace_flag());
+		SimulationContext context = SimulationContext.init();
+		if (this.conf.getNetworkDelayPerDistance() != null)
+			context.getNetworkDelays().setDelayPerDistance(this.conf.getNetworkDelayPerDistance());
+		if (this.conf.getEventQueue() != null) {
+			EdgeSimKernel.useFutureQueue(EventQueueType.of(this.conf.getEventQueue()));
+		}
+		context.getEdgeLetPool().setEnabled(this.conf.isPoolEdgeLets());
+	}
+
+	/**
+	 * log initialization
+	 */
+	public void initLog() {
+		LogEntity logEntity = this.conf.getLogEntity();
+		if (logEntity == null)
+			return;
+		if (logEntity.isSaveLogToFile()) {
+			Level level = Level.valueOf(logEntity.getLogLevel().toUpperCase());
+			if (logEntity.isAsyncSaving()) {
+				LogUtil.initAsyncLog(level, logEntity.getLogFilePath(), logEntity.isAppend(),
+						logEntity.getLogBufferCapacity(),
+						logEntity.isBlockWhenBufferFull() ? FullPolicy.BLOCK : FullPolicy.DROP);
+			} else {
+				LogUtil.initLog(level, logEntity.getLogFilePath(), true, logEntity.isAppend());
+			}
+		}
+		LogUtil.setConsoleEcho(logEntity.isConsoleEcho());
+		if (logEntity.getEventTraceFilePath() != null) {
+			EventTrace.init(logEntity.getEventTraceFilePath());
+		}
+	}
+
+	public EdgeDataCenterBroker createBroker() {
+		BrokerEntity brokerEntity = this.conf.getBroker();
+		EdgeDataCenterBroker broker;
+		try {
+			broker = new EdgeDataCenterBroker(brokerEntity.getName());
+		} catch (Exception e) {
+			throw new InvalidConfigurationException("cannot create broker " + brokerEntity.getName(), e);
+		}
+		broker.setRetainEdgeLets(this.conf.isRetainEdgeLets());
+		if (brokerEntity.getSubmitBatchWindow() != null) {
+			broker.setSubmitBatchWindow(brokerEntity.getSubmitBatchWindow());
+		}
+		return broker;
+	}
+
+	/**
+	 * create numberofEntity devices for each iot device entity
+	 */
+	public List<IoTDevice> createIoTDevices() {
+		List<IoTDevice> devices = new ArrayList<>();
+		if (this.stream != null) {
+			try {
+				this.stream.forEachIoTDeviceEntity(entity -> this.createIoTDevices(entity, devices));
+			} catch (IOException e) {
+				throw new UncheckedIOException(e);
+			}
+		} else {
+			for (IotDeviceEntity iotDeviceEntity : this.conf.getIoTDeviceEntities()) {
+				this.createIoTDevices(iotDeviceEntity, devices);
+			}
+		}
+		if (this.conf.isFleetMobility())
+			this.createFleetMobility(devices);
+		return devices;
+	}
+
+	/**
+	 * created after the devices, they keep the ids they have without it
+	 *
+	 * @param devices
+	 */
+	private void createFleetMobility(List<IoTDevice> devices) {
+		if (this.fleetMobility == null) {
+			this.fleetMobility = new FleetMobility("fleet_mobility");
+			if (this.conf.getFleetMobilityParallelThreshold() != null)
+				this.fleetMobility.setParallelThreshold(this.conf.getFleetMobilityParallelThreshold());
+		}
+		for (IoTDevice device : devices) {
+			this.fleetMobility.add(device);
+		}
+	}
+
+	private void createIoTDevices(IotDeviceEntity entity, List<IoTDevice> devices) {
+		this.addToAvgLocation(entity.getMobilityEntity().getLocation());
+		// the devices of an entity share their network model
+		NetworkModel networkModel = this.createNetworkModel(entity.getNetworkModelEntity());
+		boolean storing = entity.getCapacityToStore() > 0;
+		MethodHandle constructor = storing
+				? this.constructor(entity.ioTClassName, IoTDevice.class, NetworkModel.class, long.class, double.class)
+				: this.constructor(entity.ioTClassName, IoTDevice.class, NetworkModel.class);
+		MobilityEntity mobilityEntity = entity.getMobilityEntity();
+		MobilityTrace trace = mobilityEntity.isMovable() && mobilityEntity.getTraceFile() != null
+				? this.trace(mobilityEntity.getTraceFile())
+				: null;
+		if (trace != null && (mobilityEntity.getFirstTrack() < 0
+				|| mobilityEntity.getFirstTrack() + entity.getNumberofEntity() > trace.size()))
+			throw new InvalidConfigurationException(trace.getPath() + " has " + trace.size() + " tracks, "
+					+ entity.getNumberofEntity() + " are needed from track " + mobilityEntity.getFirstTrack());
+		String movingPolicyClassName = mobilityEntity.isMovable() && trace == null
+				? mobilityEntity.getMovingPolicyClassName()
+				: null;
+		MethodHandle movingPolicyConstructor = movingPolicyClassName == null ? null
+				: this.constructor(movingPolicyClassName, MovingPolicy.class);
+		// a device that does not move shares its location with the others
+		Mobility sharedMobility = mobilityEntity.isMovable() ? null : this.createMobility(mobilityEntity, null);
+		MovingRange range = mobilityEntity.isMovable() && mobilityEntity.getRange() != null
+				? new MovingRange(mobilityEntity.getRange().beginX, mobilityEntity.getRange().endX,
+						mobilityEntity.getRange().beginY, mobilityEntity.getRange().endY,
+						mobilityEntity.getRange().beginZ, mobilityEntity.getRange().endZ)
+				: null;
+		MovingPolicy sharedMovingPolicy = null;
+
+		IoTDeviceGroup group = null;
+		for (int i = 0; i < entity.getNumberofEntity(); i++) {
+			IoTDevice device;
+			try {
+				device = storing
+						? (IoTDevice) constructor.invokeExact(networkModel, entity.getCapacityToStore(),
+								entity.getTransfer_frequency())
+						: (IoTDevice) constructor.invokeExact(networkModel);
+			} catch (Throwable e) {
+				throw new InvalidConfigurationException("cannot create iot device " + entity.ioTClassName, e);
+			}
+			if (group == null) {
+				group = device.getGroup();
+				group.setAssigmentIoTId(entity.getAssignmentId());
+				group.setProcessingAbility(entity.getProcessingAbility());
+				group.setBatteryDrainageRate(entity.getBattery_drainage_rate());
+				group.setRetainSentEdgeLets(this.conf.isRetainEdgeLets());
+			} else {
+				group.add(device);
+			}
+			device.getBattery().setMaxCapacity(entity.getMax_battery_capacity());
+			device.getBattery().setCurrentCapacity(entity.getMax_battery_capacity());
+			device.setMobility(sharedMobility != null ? sharedMobility : this.createMobility(mobilityEntity, range));
+			if (trace != null) {
+				device.setMovingPolicy(new TraceMovingPolicy(trace.getTrack(mobilityEntity.getFirstTrack() + i)));
+			} else if (movingPolicyConstructor != null) {
+				MovingPolicy movingPolicy = sharedMovingPolicy;
+				if (movingPolicy == null) {
+					try {
+						movingPolicy = (MovingPolicy) movingPolicyConstructor.invokeExact();
+					} catch (Throwable e) {
+						throw new InvalidConfigurationException("cannot create moving policy " + movingPolicyClassName,
+								e);
+					}
+					// an analytic policy keeps where its device started
+					if (!(movingPolicy instanceof AnalyticMovingPolicy))
+						sharedMovingPolicy = movingPolicy;
+				}
+				device.setMovingPolicy(movingPolicy);
+			}
+			if (entity.getEnergyModel() != null) {
+				device.setEnergyModel(this.createEnergyModel(device, entity.getEnergyModel()));
+			}
+			devices.add(device);
+		}
+	}
+
+	private MobilityTrace trace(String path) {
+		MobilityTrace trace = this.traces.get(path);
+		if (trace == null) {
+			try {
+				trace = new MobilityTrace(path);
+			} catch (IOException e) {
+				throw new InvalidConfigurationException("cannot read mobility trace " + path, e);
+			}
+			this.traces.put(path, trace);
+		}
+		return trace;
+	}
+
+	private Mobility createMobility(MobilityEntity mobilityEntity, MovingRange range) {
+		Mobility location = new Mobility(mobilityEntity.getLocation());
+		location.movable = mobilityEntity.isMovable();
+		if (mobilityEntity.isMovable()) {
+			location.range = range;
+			location.signalRange = mobilityEntity.getSignalRange();
+			location.volecity = mobilityEntity.getVolecity();
+		}
+		return location;
+	}
+
+	private EnergyModel createEnergyModel(IoTDevice device, EnergyModelEntity entity) {
+		EnergyModel energyModel = device.createEnergyModel();
+		if (entity.getIdle() != null)
+			energyModel.setDraw(PowerState.IDLE, entity.getIdle());
+		if (entity.getSensing() != null)
+			energyModel.setDraw(PowerState.SENSING, entity.getSensing());
+		if (entity.getTransmitting() != null)
+			energyModel.setDraw(PowerState.TRANSMITTING, entity.getTransmitting());
+		if (entity.getProcessing() != null)
+			energyModel.setDraw(PowerState.PROCESSING, entity.getProcessing());
+		if (entity.getMoving() != null)
+			energyModel.setDraw(PowerState.MOVING, entity.getMoving());
+		return energyModel;
+	}
+
+	/**
+	 * VmAllocationPolicyEdge places the vms close to the iot devices, they are
+	 * created first
+	 */
+	public List<EdgeDataCenter> createDataCenters() {
+		List<EdgeDataCenter> datacenters = new ArrayList<>();
+		Mobility.Location avgLocation = new Mobility.Location(this.avgLocation.x, this.avgLocation.y,
+				this.avgLocation.z);
+		for (EdgeDataCenterEntity entity : this.conf.getEdgeDatacenter()) {
+			datacenters.add(this.createDataCenter(entity, avgLocation));
+		}
+		return datacenters;
+	}
+
+	/**
+	 * the mean location of the iot device entities, VmAllocationPolicyEdge places
+	 * the vms close to it
+	 */
+	private void addToAvgLocation(Mobility.Location location) {
+		int count = ++this.ioTDeviceEntityCount;
+		this.avgLocation.x = (this.avgLocation.x * (count - 1) + location.x) / count;
+		this.avgLocation.y = (this.avgLocation.y * (count - 1) + location.y) / count;
+		this.avgLocation.z = (this.avgLocation.z * (count - 1) + location.z) / count;
+	}
+
+	private EdgeDataCenter createDataCenter(EdgeDataCenterEntity entity, Mobility.Location avgLocation) {
+		EdgeDatacenterCharacteristicsEntity characteristicsEntity = entity.getCharacteristics();
+		List<EdgeDevice> hostList = new ArrayList<>();
+		for (HostEntity hostEntity : characteristicsEntity.getHostListEntities()) {
+			hostList.add(this.createEdgeDevice(hostEntity));
+		}
+
+		List<String> ioTDeviceClassNames = characteristicsEntity.getIoTDeviceClassNameSupported();
+		List<Class<? extends IoTDevice>> ioTDeviceClassSupported = new ArrayList<>(ioTDeviceClassNames.size());
+		for (String className : ioTDeviceClassNames) {
+			Class<?> clazz = this.classForName(className);
+			if (!IoTDevice.class.isAssignableFrom(clazz))
+				throw new InvalidConfigurationException(className + " is not an iot device");
+			ioTDeviceClassSupported.add(clazz.asSubclass(IoTDevice.class));
+		}
+		List<String> protocolNames = characteristicsEntity.getCommunicationProtocolSupported();
+		List<Class<? extends CommunicationProtocol>> communicationClassSupported = new ArrayList<>(protocolNames.size());
+		for (String protocolName : protocolNames) {
+			communicationClassSupported.add(this.createCommunicationProtocol(protocolName).getClass());
+		}
+		EdgeDatacenterCharacteristics characteristics = new EdgeDatacenterCharacteristics(
+				characteristicsEntity.getArchitecture(), characteristicsEntity.getOs(), characteristicsEntity.getVmm(),
+				hostList, characteristicsEntity.getTimeZone(), characteristicsEntity.getCost(),
+				characteristicsEntity.getCostPerMem(), characteristicsEntity.getCostPerStorage(),
+				characteristicsEntity.getCostPerBw(), communicationClassSupported, ioTDeviceClassSupported);
+
+		VmAllocationPolicy vmAllocationPolicy = this.createVmAllocationPolicy(entity.getVmAllocationPolicy(), hostList,
+				avgLocation);
+		try {
+			return new EdgeDataCenter(entity.getName(), characteristics, vmAllocationPolicy, new LinkedList<Storage>(),
+					entity.getSchedulingInterval());
+		} catch (Exception e) {
+			throw new InvalidConfigurationException("cannot create data center " + entity.getName(), e);
+		}
+	}
+
+	/**
+	 * VmAllocationPolicyEdge gets the priorities, 0.5 if they are not set, and the
+	 * mean location of the iot devices, other policies only the hosts
+	 */
+	private VmAllocationPolicy createVmAllocationPolicy(VmAllcationPolicyEntity entity, List<EdgeDevice> hostList,
+			Mobility.Location avgLocation) {
+		String className = entity.getClassName();
+		try {
+			if (VmAllocationPolicyEdge.class.isAssignableFrom(this.classForName(className))) {
+				float distPrio = entity.getDistPrio() > 0 ? entity.getDistPrio() : 0.5f;
+				float pePrio = entity.getPePrio() > 0 ? entity.getPePrio() : 0.5f;
+				MethodHandle constructor = this.constructor(className, VmAllocationPolicy.class, List.class,
+						float.class, float.class, Mobility.Location.class);
+				return (VmAllocationPolicy) constructor.invokeExact((List) hostList, distPrio, pePrio, avgLocation);
+			}
+			MethodHandle constructor = this.constructor(className, VmAllocationPolicy.class, List.class);
+			return (VmAllocationPolicy) constructor.invokeExact((List) hostList);
+		} catch (InvalidConfigurationException e) {
+			throw e;
+		} catch (Throwable e) {
+			throw new InvalidConfigurationException("cannot create vm allocation policy " + className, e);
+		}
+	}
+
+	private EdgeDevice createEdgeDevice(HostEntity hostEntity) {
+		NetworkModel networkModel = this.createNetworkModel(hostEntity.getNetworkModel());
+		List<Pe> peList = this.createPeList(hostEntity.getPeEntities());
+		RamProvisionerEntity ramProvisionerEntity = hostEntity.getRamProvisioner();
+		BwProvisionerEntity bwProvisionerEntity = hostEntity.getBwProvisioner();
+		String vmSchedulerClassName = hostEntity.getVmScheduler().getClassName();
+		RamProvisioner ramProvisioner;
+		BwProvisioner bwProvisioner;
+		VmScheduler vmScheduler;
+		try {
+			ramProvisioner = (RamProvisioner) this
+					.constructor(ramProvisionerEntity.getClassName(), RamProvisioner.class, int.class)
+					.invokeExact(ramProvisionerEntity.getRamSize());
+			bwProvisioner = this.createBwProvisioner(bwProvisionerEntity);
+			vmScheduler = (VmScheduler) this.constructor(vmSchedulerClassName, VmScheduler.class, List.class)
+					.invokeExact((List) peList);
+		} catch (InvalidConfigurationException e) {
+			throw e;
+		} catch (Throwable e) {
+			throw new InvalidConfigurationException("cannot create the provisioners of host " + hostEntity.getId(), e);
+		}
+
+		MobilityEntity geo_location = hostEntity.getGeo_location();
+		Mobility location = new Mobility(geo_location.getLocation());
+		location.movable = geo_location.isMovable();
+		location.signalRange = geo_location.getSignalRange();
+		if (geo_location.isMovable()) {
+			location.volecity = geo_location.getVolecity();
+		}
+
+		EdgeDevice edgeDevice = new EdgeDevice(hostEntity.getId(), ramProvisioner, bwProvisioner,
+				hostEntity.getStorage(), peList, vmScheduler, this.getEdgeType(hostEntity.getEdgeType()), networkModel,
+				hostEntity.getMax_IoTDevice_capacity(), hostEntity.getMax_battery_capacity(),
+				hostEntity.getBattery_drainage_rate(), hostEntity.getCurrent_battery_capacity());
+		edgeDevice.setMobility(location);
+		edgeDevice.getPendingResponse().setCapacity(hostEntity.getPendingResponseCapacity());
+		edgeDevice.getPendingResponse().setTimeToLive(hostEntity.getPendingResponseTimeToLive());
+		return edgeDevice;
+	}
+
+	/**
+	 * the bw provisioners of CloudSim 3 take a long, older ones a double
+	 */
+	private BwProvisioner createBwProvisioner(BwProvisionerEntity entity) throws Throwable {
+		String className = entity.getClassName();
+		MethodHandle constructor = this.findConstructor(className, BwProvisioner.class, long.class);
+		if (constructor != null)
+			return (BwProvisioner) constructor.invokeExact((long) entity.getBwSize());
+		return (BwProvisioner) this.constructor(className, BwProvisioner.class, double.class)
+				.invokeExact((double) entity.getBwSize());
+	}
+
+	private List<Pe> createPeList(List<PeEntity> peEntities) {
+		List<Pe> peList = new ArrayList<>(peEntities.size());
+		for (PeEntity peEntity : peEntities) {
+			MethodHandle constructor = this.constructor(peEntity.getPeProvisionerClassName(), PeProvisioner.class,
+					double.class);
+			try {
+				PeProvisioner peProvisioner = (PeProvisioner) constructor.invokeExact((double) peEntity.getMips());
+				peList.add(new Pe(peEntity.getId(), peProvisioner));
+			} catch (Throwable e) {
+				throw new InvalidConfigurationException(
+						"cannot create pe provisioner " + peEntity.getPeProvisionerClassName(), e);
+			}
+		}
+		return peList;
+	}
+
+	private EdgeType getEdgeType(String edgeType) {
+		try {
+			return EdgeType.valueOf(edgeType.toUpperCase());
+		} catch (IllegalArgumentException e) {
+			throw new InvalidConfigurationException("the edgeDevice type " + edgeType + " has not been supported yet!");
+		}
+	}
+
+	/**
+	 * inflate MicroELement parameters to MicroELement
+	 */
+	public List<MicroELement> createMicroElements(EdgeDataCenterBroker broker) {
+		List<MicroELement> vms = new ArrayList<>();
+		for (MELEntities melEntity : this.conf.getMELEntities()) {
+			EdgeOperation edgeOperation;
+			CloudletScheduler cloudletScheduler;
+			try {
+				edgeOperation = (EdgeOperation) this
+						.constructor(melEntity.getEdgeOperationClass(), EdgeOperation.class).invokeExact();
+				cloudletScheduler = (CloudletScheduler) this
+						.constructor(melEntity.getCloudletSchedulerClassName(), CloudletScheduler.class).invokeExact();
+			} catch (InvalidConfigurationException e) {
+				throw e;
+			} catch (Throwable e) {
+				throw new InvalidConfigurationException("cannot create MicroElement " + melEntity.getVmid(), e);
+			}
+			if (cloudletScheduler instanceof CloudletSchedulerTimeSharedEdge) {
+				((CloudletSchedulerTimeSharedEdge) cloudletScheduler).setSensorMap(melEntity.getSensorMap());
+			}
+			MicroELement microELement = new MicroELement(melEntity.getVmid(), broker.getId(), melEntity.getMips(),
+					melEntity.getPesNumber(), melEntity.getRam(), melEntity.getBw(), melEntity.getSize(),
+					melEntity.getVmm(), cloudletScheduler, melEntity.getType(), melEntity.getDatasizeShrinkFactor());
+			microELement.setEdgeOperation(edgeOperation);
+			vms.add(microELement);
+			melEntity.getMELTopology().setId(microELement.getId());
+		}
+		return vms;
+	}
+
+	/**
+	 * bind every MicroELement to the uplink and the downlinks of its topology
+	 *
+	 * @throws MicroElementNotFoundException if a MicroELement has no topology or
+	 *                                       a link is not one of the vms
+	 */
+	public void connectMicroElements(List<MicroELement> vmList) {
+		Map<Integer, MicroELement> byId = new HashMap<>();
+		for (MicroELement microELement : vmList) {
+			byId.put(microELement.getId(), microELement);
+		}
+		Map<Integer, MicroElementTopologyEntity> topologies = new HashMap<>();
+		for (MELEntities melEntity : this.conf.getMELEntities()) {
+			topologies.putIfAbsent(melEntity.getMELTopology().getId(), melEntity.getMELTopology());
+		}
+		for (MicroELement microELement : vmList) {
+			int id = microELement.getId();
+			MicroElementTopologyEntity topologyEntity = topologies.get(id);
+			if (topologyEntity == null)
+				throw new MicroElementNotFoundException("cannot find topology for MicroElement " + id);
+			Integer upLinkId = topologyEntity.getUpLinkId();
+			if (upLinkId != null) {
+				MicroELement upLink = byId.get(upLinkId);
+				if (upLink == null)
+					throw new MicroElementNotFoundException("cannot find uplink " + upLinkId + " for MicroElement " + id);
+				microELement.setUpLink(upLink);
+			}
+
+			List<MicroELement> downLink = new ArrayList<>();
+			microELement.setDownLink(downLink);
+			for (Integer downLinkId : topologyEntity.getDownLinkIds()) {
+				if (downLinkId == null)
+					continue;
+				if (downLinkId == id)
+					throw new InvalidConfigurationException("the EML " + id + "'s downlink cannot be itself");
+				MicroELement elm = byId.get(downLinkId);
+				if (elm == null)
+					throw new MicroElementNotFoundException("cannot find the downlink: " + downLinkId + " for EML " + id);
+				if (downLink.contains(elm))
+					throw new InvalidConfigurationException("the EML: " + id + " cannot bind the same downlink twice");
+				downLink.add(elm);
+			}
+		}
+	}
+
+	/**
+	 * get network topology from configuration, a connection for every iot device
+	 * of the assignment
+	 */
+	public List<ConnectionHeader> createConnections(List<IoTDevice> devices, int brokerId) {
+		Map<Integer, List<IoTDevice>> byAssignment = new HashMap<>();
+		for (IoTDevice device : devices) {
+			byAssignment.computeIfAbsent(device.getAssigmentIoTId(), id -> new ArrayList<>()).add(device);
+		}
+		List<ConnectionHeader> headers = new ArrayList<>();
+		if (this.stream != null) {
+			try {
+				this.stream.forEachConnection(
+						connectionEntity -> this.addConnections(connectionEntity, byAssignment, brokerId, headers));
+			} catch (IOException e) {
+				throw new UncheckedIOException(e);
+			}
+			return headers;
+		}
+		for (ConnectionEntity connectionEntity : this.conf.getConnections()) {
+			this.addConnections(connectionEntity, byAssignment, brokerId, headers);
+		}
+		return headers;
+	}
+
+	private void addConnections(ConnectionEntity connectionEntity, Map<Integer, List<IoTDevice>> byAssignment,
+			int brokerId, List<ConnectionHeader> headers) {
+		List<IoTDevice> assigned = byAssignment.get(connectionEntity.getAssigmentIoTId());
+		if (assigned == null)
+			return;
+		for (IoTDevice device : assigned) {
+			headers.add(new ConnectionHeader(connectionEntity.getVmId(), device.getId(), brokerId,
+					device.getNetworkModel().getCommunicationProtocol().getClass()));
+		}
+	}
+
+	public NetworkModel createNetworkModel(NetworkModelEntity networkModelEntity) {
+		CommunicationProtocol communicationProtocol = this
+				.createCommunicationProtocol(networkModelEntity.getCommunicationProtocol());
+		String networkTypeName = networkModelEntity.getNetworkType();
+		NetworkType networkType;
+		switch (networkTypeName.toLowerCase()) {
+		case "wifi":
+			networkType = NetworkType.WIFI;
+			break;
+		case "wlan":
+			networkType = NetworkType.WLAN;
+			break;
+		case "4g":
+			networkType = NetworkType.FourG;
+			break;
+		case "3g":
+			networkType = NetworkType.ThreeG;
+			break;
+		case "bluetooth":
+			networkType = NetworkType.BLUETOOTH;
+			break;
+		case "lan":
+			networkType = NetworkType.LAN;
+			break;
+		default:
+			throw new InvalidConfigurationException("have not supported network type " + networkTypeName + " yet!");
+		}
+		NetworkModel networkModel = new NetworkModel(networkType);
+		networkModel.setCommunicationProtocol(communicationProtocol);
+		return networkModel;
+	}
+
+	private CommunicationProtocol createCommunicationProtocol(String name) {
+		switch (name.toLowerCase()) {
+		case "xmpp":
+			return new XMPPProtocol();
+		case "mqtt":
+			return new MQTTProtocol();
+		case "coap":
+			return new CoAPProtocol();
+		case "amqp":
+			return new AMQPProtocol();
+		default:
+			throw new InvalidConfigurationException("have not supported protocol " + name + " yet!");
+		}
+	}
+
+	private Class<?> classForName(String className) {
+		Class<?> clazz = this.classes.get(className);
+		if (clazz == null) {
+			try {
+				clazz = Class.forName(className);
+			} catch (ClassNotFoundException | NullPointerException e) {
+				throw new InvalidConfigurationException("cannot find class " + className, e);
+			}
+			this.classes.put(className, clazz);
+		}
+		return clazz;
+	}
+
+	/**
+	 * @return the constructor of the class with these parameters, typed to return
+	 *         the given type, looked up once
+	 * @throws InvalidConfigurationException if the class is not of the type or
+	 *                                       has no such public constructor
+	 */
+	private MethodHandle constructor(String className, Class<?> type, Class<?>... parameterTypes) {
+		MethodHandle constructor = this.findConstructor(className, type, parameterTypes);
+		if (constructor == null)
+			throw new InvalidConfigurationException(
+					className + " has no public constructor of " + Arrays.toString(parameterTypes));
+		return constructor;
+	}
+
+	/**
+	 * @return null if the class has no such public constructor
+	 */
+	private MethodHandle findConstructor(String className, Class<?> type, Class<?>... parameterTypes) {
+		String key = className + Arrays.toString(parameterTypes);
+		if (this.constructors.containsKey(key))
+			return this.constructors.get(key);
+		Class<?> clazz = this.classForName(className);
+		if (!type.isAssignableFrom(clazz))
+			throw new InvalidConfigurationException(className + " is not a " + type.getSimpleName());
+		MethodHandle constructor;
+		try {
+			constructor = LOOKUP.findConstructor(clazz, MethodType.methodType(void.class, parameterTypes))
+					.asType(MethodType.methodType(type, parameterTypes));
+		} catch (NoSuchMethodException | IllegalAccessException e) {
+			constructor = null;
+		}
+		this.constructors.put(key, constructor);
+		return constructor;
+	}
+
+}
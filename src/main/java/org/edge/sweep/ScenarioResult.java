@@ -0,0 +1,39 @@
+package org.edge.sweep;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import lombok.Data;
+
+/**
+ * the outcome of one scenario of a sweep, the worker writes it as json
+ */
+@Data
+public class ScenarioResult {
+
+	private int index;
+	/**
+	 * the value of each swept parameter in this scenario, in the order of the
+	 * sweep
+	 */
+	private Map<String, String> parameters = new LinkedHashMap<>();
+	/**
+	 * null if the scenario finished, otherwise why it did not
+	 */
+	private String error;
+	private long edgeLets;
+	private double meanExecutionTime;
+	private double p50ExecutionTime;
+	private double p95ExecutionTime;
+	private double p99ExecutionTime;
+	/**
+	 * finish time of the edgelet returned last
+	 */
+	private double finishTime;
+	/**
+	 * battery consumed by all the edge devices
+	 */
+	private double energy;
+	private double wallSeconds;
+
+}
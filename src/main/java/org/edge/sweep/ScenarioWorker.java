@@ -0,0 +1,88 @@
+package org.edge.sweep;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.lang.reflect.InvocationTargetException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+
+import org.cloudbus.cloudsim.Host;
+import org.edge.core.edge.EdgeDataCenter;
+import org.edge.core.edge.EdgeDataCenterBroker;
+import org.edge.core.edge.EdgeDevice;
+import org.edge.core.edge.EdgeLetMetrics.Statistics;
+import org.edge.entity.ConfiguationEntity;
+import org.edge.scenario.Scenario;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+
+/**
+ * runs one scenario of a sweep, CloudSim keeps its state in static fields so
+ * every scenario gets a JVM of its own.
+ *
+ * <pre>
+ * java org.edge.sweep.ScenarioWorker scenarioClassName config.json result.json
+ * </pre>
+ */
+public class ScenarioWorker {
+
+	public static void main(String[] args) throws IOException {
+		if (args.length != 3)
+			throw new IllegalArgumentException("usage: ScenarioWorker scenarioClassName config.json result.json");
+		Gson gson = new GsonBuilder().serializeSpecialFloatingPointValues().create();
+		ConfiguationEntity conf;
+		try (Reader reader = Files.newBufferedReader(Paths.get(args[1]), StandardCharsets.UTF_8)) {
+			conf = gson.fromJson(reader, ConfiguationEntity.class);
+		}
+		ScenarioResult result = run(args[0], conf);
+		try (Writer writer = Files.newBufferedWriter(Paths.get(args[2]), StandardCharsets.UTF_8)) {
+			gson.toJson(result, writer);
+		}
+		// the simulation may have left non daemon threads behind
+		System.exit(0);
+	}
+
+	static ScenarioResult run(String scenarioClassName, ConfiguationEntity conf) {
+		ScenarioResult result = new ScenarioResult();
+		long start = System.nanoTime();
+		Throwable error = null;
+		try {
+			Scenario scenario = Class.forName(scenarioClassName).asSubclass(Scenario.class).getDeclaredConstructor()
+					.newInstance();
+			scenario.initFromConfiguation(conf);
+			collect(scenario, result);
+		} catch (InvocationTargetException e) {
+			error = e.getCause();
+		} catch (Exception | LinkageError e) {
+			error = e;
+		}
+		if (error != null) {
+			error.printStackTrace();
+			result.setError(error.toString());
+		}
+		result.setWallSeconds((System.nanoTime() - start) / 1e9);
+		return result;
+	}
+
+	private static void collect(Scenario scenario, ScenarioResult result) {
+		EdgeDataCenterBroker broker = scenario.getBroker();
+		Statistics all = broker.getMetrics().getAll();
+		result.setEdgeLets(all.getCount());
+		result.setMeanExecutionTime(all.getMean());
+		result.setP50ExecutionTime(all.getPercentile(50));
+		result.setP95ExecutionTime(all.getPercentile(95));
+		result.setP99ExecutionTime(all.getPercentile(99));
+		result.setFinishTime(broker.getMetrics().getLastFinishTime());
+		double energy = 0;
+		for (EdgeDataCenter datacenter : scenario.getDatacenters()) {
+			for (Host host : datacenter.getHostList()) {
+				EdgeDevice device = (EdgeDevice) host;
+				energy += device.getMaxBatteryCapacity() - device.getCurrentBatteryCapacity();
+			}
+		}
+		result.setEnergy(energy);
+	}
+}
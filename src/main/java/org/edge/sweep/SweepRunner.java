@@ -0,0 +1,426 @@
+package org.edge.sweep;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.PrintStream;
+import java.io.PrintWriter;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.edge.entity.SweepEntity;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+
+/**
+ * runs every combination of the parameters of a sweep on a base configuration,
+ * as many scenarios at a time as there are workers. every scenario runs in a
+ * {@link ScenarioWorker} JVM of its own, with its directory under the output
+ * directory as working directory, so relative log files do not clash. a worker
+ * running longer than the worker timeout of the sweep is killed and its
+ * scenario reported as failed. the results are printed as one table and
+ * written to summary.csv.
+ *
+ * <pre>
+ * java org.edge.sweep.SweepRunner sweep.json [outputDir]
+ * </pre>
+ */
+public class SweepRunner {
+
+	private static final Gson GSON = new GsonBuilder().serializeSpecialFloatingPointValues().setPrettyPrinting()
+			.create();
+
+	private final SweepEntity sweep;
+	private final JsonObject baseConfig;
+
+	public SweepRunner(SweepEntity sweep) throws IOException {
+		if (sweep.getScenarioClassName() == null || sweep.getBaseConfig() == null)
+			throw new IllegalArgumentException("a sweep needs a scenarioClassName and a baseConfig");
+		this.sweep = sweep;
+		try (Reader reader = open(sweep.getBaseConfig())) {
+			this.baseConfig = new JsonParser().parse(reader).getAsJsonObject();
+		}
+	}
+
+	/**
+	 * @return every combination of the parameter values, the last parameter
+	 *         changes fastest
+	 */
+	public List<Map<String, JsonElement>> combinations() {
+		List<Map<String, JsonElement>> combinations = new ArrayList<>();
+		combinations.add(new LinkedHashMap<>());
+		if (this.sweep.getParameters() == null)
+			return combinations;
+		for (Map.Entry<String, List<JsonElement>> parameter : this.sweep.getParameters().entrySet()) {
+			if (parameter.getValue() == null || parameter.getValue().isEmpty())
+				throw new IllegalArgumentException("no values for " + parameter.getKey());
+			List<Map<String, JsonElement>> expanded = new ArrayList<>();
+			for (Map<String, JsonElement> combination : combinations) {
+				for (JsonElement value : parameter.getValue()) {
+					Map<String, JsonElement> next = new LinkedHashMap<>(combination);
+					next.put(parameter.getKey(), value);
+					expanded.add(next);
+				}
+			}
+			combinations = expanded;
+		}
+		return combinations;
+	}
+
+	/**
+	 * @param combination
+	 * @return a copy of the base configuration with these values
+	 */
+	public JsonObject configure(Map<String, JsonElement> combination) {
+		JsonObject config = this.baseConfig.deepCopy();
+		for (Map.Entry<String, JsonElement> entry : combination.entrySet()) {
+			set(config, entry.getKey(), entry.getValue());
+		}
+		return config;
+	}
+
+	/**
+	 * run all the scenarios and wait for them
+	 *
+	 * @return the results in the order of {@link #combinations()}
+	 */
+	public List<ScenarioResult> run() throws IOException, InterruptedException {
+		List<Map<String, JsonElement>> combinations = this.combinations();
+		// fail on a wrong path before anything is started
+		List<JsonObject> configs = new ArrayList<>(combinations.size());
+		for (Map<String, JsonElement> combination : combinations) {
+			configs.add(this.configure(combination));
+		}
+		File outputDir = new File(this.sweep.getOutputDir());
+		int workers = this.sweep.getWorkers() > 0 ? this.sweep.getWorkers()
+				: Runtime.getRuntime().availableProcessors();
+		ExecutorService executor = Executors.newFixedThreadPool(Math.min(workers, configs.size()));
+		try {
+			List<Future<ScenarioResult>> futures = new ArrayList<>(configs.size());
+			for (int i = 0; i < configs.size(); i++) {
+				int index = i;
+				File dir = new File(outputDir, "scenario-" + index);
+				futures.add(executor.submit(() -> this.runScenario(index, combinations.get(index), configs.get(index), dir)));
+			}
+			List<ScenarioResult> results = new ArrayList<>(futures.size());
+			for (Future<ScenarioResult> future : futures) {
+				try {
+					results.add(future.get());
+				} catch (ExecutionException e) {
+					throw new IOException(e.getCause());
+				}
+			}
+			return results;
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+	private ScenarioResult runScenario(int index, Map<String, JsonElement> combination, JsonObject config, File dir)
+			throws IOException, InterruptedException {
+		if (!dir.isDirectory() && !dir.mkdirs())
+			throw new IOException("cannot create " + dir);
+		File configFile = new File(dir, "config.json");
+		File resultFile = new File(dir, "result.json");
+		resultFile.delete();
+		try (Writer writer = Files.newBufferedWriter(configFile.toPath(), StandardCharsets.UTF_8)) {
+			GSON.toJson(config, writer);
+		}
+		List<String> command = new ArrayList<>();
+		command.add(new File(new File(System.getProperty("java.home"), "bin"), "java").getPath());
+		if (this.sweep.getJvmOptions() != null)
+			command.addAll(this.sweep.getJvmOptions());
+		command.add("-cp");
+		command.add(absoluteClassPath());
+		command.add(ScenarioWorker.class.getName());
+		command.add(this.sweep.getScenarioClassName());
+		command.add(configFile.getAbsolutePath());
+		command.add(resultFile.getAbsolutePath());
+		Process process = new ProcessBuilder(command).directory(dir).redirectErrorStream(true)
+				.redirectOutput(new File(dir, "output.log")).start();
+		boolean exited;
+		try {
+			if (this.sweep.getWorkerTimeout() > 0) {
+				exited = process.waitFor((long) (this.sweep.getWorkerTimeout() * 1000), TimeUnit.MILLISECONDS);
+			} else {
+				process.waitFor();
+				exited = true;
+			}
+		} finally {
+			// timed out or interrupted
+			if (process.isAlive())
+				process.destroyForcibly().waitFor();
+		}
+
+		ScenarioResult result;
+		if (!exited) {
+			result = new ScenarioResult();
+			result.setError("worker timed out after " + this.sweep.getWorkerTimeout() + " s, see "
+					+ new File(dir, "output.log"));
+		} else if (resultFile.isFile()) {
+			try (Reader reader = Files.newBufferedReader(resultFile.toPath(), StandardCharsets.UTF_8)) {
+				result = GSON.fromJson(reader, ScenarioResult.class);
+			}
+		} else {
+			result = new ScenarioResult();
+			result.setError("worker exited with " + process.exitValue() + ", see " + new File(dir, "output.log"));
+		}
+		result.setIndex(index);
+		for (Map.Entry<String, JsonElement> entry : combination.entrySet()) {
+			result.getParameters().put(entry.getKey(), label(entry.getValue()));
+		}
+		return result;
+	}
+
+	/**
+	 * @return the classpath of this JVM, the worker runs in another directory
+	 */
+	private static String absoluteClassPath() {
+		StringBuilder classPath = new StringBuilder();
+		for (String entry : System.getProperty("java.class.path").split(File.pathSeparator)) {
+			if (classPath.length() > 0)
+				classPath.append(File.pathSeparatorChar);
+			// an empty entry is the working directory
+			classPath.append(new File(entry).getAbsolutePath());
+		}
+		return classPath.toString();
+	}
+
+	/**
+	 * print the results as a table, one row per scenario
+	 */
+	public static void printSummary(List<ScenarioResult> results, PrintStream out) {
+		List<String[]> rows = rows(results);
+		int[] widths = new int[rows.get(0).length];
+		for (String[] row : rows) {
+			for (int i = 0; i < row.length; i++) {
+				widths[i] = Math.max(widths[i], row[i].length());
+			}
+		}
+		for (String[] row : rows) {
+			StringBuilder line = new StringBuilder();
+			for (int i = 0; i < row.length; i++) {
+				if (i > 0)
+					line.append("  ");
+				line.append(String.format("%-" + widths[i] + "s", row[i]));
+			}
+			out.println(line.toString().trim());
+		}
+	}
+
+	public static void writeCsv(List<ScenarioResult> results, File file) throws IOException {
+		try (PrintWriter writer = new PrintWriter(file, StandardCharsets.UTF_8.name())) {
+			for (String[] row : rows(results)) {
+				StringBuilder line = new StringBuilder();
+				for (int i = 0; i < row.length; i++) {
+					if (i > 0)
+						line.append(',');
+					line.append(csv(row[i]));
+				}
+				writer.println(line);
+			}
+		}
+	}
+
+	private static List<String[]> rows(List<ScenarioResult> results) {
+		List<String> parameters = results.isEmpty() ? Collections.<String>emptyList()
+				: new ArrayList<>(results.get(0).getParameters().keySet());
+		List<String[]> rows = new ArrayList<>(results.size() + 1);
+		List<String> header = new ArrayList<>();
+		header.add("#");
+		header.addAll(parameters);
+		Collections.addAll(header, "edgelets", "mean", "p50", "p95", "p99", "finish time", "energy", "wall s",
+				"error");
+		rows.add(header.toArray(new String[0]));
+		for (ScenarioResult result : results) {
+			List<String> row = new ArrayList<>();
+			row.add(String.valueOf(result.getIndex()));
+			for (String parameter : parameters) {
+				row.add(String.valueOf(result.getParameters().get(parameter)));
+			}
+			if (result.getError() == null) {
+				row.add(String.valueOf(result.getEdgeLets()));
+				row.add(format(result.getMeanExecutionTime()));
+				row.add(format(result.getP50ExecutionTime()));
+				row.add(format(result.getP95ExecutionTime()));
+				row.add(format(result.getP99ExecutionTime()));
+				row.add(format(result.getFinishTime()));
+				row.add(format(result.getEnergy()));
+			} else {
+				// a failed scenario has no metrics, not zeros
+				Collections.addAll(row, "", "", "", "", "", "", "");
+			}
+			row.add(String.format("%.2f", result.getWallSeconds()));
+			row.add(result.getError() == null ? "" : result.getError());
+			rows.add(row.toArray(new String[0]));
+		}
+		return rows;
+	}
+
+	private static String format(double value) {
+		return String.format("%.4f", value);
+	}
+
+	private static String csv(String value) {
+		if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0)
+			return value;
+		return '"' + value.replace("\"", "\"\"") + '"';
+	}
+
+	private static String label(JsonElement value) {
+		return value.isJsonPrimitive() ? value.getAsString() : value.toString();
+	}
+
+	/**
+	 * set a field of a json configuration
+	 *
+	 * @param root
+	 * @param path  names separated by dots, [i] for an element of a list and [*]
+	 *              for all of them, e.g. edgeDatacenter[*].schedulingInterval
+	 * @param value
+	 * @throws IllegalArgumentException if a name or an element on the way does
+	 *                                  not exist, only the last name may be new
+	 */
+	public static void set(JsonElement root, String path, JsonElement value) {
+		List<String> tokens = tokens(path);
+		List<JsonElement> parents = Collections.singletonList(root);
+		for (int i = 0; i < tokens.size() - 1; i++) {
+			List<JsonElement> children = new ArrayList<>();
+			for (JsonElement parent : parents) {
+				children.addAll(step(parent, tokens.get(i), path));
+			}
+			parents = children;
+		}
+		String last = tokens.get(tokens.size() - 1);
+		for (JsonElement parent : parents) {
+			if (last.startsWith("[")) {
+				JsonArray array = array(parent, path);
+				if (last.equals("[*]")) {
+					for (int i = 0; i < array.size(); i++) {
+						array.set(i, value.deepCopy());
+					}
+				} else {
+					array.set(index(array, last, path), value.deepCopy());
+				}
+			} else {
+				if (!parent.isJsonObject())
+					throw new IllegalArgumentException(path + ": " + last + " is not in an object");
+				parent.getAsJsonObject().add(last, value.deepCopy());
+			}
+		}
+	}
+
+	private static List<JsonElement> step(JsonElement parent, String token, String path) {
+		if (token.startsWith("[")) {
+			JsonArray array = array(parent, path);
+			if (token.equals("[*]")) {
+				List<JsonElement> all = new ArrayList<>(array.size());
+				for (JsonElement element : array) {
+					all.add(element);
+				}
+				return all;
+			}
+			return Collections.singletonList(array.get(index(array, token, path)));
+		}
+		JsonElement child = parent.isJsonObject() ? parent.getAsJsonObject().get(token) : null;
+		if (child == null || child.isJsonNull())
+			throw new IllegalArgumentException(path + ": no " + token + " in the configuration");
+		return Collections.singletonList(child);
+	}
+
+	private static JsonArray array(JsonElement element, String path) {
+		if (!element.isJsonArray())
+			throw new IllegalArgumentException(path + ": not a list");
+		return element.getAsJsonArray();
+	}
+
+	private static int index(JsonArray array, String token, String path) {
+		int index;
+		try {
+			index = Integer.parseInt(token.substring(1, token.length() - 1));
+		} catch (NumberFormatException e) {
+			throw new IllegalArgumentException(path + ": bad index " + token);
+		}
+		if (index < 0 || index >= array.size())
+			throw new IllegalArgumentException(path + ": index " + index + " of a list of " + array.size());
+		return index;
+	}
+
+	/**
+	 * split a.b[0].c[*] into a, b, [0], c, [*]
+	 */
+	private static List<String> tokens(String path) {
+		List<String> tokens = new ArrayList<>();
+		int i = 0;
+		while (i < path.length()) {
+			char c = path.charAt(i);
+			if (c == '.') {
+				i++;
+			} else if (c == '[') {
+				int end = path.indexOf(']', i);
+				if (end < 0)
+					throw new IllegalArgumentException(path + ": missing ]");
+				tokens.add(path.substring(i, end + 1));
+				i = end + 1;
+			} else {
+				int end = i;
+				while (end < path.length() && path.charAt(end) != '.' && path.charAt(end) != '[') {
+					end++;
+				}
+				tokens.add(path.substring(i, end));
+				i = end;
+			}
+		}
+		if (tokens.isEmpty())
+			throw new IllegalArgumentException("empty parameter path");
+		return tokens;
+	}
+
+	/**
+	 * a file, or a resource on the classpath
+	 */
+	private static Reader open(String name) throws IOException {
+		File file = new File(name);
+		if (file.isFile())
+			return new InputStreamReader(new FileInputStream(file), StandardCharsets.UTF_8);
+		InputStream resource = SweepRunner.class.getClassLoader().getResourceAsStream(name);
+		if (resource == null)
+			throw new IOException("cannot find " + name);
+		return new InputStreamReader(resource, StandardCharsets.UTF_8);
+	}
+
+	public static void main(String[] args) throws IOException, InterruptedException {
+		if (args.length < 1)
+			throw new IllegalArgumentException("usage: SweepRunner sweep.json [outputDir]");
+		SweepEntity sweep;
+		try (Reader reader = open(args[0])) {
+			sweep = GSON.fromJson(reader, SweepEntity.class);
+		}
+		if (args.length > 1)
+			sweep.setOutputDir(args[1]);
+		List<ScenarioResult> results = new SweepRunner(sweep).run();
+		printSummary(results, System.out);
+		File summary = new File(sweep.getOutputDir(), "summary.csv");
+		writeCsv(results, summary);
+		System.out.println("summary written to " + summary);
+	}
+}
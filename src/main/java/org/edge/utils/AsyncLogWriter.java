@@ -0,0 +1,206 @@
+package org.edge.utils;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * writes log lines to a file from a background thread, so that the simulation
+ * thread only has to put the line into a bounded ring buffer. the writer thread
+ * drains the buffer in batches and encodes them into a large direct buffer that
+ * is written to a FileChannel.
+ */
+public class AsyncLogWriter implements Closeable {
+
+	/**
+	 * what to do with a line when the ring buffer is full
+	 */
+	public enum FullPolicy {
+		/**
+		 * wait for the writer thread, no line is lost
+		 */
+		BLOCK,
+		/**
+		 * drop the line and count it, the simulation never waits for the disk
+		 */
+		DROP
+	}
+
+	public static final int DEFAULT_CAPACITY = 8192;
+	private static final int DEFAULT_BYTE_BUFFER_SIZE = 1 << 20;
+	private static final String LINE_SEPARATOR = System.lineSeparator();
+
+	private final ArrayBlockingQueue<String> ring;
+	private final FullPolicy fullPolicy;
+	private final FileChannel channel;
+	private final ByteBuffer byteBuffer;
+	private final CharsetEncoder encoder;
+	private final Thread writerThread;
+
+	private final AtomicLong enqueued = new AtomicLong();
+	private final AtomicLong dropped = new AtomicLong();
+	/**
+	 * lines taken out of the ring buffer and written, guarded by this
+	 */
+	private long written;
+	private volatile boolean running;
+
+	public AsyncLogWriter(String path, boolean append, int capacity, FullPolicy fullPolicy) throws IOException {
+		this(path, append, capacity, fullPolicy, DEFAULT_BYTE_BUFFER_SIZE);
+	}
+
+	public AsyncLogWriter(String path, boolean append, int capacity, FullPolicy fullPolicy, int byteBufferSize)
+			throws IOException {
+		this.ring = new ArrayBlockingQueue<>(capacity > 0 ? capacity : DEFAULT_CAPACITY);
+		this.fullPolicy = fullPolicy == null ? FullPolicy.BLOCK : fullPolicy;
+		this.channel = FileChannel.open(Paths.get(path), StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+				append ? StandardOpenOption.APPEND : StandardOpenOption.TRUNCATE_EXISTING);
+		this.byteBuffer = ByteBuffer.allocateDirect(byteBufferSize);
+		this.encoder = StandardCharsets.UTF_8.newEncoder();
+		this.running = true;
+		this.writerThread = new Thread(this::drain, "edge-log-writer");
+		this.writerThread.setDaemon(true);
+		this.writerThread.start();
+	}
+
+	/**
+	 * queue a line, it is written with a line separator
+	 *
+	 * @param line
+	 * @return false if the line has been dropped
+	 */
+	public boolean write(String line) {
+		if (!this.running) {
+			this.dropped.incrementAndGet();
+			return false;
+		}
+		if (this.fullPolicy == FullPolicy.DROP) {
+			if (!this.ring.offer(line)) {
+				this.dropped.incrementAndGet();
+				return false;
+			}
+		} else {
+			try {
+				this.ring.put(line);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				this.dropped.incrementAndGet();
+				return false;
+			}
+		}
+		this.enqueued.incrementAndGet();
+		return true;
+	}
+
+	/**
+	 * wait until every line queued so far has been written to the file
+	 */
+	public void flush() {
+		long target = this.enqueued.get();
+		synchronized (this) {
+			while (this.written < target && this.writerThread.isAlive()) {
+				try {
+					this.wait(100);
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+					return;
+				}
+			}
+		}
+	}
+
+	/**
+	 * flush, stop the writer thread and close the file
+	 */
+	@Override
+	public void close() throws IOException {
+		if (!this.running)
+			return;
+		this.flush();
+		this.running = false;
+		try {
+			this.writerThread.join();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		this.channel.force(false);
+		this.channel.close();
+	}
+
+	/**
+	 * @return the number of lines lost because the ring buffer was full or the
+	 *         writer had been closed
+	 */
+	public long getDroppedCount() {
+		return this.dropped.get();
+	}
+
+	private void drain() {
+		List<String> batch = new ArrayList<>();
+		boolean failed = false;
+		while (this.running || !this.ring.isEmpty()) {
+			String first;
+			try {
+				first = this.ring.poll(50, TimeUnit.MILLISECONDS);
+			} catch (InterruptedException e) {
+				continue;
+			}
+			if (first == null)
+				continue;
+			batch.add(first);
+			this.ring.drainTo(batch);
+			if (!failed) {
+				try {
+					for (String line : batch) {
+						this.encode(line);
+						this.encode(LINE_SEPARATOR);
+					}
+					this.writeBuffer();
+				} catch (IOException e) {
+					// keep draining so that producers are never blocked by a broken file
+					e.printStackTrace();
+					failed = true;
+				}
+			}
+			synchronized (this) {
+				this.written += batch.size();
+				this.notifyAll();
+			}
+			batch.clear();
+		}
+	}
+
+	private void encode(String text) throws IOException {
+		CharBuffer chars = CharBuffer.wrap(text);
+		while (true) {
+			CoderResult result = this.encoder.encode(chars, this.byteBuffer, true);
+			if (result.isOverflow()) {
+				this.writeBuffer();
+			} else {
+				break;
+			}
+		}
+		this.encoder.reset();
+	}
+
+	private void writeBuffer() throws IOException {
+		this.byteBuffer.flip();
+		while (this.byteBuffer.hasRemaining()) {
+			this.channel.write(this.byteBuffer);
+		}
+		this.byteBuffer.clear();
+	}
+
+}
@@ -0,0 +1,80 @@
+package org.edge.utils;
+
+import java.io.IOException;
+
+import org.cloudbus.cloudsim.core.SimEvent;
+import org.edge.core.feature.EdgeLet;
+import org.edge.entity.ConnectionHeader;
+import org.edge.entity.DevicesInfo;
+import org.edge.entity.EdgeLetBundle;
+
+/**
+ * records the events processed by the entities into a binary trace, see
+ * {@link EventTraceWriter}. it is off until {@link #init(String)} is called.
+ */
+public class EventTrace {
+
+	private static EventTraceWriter writer;
+
+	/**
+	 * start tracing into the file, an existing trace is closed first
+	 *
+	 * @param path
+	 */
+	public static void init(String path) {
+		close();
+		try {
+			writer = new EventTraceWriter(path);
+		} catch (IOException e) {
+			e.printStackTrace();
+			writer = null;
+		}
+	}
+
+	public static boolean isEnabled() {
+		return writer != null;
+	}
+
+	/**
+	 * record an event that is being processed
+	 *
+	 * @param ev
+	 * @param battery the battery level of the receiver or
+	 *                {@link EventTraceRecord#NONE}
+	 */
+	public static void record(SimEvent ev, double battery) {
+		if (writer == null)
+			return;
+		int edgeLetId = EventTraceRecord.NONE;
+		int vmId = EventTraceRecord.NONE;
+		Object data = ev.getData();
+		if (data instanceof EdgeLet) {
+			edgeLetId = ((EdgeLet) data).getCloudletId();
+			vmId = ((EdgeLet) data).getVmId();
+		} else if (data instanceof ConnectionHeader) {
+			vmId = ((ConnectionHeader) data).vmId;
+		} else if (data instanceof DevicesInfo) {
+			vmId = ((DevicesInfo) data).vmId;
+		} else if (data instanceof EdgeLetBundle) {
+			vmId = ((EdgeLetBundle) data).connectionHeader.vmId;
+		}
+		try {
+			writer.write(ev.eventTime(), ev.getTag(), ev.getSource(), ev.getDestination(), edgeLetId, vmId, battery);
+		} catch (IOException e) {
+			e.printStackTrace();
+			writer = null;
+		}
+	}
+
+	public static void close() {
+		if (writer == null)
+			return;
+		try {
+			writer.close();
+		} catch (IOException e) {
+			e.printStackTrace();
+		}
+		writer = null;
+	}
+
+}
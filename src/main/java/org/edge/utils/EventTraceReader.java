@@ -0,0 +1,176 @@
+package org.edge.utils;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * streams the records of a trace written by {@link EventTraceWriter}. the file
+ * is mapped region by region, so traces larger than the memory can be read.
+ *
+ * <pre>
+ * try (EventTraceReader reader = new EventTraceReader("trace.bin")) {
+ * 	reader.exportCsv(writer, EventTraceReader.byDevice(5).and(EventTraceReader.byTag(EdgeState.MOVING)));
+ * }
+ * </pre>
+ */
+public class EventTraceReader implements Closeable {
+
+	private static final int REGION_RECORDS = 1 << 16;
+
+	private final FileChannel channel;
+	private final long count;
+
+	public EventTraceReader(String path) throws IOException {
+		this.channel = FileChannel.open(Paths.get(path), StandardOpenOption.READ);
+		MappedByteBuffer header = this.channel.map(MapMode.READ_ONLY, 0, EventTraceWriter.HEADER_SIZE);
+		if (header.getInt() != EventTraceWriter.MAGIC) {
+			this.channel.close();
+			throw new IOException(path + " is not an event trace");
+		}
+		int version = header.getInt();
+		if (version != EventTraceWriter.VERSION) {
+			this.channel.close();
+			throw new IOException("unsupported event trace version " + version);
+		}
+		this.count = header.getLong();
+	}
+
+	/**
+	 * @return the number of records in the trace
+	 */
+	public long size() {
+		return this.count;
+	}
+
+	/**
+	 * pass the records accepted by the filter to the action, in the order they have
+	 * been written. the same record instance is reused for every call, so the
+	 * action must copy what it keeps.
+	 *
+	 * @param filter
+	 * @param action
+	 * @throws IOException
+	 */
+	public void forEach(Predicate<EventTraceRecord> filter, Consumer<EventTraceRecord> action) throws IOException {
+		EventTraceRecord record = new EventTraceRecord();
+		for (long first = 0; first < this.count; first += REGION_RECORDS) {
+			MappedByteBuffer region = this.map(first);
+			while (region.hasRemaining()) {
+				record.readFrom(region);
+				if (filter.test(record))
+					action.accept(record);
+			}
+		}
+	}
+
+	/**
+	 * @return a sequential stream of all records, every element is a new record
+	 */
+	public Stream<EventTraceRecord> stream() {
+		Spliterator<EventTraceRecord> spliterator = new Spliterators.AbstractSpliterator<EventTraceRecord>(this.count,
+				Spliterator.ORDERED | Spliterator.SIZED | Spliterator.NONNULL) {
+			private long next;
+			private MappedByteBuffer region;
+
+			@Override
+			public boolean tryAdvance(Consumer<? super EventTraceRecord> action) {
+				if (this.next >= EventTraceReader.this.count)
+					return false;
+				if (this.region == null || !this.region.hasRemaining()) {
+					try {
+						this.region = EventTraceReader.this.map(this.next);
+					} catch (IOException e) {
+						throw new IllegalStateException(e);
+					}
+				}
+				EventTraceRecord record = new EventTraceRecord();
+				record.readFrom(this.region);
+				this.next++;
+				action.accept(record);
+				return true;
+			}
+		};
+		return StreamSupport.stream(spliterator, false);
+	}
+
+	/**
+	 * write the records accepted by the filter as csv, with a header line
+	 *
+	 * @param out
+	 * @param filter
+	 * @return the number of records written
+	 * @throws IOException
+	 */
+	public long exportCsv(Writer out, Predicate<EventTraceRecord> filter) throws IOException {
+		long[] written = new long[1];
+		IOException[] failure = new IOException[1];
+		out.write(EventTraceRecord.csvHeader());
+		out.write(System.lineSeparator());
+		this.forEach(filter, record -> {
+			if (failure[0] != null)
+				return;
+			try {
+				out.write(record.toCsv());
+				out.write(System.lineSeparator());
+				written[0]++;
+			} catch (IOException e) {
+				failure[0] = e;
+			}
+		});
+		if (failure[0] != null)
+			throw failure[0];
+		out.flush();
+		return written[0];
+	}
+
+	/**
+	 * @param deviceId
+	 * @return a filter for the events sent by or to the entity
+	 */
+	public static Predicate<EventTraceRecord> byDevice(int deviceId) {
+		return record -> record.involves(deviceId);
+	}
+
+	/**
+	 * @param tags
+	 * @return a filter for the events of any of the tags, see
+	 *         {@link org.edge.core.feature.EdgeState}
+	 */
+	public static Predicate<EventTraceRecord> byTag(int... tags) {
+		return record -> {
+			for (int tag : tags) {
+				if (record.tag == tag)
+					return true;
+			}
+			return false;
+		};
+	}
+
+	public static Predicate<EventTraceRecord> all() {
+		return record -> true;
+	}
+
+	@Override
+	public void close() throws IOException {
+		this.channel.close();
+	}
+
+	private MappedByteBuffer map(long first) throws IOException {
+		long records = Math.min(REGION_RECORDS, this.count - first);
+		return this.channel.map(MapMode.READ_ONLY, EventTraceWriter.HEADER_SIZE + first * EventTraceRecord.SIZE,
+				records * EventTraceRecord.SIZE);
+	}
+
+}
@@ -0,0 +1,83 @@
+package org.edge.utils;
+
+import java.nio.ByteBuffer;
+
+/**
+ * one fixed-size record of the binary event trace
+ */
+public final class EventTraceRecord {
+
+	/**
+	 * bytes taken by a record in the trace file: time and battery, the five int
+	 * fields and 4 bytes of padding, so that every double of every record is 8
+	 * byte aligned
+	 */
+	public static final int SIZE = 40;
+
+	/**
+	 * the value of a field that does not apply to the event, e.g. the edgeLet id
+	 * of a MOVING event
+	 */
+	public static final int NONE = -1;
+
+	public double time;
+	public int tag;
+	public int sourceId;
+	public int destinationId;
+	public int edgeLetId;
+	public int vmId;
+	/**
+	 * current battery capacity of the iot device the event is sent to, -1 for
+	 * other entities
+	 */
+	public double battery;
+
+	public EventTraceRecord() {
+	}
+
+	public EventTraceRecord(double time, int tag, int sourceId, int destinationId, int edgeLetId, int vmId,
+			double battery) {
+		this.time = time;
+		this.tag = tag;
+		this.sourceId = sourceId;
+		this.destinationId = destinationId;
+		this.edgeLetId = edgeLetId;
+		this.vmId = vmId;
+		this.battery = battery;
+	}
+
+	/**
+	 * @param deviceId
+	 * @return true if the event has been sent by or to the entity
+	 */
+	public boolean involves(int deviceId) {
+		return this.sourceId == deviceId || this.destinationId == deviceId;
+	}
+
+	void readFrom(ByteBuffer buffer) {
+		this.time = buffer.getDouble();
+		this.battery = buffer.getDouble();
+		this.tag = buffer.getInt();
+		this.sourceId = buffer.getInt();
+		this.destinationId = buffer.getInt();
+		this.edgeLetId = buffer.getInt();
+		this.vmId = buffer.getInt();
+		// padding, keeps the next record 8 byte aligned
+		buffer.getInt();
+	}
+
+	public static String csvHeader() {
+		return "time,tag,source,destination,edgeLetId,vmId,battery";
+	}
+
+	public String toCsv() {
+		return this.time + "," + this.tag + "," + this.sourceId + "," + this.destinationId + "," + this.edgeLetId + ","
+				+ this.vmId + "," + this.battery;
+	}
+
+	@Override
+	public String toString() {
+		return "EventTraceRecord [" + this.toCsv() + "]";
+	}
+
+}
@@ -0,0 +1,108 @@
+package org.edge.utils;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * writes {@link EventTraceRecord}s into a memory-mapped file. the file is
+ * mapped region by region, a full region is left to the operating system to
+ * write back and the next one is mapped behind it.
+ * <p>
+ * the file starts with a header of {@link #HEADER_SIZE} bytes: a magic number,
+ * the format version and the number of records, which is only known once the
+ * writer is closed.
+ */
+public class EventTraceWriter implements Closeable {
+
+	public static final int MAGIC = 0x45544331;
+	/**
+	 * 2 since the doubles lead the record
+	 */
+	public static final int VERSION = 2;
+	public static final int HEADER_SIZE = 16;
+
+	private static final int DEFAULT_REGION_RECORDS = 1 << 16;
+
+	private final FileChannel channel;
+	private final long regionSize;
+	private MappedByteBuffer region;
+	/**
+	 * file position of the current region
+	 */
+	private long regionStart;
+	private long count;
+	private boolean closed;
+
+	public EventTraceWriter(String path) throws IOException {
+		this(path, DEFAULT_REGION_RECORDS);
+	}
+
+	public EventTraceWriter(String path, int regionRecords) throws IOException {
+		this.channel = FileChannel.open(Paths.get(path), StandardOpenOption.CREATE, StandardOpenOption.READ,
+				StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+		this.regionSize = (long) Math.max(1, regionRecords) * EventTraceRecord.SIZE;
+		this.region = this.channel.map(MapMode.READ_WRITE, 0, HEADER_SIZE + this.regionSize);
+		this.region.putInt(MAGIC);
+		this.region.putInt(VERSION);
+		this.region.putLong(0);
+		this.regionStart = 0;
+	}
+
+	public void write(EventTraceRecord record) throws IOException {
+		this.write(record.time, record.tag, record.sourceId, record.destinationId, record.edgeLetId, record.vmId,
+				record.battery);
+	}
+
+	public void write(double time, int tag, int sourceId, int destinationId, int edgeLetId, int vmId, double battery)
+			throws IOException {
+		if (this.closed)
+			throw new IOException("the event trace has been closed");
+		if (this.region.remaining() < EventTraceRecord.SIZE) {
+			this.regionStart += this.region.position();
+			this.region = this.channel.map(MapMode.READ_WRITE, this.regionStart, this.regionSize);
+		}
+		// the doubles first, the header and the records are multiples of 8 bytes
+		this.region.putDouble(time);
+		this.region.putDouble(battery);
+		this.region.putInt(tag);
+		this.region.putInt(sourceId);
+		this.region.putInt(destinationId);
+		this.region.putInt(edgeLetId);
+		this.region.putInt(vmId);
+		// padding, keeps the next record 8 byte aligned
+		this.region.putInt(0);
+		this.count++;
+	}
+
+	public long getCount() {
+		return this.count;
+	}
+
+	/**
+	 * write the record count into the header and cut the unused part of the last
+	 * region off
+	 */
+	@Override
+	public void close() throws IOException {
+		if (this.closed)
+			return;
+		this.closed = true;
+		MappedByteBuffer header = this.channel.map(MapMode.READ_WRITE, 0, HEADER_SIZE);
+		header.putLong(8, this.count);
+		header.force();
+		this.region.force();
+		this.region = null;
+		try {
+			this.channel.truncate(HEADER_SIZE + this.count * EventTraceRecord.SIZE);
+		} catch (IOException e) {
+			// some platforms refuse to truncate a mapped file, readers go by the count
+		}
+		this.channel.close();
+	}
+
+}
@@ -4,6 +4,7 @@ import java.io.BufferedWriter;
 import java.io.FileOutputStream;
 import java.io.FileWriter;
 import java.io.IOException;
+import java.util.function.Supplier;
 import java.util.logging.Logger;
 
 public class LogUtil {
@@ -32,6 +33,8 @@ public class LogUtil {
 	private static boolean saveLogToFile;
 	private static BufferedWriter bufferedWriter;
 	private static boolean append=true;
+	private static AsyncLogWriter asyncLogWriter;
+	private static boolean consoleEcho=true;
 	public static  void initLog(Level level,String path,boolean saveLogToFile,boolean append) {
 		LogUtil.append=append;
 		initLog(level, path, saveLogToFile);
@@ -43,6 +46,7 @@ public class LogUtil {
 	
 	public static  void initLog(Level level,String path,boolean saveLogToFile) {
 	
+		closeAsyncLogWriter();
 		LogUtil.path=path;
 		LogUtil.saveLogToFile=saveLogToFile;
 		LogUtil.level=level;
@@ -58,9 +62,62 @@ public class LogUtil {
 		}
 	}
 	
+	/**
+	 * write the log file from a background thread instead of the simulation
+	 * thread. must be closed by {@link #simulationFinished()}.
+	 *
+	 * @param level
+	 * @param path
+	 * @param append
+	 * @param capacity   number of lines the ring buffer can hold
+	 * @param fullPolicy whether to block or to drop lines when the ring buffer is
+	 *                   full
+	 */
+	public static void initAsyncLog(Level level, String path, boolean append, int capacity,
+			AsyncLogWriter.FullPolicy fullPolicy) {
+		closeAsyncLogWriter();
+		LogUtil.level = level;
+		LogUtil.path = path;
+		LogUtil.append = append;
+		try {
+			asyncLogWriter = new AsyncLogWriter(path, append, capacity, fullPolicy);
+			LogUtil.saveLogToFile = true;
+		} catch (IOException e) {
+			e.printStackTrace();
+			LogUtil.saveLogToFile = false;
+		}
+	}
+
+	/**
+	 * whether logged messages are also printed to System.out, true by default
+	 *
+	 * @param consoleEcho
+	 */
+	public static void setConsoleEcho(boolean consoleEcho) {
+		LogUtil.consoleEcho = consoleEcho;
+	}
+
+	/**
+	 * a message of the given level would be logged. hot paths should check it
+	 * before building a message, e.g.
+	 *
+	 * <pre>
+	 * if (LogUtil.isEnabled(Level.INFOR))
+	 * 	LogUtil.info(CloudSim.clock() + " broker received edgeLet " + id);
+	 * </pre>
+	 *
+	 * @param level the level of the message
+	 * @return
+	 */
+	public static boolean isEnabled(Level level) {
+		return LogUtil.level.ordinal() <= level.ordinal();
+	}
+
 	public static void info(String msg) {
-		if (level.ordinal() <= 1) {
-			System.out.println(msg);
+		if (isEnabled(Level.INFOR)) {
+			if (consoleEcho) {
+				System.out.println(msg);
+			}
 			if (saveLogToFile) {
 				appendTextToFile(msg);
 			}
@@ -69,7 +126,97 @@ public class LogUtil {
 
 	}
 
+	/**
+	 * the message is only built if it is logged
+	 *
+	 * @param msg
+	 */
+	public static void info(Supplier<String> msg) {
+		if (isEnabled(Level.INFOR)) {
+			info(msg.get());
+		}
+	}
+
+	/**
+	 * log a message whose {} placeholders are replaced by the arguments, only if
+	 * info is enabled. the arguments are formatted with String.valueOf, the same
+	 * way as concatenating them.
+	 *
+	 * @param format
+	 * @param arg
+	 */
+	public static void info(String format, Object arg) {
+		if (isEnabled(Level.INFOR)) {
+			info(format(format, arg));
+		}
+	}
+
+	/**
+	 * as {@link #info(String, Object)}, the id is not boxed when info is disabled
+	 *
+	 * @param format
+	 * @param arg
+	 */
+	public static void info(String format, int arg) {
+		if (isEnabled(Level.INFOR)) {
+			info(format(format, String.valueOf(arg)));
+		}
+	}
+
+	public static void info(String format, long arg) {
+		if (isEnabled(Level.INFOR)) {
+			info(format(format, String.valueOf(arg)));
+		}
+	}
+
+	public static void info(String format, double arg) {
+		if (isEnabled(Level.INFOR)) {
+			info(format(format, String.valueOf(arg)));
+		}
+	}
+
+	public static void info(String format, Object arg1, Object arg2) {
+		if (isEnabled(Level.INFOR)) {
+			info(format(format, arg1, arg2));
+		}
+	}
+
+	public static void info(String format, Object arg1, Object arg2, Object arg3) {
+		if (isEnabled(Level.INFOR)) {
+			info(format(format, arg1, arg2, arg3));
+		}
+	}
+
+	public static void info(String format, Object... args) {
+		if (isEnabled(Level.INFOR)) {
+			info(format(format, args));
+		}
+	}
+
+	/**
+	 * replace the {} placeholders of the format one by one with the arguments,
+	 * placeholders without an argument are kept as they are.
+	 *
+	 * @param format
+	 * @param args
+	 * @return
+	 */
+	public static String format(String format, Object... args) {
+		StringBuilder builder = new StringBuilder(format.length() + 16 * args.length);
+		int start = 0;
+		for (Object arg : args) {
+			int index = format.indexOf("{}", start);
+			if (index < 0)
+				break;
+			builder.append(format, start, index).append(String.valueOf(arg));
+			start = index + 2;
+		}
+		return builder.append(format, start, format.length()).toString();
+	}
+
 public static void simulationFinished() {
+	closeAsyncLogWriter();
+	EventTrace.close();
 	if(saveLogToFile && bufferedWriter!=null) {
 		try {
 			bufferedWriter.flush();
@@ -81,7 +228,40 @@ public static void simulationFinished() {
 	}
 	
 }
+	/**
+	 * wait until the log file has got every message logged so far
+	 */
+	public static void flush() {
+		if (asyncLogWriter != null) {
+			asyncLogWriter.flush();
+		} else if (bufferedWriter != null) {
+			try {
+				bufferedWriter.flush();
+			} catch (IOException e) {
+				e.printStackTrace();
+			}
+		}
+	}
+
+	private static void closeAsyncLogWriter() {
+		if (asyncLogWriter == null)
+			return;
+		try {
+			asyncLogWriter.close();
+			if (asyncLogWriter.getDroppedCount() > 0) {
+				System.err.println(asyncLogWriter.getDroppedCount() + " log messages have been dropped");
+			}
+		} catch (IOException e) {
+			e.printStackTrace();
+		}
+		asyncLogWriter = null;
+	}
+
 	public static void appendTextToFile(String text) {
+		if (asyncLogWriter != null) {
+			asyncLogWriter.write(text);
+			return;
+		}
 		try {
 			bufferedWriter.write(text);
 			bufferedWriter.newLine();
@@ -0,0 +1,110 @@
+package org.edge.test;
+
+import static org.junit.Assert.assertEquals;
+
+import org.edge.core.feature.Mobility;
+import org.edge.core.feature.Mobility.Location;
+import org.edge.core.feature.Mobility.MovingRange;
+import org.edge.core.feature.policy.AnalyticSimpleMovingPolicy;
+import org.edge.core.feature.policy.SimpleMovingPolicy;
+import org.junit.Test;
+
+public class AnalyticSimpleMovingPolicyTest {
+
+	/**
+	 * it must land where stepping every 0.5 seconds does, bounces included
+	 */
+	@Test
+	public void matchesSteppedPolicy() {
+		this.matchesSteppedPolicy(mobility(10, 2), 500);
+	}
+
+	/**
+	 * the steps overshoot the end of the range and are cut back to it
+	 */
+	@Test
+	public void matchesSteppedPolicyBouncingOffTheRange() {
+		this.matchesSteppedPolicy(mobility(11, 3), 5000);
+		this.matchesSteppedPolicy(mobility(50, -7.3), 5000);
+	}
+
+	/**
+	 * every axis that reaches the end of its range turns the shared velocity
+	 * around
+	 */
+	@Test
+	public void matchesSteppedPolicyOnEveryAxis() {
+		Mobility mobility = mobility(10, 1.7);
+		mobility.location.y = 5;
+		mobility.location.z = 20;
+		mobility.range = new MovingRange(0, 100, 0, 30, 10, 45);
+		this.matchesSteppedPolicy(mobility, 5000);
+		// only one axis pinned to an empty range, the velocity turns every step
+		mobility = mobility(10, 2);
+		mobility.range = new MovingRange(0, 100, 0, 0, -50, 50);
+		this.matchesSteppedPolicy(mobility, 500);
+	}
+
+	private void matchesSteppedPolicy(Mobility start, int steps) {
+		Mobility stepped = copy(start);
+		Mobility analytic = copy(start);
+		SimpleMovingPolicy simple = new SimpleMovingPolicy();
+		AnalyticSimpleMovingPolicy policy = new AnalyticSimpleMovingPolicy();
+		policy.start(analytic, 2.5);
+
+		for (int step = 1; step <= steps; step++) {
+			simple.updateLocation(stepped);
+			// now and then, so that whole periods are skipped
+			if (step % 7 != 0 && step < steps - 3)
+				continue;
+			policy.locate(analytic, 2.5 + step * 0.5);
+			assertEquals("step " + step, stepped.location.x, analytic.location.x, 0);
+			assertEquals("step " + step, stepped.location.y, analytic.location.y, 0);
+			assertEquals("step " + step, stepped.location.z, analytic.location.z, 0);
+			assertEquals("step " + step, stepped.volecity, analytic.volecity, 0);
+			assertEquals(stepped.totalMovingDistance, analytic.totalMovingDistance, 1e-6);
+		}
+		// and back in time
+		Mobility again = copy(start);
+		SimpleMovingPolicy replay = new SimpleMovingPolicy();
+		for (int step = 1; step <= 20; step++) {
+			replay.updateLocation(again);
+		}
+		policy.locate(analytic, 2.5 + 20 * 0.5);
+		assertEquals(again.location.x, analytic.location.x, 0);
+	}
+
+	@Test
+	public void nextCrossingTime() {
+		Mobility mobility = mobility(10, 2);
+		AnalyticSimpleMovingPolicy policy = new AnalyticSimpleMovingPolicy();
+		policy.start(mobility, 0);
+		double[] boundaries = { -50, 30, 50, 150 };
+
+		// 4 units per second to the right, 20 units away from 30
+		assertEquals(5, policy.getNextCrossingTime(mobility, 0, boundaries), 1e-9);
+		assertEquals(10, policy.getNextCrossingTime(mobility, 5, boundaries), 1e-9);
+		// nothing is left before the end at 100, bounce and come back to 50
+		assertEquals(10 + 100 / 4d, policy.getNextCrossingTime(mobility, 10, boundaries), 1e-9);
+		// on the way back, 30 is next and then the bounce at 0 brings it back to 30
+		assertEquals(40, policy.getNextCrossingTime(mobility, 35, boundaries), 1e-9);
+		assertEquals(40 + 60 / 4d, policy.getNextCrossingTime(mobility, 40, boundaries), 1e-9);
+		assertEquals(Double.MAX_VALUE, policy.getNextCrossingTime(mobility, 0, new double[] { 200 }), 0);
+	}
+
+	private static Mobility copy(Mobility mobility) {
+		Mobility copy = new Mobility(new Location(mobility.location.x, mobility.location.y, mobility.location.z));
+		copy.movable = true;
+		copy.volecity = mobility.volecity;
+		copy.range = mobility.range;
+		return copy;
+	}
+
+	private static Mobility mobility(double x, double volecity) {
+		Mobility mobility = new Mobility(new Location(x, 0, 0));
+		mobility.movable = true;
+		mobility.volecity = volecity;
+		mobility.range = new MovingRange(0, 100, 0, 0, 0, 0);
+		return mobility;
+	}
+}
@@ -0,0 +1,48 @@
+package org.edge.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.List;
+
+import org.edge.utils.AsyncLogWriter;
+import org.edge.utils.AsyncLogWriter.FullPolicy;
+import org.junit.Test;
+
+public class AsyncLogWriterTest {
+
+	@Test
+	public void writesEveryLineInOrder() throws Exception {
+		File file = File.createTempFile("edge-log", ".txt");
+		file.deleteOnExit();
+		AsyncLogWriter writer = new AsyncLogWriter(file.getPath(), false, 16, FullPolicy.BLOCK, 64);
+		for (int i = 0; i < 10000; i++) {
+			writer.write("line " + i + " running time： " + i);
+		}
+		writer.flush();
+		assertEquals(10000, Files.readAllLines(file.toPath(), StandardCharsets.UTF_8).size());
+		writer.close();
+
+		List<String> lines = Files.readAllLines(file.toPath(), StandardCharsets.UTF_8);
+		assertEquals(10000, lines.size());
+		for (int i = 0; i < lines.size(); i++) {
+			assertEquals("line " + i + " running time： " + i, lines.get(i));
+		}
+		assertEquals(0, writer.getDroppedCount());
+	}
+
+	@Test
+	public void closedWriterDropsLines() throws Exception {
+		File file = File.createTempFile("edge-log", ".txt");
+		file.deleteOnExit();
+		AsyncLogWriter writer = new AsyncLogWriter(file.getPath(), false, 4, FullPolicy.DROP);
+		writer.write("first");
+		writer.close();
+		assertFalse(writer.write("second"));
+		assertEquals(1, writer.getDroppedCount());
+		assertEquals(1, Files.readAllLines(file.toPath(), StandardCharsets.UTF_8).size());
+	}
+}
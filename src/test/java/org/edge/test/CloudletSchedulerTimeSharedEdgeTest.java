@@ -0,0 +1,90 @@
+package org.edge.test;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.cloudbus.cloudsim.Cloudlet;
+import org.cloudbus.cloudsim.UtilizationModelFull;
+import org.edge.core.CloudletSchedulerTimeSharedEdge;
+import org.edge.core.feature.EdgeLet;
+import org.junit.Test;
+
+public class CloudletSchedulerTimeSharedEdgeTest {
+
+	private static final List<Double> MIPS_SHARE = Arrays.asList(1000d, 1000d);
+
+	/**
+	 * the running totals must predict the same finish times as scanning the exec
+	 * list on every capacity computation.
+	 */
+	@Test
+	public void finishTimesUnchanged() {
+		List<String> expected = run(new ScanningCapacityScheduler());
+		List<String> actual = run(new CloudletSchedulerTimeSharedEdge());
+		assertEquals(expected, actual);
+	}
+
+	@Test
+	public void totalsFollowPauseResumeAndCancel() {
+		CloudletSchedulerTimeSharedEdge reference = new ScanningCapacityScheduler();
+		CloudletSchedulerTimeSharedEdge scheduler = new CloudletSchedulerTimeSharedEdge();
+		for (CloudletSchedulerTimeSharedEdge s : Arrays.asList(reference, scheduler)) {
+			s.setSensorMap(sensorMap());
+			s.updateVmProcessing(0, MIPS_SHARE);
+			for (int i = 0; i < 6; i++) {
+				s.cloudletSubmit(edgeLet(i, 1000 * (i + 1), i % 2 == 0 ? "temperature" : "light"), 0);
+			}
+			s.cloudletPause(1);
+			s.cloudletCancel(2);
+			s.cloudletResume(1);
+			s.cloudletPause(4);
+		}
+		assertEquals(reference.updateVmProcessing(0.5, MIPS_SHARE), scheduler.updateVmProcessing(0.5, MIPS_SHARE),
+				0);
+		assertEquals(reference.getTotalCurrentAvailableMipsForCloudlet(null, MIPS_SHARE),
+				scheduler.getTotalCurrentAvailableMipsForCloudlet(null, MIPS_SHARE), 0);
+	}
+
+	private List<String> run(CloudletSchedulerTimeSharedEdge scheduler) {
+		scheduler.setSensorMap(sensorMap());
+		scheduler.updateVmProcessing(0, MIPS_SHARE);
+		for (int i = 0; i < 50; i++) {
+			scheduler.cloudletSubmit(edgeLet(i, 500 + 137 * i, i % 3 == 0 ? "light" : "temperature"), 0);
+		}
+		List<String> events = new ArrayList<>();
+		double time = 0;
+		while (true) {
+			double next = scheduler.updateVmProcessing(time, MIPS_SHARE);
+			Cloudlet finished;
+			while ((finished = scheduler.getNextFinishedCloudlet()) != null) {
+				events.add(time + ":" + finished.getCloudletId());
+			}
+			if (next == 0.0 || next == Double.MAX_VALUE) {
+				break;
+			}
+			time = next;
+		}
+		assertEquals(50, events.size());
+		return events;
+	}
+
+	private Map<String, Integer> sensorMap() {
+		Map<String, Integer> sensorMap = new HashMap<>();
+		sensorMap.put("temperature", 1);
+		sensorMap.put("light", 2);
+		return sensorMap;
+	}
+
+	static EdgeLet edgeLet(int id, long length, String sensorType) {
+		EdgeLet edgeLet = new EdgeLet(id, length, 1, 10, 10, new UtilizationModelFull(), new UtilizationModelFull(),
+				new UtilizationModelFull(), sensorType);
+		// without a resource the cloudlet reports its whole length as already finished
+		edgeLet.setResourceParameter(0, 0);
+		return edgeLet;
+	}
+}
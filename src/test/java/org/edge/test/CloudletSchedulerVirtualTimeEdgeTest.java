@@ -0,0 +1,143 @@
+package org.edge.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.cloudbus.cloudsim.Cloudlet;
+import org.edge.core.CloudletSchedulerTimeSharedEdge;
+import org.edge.core.CloudletSchedulerVirtualTimeEdge;
+import org.junit.Test;
+
+public class CloudletSchedulerVirtualTimeEdgeTest {
+
+	private static final List<Double> MIPS_SHARE = Arrays.asList(1000d, 1000d);
+
+	/**
+	 * with a single sensor weight both schedulers wake up at the same finish times
+	 * and must complete the edgelets in the same order at the same time.
+	 */
+	@Test
+	public void sameFinishTimesAsTimeShared() {
+		assertSameEvents(run(new CloudletSchedulerTimeSharedEdge(), sensorMap(), "temperature", "temperature"),
+				run(new CloudletSchedulerVirtualTimeEdge(), sensorMap(), "temperature", "temperature"));
+	}
+
+	/**
+	 * the weight of a sensor speeds its edgelets up, but the parent leaves it out of
+	 * the predicted finish time and so must the virtual clock. an unmapped sensor
+	 * type counts as a sensor of weight 1, where the parent needs it in the map.
+	 */
+	@Test
+	public void sameFinishTimesAsTimeSharedWithWeights() {
+		Map<String, Integer> mapped = sensorMap();
+		mapped.put("humidity", 1);
+		assertSameEvents(run(new CloudletSchedulerTimeSharedEdge(), mapped, "temperature", "light", "humidity"),
+				run(new CloudletSchedulerVirtualTimeEdge(), sensorMap(), "temperature", "light", "humidity"));
+	}
+
+	/**
+	 * an edgelet of weight 2 on a VM of capacity c is done with its length L at
+	 * L / (2c), but like the parent the scheduler only wakes up at L / c.
+	 */
+	@Test
+	public void weightedEdgeletsWakeUpLikeTimeShared() {
+		CloudletSchedulerVirtualTimeEdge scheduler = new CloudletSchedulerVirtualTimeEdge();
+		scheduler.setSensorMap(sensorMap());
+		scheduler.updateVmProcessing(0, MIPS_SHARE);
+		scheduler.cloudletSubmit(CloudletSchedulerTimeSharedEdgeTest.edgeLet(0, 4000, "light"), 0);
+		scheduler.cloudletSubmit(CloudletSchedulerTimeSharedEdgeTest.edgeLet(1, 8000, "temperature"), 0);
+
+		// capacity is 2000 / max(2 pes, 2 cpus, 3 weight)
+		double capacity = 2000d / 3;
+		double next = scheduler.updateVmProcessing(0, MIPS_SHARE);
+		assertEquals(4000 / capacity, next, 1e-9);
+		scheduler.updateVmProcessing(next, MIPS_SHARE);
+		assertEquals(0, scheduler.getNextFinishedCloudlet().getCloudletId());
+		assertEquals(1, scheduler.runningCloudlets());
+	}
+
+	/**
+	 * an unmapped sensor type takes a weight of 1 in the capacity of the VM as well
+	 */
+	@Test
+	public void unmappedSensorsCountInTheCapacity() {
+		CloudletSchedulerVirtualTimeEdge scheduler = new CloudletSchedulerVirtualTimeEdge();
+		scheduler.setSensorMap(sensorMap());
+		scheduler.updateVmProcessing(0, MIPS_SHARE);
+		scheduler.cloudletSubmit(CloudletSchedulerTimeSharedEdgeTest.edgeLet(0, 4000, "light"), 0);
+		scheduler.cloudletSubmit(CloudletSchedulerTimeSharedEdgeTest.edgeLet(1, 4000, "humidity"), 0);
+
+		// capacity is 2000 / max(2 pes, 2 cpus, 2 + 1 weight)
+		assertEquals(2000d / 3, scheduler.getTotalCurrentAvailableMipsForCloudlet(null, MIPS_SHARE), 1e-9);
+	}
+
+	@Test
+	public void pauseKeepsProgress() {
+		CloudletSchedulerVirtualTimeEdge scheduler = new CloudletSchedulerVirtualTimeEdge();
+		scheduler.setSensorMap(sensorMap());
+		scheduler.updateVmProcessing(0, MIPS_SHARE);
+		scheduler.cloudletSubmit(CloudletSchedulerTimeSharedEdgeTest.edgeLet(0, 3000, "temperature"), 0);
+		scheduler.cloudletSubmit(CloudletSchedulerTimeSharedEdgeTest.edgeLet(1, 9000, "temperature"), 0);
+
+		scheduler.updateVmProcessing(1, MIPS_SHARE);
+		assertTrue(scheduler.cloudletPause(1));
+		assertEquals(Cloudlet.PAUSED, scheduler.getCloudletStatus(1));
+		scheduler.updateVmProcessing(2, MIPS_SHARE);
+		scheduler.cloudletResume(1);
+
+		// capacity stays at 1000 mips per edgelet as the VM has 2 cpus: edgelet 0 has
+		// 1000 MI left and edgelet 1 kept the 1000 MI it did before the pause
+		double next = scheduler.updateVmProcessing(2, MIPS_SHARE);
+		assertEquals(3, next, 1e-9);
+		next = scheduler.updateVmProcessing(next, MIPS_SHARE);
+		assertEquals(0, scheduler.getNextFinishedCloudlet().getCloudletId());
+		assertEquals(10, next, 1e-9);
+	}
+
+	private static void assertSameEvents(List<double[]> expected, List<double[]> actual) {
+		assertEquals(expected.size(), actual.size());
+		for (int i = 0; i < expected.size(); i++) {
+			assertEquals(expected.get(i)[1], actual.get(i)[1], 0);
+			assertEquals(expected.get(i)[0], actual.get(i)[0], 1e-6);
+		}
+	}
+
+	private List<double[]> run(CloudletSchedulerTimeSharedEdge scheduler, Map<String, Integer> sensorMap,
+			String... sensorTypes) {
+		scheduler.setSensorMap(sensorMap);
+		scheduler.updateVmProcessing(0, MIPS_SHARE);
+		for (int i = 0; i < 50; i++) {
+			scheduler.cloudletSubmit(
+					CloudletSchedulerTimeSharedEdgeTest.edgeLet(i, 500 + 137 * i, sensorTypes[i % sensorTypes.length]),
+					0);
+		}
+		List<double[]> events = new ArrayList<>();
+		double time = 0;
+		while (true) {
+			double next = scheduler.updateVmProcessing(time, MIPS_SHARE);
+			Cloudlet finished;
+			while ((finished = scheduler.getNextFinishedCloudlet()) != null) {
+				events.add(new double[] { time, finished.getCloudletId() });
+			}
+			if (next == 0.0 || next == Double.MAX_VALUE) {
+				break;
+			}
+			time = next;
+		}
+		assertEquals(50, events.size());
+		return events;
+	}
+
+	private Map<String, Integer> sensorMap() {
+		Map<String, Integer> sensorMap = new HashMap<>();
+		sensorMap.put("temperature", 1);
+		sensorMap.put("light", 2);
+		return sensorMap;
+	}
+}
@@ -0,0 +1,111 @@
+package org.edge.test;
+
+import java.io.File;
+import java.io.FileReader;
+import java.io.FileWriter;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.util.Calendar;
+import java.util.List;
+
+import org.cloudbus.cloudsim.Log;
+import org.cloudbus.cloudsim.core.CloudSim;
+import org.edge.core.iot.IoTDevice;
+import org.edge.entity.ConfiguationEntity;
+import org.edge.entity.ConnectionHeader;
+import org.edge.scenario.ConfigurationStream;
+import org.edge.scenario.ScenarioBuilder;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import com.google.gson.stream.JsonWriter;
+
+/**
+ * heap held by the configuration of a generated fleet: healthcare_system.json
+ * with one iot device entity and one connection per device, read with Gson
+ * into a ConfiguationEntity and read as a stream. run it with
+ * <pre>
+ * java org.edge.test.ConfigurationStreamBenchmark [devices]
+ * </pre>
+ */
+public class ConfigurationStreamBenchmark {
+
+	public static void main(String[] args) throws Exception {
+		int devices = args.length > 0 ? Integer.parseInt(args[0]) : 200_000;
+		File file = File.createTempFile("fleet", ".json");
+		file.deleteOnExit();
+		generate(file, devices);
+		System.out.println(String.format("%d devices, %.1f MB of configuration", devices, file.length() / 1e6));
+
+		for (boolean streaming : new boolean[] { false, true }) {
+			// drops the devices of the previous run
+			Log.disable();
+			CloudSim.init(1, Calendar.getInstance(), false);
+			Log.enable();
+			System.gc();
+			long before = used();
+			long start = System.nanoTime();
+			ScenarioBuilder builder;
+			if (streaming) {
+				builder = new ScenarioBuilder(ConfigurationStream.ofFile(file.getPath()));
+			} else {
+				try (Reader reader = new FileReader(file)) {
+					builder = new ScenarioBuilder(new Gson().fromJson(reader, ConfiguationEntity.class));
+				}
+			}
+			List<IoTDevice> fleet = builder.createIoTDevices();
+			List<ConnectionHeader> headers = builder.createConnections(fleet, 0);
+			double seconds = (System.nanoTime() - start) / 1e9;
+			System.gc();
+			long held = used() - before;
+			System.out.println(String.format("%-9s %8d devices %8d connections %8.1f MB held %8.3f s",
+					streaming ? "streaming" : "gson", fleet.size(), headers.size(), held / 1e6, seconds));
+			// keep the configuration reachable until it has been measured
+			if (builder.getConfiguration() == null)
+				System.out.println();
+		}
+	}
+
+	private static void generate(File file, int devices) throws Exception {
+		JsonObject base = new JsonParser()
+				.parse(new InputStreamReader(
+						ConfigurationStreamBenchmark.class.getClassLoader().getResourceAsStream("healthcare_system.json")))
+				.getAsJsonObject();
+		JsonObject device = base.getAsJsonArray("ioTDeviceEntities").get(0).getAsJsonObject();
+		device.addProperty("numberofEntity", 1);
+		Gson gson = new Gson();
+		try (JsonWriter writer = new JsonWriter(new FileWriter(file))) {
+			writer.beginObject();
+			for (String name : base.keySet()) {
+				writer.name(name);
+				if (name.equals("ioTDeviceEntities")) {
+					writer.beginArray();
+					for (int i = 0; i < devices; i++) {
+						device.addProperty("assignmentId", i);
+						gson.toJson(device, writer);
+					}
+					writer.endArray();
+				} else if (name.equals("connections")) {
+					writer.beginArray();
+					for (int i = 0; i < devices; i++) {
+						JsonObject connection = new JsonObject();
+						connection.addProperty("vmId", 1);
+						connection.addProperty("assigmentIoTId", i);
+						gson.toJson(connection, writer);
+					}
+					writer.endArray();
+				} else {
+					gson.toJson(base.get(name), writer);
+				}
+			}
+			writer.endObject();
+		}
+	}
+
+	private static long used() {
+		Runtime runtime = Runtime.getRuntime();
+		return runtime.totalMemory() - runtime.freeMemory();
+	}
+}
@@ -0,0 +1,65 @@
+package org.edge.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.io.InputStreamReader;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.cloudbus.cloudsim.Log;
+import org.edge.core.edge.EdgeDataCenterBroker;
+import org.edge.core.iot.IoTDevice;
+import org.edge.entity.ConfiguationEntity;
+import org.edge.entity.ConfiguationEntity.IotDeviceEntity;
+import org.edge.entity.ConnectionHeader;
+import org.edge.scenario.ConfigurationStream;
+import org.edge.scenario.ScenarioBuilder;
+import org.junit.Test;
+
+import com.google.gson.Gson;
+
+public class ConfigurationStreamTest {
+
+	@Test
+	public void readsTheSettingsWithoutTheFleet() throws Exception {
+		ConfigurationStream stream = ConfigurationStream.ofResource("configuration3.json");
+		ConfiguationEntity settings = stream.readSettings();
+		assertNull(settings.getIoTDeviceEntities());
+		assertNull(settings.getConnections());
+		ConfiguationEntity conf = new Gson().fromJson(
+				new InputStreamReader(this.getClass().getClassLoader().getResourceAsStream("configuration3.json")),
+				ConfiguationEntity.class);
+		assertEquals(conf.getBroker(), settings.getBroker());
+		assertEquals(new Gson().toJson(conf.getMELEntities()), new Gson().toJson(settings.getMELEntities()));
+
+		List<IotDeviceEntity> entities = new ArrayList<>();
+		stream.forEachIoTDeviceEntity(entities::add);
+		assertEquals(new Gson().toJson(conf.getIoTDeviceEntities()), new Gson().toJson(entities));
+	}
+
+	@Test
+	public void buildsTheSameDevicesAndConnections() {
+		List<String> built = new ArrayList<>();
+		ScenarioBuilder[] builders = {
+				new ScenarioBuilder(new Gson().fromJson(new InputStreamReader(
+						this.getClass().getClassLoader().getResourceAsStream("healthcare_system.json")),
+						ConfiguationEntity.class)),
+				new ScenarioBuilder(ConfigurationStream.ofResource("healthcare_system.json")) };
+		for (ScenarioBuilder builder : builders) {
+			Log.disable();
+			builder.initCloudSim();
+			Log.enable();
+			EdgeDataCenterBroker broker = builder.createBroker();
+			List<IoTDevice> devices = builder.createIoTDevices();
+			builder.createDataCenters();
+			List<ConnectionHeader> headers = builder.createConnections(devices, broker.getId());
+			StringBuilder ids = new StringBuilder();
+			for (ConnectionHeader header : headers) {
+				ids.append(header.vmId).append(':').append(header.ioTId).append(' ');
+			}
+			built.add(devices.size() + " " + ids);
+		}
+		assertEquals(built.get(0), built.get(1));
+	}
+}
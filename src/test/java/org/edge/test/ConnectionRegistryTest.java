@@ -0,0 +1,75 @@
+package org.edge.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.List;
+
+import org.cloudbus.cloudsim.Log;
+import org.cloudbus.cloudsim.core.CloudSim;
+import org.edge.core.edge.ConnectionRegistry;
+import org.edge.entity.ConnectionHeader;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+public class ConnectionRegistryTest {
+
+	@Test
+	public void addRemoveAndViews() {
+		ConnectionRegistry registry = new ConnectionRegistry();
+		List<ConnectionHeader> headers = new ArrayList<>();
+		for (int i = 0; i < 1000; i++) {
+			headers.add(header(i % 10, 100 + i));
+		}
+		registry.addAll(headers);
+		assertFalse(registry.add(header(5, 105)));
+		assertEquals(1000, registry.size());
+		assertEquals(new ArrayList<>(headers), new ArrayList<>(registry.getConnections()));
+		assertEquals(100, registry.getByVm(3).size());
+		assertEquals(1, registry.getByIoT(105).size());
+
+		for (int i = 999; i >= 0; i--) {
+			assertSame(headers.get(i), registry.remove(100 + i, i % 10));
+		}
+		assertNull(registry.remove(100, 0));
+		assertTrue(registry.isEmpty());
+		assertTrue(registry.getByVm(3).isEmpty());
+	}
+
+	@Test
+	public void updateMovesToTheNewVm() {
+		ConnectionRegistry registry = new ConnectionRegistry();
+		ConnectionHeader header = header(1, 7);
+		registry.add(header);
+		header.vmId = 2;
+		registry.update(header);
+		assertNull(registry.get(7, 1));
+		assertSame(header, registry.get(7, 2));
+		assertTrue(registry.getByVm(1).isEmpty());
+		assertTrue(registry.getByVm(2).contains(header));
+		assertSame(header, registry.remove(7, 2));
+		assertTrue(registry.isEmpty());
+	}
+
+	/**
+	 * the constructor of ConnectionHeader looks the iot device up in CloudSim,
+	 * entity 0 exists once CloudSim is initialized
+	 */
+	private static ConnectionHeader header(int vmId, int ioTId) {
+		ConnectionHeader header = new ConnectionHeader(vmId, 0, 0, null);
+		header.ioTId = ioTId;
+		return header;
+	}
+
+	@BeforeClass
+	public static void initCloudSim() {
+		Log.disable();
+		CloudSim.init(1, Calendar.getInstance(), false);
+		Log.enable();
+	}
+}
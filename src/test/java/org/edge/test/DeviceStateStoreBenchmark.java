@@ -0,0 +1,69 @@
+package org.edge.test;
+
+import java.io.InputStreamReader;
+import java.util.List;
+
+import org.cloudbus.cloudsim.Log;
+import org.edge.core.iot.DeviceStateStore;
+import org.edge.core.iot.IoTDevice;
+import org.edge.entity.ConfiguationEntity;
+import org.edge.entity.ConfiguationEntity.IotDeviceEntity;
+import org.edge.scenario.ScenarioBuilder;
+
+import com.google.gson.Gson;
+
+/**
+ * a battery report over the cars of configuration3.json scaled to a large
+ * fleet: asking every device for its battery, and summing the column of the
+ * state store. run it with
+ * <pre>
+ * java org.edge.test.DeviceStateStoreBenchmark [devices]
+ * </pre>
+ */
+public class DeviceStateStoreBenchmark {
+
+	private static final int PASSES = 50;
+
+	public static void main(String[] args) {
+		int copies = args.length > 0 ? Integer.parseInt(args[0]) : 500_000;
+		ConfiguationEntity conf = new Gson().fromJson(new InputStreamReader(
+				DeviceStateStoreBenchmark.class.getClassLoader().getResourceAsStream("configuration3.json")),
+				ConfiguationEntity.class);
+		for (IotDeviceEntity entity : conf.getIoTDeviceEntities()) {
+			entity.setNumberofEntity(copies);
+		}
+		ScenarioBuilder builder = new ScenarioBuilder(conf);
+		Log.disable();
+		builder.initCloudSim();
+		Log.enable();
+		List<IoTDevice> devices = builder.createIoTDevices();
+		DeviceStateStore store = devices.get(0).getStateStore();
+		// every device a little drained, in no particular order
+		for (int i = 0; i < devices.size(); i++) {
+			devices.get(i).getBattery().setCurrentCapacity((i * 31) % 70);
+		}
+
+		for (int round = 0; round < 3; round++) {
+			long start = System.nanoTime();
+			double consumed = 0;
+			for (int pass = 0; pass < PASSES; pass++) {
+				consumed = 0;
+				for (IoTDevice device : devices) {
+					consumed += device.getBattery().getMaxCapacity()
+							- Math.max(device.getBattery().getCurrentCapacity(), 0);
+				}
+			}
+			double perDevice = (System.nanoTime() - start) / (double) PASSES / devices.size();
+			System.out.println(String.format("devices  %8d devices %8.2f ns/device consumed %.1f", devices.size(),
+					perDevice, consumed));
+
+			start = System.nanoTime();
+			for (int pass = 0; pass < PASSES; pass++) {
+				consumed = store.getConsumedBattery();
+			}
+			perDevice = (System.nanoTime() - start) / (double) PASSES / store.size();
+			System.out.println(String.format("store    %8d devices %8.2f ns/device consumed %.1f", store.size(),
+					perDevice, consumed));
+		}
+	}
+}
@@ -0,0 +1,72 @@
+package org.edge.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+
+import java.io.InputStreamReader;
+import java.util.List;
+
+import org.cloudbus.cloudsim.Log;
+import org.edge.core.feature.Mobility;
+import org.edge.core.iot.DeviceStateStore;
+import org.edge.core.iot.IoTDevice;
+import org.edge.core.kernel.SimulationContext;
+import org.edge.entity.ConfiguationEntity;
+import org.edge.scenario.ScenarioBuilder;
+import org.junit.Test;
+
+import com.google.gson.Gson;
+
+public class DeviceStateStoreTest {
+
+	private List<IoTDevice> createCars() {
+		ScenarioBuilder builder = new ScenarioBuilder(new Gson().fromJson(
+				new InputStreamReader(this.getClass().getClassLoader().getResourceAsStream("configuration3.json")),
+				ConfiguationEntity.class));
+		Log.disable();
+		builder.initCloudSim();
+		Log.enable();
+		return builder.createIoTDevices();
+	}
+
+	@Test
+	public void keepsTheStateOfTheDevicesOfTheRun() {
+		List<IoTDevice> devices = this.createCars();
+		DeviceStateStore store = SimulationContext.current().getDeviceStates();
+		assertEquals(devices.size(), store.size());
+		IoTDevice device = devices.get(7);
+		assertSame(store, device.getStateStore());
+		assertEquals(7, device.getStateIndex());
+
+		device.getBattery().setCurrentCapacity(20);
+		assertEquals(20, store.getBattery(7), 0);
+		assertEquals(70, store.getMaxBattery(7), 0);
+		device.setEnabled(false);
+		assertFalse(store.isEnabled(7));
+		assertEquals(devices.size() - 1, store.countEnabled());
+		device.setAttachedEdgeDeviceVMId(3);
+		assertEquals(3, store.getAttachedVm(7));
+
+		devices.get(8).getBattery().setCurrentCapacity(-1);
+		assertEquals(1, store.countDrained());
+		assertEquals(50 + 70, store.getConsumedBattery(), 1e-9);
+		assertEquals(70 * devices.size() - 50 - 70, store.getRemainingBattery(), 1e-9);
+	}
+
+	@Test
+	public void movesADeviceFromItsRow() {
+		List<IoTDevice> devices = this.createCars();
+		IoTDevice device = devices.get(0);
+		Mobility mobility = device.getMobility();
+		DeviceStateStore store = device.getStateStore();
+		assertEquals(mobility.location.x, store.getX(0), 0);
+		assertEquals(mobility.volecity, store.getVelocity(0), 0);
+
+		store.setPosition(0, 12, 13, 14);
+		store.setVelocity(0, -2);
+		assertEquals(12, device.getMobility().location.x, 0);
+		assertEquals(14, device.getMobility().location.z, 0);
+		assertEquals(-2, device.getMobility().volecity, 0);
+	}
+}
@@ -0,0 +1,77 @@
+package org.edge.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.InputStreamReader;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.cloudbus.cloudsim.Cloudlet;
+import org.cloudbus.cloudsim.Log;
+import org.cloudbus.cloudsim.core.CloudSim;
+import org.edge.core.CloudletSchedulerTimeSharedEdge;
+import org.edge.core.edge.EdgeDataCenterBroker;
+import org.edge.core.edge.MicroELement;
+import org.edge.core.feature.EdgeLet;
+import org.edge.core.iot.IoTDevice;
+import org.edge.entity.ConfiguationEntity;
+import org.edge.entity.ConfiguationEntity.IotDeviceEntity;
+import org.edge.entity.ConfiguationEntity.MELEntities;
+import org.edge.entity.ConnectionHeader;
+import org.edge.scenario.ScenarioBuilder;
+import org.edge.utils.LogUtil;
+import org.junit.Test;
+
+import com.google.gson.Gson;
+
+public class EdgeDataCenterBrokerTest {
+
+	@Test
+	public void bundleFollowsTheHandover() {
+		ConfiguationEntity conf = new Gson().fromJson(
+				new InputStreamReader(this.getClass().getClassLoader().getResourceAsStream("configuration3.json")),
+				ConfiguationEntity.class);
+		// the cars drive from the range of the first edge device into the second
+		IotDeviceEntity car = conf.getIoTDeviceEntities().get(0);
+		car.setNumberofEntity(1);
+		car.setCapacityToStore(1000);
+		car.setTransfer_frequency(5);
+		conf.setRetainEdgeLets(true);
+		// the car data has no sensor type
+		Map<String, Integer> sensorMap = new HashMap<>();
+		sensorMap.put(null, 1);
+		for (MELEntities mel : conf.getMELEntities()) {
+			mel.setCloudletSchedulerClassName(CloudletSchedulerTimeSharedEdge.class.getName());
+			mel.setSensorMap(sensorMap);
+		}
+
+		ScenarioBuilder builder = new ScenarioBuilder(conf);
+		Log.disable();
+		LogUtil.setConsoleEcho(false);
+		builder.initCloudSim();
+		EdgeDataCenterBroker broker = builder.createBroker();
+		List<IoTDevice> devices = builder.createIoTDevices();
+		builder.createDataCenters();
+		List<MicroELement> mels = builder.createMicroElements(broker);
+		List<ConnectionHeader> headers = builder.createConnections(devices, broker.getId());
+		builder.connectMicroElements(mels);
+		broker.submitVmList(mels);
+		broker.submitConnection(headers);
+		CloudSim.startSimulation();
+		CloudSim.stopSimulation();
+		LogUtil.setConsoleEcho(true);
+		Log.enable();
+
+		List<Cloudlet> received = broker.getCloudletReceivedList();
+		int firstVm = received.get(0).getVmId();
+		boolean handedOver = false;
+		for (Cloudlet cloudlet : received) {
+			EdgeLet edgeLet = (EdgeLet) cloudlet;
+			assertEquals(edgeLet.getVmId(), edgeLet.getConnectionHeader().vmId);
+			handedOver |= edgeLet.getVmId() != firstVm;
+		}
+		assertTrue(handedOver);
+	}
+}
@@ -0,0 +1,78 @@
+package org.edge.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.cloudbus.cloudsim.Pe;
+import org.cloudbus.cloudsim.VmSchedulerTimeShared;
+import org.cloudbus.cloudsim.provisioners.BwProvisionerSimple;
+import org.cloudbus.cloudsim.provisioners.PeProvisionerSimple;
+import org.cloudbus.cloudsim.provisioners.RamProvisionerSimple;
+import org.edge.core.edge.EdgeDevice;
+import org.edge.core.edge.EdgeDeviceIndex;
+import org.edge.core.feature.EdgeType;
+import org.edge.core.feature.Mobility;
+import org.edge.core.feature.Mobility.Location;
+import org.junit.Test;
+
+public class EdgeDeviceIndexTest {
+
+	@Test
+	public void rangeQueryMatchesLinearScan() {
+		List<EdgeDevice> devices = new ArrayList<>();
+		for (int i = 0; i < 200; i++) {
+			devices.add(edgeDevice(i, (i * 7919) % 1000, 10 + i % 40));
+		}
+		EdgeDeviceIndex index = new EdgeDeviceIndex(devices);
+		devices.get(3).setEnabled(false);
+		devices.get(5).moveTo(500, 0, 0);
+
+		for (double x = -50; x < 1050; x += 3.5) {
+			EdgeDevice expected = null;
+			for (EdgeDevice device : devices) {
+				if (device.isEnabled() && device.getLocation().signalRange >= Math.abs(x - device.getLocation().location.x)) {
+					expected = device;
+					break;
+				}
+			}
+			assertSame("x = " + x, expected, index.findFirstInRange(x, device -> true));
+		}
+	}
+
+	@Test
+	public void nearestFollowsMovesAndDisabling() {
+		EdgeDevice a = edgeDevice(1, 0, 10);
+		EdgeDevice b = edgeDevice(2, 100, 10);
+		EdgeDevice c = edgeDevice(3, 200, 10);
+		EdgeDeviceIndex index = new EdgeDeviceIndex(Arrays.asList(c, a, b));
+
+		assertSame(b, index.findNearestLeft(150, device -> true));
+		assertSame(c, index.findNearestRight(150, device -> true));
+		assertNull(index.findNearestLeft(0, device -> true));
+
+		b.setEnabled(false);
+		assertSame(a, index.findNearestLeft(150, device -> true));
+		assertEquals(2, index.size());
+		b.setEnabled(true);
+		b.moveTo(300, 0, 0);
+		assertSame(a, index.findNearestLeft(150, device -> true));
+		assertSame(c, index.findNearestRight(150, device -> true));
+		assertSame(b, index.findFirstInRange(305, device -> true));
+	}
+
+	private static EdgeDevice edgeDevice(int id, double x, double signalRange) {
+		List<Pe> peList = new ArrayList<>();
+		peList.add(new Pe(0, new PeProvisionerSimple(1000)));
+		EdgeDevice device = new EdgeDevice(id, new RamProvisionerSimple(1024), new BwProvisionerSimple(1024), 1024,
+				peList, new VmSchedulerTimeShared(peList), EdgeType.RASPBERRY_PI, null, 10, 100, 1, 100);
+		Mobility mobility = new Mobility(new Location(x, 0, 0));
+		mobility.signalRange = signalRange;
+		device.setMobility(mobility);
+		return device;
+	}
+}
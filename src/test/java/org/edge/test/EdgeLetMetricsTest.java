@@ -0,0 +1,85 @@
+package org.edge.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import org.cloudbus.cloudsim.UtilizationModelFull;
+import org.edge.core.edge.EdgeLetMetrics;
+import org.edge.core.edge.EdgeLetMetrics.Statistics;
+import org.edge.core.feature.EdgeLet;
+import org.junit.Test;
+
+public class EdgeLetMetricsTest {
+
+	@Test
+	public void percentilesAreCloseToTheExactOnes() {
+		Random random = new Random(7);
+		Statistics statistics = new Statistics();
+		double[] values = new double[10000];
+		double sum = 0;
+		for (int i = 0; i < values.length; i++) {
+			values[i] = Math.exp(random.nextGaussian() * 3);
+			sum += values[i];
+			statistics.add(values[i]);
+		}
+		Arrays.sort(values);
+		assertEquals(values.length, statistics.getCount());
+		assertEquals(sum / values.length, statistics.getMean(), 1e-9);
+		assertEquals(values[0], statistics.getMin(), 0);
+		assertEquals(values[values.length - 1], statistics.getMax(), 0);
+		for (double percentile : new double[] { 1, 25, 50, 90, 99, 99.9 }) {
+			double exact = values[(int) Math.ceil(percentile / 100 * values.length) - 1];
+			double estimate = statistics.getPercentile(percentile);
+			assertEquals(exact, estimate, exact * 0.01);
+		}
+		assertEquals(values[values.length - 1], statistics.getPercentile(100), 0);
+	}
+
+	@Test
+	public void decreasingValuesKeepTheHistogramSmall() {
+		Statistics statistics = new Statistics();
+		for (double value = 1e6; value > 1e-6; value *= 0.999) {
+			statistics.add(value);
+		}
+		assertEquals(1e-6, statistics.getPercentile(0), 1e-8);
+		assertEquals(1e6, statistics.getPercentile(100), 0);
+	}
+
+	@Test
+	public void emptyAndZeroValues() {
+		Statistics statistics = new Statistics();
+		assertTrue(Double.isNaN(statistics.getMean()));
+		assertTrue(Double.isNaN(statistics.getPercentile(50)));
+		statistics.add(0);
+		statistics.add(0);
+		statistics.add(4);
+		assertEquals(0, statistics.getPercentile(50), 0);
+		assertEquals(4, statistics.getPercentile(90), 0);
+	}
+
+	@Test
+	public void countsBySensorTypeAndMicroElement() {
+		EdgeLetMetrics metrics = new EdgeLetMetrics();
+		for (int i = 0; i < 10; i++) {
+			EdgeLet edgeLet = new EdgeLet(i, 100, 1, 10, 10, new UtilizationModelFull(), new UtilizationModelFull(),
+					new UtilizationModelFull());
+			edgeLet.sensorType = i % 2 == 0 ? "light" : "temperature";
+			edgeLet.setVmId(i % 5);
+			metrics.record(edgeLet);
+			metrics.addEnergy(i % 5, 1.5);
+		}
+		assertEquals(10, metrics.getAll().getCount());
+		assertEquals(5, metrics.getBySensorType("light").getCount());
+		assertEquals(0, metrics.getBySensorType("voice").getCount());
+		assertEquals(5, metrics.getByMicroElement().size());
+		assertEquals(2, metrics.getByMicroElement().get(3).getCount());
+		assertEquals(3, metrics.getEnergy(3), 0);
+		assertEquals(15, metrics.getEnergy(), 0);
+		metrics.clear();
+		assertEquals(0, metrics.getAll().getCount());
+		assertTrue(metrics.getBySensorType().isEmpty());
+	}
+}
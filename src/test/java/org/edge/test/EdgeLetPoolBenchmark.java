@@ -0,0 +1,113 @@
+package org.edge.test;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+import java.util.Calendar;
+import java.util.Collections;
+import java.util.List;
+
+import org.cloudbus.cloudsim.Log;
+import org.cloudbus.cloudsim.UtilizationModelFull;
+import org.cloudbus.cloudsim.core.CloudSim;
+import org.edge.core.CloudletSchedulerTimeSharedEdge;
+import org.edge.core.feature.EdgeLet;
+import org.edge.core.feature.EdgeLetPool;
+import org.edge.core.kernel.SimulationContext;
+
+/**
+ * allocation rate of the edgelet life cycle with and without the pool: a reading
+ * is created from the template, processed by one MEL, shrunk into a new edgelet
+ * for the next MEL, processed there and released. run it with
+ * <pre>
+ * java org.edge.test.EdgeLetPoolBenchmark [edgelets] [concurrent]
+ * </pre>
+ */
+public class EdgeLetPoolBenchmark {
+
+	private static final List<Double> MIPS_SHARE = Arrays.asList(1000d);
+
+	public static void main(String[] args) {
+		int edgelets = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+		int concurrent = args.length > 1 ? Integer.parseInt(args[1]) : 100;
+		// the cloudlets look their data center up by name
+		Log.disable();
+		CloudSim.init(1, Calendar.getInstance(), false);
+		Log.enable();
+
+		// warm up both modes before measuring
+		run(false, edgelets / 10, concurrent);
+		run(true, edgelets / 10, concurrent);
+
+		System.out.println("edgelets: " + edgelets + ", concurrent per MEL: " + concurrent);
+		for (boolean pooled : new boolean[] { false, true }) {
+			System.gc();
+			com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory
+					.getThreadMXBean();
+			long thread = Thread.currentThread().getId();
+			long bytes = threads.getThreadAllocatedBytes(thread);
+			long collections = collections();
+			long start = System.nanoTime();
+			run(pooled, edgelets, concurrent);
+			double seconds = (System.nanoTime() - start) / 1e9;
+			bytes = threads.getThreadAllocatedBytes(thread) - bytes;
+			System.out.println(String.format("%-8s %8.1f bytes/edgelet %10.1f MB/s %6d gcs %8.3f s",
+					pooled ? "pooled" : "new", (double) bytes / edgelets, bytes / seconds / 1e6,
+					collections() - collections, seconds));
+		}
+		EdgeLetPool pool = SimulationContext.current().getEdgeLetPool();
+		System.out.println("reused: " + pool.getReusedCount() + ", created: " + pool.getCreatedCount());
+	}
+
+	private static void run(boolean pooled, int edgelets, int concurrent) {
+		EdgeLetPool pool = SimulationContext.init().getEdgeLetPool();
+		pool.setEnabled(pooled);
+		EdgeLet template = new EdgeLet(0, 100, 1, 30, 10, new UtilizationModelFull(), new UtilizationModelFull(),
+				new UtilizationModelFull(), "temperature");
+		CloudletSchedulerTimeSharedEdge mel = new CloudletSchedulerTimeSharedEdge();
+		CloudletSchedulerTimeSharedEdge nextMel = new CloudletSchedulerTimeSharedEdge();
+		mel.setSensorMap(Collections.singletonMap("temperature", 1));
+		nextMel.setSensorMap(Collections.singletonMap("temperature", 1));
+
+		int id = 0;
+		double time = 0;
+		for (int done = 0; done < edgelets; done += concurrent) {
+			mel.updateVmProcessing(time, MIPS_SHARE);
+			for (int i = 0; i < concurrent; i++) {
+				mel.cloudletSubmit(submitted(template.newInstance(id++)), 0);
+			}
+			time += 1000;
+			mel.updateVmProcessing(time, MIPS_SHARE);
+			nextMel.updateVmProcessing(time, MIPS_SHARE);
+			EdgeLet finished;
+			while ((finished = (EdgeLet) mel.getNextFinishedCloudlet()) != null) {
+				nextMel.cloudletSubmit(submitted(finished.newInstance(id++, 0.5)), 0);
+				pool.release(finished);
+			}
+			time += 1000;
+			nextMel.updateVmProcessing(time, MIPS_SHARE);
+			while ((finished = (EdgeLet) nextMel.getNextFinishedCloudlet()) != null) {
+				pool.release(finished);
+			}
+		}
+	}
+
+	/**
+	 * what the iot device and the data center do before the scheduler gets it
+	 */
+	private static EdgeLet submitted(EdgeLet edgeLet) {
+		edgeLet.sensorType = "temperature";
+		edgeLet.setUserId(1);
+		edgeLet.setVmId(0);
+		edgeLet.setResourceParameter(0, 0, 0);
+		return edgeLet;
+	}
+
+	private static long collections() {
+		long count = 0;
+		for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+			count += Math.max(0, gc.getCollectionCount());
+		}
+		return count;
+	}
+}
@@ -0,0 +1,89 @@
+package org.edge.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import org.cloudbus.cloudsim.Cloudlet;
+import org.cloudbus.cloudsim.UtilizationModelFull;
+import org.edge.core.feature.EdgeLet;
+import org.edge.core.feature.EdgeLetPool;
+import org.edge.core.kernel.SimulationContext;
+import org.junit.After;
+import org.junit.Test;
+
+public class EdgeLetPoolTest {
+
+	@After
+	public void endRun() {
+		SimulationContext.init();
+	}
+
+	@Test
+	public void reusedEdgeLetLooksNew() throws Exception {
+		EdgeLetPool pool = SimulationContext.init().getEdgeLetPool();
+		pool.setEnabled(true);
+		EdgeLet template = new EdgeLet(0, 100, 1, 30, 10, new UtilizationModelFull(), new UtilizationModelFull(),
+				new UtilizationModelFull(), "temperatureSensor");
+		EdgeLet used = template.newInstance(5);
+		used.sensorType = "temperature";
+		used.setUserId(3);
+		used.setVmId(2);
+		used.setCloudletLength(500);
+		used.setResourceParameter(7, 0.5, 0.1);
+		used.setCloudletStatus(Cloudlet.INEXEC);
+		used.setCloudletFinishedSoFar(500);
+		used.setCloudletStatus(Cloudlet.SUCCESS);
+		pool.release(used);
+
+		EdgeLet reused = template.newInstance(9);
+		assertSame(used, reused);
+		EdgeLet fresh = new EdgeLet(9, 100, 1, 30, 10, new UtilizationModelFull(), new UtilizationModelFull(),
+				new UtilizationModelFull(), template.getRequiredFiles());
+		assertEquals(fresh.getCloudletId(), reused.getCloudletId());
+		assertEquals(fresh.getCloudletLength(), reused.getCloudletLength());
+		assertEquals(fresh.getCloudletFileSize(), reused.getCloudletFileSize());
+		assertEquals(fresh.getCloudletOutputSize(), reused.getCloudletOutputSize());
+		assertEquals(fresh.getCloudletStatus(), reused.getCloudletStatus());
+		assertEquals(fresh.getUserId(), reused.getUserId());
+		assertEquals(fresh.getVmId(), reused.getVmId());
+		assertEquals(fresh.getResourceId(), reused.getResourceId());
+		assertEquals(fresh.getFinishTime(), reused.getFinishTime(), 0);
+		assertEquals(fresh.getExecStartTime(), reused.getExecStartTime(), 0);
+		assertEquals(fresh.getCloudletFinishedSoFar(), reused.getCloudletFinishedSoFar());
+		assertNull(reused.sensorType);
+		assertNull(reused.getConnectionHeader());
+
+		assertNotSame(reused, template.newInstance(10));
+		assertEquals(1, pool.getReusedCount());
+	}
+
+	@Test
+	public void disabledPoolKeepsNothing() {
+		EdgeLetPool pool = SimulationContext.init().getEdgeLetPool();
+		EdgeLet template = new EdgeLet(0, 100, 1, 30, 10, new UtilizationModelFull(), new UtilizationModelFull(),
+				new UtilizationModelFull(), "temperatureSensor");
+		EdgeLet edgeLet = template.newInstance(1);
+		pool.release(edgeLet);
+		assertNotSame(edgeLet, template.newInstance(2));
+		assertEquals(0, pool.getCreatedCount());
+	}
+
+	@Test
+	public void newRunStartsWithAnEmptyPool() {
+		EdgeLetPool pool = SimulationContext.init().getEdgeLetPool();
+		pool.setEnabled(true);
+		EdgeLet template = new EdgeLet(0, 100, 1, 30, 10, new UtilizationModelFull(), new UtilizationModelFull(),
+				new UtilizationModelFull(), "temperatureSensor");
+		EdgeLet edgeLet = template.newInstance(1);
+		pool.release(edgeLet);
+
+		EdgeLetPool next = SimulationContext.init().getEdgeLetPool();
+		assertFalse(next.isEnabled());
+		next.setEnabled(true);
+		assertNotSame(edgeLet, template.newInstance(2));
+		assertEquals(0, next.getReusedCount());
+	}
+}
@@ -0,0 +1,49 @@
+package org.edge.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.edge.core.feature.Battery;
+import org.edge.core.feature.EnergyModel;
+import org.edge.core.feature.EnergyModel.PowerState;
+import org.junit.Test;
+
+public class EnergyModelTest {
+
+	@Test
+	public void predictsDepletionAcrossStateChanges() {
+		Battery battery = new Battery(100, 100);
+		EnergyModel model = new EnergyModel(battery);
+		model.setDraw(PowerState.IDLE, 0.5);
+		model.setDraw(PowerState.SENSING, 1.5);
+		model.setDraw(PowerState.MOVING, 2);
+
+		// idle only: 100 / 0.5
+		assertEquals(200, model.getDepletionTime(0), 1e-9);
+
+		assertTrue(model.setActive(PowerState.SENSING, true, 10));
+		assertFalse(model.setActive(PowerState.SENSING, true, 12));
+		assertEquals(95, battery.getCurrentCapacity(), 1e-9);
+		assertEquals(10 + 95 / 2d, model.getDepletionTime(10), 1e-9);
+
+		model.setActive(PowerState.MOVING, true, 20);
+		assertEquals(75, battery.getCurrentCapacity(), 1e-9);
+		assertEquals(20 + 75 / 4d, model.getDepletionTime(20), 1e-9);
+
+		assertFalse(model.isDrained(38));
+		assertTrue(model.isDrained(40));
+		assertEquals(0, battery.getCurrentCapacity(), 0);
+	}
+
+	@Test
+	public void stoppedModelDrawsNothing() {
+		Battery battery = new Battery(10, 10);
+		EnergyModel model = new EnergyModel(battery);
+		model.setDraw(PowerState.IDLE, 1);
+		model.stop(4);
+		assertEquals(6, battery.getCurrentCapacity(), 1e-9);
+		assertEquals(Double.MAX_VALUE, model.getDepletionTime(100), 0);
+		assertEquals(6, battery.getCurrentCapacity(), 1e-9);
+	}
+}
@@ -0,0 +1,104 @@
+package org.edge.test;
+
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.List;
+
+import org.cloudbus.cloudsim.Log;
+import org.cloudbus.cloudsim.core.CloudSim;
+import org.cloudbus.cloudsim.core.SimEntity;
+import org.cloudbus.cloudsim.core.SimEvent;
+import org.edge.core.kernel.EdgeSimKernel;
+import org.edge.core.kernel.EdgeSimKernel.EventQueueType;
+
+/**
+ * event throughput of the simulation kernel with the stock CloudSim queue and
+ * with the 4-ary heap. every entity keeps the same number of events pending:
+ * each event it processes schedules a new one a random delay later (hold
+ * model), so the queue size stays constant during the run.
+ */
+public class EventQueueBenchmark {
+
+	private static final int TAG = 9999;
+
+	/**
+	 * keeps pending events scheduled until it has processed its share
+	 */
+	static class HoldEntity extends SimEntity {
+		private final int pending;
+		private int remaining;
+		private long seed;
+		final List<double[]> processed;
+
+		HoldEntity(String name, int pending, int events, long seed, boolean record) {
+			super(name);
+			this.pending = pending;
+			this.remaining = events;
+			this.seed = seed;
+			this.processed = record ? new ArrayList<>() : null;
+		}
+
+		@Override
+		public void startEntity() {
+			for (int i = 0; i < this.pending; i++) {
+				this.schedule(this.getId(), this.nextDelay(), TAG, i);
+			}
+		}
+
+		@Override
+		public void processEvent(SimEvent ev) {
+			if (ev.getTag() != TAG)
+				return;
+			if (this.processed != null)
+				this.processed.add(new double[] { CloudSim.clock(), this.getId(), (Integer) ev.getData() });
+			if (--this.remaining > this.pending)
+				this.schedule(this.getId(), this.nextDelay(), TAG, ev.getData());
+		}
+
+		@Override
+		public void shutdownEntity() {
+		}
+
+		/**
+		 * deterministic exponential delays, rounded so that some events share a time
+		 */
+		private double nextDelay() {
+			this.seed = this.seed * 6364136223846793005L + 1442695040888963407L;
+			double uniform = ((this.seed >>> 11) + 1) / (double) (1L << 53);
+			return Math.round(-Math.log(uniform) * 1000) / 100d + 0.01;
+		}
+	}
+
+	/**
+	 * @return the entities after the run
+	 */
+	static List<HoldEntity> run(EventQueueType type, int entities, int pending, int events, boolean record) {
+		Log.disable();
+		CloudSim.init(1, Calendar.getInstance(), false);
+		EdgeSimKernel.useFutureQueue(type);
+		List<HoldEntity> holds = new ArrayList<>();
+		for (int i = 0; i < entities; i++) {
+			holds.add(new HoldEntity("hold" + i, pending, events, 17 + i, record));
+		}
+		CloudSim.startSimulation();
+		CloudSim.stopSimulation();
+		Log.enable();
+		return holds;
+	}
+
+	public static void main(String[] args) {
+		int entities = 10;
+		int events = 200_000;
+		for (int pending : new int[] { 100, 10_000 }) {
+			for (EventQueueType type : EventQueueType.values()) {
+				// warm up
+				run(type, entities, pending, events / 10, false);
+				long start = System.nanoTime();
+				run(type, entities, pending, events, false);
+				double seconds = (System.nanoTime() - start) / 1e9;
+				System.out.printf("%-16s %8d pending events: %10.0f events/s%n", type, entities * pending,
+						entities * events / seconds);
+			}
+		}
+	}
+}
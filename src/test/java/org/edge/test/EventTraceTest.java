@@ -0,0 +1,50 @@
+package org.edge.test;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.File;
+import java.io.StringWriter;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.edge.core.feature.EdgeState;
+import org.edge.utils.EventTraceReader;
+import org.edge.utils.EventTraceRecord;
+import org.edge.utils.EventTraceWriter;
+import org.junit.Test;
+
+public class EventTraceTest {
+
+	@Test
+	public void readsBackAcrossRegions() throws Exception {
+		File file = File.createTempFile("edge-trace", ".bin");
+		file.deleteOnExit();
+		try (EventTraceWriter writer = new EventTraceWriter(file.getPath(), 7)) {
+			for (int i = 0; i < 100; i++) {
+				writer.write(i * 0.5, i % 2 == 0 ? EdgeState.MOVING : EdgeState.SENDING_TO_EDGE, i % 5, 10, i,
+						EventTraceRecord.NONE, 100 - i);
+			}
+		}
+		assertEquals(EventTraceWriter.HEADER_SIZE + 100 * EventTraceRecord.SIZE, file.length());
+
+		try (EventTraceReader reader = new EventTraceReader(file.getPath())) {
+			assertEquals(100, reader.size());
+			List<EventTraceRecord> records = reader.stream().collect(Collectors.toList());
+			for (int i = 0; i < 100; i++) {
+				EventTraceRecord record = records.get(i);
+				assertEquals(i * 0.5, record.time, 0);
+				assertEquals(i, record.edgeLetId);
+				assertEquals(100 - i, record.battery, 0);
+			}
+
+			StringWriter csv = new StringWriter();
+			long written = reader.exportCsv(csv,
+					EventTraceReader.byDevice(3).and(EventTraceReader.byTag(EdgeState.MOVING)));
+			// sources 3 and even ids: 8, 18, ..., 98
+			assertEquals(10, written);
+			String[] lines = csv.toString().split(System.lineSeparator());
+			assertEquals(EventTraceRecord.csvHeader(), lines[0]);
+			assertEquals("4.0," + EdgeState.MOVING + ",3,10,8,-1,92.0", lines[1]);
+		}
+	}
+}
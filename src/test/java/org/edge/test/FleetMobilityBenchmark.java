@@ -0,0 +1,76 @@
+package org.edge.test;
+
+import java.io.InputStreamReader;
+import java.util.List;
+
+import org.cloudbus.cloudsim.Log;
+import org.edge.core.feature.policy.SimpleMovingPolicy;
+import org.edge.core.iot.FleetMobility;
+import org.edge.core.iot.IoTDevice;
+import org.edge.entity.ConfiguationEntity;
+import org.edge.scenario.ScenarioBuilder;
+import org.edge.utils.LogUtil;
+import org.edge.utils.LogUtil.Level;
+
+import com.google.gson.Gson;
+
+/**
+ * a step of the cars of configuration3.json scaled to a large fleet: moving
+ * every device with SimpleMovingPolicy, as their MOVING events do without the
+ * cost of the events themselves, and moving them with FleetMobility, on one
+ * core and in parallel. run it with
+ * <pre>
+ * java org.edge.test.FleetMobilityBenchmark [devices]
+ * </pre>
+ */
+public class FleetMobilityBenchmark {
+
+	private static final int STEPS = 500;
+
+	public static void main(String[] args) {
+		int copies = args.length > 0 ? Integer.parseInt(args[0]) : 200_000;
+		LogUtil.initLog(Level.ERROR, null, false);
+		ConfiguationEntity conf = new Gson().fromJson(new InputStreamReader(
+				FleetMobilityBenchmark.class.getClassLoader().getResourceAsStream("configuration3.json")),
+				ConfiguationEntity.class);
+		conf.getIoTDeviceEntities().get(0).setNumberofEntity(copies);
+		conf.setFleetMobility(true);
+		ScenarioBuilder builder = new ScenarioBuilder(conf);
+		Log.disable();
+		builder.initCloudSim();
+		Log.enable();
+		List<IoTDevice> devices = builder.createIoTDevices();
+		FleetMobility fleet = devices.get(0).getFleetMobility();
+		SimpleMovingPolicy policy = new SimpleMovingPolicy();
+
+		for (int round = 0; round < 5; round++) {
+			long start = System.nanoTime();
+			for (int step = 0; step < STEPS; step++) {
+				for (IoTDevice device : devices) {
+					device.getBattery().setCurrentCapacity(device.getBattery().getCurrentCapacity() - 0.000001);
+					policy.updateLocation(device.getMobility());
+				}
+			}
+			print("devices", devices.size(), start);
+
+			fleet.setParallelThreshold(Integer.MAX_VALUE);
+			start = System.nanoTime();
+			for (int step = 0; step < STEPS; step++) {
+				fleet.move(step);
+			}
+			print("fleet", devices.size(), start);
+
+			fleet.setParallelThreshold(1);
+			start = System.nanoTime();
+			for (int step = 0; step < STEPS; step++) {
+				fleet.move(step);
+			}
+			print("parallel", devices.size(), start);
+		}
+	}
+
+	private static void print(String name, int devices, long start) {
+		double perDevice = (System.nanoTime() - start) / (double) STEPS / devices;
+		System.out.println(String.format("%-9s %8d devices %8.2f ns/device/step", name, devices, perDevice));
+	}
+}
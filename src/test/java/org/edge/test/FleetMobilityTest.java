@@ -0,0 +1,135 @@
+package org.edge.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+
+import java.io.InputStreamReader;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.cloudbus.cloudsim.Log;
+import org.edge.core.feature.Mobility;
+import org.edge.core.feature.policy.SimpleMovingPolicy;
+import org.edge.core.iot.DeviceStateStore;
+import org.edge.core.iot.FleetMobility;
+import org.edge.core.iot.IoTDevice;
+import org.edge.entity.ConfiguationEntity;
+import org.edge.scenario.ScenarioBuilder;
+import org.edge.utils.LogUtil;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.google.gson.Gson;
+
+public class FleetMobilityTest {
+
+	private static final double DRAIN_BY_MOVING = 0.000001;
+
+	/**
+	 * every step logs the location of every car
+	 */
+	@Before
+	public void silenceLog() {
+		LogUtil.setConsoleEcho(false);
+	}
+
+	@After
+	public void restoreLog() {
+		LogUtil.setConsoleEcho(true);
+	}
+
+	private List<IoTDevice> createCars(Integer parallelThreshold) {
+		ConfiguationEntity conf = new Gson().fromJson(
+				new InputStreamReader(this.getClass().getClassLoader().getResourceAsStream("configuration3.json")),
+				ConfiguationEntity.class);
+		conf.setFleetMobility(true);
+		conf.setFleetMobilityParallelThreshold(parallelThreshold);
+		conf.getIoTDeviceEntities().get(0).setNumberofEntity(1000);
+		ScenarioBuilder builder = new ScenarioBuilder(conf);
+		Log.disable();
+		builder.initCloudSim();
+		Log.enable();
+		return builder.createIoTDevices();
+	}
+
+	private void movesLikeTheSimpleMovingPolicy(Integer parallelThreshold) {
+		List<IoTDevice> devices = this.createCars(parallelThreshold);
+		FleetMobility fleet = devices.get(0).getFleetMobility();
+		assertNotNull(fleet);
+		assertEquals(devices.size(), fleet.size());
+		DeviceStateStore store = devices.get(0).getStateStore();
+
+		// devices all over their range, some about to run out of battery
+		Random random = new Random(7);
+		List<Mobility> expected = new ArrayList<>();
+		double[] battery = new double[devices.size()];
+		for (int i = 0; i < devices.size(); i++) {
+			IoTDevice device = devices.get(i);
+			Mobility.MovingRange range = device.getMobility().range;
+			int row = device.getStateIndex();
+			store.setPosition(row, range.beginX + random.nextDouble() * (range.endX - range.beginX),
+					range.beginY + random.nextDouble() * (range.endY - range.beginY),
+					range.beginZ + random.nextDouble() * (range.endZ - range.beginZ));
+			store.setVelocity(row, (random.nextDouble() - 0.5) * 40);
+			battery[i] = i % 10 == 0 ? random.nextInt(400) * DRAIN_BY_MOVING : 70;
+			store.setBattery(row, battery[i]);
+
+			Mobility mobility = device.getMobility();
+			Mobility copy = new Mobility(mobility.location);
+			copy.movable = true;
+			copy.range = mobility.range;
+			copy.volecity = mobility.volecity;
+			expected.add(copy);
+		}
+
+		// what every device would do on its own MOVING events
+		SimpleMovingPolicy policy = new SimpleMovingPolicy();
+		boolean[] stopped = new boolean[devices.size()];
+		for (int step = 0; step < 500; step++) {
+			fleet.move(step * 0.5);
+			for (int i = 0; i < devices.size(); i++) {
+				if (stopped[i])
+					continue;
+				battery[i] -= DRAIN_BY_MOVING;
+				stopped[i] = battery[i] <= 0;
+				if (!stopped[i])
+					policy.updateLocation(expected.get(i));
+			}
+		}
+
+		for (int i = 0; i < devices.size(); i++) {
+			Mobility mobility = devices.get(i).getMobility();
+			Mobility copy = expected.get(i);
+			assertEquals(copy.location.x, mobility.location.x, 0);
+			assertEquals(copy.location.y, mobility.location.y, 0);
+			assertEquals(copy.location.z, mobility.location.z, 0);
+			assertEquals(copy.volecity, mobility.volecity, 0);
+			assertEquals(copy.totalMovingDistance, mobility.totalMovingDistance, 0);
+			assertEquals(battery[i], devices.get(i).getBattery().getCurrentCapacity(), 0);
+		}
+	}
+
+	@Test
+	public void movesLikeTheSimpleMovingPolicy() {
+		this.movesLikeTheSimpleMovingPolicy(null);
+	}
+
+	@Test
+	public void movesLikeTheSimpleMovingPolicyInParallel() {
+		// with the locations logged, as by default
+		this.movesLikeTheSimpleMovingPolicy(1);
+	}
+
+	@Test
+	public void stopsWhenEveryDeviceIsDrained() {
+		List<IoTDevice> devices = this.createCars(null);
+		FleetMobility fleet = devices.get(0).getFleetMobility();
+		for (IoTDevice device : devices) {
+			device.getBattery().setCurrentCapacity(0);
+		}
+		assertFalse(fleet.move(0));
+	}
+}
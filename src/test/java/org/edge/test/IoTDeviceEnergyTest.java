@@ -0,0 +1,95 @@
+package org.edge.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.InputStreamReader;
+import java.util.List;
+
+import org.cloudbus.cloudsim.Log;
+import org.cloudbus.cloudsim.core.CloudSim;
+import org.cloudbus.cloudsim.core.SimEntity;
+import org.cloudbus.cloudsim.core.SimEvent;
+import org.edge.core.feature.EnergyModel;
+import org.edge.core.feature.EnergyModel.PowerState;
+import org.edge.core.iot.IoTDevice;
+import org.edge.entity.ConfiguationEntity;
+import org.edge.scenario.ScenarioBuilder;
+import org.junit.Test;
+
+import com.google.gson.Gson;
+
+public class IoTDeviceEnergyTest {
+
+	private List<IoTDevice> createDevices() {
+		ConfiguationEntity conf = new Gson().fromJson(
+				new InputStreamReader(this.getClass().getClassLoader().getResourceAsStream("healthcare_system.json")),
+				ConfiguationEntity.class);
+		ScenarioBuilder builder = new ScenarioBuilder(conf);
+		Log.disable();
+		builder.initCloudSim();
+		List<IoTDevice> devices = builder.createIoTDevices();
+		// attached already, the devices neither ask for a connection nor move
+		for (IoTDevice device : devices)
+			device.setAttachedEdgeDeviceVMId(1);
+		return devices;
+	}
+
+	private static EnergyModel idleModel(IoTDevice device) {
+		EnergyModel model = new EnergyModel(device.getBattery());
+		model.setDraw(PowerState.IDLE, 2);
+		return model;
+	}
+
+	@Test
+	public void idleDrawAloneDrainsTheBattery() {
+		List<IoTDevice> devices = this.createDevices();
+		IoTDevice device = devices.get(0);
+		device.setEnergyModel(idleModel(device));
+
+		CloudSim.startSimulation();
+		CloudSim.stopSimulation();
+		Log.enable();
+
+		assertEquals(device.getBattery().getMaxCapacity() / 2, device.getRunningTime(), 1e-9);
+		assertEquals(0, device.getBattery().getCurrentCapacity(), 0);
+		assertFalse(device.isEnabled());
+		assertTrue(devices.get(1).isEnabled());
+	}
+
+	/**
+	 * a model attached while the simulation runs draws from the time it is
+	 * attached, not from the start of the simulation
+	 */
+	@Test
+	public void modelAttachedLaterDrawsFromThen() {
+		List<IoTDevice> devices = this.createDevices();
+		IoTDevice device = devices.get(0);
+		double attachedAt = 50;
+		new SimEntity("energyModelAttacher") {
+
+			@Override
+			public void startEntity() {
+				this.schedule(this.getId(), attachedAt, 0);
+			}
+
+			@Override
+			public void processEvent(SimEvent ev) {
+				device.setEnergyModel(idleModel(device));
+			}
+
+			@Override
+			public void shutdownEntity() {
+			}
+		};
+
+		CloudSim.startSimulation();
+		CloudSim.stopSimulation();
+		Log.enable();
+
+		assertEquals(attachedAt + device.getBattery().getMaxCapacity() / 2, device.getRunningTime(), 1e-9);
+		assertEquals(0, device.getBattery().getCurrentCapacity(), 0);
+		assertFalse(device.isEnabled());
+	}
+}
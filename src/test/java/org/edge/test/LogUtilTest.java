@@ -0,0 +1,58 @@
+package org.edge.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+
+import org.edge.utils.LogUtil;
+import org.edge.utils.LogUtil.Level;
+import org.junit.After;
+import org.junit.Test;
+
+public class LogUtilTest {
+
+	@After
+	public void resetLevel() {
+		LogUtil.initLog(Level.DEBUG, null, false);
+	}
+
+	@Test
+	public void formatMatchesConcatenation() {
+		double clock = 12.5;
+		int id = 300;
+		assertEquals(clock + " broker received edgeLet " + id + " from iot " + null,
+				LogUtil.format("{} broker received edgeLet {} from iot {}", clock, id, null));
+		assertEquals("missing {} and {}", LogUtil.format("missing {} and {}"));
+		assertEquals("a b", LogUtil.format("a {}", "b", "ignored"));
+	}
+
+	@Test
+	public void suppliersAreNotCalledWhenDisabled() {
+		LogUtil.initLog(Level.ERROR, null, false);
+		assertFalse(LogUtil.isEnabled(Level.INFOR));
+		assertTrue(LogUtil.isEnabled(Level.ERROR));
+		LogUtil.info(() -> {
+			throw new AssertionError("message built while info is disabled");
+		});
+	}
+
+	@Test
+	public void primitiveArgumentsAreFormattedLikeObjects() {
+		PrintStream out = System.out;
+		ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+		LogUtil.setConsoleEcho(true);
+		System.setOut(new PrintStream(buffer, true));
+		try {
+			LogUtil.info("vm {}", 7);
+			LogUtil.info("edgelet {}", 8L);
+			LogUtil.info("at {}", 2.5);
+		} finally {
+			System.setOut(out);
+		}
+		String separator = System.lineSeparator();
+		assertEquals("vm 7" + separator + "edgelet 8" + separator + "at 2.5" + separator, buffer.toString());
+	}
+}
@@ -0,0 +1,59 @@
+package org.edge.test;
+
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.cloudbus.cloudsim.CloudletSchedulerTimeShared;
+import org.cloudbus.cloudsim.Pe;
+import org.cloudbus.cloudsim.VmSchedulerTimeShared;
+import org.cloudbus.cloudsim.provisioners.BwProvisionerSimple;
+import org.cloudbus.cloudsim.provisioners.PeProvisionerSimple;
+import org.cloudbus.cloudsim.provisioners.RamProvisionerSimple;
+import org.edge.core.edge.EdgeDevice;
+import org.edge.core.edge.MicroELement;
+import org.edge.core.edge.MicroElementIndex;
+import org.edge.core.feature.EdgeType;
+import org.junit.Test;
+
+public class MicroElementIndexTest {
+
+	@Test
+	public void followsTheVmsBetweenDevices() {
+		MicroElementIndex index = new MicroElementIndex();
+		MicroELement mel = new MicroELement(7, 1, 1000, 1, 512, 1000, 1000, "Xen", new CloudletSchedulerTimeShared());
+		EdgeDevice first = edgeDevice(1);
+		EdgeDevice second = edgeDevice(2);
+
+		// registered but not created anywhere yet
+		index.register(mel);
+		assertSame(mel, index.getMicroElement(7));
+		assertNull(index.getDevice(7));
+		assertNull(index.getMicroElement(8));
+		assertNull(index.getDevice(8));
+
+		mel.setHost(first);
+		index.bind(7, first, null);
+		assertSame(first, index.getDevice(7));
+
+		// moved to another host, the lookup follows it
+		mel.setHost(second);
+		assertSame(second, index.getDevice(7));
+		mel.setHost(first);
+		index.rebind(7);
+		assertSame(first, index.get(7).device);
+
+		index.unbindAll();
+		assertNull(index.getDevice(7));
+		assertSame(mel, index.getMicroElement(7));
+	}
+
+	private static EdgeDevice edgeDevice(int id) {
+		List<Pe> peList = new ArrayList<>();
+		peList.add(new Pe(0, new PeProvisionerSimple(1000)));
+		return new EdgeDevice(id, new RamProvisionerSimple(1024), new BwProvisionerSimple(1024), 1024, peList,
+				new VmSchedulerTimeShared(peList), EdgeType.RASPBERRY_PI, null, 10, 100, 1, 100);
+	}
+}
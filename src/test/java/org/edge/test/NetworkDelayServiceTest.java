@@ -0,0 +1,76 @@
+package org.edge.test;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.InputStreamReader;
+import java.util.List;
+
+import org.cloudbus.cloudsim.Log;
+import org.edge.core.edge.EdgeDataCenter;
+import org.edge.core.edge.EdgeDevice;
+import org.edge.core.feature.Mobility;
+import org.edge.core.feature.NetworkDelayService;
+import org.edge.core.iot.IoTDevice;
+import org.edge.core.kernel.SimulationContext;
+import org.edge.entity.ConfiguationEntity;
+import org.edge.scenario.ScenarioBuilder;
+import org.junit.Test;
+
+import com.google.gson.Gson;
+
+public class NetworkDelayServiceTest {
+
+	@Test
+	public void computesADistanceOnlyOnceTheDeviceHasMoved() {
+		ConfiguationEntity conf = new Gson().fromJson(
+				new InputStreamReader(this.getClass().getClassLoader().getResourceAsStream("configuration3.json")),
+				ConfiguationEntity.class);
+		ScenarioBuilder builder = new ScenarioBuilder(conf);
+		Log.disable();
+		builder.initCloudSim();
+		Log.enable();
+		List<IoTDevice> devices = builder.createIoTDevices();
+		List<EdgeDataCenter> datacenters = builder.createDataCenters();
+		List<EdgeDevice> edgeDevices = datacenters.get(0).getEdgeCharacteristics().getHostList();
+		EdgeDevice edgeDevice = edgeDevices.get(0);
+		NetworkDelayService delays = SimulationContext.current().getNetworkDelays();
+		IoTDevice device = devices.get(0);
+		Mobility mobility = device.getMobility();
+
+		// as the simple calculator has it, with the edge device as the target
+		double expected = 1 + distance(mobility, edgeDevice.getLocation());
+		assertEquals(expected, delays.getDelay(device, edgeDevice), 1e-9);
+		assertEquals(expected, delays.getDelay(device, edgeDevice), 1e-9);
+		assertEquals(1, delays.getDistancesComputed());
+
+		mobility.location.x += 3;
+		device.setMobility(mobility);
+		expected = 1 + distance(mobility, edgeDevice.getLocation());
+		assertEquals(expected, delays.getDelay(device, edgeDevice), 1e-9);
+		assertEquals(2, delays.getDistancesComputed());
+
+		// the other devices keep theirs
+		delays.getDelay(devices.get(1), edgeDevice);
+		delays.getDelay(devices.get(1), edgeDevice);
+		assertEquals(3, delays.getDistancesComputed());
+		assertEquals(expected, delays.getDelay(device, edgeDevice), 1e-9);
+		assertEquals(3, delays.getDistancesComputed());
+
+		// and so does the edge device once it moves
+		Mobility.Location at = edgeDevice.getLocation().location;
+		edgeDevice.moveTo(at.x + 4, at.y, at.z);
+		expected = 1 + distance(mobility, edgeDevice.getLocation());
+		assertEquals(expected, delays.getDelay(device, edgeDevice), 1e-9);
+		assertEquals(4, delays.getDistancesComputed());
+
+		// without an edge device only the transmission counts
+		assertEquals(1, delays.getDelay(device, null), 1e-9);
+	}
+
+	private static double distance(Mobility self, Mobility target) {
+		double x = target.location.x - self.location.x;
+		double y = target.location.y - self.location.y;
+		double z = target.location.z - self.location.z;
+		return Math.sqrt(x * x + y * y + z * z);
+	}
+}
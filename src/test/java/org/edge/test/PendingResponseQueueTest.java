@@ -0,0 +1,98 @@
+package org.edge.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Calendar;
+import java.util.List;
+
+import org.cloudbus.cloudsim.Log;
+import org.cloudbus.cloudsim.UtilizationModelFull;
+import org.cloudbus.cloudsim.core.CloudSim;
+import org.edge.core.edge.PendingResponseQueue;
+import org.edge.core.feature.EdgeLet;
+import org.edge.entity.ConnectionHeader;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+public class PendingResponseQueueTest {
+
+	@Test
+	public void drainsOnlyTheIoTDevice() {
+		PendingResponseQueue queue = new PendingResponseQueue();
+		List<EdgeLet> lets = new ArrayList<>();
+		for (int i = 0; i < 30; i++) {
+			EdgeLet let = edgeLet(i, i % 3);
+			lets.add(let);
+			queue.add(let, i);
+		}
+		assertEquals(10, queue.size(1));
+		List<EdgeLet> drained = queue.drain(1, 30);
+		assertEquals(10, drained.size());
+		for (int i = 0; i < drained.size(); i++) {
+			assertEquals(lets.get(3 * i + 1), drained.get(i));
+		}
+		assertEquals(20, queue.size());
+		assertTrue(queue.drain(1, 30).isEmpty());
+		assertEquals(0, queue.getEvictedCount());
+	}
+
+	@Test
+	public void evictsTheOldestWhenFull() {
+		PendingResponseQueue queue = new PendingResponseQueue();
+		queue.setCapacity(3);
+		for (int i = 0; i < 5; i++) {
+			queue.add(edgeLet(i, i % 2), i);
+		}
+		assertEquals(3, queue.size());
+		assertEquals(2, queue.getEvictedCount());
+		assertEquals(Arrays.asList(2, 4), ids(queue.drain(0, 5)));
+		assertEquals(Arrays.asList(3), ids(queue.drain(1, 5)));
+		assertTrue(queue.isEmpty());
+	}
+
+	@Test
+	public void expiresAfterTimeToLive() {
+		PendingResponseQueue queue = new PendingResponseQueue();
+		queue.setTimeToLive(10);
+		queue.add(edgeLet(0, 7), 0);
+		queue.add(edgeLet(1, 8), 5);
+		queue.add(edgeLet(2, 7), 9);
+		assertEquals(Arrays.asList(2), ids(queue.drain(7, 12)));
+		assertEquals(1, queue.getEvictedCount());
+		assertEquals(Arrays.asList(1), ids(queue.drain(8, 15)));
+		queue.add(edgeLet(3, 8), 20);
+		assertTrue(queue.drain(8, 31).isEmpty());
+		assertEquals(2, queue.getEvictedCount());
+	}
+
+	private static List<Integer> ids(List<EdgeLet> lets) {
+		List<Integer> ids = new ArrayList<>();
+		for (EdgeLet let : lets) {
+			ids.add(let.getCloudletId());
+		}
+		return ids;
+	}
+
+	/**
+	 * the constructor of ConnectionHeader looks the iot device up in CloudSim,
+	 * entity 0 exists once CloudSim is initialized
+	 */
+	private static EdgeLet edgeLet(int id, int ioTId) {
+		EdgeLet let = new EdgeLet(id, 1000, 1, 1, 1, new UtilizationModelFull(), new UtilizationModelFull(),
+				new UtilizationModelFull());
+		ConnectionHeader header = new ConnectionHeader(0, 0, 0, null);
+		header.ioTId = ioTId;
+		let.setConnectionHeader(header);
+		return let;
+	}
+
+	@BeforeClass
+	public static void initCloudSim() {
+		Log.disable();
+		CloudSim.init(1, Calendar.getInstance(), false);
+		Log.enable();
+	}
+}
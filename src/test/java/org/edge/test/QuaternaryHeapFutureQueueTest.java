@@ -0,0 +1,75 @@
+package org.edge.test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Calendar;
+import java.util.Iterator;
+import java.util.List;
+
+import org.cloudbus.cloudsim.Log;
+import org.cloudbus.cloudsim.core.CloudSim;
+import org.cloudbus.cloudsim.core.SimEvent;
+import org.cloudbus.cloudsim.core.predicates.PredicateType;
+import org.edge.core.kernel.EdgeSimKernel;
+import org.edge.core.kernel.EdgeSimKernel.EventQueueType;
+import org.edge.core.kernel.QuaternaryHeapFutureQueue;
+import org.edge.test.EventQueueBenchmark.HoldEntity;
+import org.junit.Test;
+
+public class QuaternaryHeapFutureQueueTest {
+
+	/**
+	 * the entities must process the same events at the same times in the same
+	 * order whichever queue the kernel uses
+	 */
+	@Test
+	public void sameOrderAsCloudSimQueue() {
+		List<HoldEntity> expected = EventQueueBenchmark.run(EventQueueType.CLOUDSIM, 3, 50, 2000, true);
+		List<HoldEntity> actual = EventQueueBenchmark.run(EventQueueType.QUATERNARY_HEAP, 3, 50, 2000, true);
+		for (int i = 0; i < expected.size(); i++) {
+			List<double[]> e = expected.get(i).processed;
+			List<double[]> a = actual.get(i).processed;
+			assertEquals(e.size(), a.size());
+			for (int j = 0; j < e.size(); j++) {
+				assertArrayEquals(e.get(j), a.get(j), 0);
+			}
+		}
+	}
+
+	@Test
+	public void iteratesInOrderAndRemoves() {
+		Log.disable();
+		CloudSim.init(1, Calendar.getInstance(), false);
+		QuaternaryHeapFutureQueue queue = new QuaternaryHeapFutureQueue(4);
+		EdgeSimKernel.useFutureQueue(queue);
+		for (int i = 0; i < 200; i++) {
+			CloudSim.send(0, 0, (i * 37) % 50, i % 2 == 0 ? 1 : 2, i);
+		}
+		assertEquals(200, queue.size());
+		// the result of cancelAll is not reliable in CloudSim 3, check the size
+		CloudSim.cancelAll(0, new PredicateType(2));
+		assertEquals(100, queue.size());
+
+		Iterator<SimEvent> iterator = queue.iterator();
+		SimEvent previous = iterator.next();
+		int count = 1;
+		while (iterator.hasNext()) {
+			SimEvent event = iterator.next();
+			assertEquals(1, event.getTag());
+			assertTrue(previous.eventTime() < event.eventTime() || previous.eventTime() == event.eventTime()
+					&& (Integer) previous.getData() < (Integer) event.getData());
+			previous = event;
+			count++;
+		}
+		assertEquals(100, count);
+
+		SimEvent first = queue.iterator().next();
+		assertTrue(queue.remove(first));
+		assertFalse(queue.remove(first));
+		assertEquals(99, queue.size());
+		Log.enable();
+	}
+}
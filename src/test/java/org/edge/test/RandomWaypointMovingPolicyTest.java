@@ -0,0 +1,91 @@
+package org.edge.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.edge.core.feature.Mobility;
+import org.edge.core.feature.Mobility.Location;
+import org.edge.core.feature.Mobility.MovingRange;
+import org.edge.core.feature.policy.RandomWaypointMovingPolicy;
+import org.junit.Test;
+
+public class RandomWaypointMovingPolicyTest {
+
+	@Test
+	public void staysInItsRange() {
+		Mobility mobility = mobility();
+		RandomWaypointMovingPolicy policy = new RandomWaypointMovingPolicy(0.5, 2, 42);
+		policy.start(mobility, 0);
+		double distance = 0;
+		double x = mobility.location.x, y = mobility.location.y;
+		for (int step = 1; step <= 10000; step++) {
+			policy.locate(mobility, step * 0.5);
+			assertTrue(mobility.location.x >= 0 && mobility.location.x <= 100);
+			assertTrue(mobility.location.y >= 0 && mobility.location.y <= 50);
+			assertEquals(0, mobility.location.z, 0);
+			// never faster than the velocity per step
+			double moved = Math.hypot(mobility.location.x - x, mobility.location.y - y);
+			assertTrue(moved <= 4 + 1e-9);
+			distance += moved;
+			x = mobility.location.x;
+			y = mobility.location.y;
+		}
+		assertTrue(mobility.totalMovingDistance >= distance - 1e-6);
+		assertTrue(mobility.totalMovingDistance > 0);
+	}
+
+	@Test
+	public void repeatsWithTheSameSeed() {
+		Mobility first = mobility();
+		Mobility second = mobility();
+		RandomWaypointMovingPolicy one = new RandomWaypointMovingPolicy(0.5, 0, 7);
+		RandomWaypointMovingPolicy other = new RandomWaypointMovingPolicy(0.5, 0, 7);
+		for (int step = 0; step < 1000; step++) {
+			one.updateLocation(first);
+			other.updateLocation(second);
+		}
+		assertEquals(first.location.x, second.location.x, 0);
+		assertEquals(first.location.y, second.location.y, 0);
+		assertEquals(first.totalMovingDistance, second.totalMovingDistance, 0);
+	}
+
+	/**
+	 * the device crosses no boundary before the time returned
+	 */
+	@Test
+	public void nextCrossingTime() {
+		Mobility mobility = mobility();
+		RandomWaypointMovingPolicy policy = new RandomWaypointMovingPolicy(0.5, 1, 3);
+		policy.start(mobility, 0);
+		double[] boundaries = { 20, 40, 60, 80 };
+		double time = 0;
+		for (int i = 0; i < 200; i++) {
+			double next = policy.getNextCrossingTime(mobility, time, boundaries);
+			assertTrue(next > time);
+			policy.locate(mobility, time);
+			int side = side(mobility.location.x, boundaries);
+			for (int k = 1; k < 20; k++) {
+				policy.locate(mobility, time + (next - time) * k / 20);
+				assertEquals(side, side(mobility.location.x, boundaries));
+			}
+			time = next + 1e-6;
+		}
+	}
+
+	private static int side(double x, double[] boundaries) {
+		int side = 0;
+		for (double boundary : boundaries) {
+			if (x > boundary + 1e-6)
+				side++;
+		}
+		return side;
+	}
+
+	private static Mobility mobility() {
+		Mobility mobility = new Mobility(new Location(50, 25, 0));
+		mobility.movable = true;
+		mobility.volecity = 4;
+		mobility.range = new MovingRange(0, 100, 0, 50, 0, 0);
+		return mobility;
+	}
+}
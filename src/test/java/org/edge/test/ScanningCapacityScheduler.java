@@ -0,0 +1,88 @@
+package org.edge.test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.cloudbus.cloudsim.Consts;
+import org.cloudbus.cloudsim.core.CloudSim;
+import org.edge.core.CloudletSchedulerTimeSharedEdge;
+import org.edge.core.ResEdgeLet;
+
+/**
+ * the scheduler as it was before the PEs and sensor weights in use became running
+ * totals: every call of getCapacity walks the whole exec list, and
+ * updateVmProcessing calls it once per executing edgelet. it is only used as a
+ * reference by the tests and the benchmark.
+ */
+class ScanningCapacityScheduler extends CloudletSchedulerTimeSharedEdge {
+
+	@Override
+	public double updateVmProcessing(double currentTime, List<Double> mipsShare) {
+		setCurrentMipsShare(mipsShare);
+		double timeSpam = currentTime - getPreviousTime();
+
+		for (ResEdgeLet rcl : getCloudletExecList()) {
+			rcl.updateCloudletFinishedSoFar((long) (getCapacity(mipsShare) * timeSpam * rcl.getNumberOfPes()
+					* getSensorMap().get(rcl.edgelet.sensorType) * Consts.MILLION));
+		}
+
+		if (getCloudletExecList().size() == 0) {
+			setPreviousTime(currentTime);
+			return 0.0;
+		}
+
+		double nextEvent = Double.MAX_VALUE;
+		List<ResEdgeLet> toRemove = new ArrayList<ResEdgeLet>();
+		for (ResEdgeLet rcl : getCloudletExecList()) {
+			if (rcl.getRemainingCloudletLength() == 0) {
+				toRemove.add(rcl);
+				cloudletFinish(rcl);
+			}
+		}
+		getCloudletExecList().removeAll(toRemove);
+
+		for (ResEdgeLet rcl : getCloudletExecList()) {
+			double estimatedFinishTime = currentTime
+					+ (rcl.getRemainingCloudletLength() / (getCapacity(mipsShare) * rcl.getNumberOfPes()));
+			if (estimatedFinishTime - currentTime < CloudSim.getMinTimeBetweenEvents()) {
+				estimatedFinishTime = currentTime + CloudSim.getMinTimeBetweenEvents();
+			}
+			if (estimatedFinishTime < nextEvent) {
+				nextEvent = estimatedFinishTime;
+			}
+		}
+
+		setPreviousTime(currentTime);
+		return nextEvent;
+	}
+
+	@Override
+	protected double getCapacity(List<Double> mipsShare) {
+		double capacity = 0.0;
+		int cpus = 0;
+		for (Double mips : mipsShare) {
+			capacity += mips;
+			if (mips > 0.0) {
+				cpus++;
+			}
+		}
+		currentCPUs = cpus;
+
+		int pesInUse = 0;
+		for (ResEdgeLet rcl : getCloudletExecList()) {
+			pesInUse += rcl.getNumberOfPes();
+		}
+
+		int sensorweight = 0;
+		for (ResEdgeLet rcl : getCloudletExecList()) {
+			if (getSensorMap().get(rcl.edgelet.sensorType) != null) {
+				sensorweight += getSensorMap().get(rcl.edgelet.sensorType);
+			}
+		}
+
+		int m1 = Math.max(pesInUse, currentCPUs);
+		capacity /= Math.max(m1, sensorweight);
+
+		return capacity;
+	}
+}
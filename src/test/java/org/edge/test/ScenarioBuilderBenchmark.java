@@ -0,0 +1,74 @@
+package org.edge.test;
+
+import java.io.InputStreamReader;
+import java.lang.reflect.Constructor;
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.List;
+
+import org.cloudbus.cloudsim.Log;
+import org.cloudbus.cloudsim.core.CloudSim;
+import org.edge.core.iot.IoTDevice;
+import org.edge.entity.ConfiguationEntity;
+import org.edge.entity.ConfiguationEntity.IotDeviceEntity;
+import org.edge.network.NetworkModel;
+import org.edge.scenario.ScenarioBuilder;
+
+import com.google.gson.Gson;
+
+/**
+ * start up time of the iot devices of healthcare_system.json, scaled to many
+ * copies: created by the ScenarioBuilder, and looking the class and the
+ * constructor up for every copy. run it with
+ * <pre>
+ * java org.edge.test.ScenarioBuilderBenchmark [copies per device entity]
+ * </pre>
+ */
+public class ScenarioBuilderBenchmark {
+
+	public static void main(String[] args) throws Exception {
+		int copies = args.length > 0 ? Integer.parseInt(args[0]) : 100_000;
+		ConfiguationEntity conf = new Gson().fromJson(new InputStreamReader(
+				ScenarioBuilderBenchmark.class.getClassLoader().getResourceAsStream("healthcare_system.json")),
+				ConfiguationEntity.class);
+		for (IotDeviceEntity entity : conf.getIoTDeviceEntities()) {
+			entity.setNumberofEntity(copies);
+		}
+
+		// warm up both before measuring
+		run(conf, true);
+		run(conf, false);
+
+		for (boolean builder : new boolean[] { false, true }) {
+			System.gc();
+			long start = System.nanoTime();
+			int devices = run(conf, builder);
+			double seconds = (System.nanoTime() - start) / 1e9;
+			System.out.println(String.format("%-8s %8d devices %8.3f s %10.0f devices/s",
+					builder ? "builder" : "lookup", devices, seconds, devices / seconds));
+		}
+	}
+
+	private static int run(ConfiguationEntity conf, boolean builder) throws Exception {
+		// every device registers as a CloudSim entity
+		Log.disable();
+		CloudSim.init(1, Calendar.getInstance(), false);
+		Log.enable();
+		ScenarioBuilder scenarioBuilder = new ScenarioBuilder(conf);
+		if (builder)
+			return scenarioBuilder.createIoTDevices().size();
+
+		List<IoTDevice> devices = new ArrayList<>();
+		for (IotDeviceEntity entity : conf.getIoTDeviceEntities()) {
+			NetworkModel networkModel = scenarioBuilder.createNetworkModel(entity.getNetworkModelEntity());
+			for (int i = 0; i < entity.getNumberofEntity(); i++) {
+				Constructor<?> constructor = Class.forName(entity.ioTClassName).getConstructor(NetworkModel.class);
+				IoTDevice device = (IoTDevice) constructor.newInstance(networkModel);
+				device.setAssigmentIoTId(entity.getAssignmentId());
+				device.setProcessingAbility(entity.getProcessingAbility());
+				devices.add(device);
+			}
+		}
+		return devices.size();
+	}
+}
@@ -0,0 +1,167 @@
+package org.edge.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.util.List;
+
+import org.cloudbus.cloudsim.Log;
+import org.edge.core.edge.EdgeDataCenter;
+import org.edge.core.edge.EdgeDataCenterBroker;
+import org.edge.core.edge.MicroELement;
+import org.edge.core.feature.policy.MobilityTrace;
+import org.edge.core.feature.policy.TraceMovingPolicy;
+import org.edge.core.iot.IoTDevice;
+import org.edge.core.iot.IoTDeviceGroup;
+import org.edge.entity.ConfiguationEntity;
+import org.edge.entity.ConnectionHeader;
+import org.edge.exception.InvalidConfigurationException;
+import org.edge.scenario.ScenarioBuilder;
+import org.junit.Test;
+
+import com.google.gson.Gson;
+
+public class ScenarioBuilderTest {
+
+	private ConfiguationEntity load(String name) {
+		return new Gson().fromJson(new InputStreamReader(this.getClass().getClassLoader().getResourceAsStream(name)),
+				ConfiguationEntity.class);
+	}
+
+	@Test
+	public void buildsTheEntitiesOfTheConfiguration() {
+		ConfiguationEntity conf = this.load("healthcare_system.json");
+		ScenarioBuilder builder = new ScenarioBuilder(conf);
+		Log.disable();
+		builder.initCloudSim();
+		Log.enable();
+		EdgeDataCenterBroker broker = builder.createBroker();
+		List<IoTDevice> devices = builder.createIoTDevices();
+		List<EdgeDataCenter> datacenters = builder.createDataCenters();
+		List<MicroELement> mels = builder.createMicroElements(broker);
+		List<ConnectionHeader> headers = builder.createConnections(devices, broker.getId());
+		builder.connectMicroElements(mels);
+
+		assertEquals(20, devices.size());
+		// the devices of an entity share one network model
+		assertSame(devices.get(0).getNetworkModel(), devices.get(9).getNetworkModel());
+		assertEquals(conf.getEdgeDatacenter().size(), datacenters.size());
+		assertEquals(conf.getMELEntities().size(), mels.size());
+		assertEquals(devices.size(), headers.size());
+	}
+
+	@Test
+	public void groupsTheDevicesOfAnEntity() {
+		ScenarioBuilder builder = new ScenarioBuilder(this.load("healthcare_system.json"));
+		Log.disable();
+		builder.initCloudSim();
+		Log.enable();
+		List<IoTDevice> devices = builder.createIoTDevices();
+		IoTDeviceGroup group = devices.get(0).getGroup();
+		assertSame(group, devices.get(9).getGroup());
+		assertEquals(10, group.size());
+		// the devices of another entity are in another group
+		assertNotSame(group, devices.get(10).getGroup());
+	}
+
+	@Test
+	public void setsAValueForADeviceOrItsGroup() {
+		ScenarioBuilder builder = new ScenarioBuilder(this.load("healthcare_system.json"));
+		Log.disable();
+		builder.initCloudSim();
+		Log.enable();
+		List<IoTDevice> devices = builder.createIoTDevices();
+		IoTDeviceGroup group = devices.get(0).getGroup();
+		double processingAbility = group.getProcessingAbility();
+
+		// a device setting its own value leaves the group
+		devices.get(0).setProcessingAbility(42);
+		assertEquals(42, devices.get(0).getProcessingAbility(), 0);
+		assertEquals(processingAbility, devices.get(9).getProcessingAbility(), 0);
+		assertNotSame(group, devices.get(0).getGroup());
+		assertEquals(1, devices.get(0).getGroup().size());
+		assertEquals(9, group.size());
+		assertEquals(group.getType(), devices.get(0).getType());
+		// setting the value it already has keeps it in the group
+		devices.get(1).setProcessingAbility(processingAbility);
+		assertSame(group, devices.get(1).getGroup());
+
+		group.setProcessingAbility(7);
+		assertEquals(7, devices.get(9).getProcessingAbility(), 0);
+		assertEquals(42, devices.get(0).getProcessingAbility(), 0);
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void rejectsADeviceOfAnotherGroup() {
+		ScenarioBuilder builder = new ScenarioBuilder(this.load("healthcare_system.json"));
+		Log.disable();
+		builder.initCloudSim();
+		Log.enable();
+		List<IoTDevice> devices = builder.createIoTDevices();
+		devices.get(0).getGroup().add(devices.get(10));
+	}
+
+	@Test
+	public void createsBwProvisionersTakingADouble() {
+		ConfiguationEntity conf = this.load("configuration2A.json");
+		ScenarioBuilder builder = new ScenarioBuilder(conf);
+		Log.disable();
+		builder.initCloudSim();
+		Log.enable();
+		assertEquals(conf.getEdgeDatacenter().size(), builder.createDataCenters().size());
+	}
+
+	@Test(expected = InvalidConfigurationException.class)
+	public void rejectsAnUnknownClass() {
+		ConfiguationEntity conf = this.load("healthcare_system.json");
+		conf.getIoTDeviceEntities().get(0).ioTClassName = "org.edge.core.iot.UnknownSensor";
+		ScenarioBuilder builder = new ScenarioBuilder(conf);
+		Log.disable();
+		builder.initCloudSim();
+		Log.enable();
+		builder.createIoTDevices();
+	}
+
+	private ConfiguationEntity carsReplaying(int cars, int firstTrack) throws IOException {
+		File file = File.createTempFile("edge-mobility", ".bin");
+		file.deleteOnExit();
+		try (MobilityTrace.Writer writer = new MobilityTrace.Writer(file.getPath(), 4)) {
+			for (int track = 0; track < 4; track++) {
+				double[] samples = new double[track + 1];
+				writer.write(samples, samples, samples, samples);
+			}
+		}
+		ConfiguationEntity conf = this.load("configuration3.json");
+		conf.getIoTDeviceEntities().get(0).setNumberofEntity(cars);
+		conf.getIoTDeviceEntities().get(0).getMobilityEntity().setTraceFile(file.getPath());
+		conf.getIoTDeviceEntities().get(0).getMobilityEntity().setFirstTrack(firstTrack);
+		return conf;
+	}
+
+	@Test
+	public void replaysOneTrackPerDevice() throws IOException {
+		ScenarioBuilder builder = new ScenarioBuilder(this.carsReplaying(3, 1));
+		Log.disable();
+		builder.initCloudSim();
+		Log.enable();
+		List<IoTDevice> devices = builder.createIoTDevices();
+		for (int i = 0; i < 3; i++) {
+			assertTrue(devices.get(i).getMovingPolicy() instanceof TraceMovingPolicy);
+			assertEquals(i + 2, ((TraceMovingPolicy) devices.get(i).getMovingPolicy()).getTrack().size());
+		}
+	}
+
+	@Test(expected = InvalidConfigurationException.class)
+	public void rejectsATraceWithTooFewTracks() throws IOException {
+		ScenarioBuilder builder = new ScenarioBuilder(this.carsReplaying(3, 2));
+		Log.disable();
+		builder.initCloudSim();
+		Log.enable();
+		builder.createIoTDevices();
+	}
+}
@@ -0,0 +1,58 @@
+package org.edge.test;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.edge.core.CloudletSchedulerTimeSharedEdge;
+import org.edge.core.CloudletSchedulerVirtualTimeEdge;
+
+/**
+ * compares one MEL update with 10k concurrent edgelets between the scheduler, the
+ * virtual time scheduler and the scanning reference, run it with
+ * <pre>
+ * java org.edge.test.SchedulerCapacityBenchmark [edgelets] [updates]
+ * </pre>
+ */
+public class SchedulerCapacityBenchmark {
+
+	private static final List<Double> MIPS_SHARE = Arrays.asList(1000d, 1000d, 1000d, 1000d);
+
+	public static void main(String[] args) {
+		int edgelets = args.length > 0 ? Integer.parseInt(args[0]) : 10000;
+		int updates = args.length > 1 ? Integer.parseInt(args[1]) : 5;
+
+		System.out.println("edgelets per MEL: " + edgelets + ", updates: " + updates);
+		// warm up all implementations before measuring
+		measure(new CloudletSchedulerTimeSharedEdge(), 1000, 5);
+		measure(new CloudletSchedulerVirtualTimeEdge(), 1000, 5);
+		measure(new ScanningCapacityScheduler(), 1000, 5);
+
+		double incremental = measure(new CloudletSchedulerTimeSharedEdge(), edgelets, updates);
+		double virtualTime = measure(new CloudletSchedulerVirtualTimeEdge(), edgelets, updates);
+		double scanning = measure(new ScanningCapacityScheduler(), edgelets, updates);
+		System.out.println(String.format("running totals: %10.3f ms/update", incremental));
+		System.out.println(String.format("virtual time  : %10.3f ms/update", virtualTime));
+		System.out.println(String.format("scanning      : %10.3f ms/update", scanning));
+		System.out.println(String.format("speedup       : %10.1fx", scanning / incremental));
+	}
+
+	private static double measure(CloudletSchedulerTimeSharedEdge scheduler, int edgelets, int updates) {
+		Map<String, Integer> sensorMap = new HashMap<>();
+		sensorMap.put("temperature", 1);
+		sensorMap.put("light", 2);
+		scheduler.setSensorMap(sensorMap);
+		scheduler.updateVmProcessing(0, MIPS_SHARE);
+		for (int i = 0; i < edgelets; i++) {
+			// long enough that nothing finishes while measuring
+			scheduler.cloudletSubmit(CloudletSchedulerTimeSharedEdgeTest.edgeLet(i, Long.MAX_VALUE / 1_000_000_000L,
+					i % 2 == 0 ? "temperature" : "light"), 0);
+		}
+		long start = System.nanoTime();
+		for (int i = 1; i <= updates; i++) {
+			scheduler.updateVmProcessing(i * 0.1, MIPS_SHARE);
+		}
+		return (System.nanoTime() - start) / 1e6 / updates;
+	}
+}
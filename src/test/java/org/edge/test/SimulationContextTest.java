@@ -0,0 +1,27 @@
+package org.edge.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+import org.edge.core.kernel.SimulationContext;
+import org.junit.Test;
+
+public class SimulationContextTest {
+
+	@Test
+	public void eachRunNumbersItsEdgeLetsFromZero() {
+		SimulationContext first = SimulationContext.init();
+		assertSame(first, SimulationContext.current());
+		for (int i = 0; i < 5; i++) {
+			assertEquals(i, first.nextEdgeLetId());
+		}
+		SimulationContext second = SimulationContext.init();
+		assertNotSame(first, second);
+		assertEquals(0, second.nextEdgeLetId());
+		// an entity bound to the first run keeps its own numbering
+		assertEquals(5, first.nextEdgeLetId());
+		assertEquals(6, first.getEdgeLetCount());
+		assertEquals(1, second.getEdgeLetCount());
+	}
+}
@@ -0,0 +1,250 @@
+package org.edge.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.InputStreamReader;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.cloudbus.cloudsim.Cloudlet;
+import org.cloudbus.cloudsim.Log;
+import org.cloudbus.cloudsim.UtilizationModelFull;
+import org.cloudbus.cloudsim.Vm;
+import org.cloudbus.cloudsim.core.CloudSim;
+import org.cloudbus.cloudsim.core.CloudSimTags;
+import org.cloudbus.cloudsim.core.FutureQueue;
+import org.cloudbus.cloudsim.core.SimEvent;
+import org.edge.core.edge.EdgeDataCenter;
+import org.edge.core.edge.EdgeDataCenterBroker;
+import org.edge.core.edge.MicroELement;
+import org.edge.core.feature.EdgeLet;
+import org.edge.core.feature.EdgeState;
+import org.edge.core.iot.IoTDevice;
+import org.edge.core.kernel.EdgeSimKernel;
+import org.edge.entity.ConfiguationEntity;
+import org.edge.entity.ConnectionHeader;
+import org.edge.scenario.ScenarioBuilder;
+import org.edge.utils.LogUtil;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.google.gson.Gson;
+
+public class SubmitBatchTest {
+
+	/**
+	 * the future queue, also keeping every event sent with the time it was sent
+	 */
+	private static class RecordingQueue extends FutureQueue {
+
+		final List<Double> sentAt = new ArrayList<>();
+		final List<SimEvent> events = new ArrayList<>();
+
+		@Override
+		public void addEvent(SimEvent newEvent) {
+			this.sentAt.add(CloudSim.clock());
+			this.events.add(newEvent);
+			super.addEvent(newEvent);
+		}
+	}
+
+	private EdgeDataCenterBroker broker;
+	private List<EdgeDataCenter> datacenters;
+	private RecordingQueue queue;
+
+	@Before
+	public void silenceLog() {
+		LogUtil.setConsoleEcho(false);
+	}
+
+	@After
+	public void restoreLog() {
+		LogUtil.setConsoleEcho(true);
+		Log.enable();
+	}
+
+	private ConfiguationEntity configuration(Double submitBatchWindow) {
+		ConfiguationEntity conf = new Gson().fromJson(
+				new InputStreamReader(this.getClass().getClassLoader().getResourceAsStream("healthcare_system.json")),
+				ConfiguationEntity.class);
+		conf.setRetainEdgeLets(true);
+		conf.getBroker().setSubmitBatchWindow(submitBatchWindow);
+		return conf;
+	}
+
+	private ScenarioBuilder init(ConfiguationEntity conf) {
+		ScenarioBuilder builder = new ScenarioBuilder(conf);
+		Log.disable();
+		builder.initCloudSim();
+		this.queue = new RecordingQueue();
+		EdgeSimKernel.useFutureQueue(this.queue);
+		this.broker = builder.createBroker();
+		return builder;
+	}
+
+	/**
+	 * run the healthcare scenario
+	 */
+	private void run(Double submitBatchWindow) {
+		ScenarioBuilder builder = this.init(this.configuration(submitBatchWindow));
+		List<IoTDevice> devices = builder.createIoTDevices();
+		this.datacenters = builder.createDataCenters();
+		List<MicroELement> mels = builder.createMicroElements(this.broker);
+		List<ConnectionHeader> headers = builder.createConnections(devices, this.broker.getId());
+		builder.connectMicroElements(mels);
+		this.broker.submitVmList(mels);
+		this.broker.submitConnection(headers);
+		CloudSim.startSimulation();
+		CloudSim.stopSimulation();
+	}
+
+	private static String describe(Cloudlet edgeLet) {
+		return edgeLet.getCloudletId() + "@" + edgeLet.getVmId() + ":" + edgeLet.getFinishTime();
+	}
+
+	private List<String> received() {
+		List<String> received = new ArrayList<>();
+		for (Cloudlet edgeLet : this.broker.getCloudletReceivedList())
+			received.add(describe(edgeLet));
+		return received;
+	}
+
+	private int count(int tag) {
+		int count = 0;
+		for (SimEvent ev : this.queue.events)
+			if (ev.getTag() == tag)
+				count++;
+		return count;
+	}
+
+	@Test
+	public void batchedSubmissionReturnsTheSameEdgeLets() {
+		this.run(null);
+		List<String> unbatched = this.received();
+		int submits = this.count(CloudSimTags.CLOUDLET_SUBMIT);
+		assertEquals(0, this.count(EdgeState.CLOUDLET_SUBMIT_BATCH));
+		assertTrue(submits > 0);
+
+		this.run(0d);
+		assertEquals(0, this.count(CloudSimTags.CLOUDLET_SUBMIT));
+		assertTrue(this.count(EdgeState.CLOUDLET_SUBMIT_BATCH) < submits);
+		assertEquals(unbatched, this.received());
+	}
+
+	@Test
+	public void coalescesTheEdgeLetsOfOneDatacenter() {
+		this.run(0d);
+		Map<Integer, Integer> datacenterOfVm = new HashMap<>();
+		for (EdgeDataCenter datacenter : this.datacenters)
+			for (Vm vm : datacenter.getVmList())
+				datacenterOfVm.put(vm.getId(), datacenter.getId());
+
+		Set<String> sent = new HashSet<>();
+		int edgeLets = 0;
+		for (int i = 0; i < this.queue.events.size(); i++) {
+			SimEvent ev = this.queue.events.get(i);
+			if (ev.getTag() != EdgeState.CLOUDLET_SUBMIT_BATCH)
+				continue;
+			// one batch per datacenter at a time, holding only edgelets of its vms
+			assertTrue(sent.add(ev.getDestination() + "@" + this.queue.sentAt.get(i)));
+			for (Object edgeLet : (List<?>) ev.getData()) {
+				assertEquals(Integer.valueOf(ev.getDestination()),
+						datacenterOfVm.get(((EdgeLet) edgeLet).getVmId()));
+				edgeLets++;
+			}
+		}
+		assertEquals(this.broker.getCloudletReceivedList().size(), edgeLets);
+		assertTrue(edgeLets > sent.size());
+	}
+
+	@Test
+	public void flushesAtTheEndOfTheWindow() {
+		double window = 3;
+		this.run(window);
+		Set<Double> flushes = new HashSet<>();
+		for (int i = 0; i < this.queue.events.size(); i++) {
+			SimEvent ev = this.queue.events.get(i);
+			if (ev.getTag() == EdgeState.FLUSH_SUBMIT_BATCH) {
+				assertEquals(window, ev.eventTime() - this.queue.sentAt.get(i), 1e-9);
+				flushes.add(ev.eventTime());
+			}
+		}
+		assertTrue(flushes.size() > 0);
+		for (int i = 0; i < this.queue.events.size(); i++) {
+			SimEvent ev = this.queue.events.get(i);
+			if (ev.getTag() == EdgeState.CLOUDLET_SUBMIT_BATCH)
+				assertTrue(flushes.contains(this.queue.sentAt.get(i)));
+		}
+		assertEquals(0, this.count(CloudSimTags.CLOUDLET_SUBMIT));
+	}
+
+	/**
+	 * submit four identical edgelets at once to a micro element with four pes,
+	 * either in one batch or one by one
+	 *
+	 * @return the finish times of the edgelets
+	 */
+	private List<Double> submitIdentical(boolean batched) {
+		ConfiguationEntity conf = this.configuration(null);
+		conf.getMELEntities().get(0).setPesNumber(4);
+		ScenarioBuilder builder = this.init(conf);
+		this.datacenters = builder.createDataCenters();
+		List<MicroELement> mels = builder.createMicroElements(this.broker);
+		builder.connectMicroElements(mels);
+		this.broker.submitVmList(mels);
+
+		List<EdgeLet> edgeLets = new ArrayList<>();
+		for (int id = 0; id < 4; id++) {
+			EdgeLet edgeLet = new EdgeLet(id, 1000, 1, 30, 10, new UtilizationModelFull(), new UtilizationModelFull(),
+					new UtilizationModelFull(), "temperature");
+			edgeLet.setUserId(this.broker.getId());
+			edgeLet.setVmId(mels.get(0).getId());
+			edgeLets.add(edgeLet);
+		}
+		int datacenter = this.datacenters.get(0).getId();
+		if (batched) {
+			CloudSim.send(this.broker.getId(), datacenter, 5, EdgeState.CLOUDLET_SUBMIT_BATCH, edgeLets);
+		} else {
+			for (EdgeLet edgeLet : edgeLets)
+				CloudSim.send(this.broker.getId(), datacenter, 5, CloudSimTags.CLOUDLET_SUBMIT, edgeLet);
+		}
+		CloudSim.startSimulation();
+		CloudSim.stopSimulation();
+
+		List<Double> finishTimes = new ArrayList<>();
+		for (EdgeLet edgeLet : edgeLets)
+			finishTimes.add(edgeLet.getFinishTime());
+		return finishTimes;
+	}
+
+	private int finishEventsSentAt(double time) {
+		int count = 0;
+		for (int i = 0; i < this.queue.events.size(); i++)
+			if (this.queue.events.get(i).getTag() == CloudSimTags.VM_DATACENTER_EVENT
+					&& this.queue.sentAt.get(i) == time)
+				count++;
+		return count;
+	}
+
+	@Test
+	public void deduplicatesTheFinishEvents() {
+		List<Double> unbatched = this.submitIdentical(false);
+		assertEquals(4, this.finishEventsSentAt(5));
+		assertEquals(4, this.broker.getCloudletReceivedList().size());
+
+		List<Double> batched = this.submitIdentical(true);
+		assertEquals(1, this.finishEventsSentAt(5));
+		assertEquals(4, this.broker.getCloudletReceivedList().size());
+		assertEquals(unbatched, batched);
+		assertNotNull(batched.get(0));
+		assertEquals(1, new HashSet<>(batched).size());
+		assertTrue(batched.get(0) > 5);
+	}
+}
@@ -0,0 +1,172 @@
+package org.edge.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.edge.core.edge.EdgeDataCenter;
+import org.edge.core.edge.EdgeDataCenterBroker;
+import org.edge.entity.ConfiguationEntity;
+import org.edge.entity.SweepEntity;
+import org.edge.scenario.Scenario;
+import org.edge.sweep.ScenarioResult;
+import org.edge.sweep.SweepRunner;
+import org.junit.Test;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import com.google.gson.JsonPrimitive;
+
+public class SweepRunnerTest {
+
+	@Test
+	public void setsFieldsByPath() {
+		JsonObject config = new JsonParser()
+				.parse("{\"hosts\":[{\"battery\":{\"max\":1}},{\"battery\":{\"max\":2}}],\"name\":\"a\"}")
+				.getAsJsonObject();
+		SweepRunner.set(config, "hosts[*].battery.max", new JsonPrimitive(7));
+		SweepRunner.set(config, "hosts[1].battery.min", new JsonPrimitive(3));
+		SweepRunner.set(config, "name", new JsonPrimitive("b"));
+		assertEquals("{\"hosts\":[{\"battery\":{\"max\":7}},{\"battery\":{\"max\":7,\"min\":3}}],\"name\":\"b\"}",
+				config.toString());
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void rejectsAMissingPath() {
+		JsonObject config = new JsonParser().parse("{\"hosts\":[]}").getAsJsonObject();
+		SweepRunner.set(config, "devices[0].max", new JsonPrimitive(1));
+	}
+
+	@Test
+	public void combinesEveryValue() throws Exception {
+		SweepEntity sweep = new SweepEntity();
+		sweep.setScenarioClassName("org.edge.examples.Example1");
+		sweep.setBaseConfig("healthcare_system.json");
+		LinkedHashMap<String, List<JsonElement>> parameters = new LinkedHashMap<>();
+		parameters.put("ioTDeviceEntities[*].numberofEntity",
+				Arrays.<JsonElement>asList(new JsonPrimitive(5), new JsonPrimitive(10)));
+		parameters.put("MELEntities[0].mips",
+				Arrays.<JsonElement>asList(new JsonPrimitive(250), new JsonPrimitive(500), new JsonPrimitive(1000)));
+		sweep.setParameters(parameters);
+		SweepRunner runner = new SweepRunner(sweep);
+		List<Map<String, JsonElement>> combinations = runner.combinations();
+		assertEquals(6, combinations.size());
+		assertEquals(new JsonPrimitive(10), combinations.get(3).get("ioTDeviceEntities[*].numberofEntity"));
+		assertEquals(new JsonPrimitive(250), combinations.get(3).get("MELEntities[0].mips"));
+		JsonObject config = runner.configure(combinations.get(5));
+		assertEquals(1000, config.getAsJsonArray("MELEntities").get(0).getAsJsonObject().get("mips").getAsInt());
+	}
+
+	@Test
+	public void runsTheScenariosInWorkers() throws Exception {
+		SweepEntity sweep = new SweepEntity();
+		sweep.setScenarioClassName("org.edge.examples.Example1");
+		sweep.setBaseConfig("healthcare_system.json");
+		LinkedHashMap<String, List<JsonElement>> parameters = new LinkedHashMap<>();
+		parameters.put("ioTDeviceEntities[*].numberofEntity", Arrays.<JsonElement>asList(new JsonPrimitive(2)));
+		// the second scenario cannot create its devices
+		parameters.put("ioTDeviceEntities[0].ioTClassName", Arrays.<JsonElement>asList(
+				new JsonPrimitive("org.edge.core.iot.TemperatureSensor"), new JsonPrimitive("org.edge.NoSuchSensor")));
+		sweep.setParameters(parameters);
+		sweep.setWorkers(2);
+		File outputDir = Files.createTempDirectory("edge-sweep").toFile();
+		sweep.setOutputDir(outputDir.getPath());
+
+		// the workers run in their own directories, a relative classpath must still work
+		String classPath = System.getProperty("java.class.path");
+		Path workingDir = Paths.get("").toAbsolutePath();
+		StringBuilder relative = new StringBuilder();
+		for (String entry : classPath.split(File.pathSeparator)) {
+			if (relative.length() > 0)
+				relative.append(File.pathSeparatorChar);
+			relative.append(workingDir.relativize(Paths.get(entry).toAbsolutePath()));
+		}
+		List<ScenarioResult> results;
+		System.setProperty("java.class.path", relative.toString());
+		try {
+			results = new SweepRunner(sweep).run();
+		} finally {
+			System.setProperty("java.class.path", classPath);
+			delete(outputDir);
+		}
+
+		assertEquals(2, results.size());
+		assertNull(results.get(0).getError());
+		assertTrue(results.get(0).getEdgeLets() > 0);
+		assertNotNull(results.get(1).getError());
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		SweepRunner.printSummary(results, new PrintStream(out, true, "UTF-8"));
+		String[] lines = out.toString("UTF-8").split("\\r?\\n");
+		assertEquals(3, lines.length);
+		assertFalse(lines[2], lines[2].contains("0.0000"));
+	}
+
+	/**
+	 * a scenario that never ends
+	 */
+	public static class EndlessScenario implements Scenario {
+
+		@Override
+		public void initFromConfiguation(ConfiguationEntity conf) {
+			try {
+				Thread.sleep(Long.MAX_VALUE);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		}
+
+		@Override
+		public EdgeDataCenterBroker getBroker() {
+			return null;
+		}
+
+		@Override
+		public List<EdgeDataCenter> getDatacenters() {
+			return null;
+		}
+	}
+
+	@Test(timeout = 60000)
+	public void killsAWorkerThatTimesOut() throws Exception {
+		SweepEntity sweep = new SweepEntity();
+		sweep.setScenarioClassName(EndlessScenario.class.getName());
+		sweep.setBaseConfig("healthcare_system.json");
+		sweep.setParameters(new LinkedHashMap<String, List<JsonElement>>());
+		sweep.setWorkerTimeout(1);
+		File outputDir = Files.createTempDirectory("edge-sweep").toFile();
+		sweep.setOutputDir(outputDir.getPath());
+		List<ScenarioResult> results;
+		try {
+			results = new SweepRunner(sweep).run();
+		} finally {
+			delete(outputDir);
+		}
+
+		assertEquals(1, results.size());
+		assertTrue(results.get(0).getError(), results.get(0).getError().startsWith("worker timed out"));
+	}
+
+	private static void delete(File file) {
+		File[] children = file.listFiles();
+		if (children != null) {
+			for (File child : children) {
+				delete(child);
+			}
+		}
+		file.delete();
+	}
+}
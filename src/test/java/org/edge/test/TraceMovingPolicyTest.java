@@ -0,0 +1,92 @@
+package org.edge.test;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.File;
+import java.io.IOException;
+
+import org.edge.core.feature.Mobility;
+import org.edge.core.feature.Mobility.Location;
+import org.edge.core.feature.policy.MobilityTrace;
+import org.edge.core.feature.policy.MobilityTrace.Track;
+import org.edge.core.feature.policy.TraceMovingPolicy;
+import org.junit.Test;
+
+public class TraceMovingPolicyTest {
+
+	private static MobilityTrace writeTrace() throws IOException {
+		File file = File.createTempFile("edge-mobility", ".bin");
+		file.deleteOnExit();
+		try (MobilityTrace.Writer writer = new MobilityTrace.Writer(file.getPath(), 2)) {
+			writer.write(new double[] { 0 }, new double[] { 5 }, new double[] { 5 }, new double[] { 0 });
+			// right by 30 in 10 seconds, up by 40 in 10, then back left by 30 in 5
+			writer.write(new double[] { 10, 20, 30, 35 }, new double[] { 0, 30, 30, 0 },
+					new double[] { 0, 0, 40, 40 }, new double[] { 0, 0, 0, 0 });
+		}
+		return new MobilityTrace(file.getPath());
+	}
+
+	@Test
+	public void readsTheTracks() throws IOException {
+		MobilityTrace trace = writeTrace();
+		assertEquals(2, trace.size());
+		Track track = trace.getTrack(1);
+		assertEquals(4, track.size());
+		assertEquals(30, track.getTime(2), 0);
+		assertEquals(30, track.getX(2), 0);
+		assertEquals(40, track.getY(2), 0);
+		assertEquals(-1, track.find(5));
+		assertEquals(1, track.find(25));
+		assertEquals(3, track.find(100));
+	}
+
+	@Test
+	public void interpolatesBetweenSamples() throws IOException {
+		Track track = writeTrace().getTrack(1);
+		Mobility mobility = mobility();
+		TraceMovingPolicy policy = new TraceMovingPolicy(track);
+		policy.start(mobility, 0);
+
+		// waits at the first sample
+		assertEquals(0, mobility.location.x, 0);
+		policy.locate(mobility, 15);
+		assertEquals(15, mobility.location.x, 1e-9);
+		assertEquals(1.5, mobility.volecity, 1e-9);
+		policy.locate(mobility, 25);
+		assertEquals(30, mobility.location.x, 1e-9);
+		assertEquals(20, mobility.location.y, 1e-9);
+		assertEquals(50, mobility.totalMovingDistance, 1e-9);
+		policy.locate(mobility, 32.5);
+		assertEquals(15, mobility.location.x, 1e-9);
+		assertEquals(-3, mobility.volecity, 1e-9);
+		// stays at the last sample
+		policy.locate(mobility, 100);
+		assertEquals(0, mobility.location.x, 0);
+		assertEquals(40, mobility.location.y, 0);
+		assertEquals(100, mobility.totalMovingDistance, 1e-9);
+		// and can go back in time
+		policy.locate(mobility, 15);
+		assertEquals(15, mobility.location.x, 1e-9);
+		assertEquals(15, mobility.totalMovingDistance, 1e-9);
+	}
+
+	@Test
+	public void nextCrossingTime() throws IOException {
+		Mobility mobility = mobility();
+		TraceMovingPolicy policy = new TraceMovingPolicy(writeTrace().getTrack(1));
+		policy.start(mobility, 0);
+		double[] boundaries = { 10, 20 };
+
+		assertEquals(13 + 1 / 3d, policy.getNextCrossingTime(mobility, 0, boundaries), 1e-9);
+		assertEquals(16 + 2 / 3d, policy.getNextCrossingTime(mobility, 14, boundaries), 1e-9);
+		// nothing to cross going up, then 20 on the way back
+		assertEquals(31 + 2 / 3d, policy.getNextCrossingTime(mobility, 17, boundaries), 1e-9);
+		assertEquals(Double.MAX_VALUE, policy.getNextCrossingTime(mobility, 34, boundaries), 0);
+	}
+
+	private static Mobility mobility() {
+		Mobility mobility = new Mobility(new Location(0, 0, 0));
+		mobility.movable = true;
+		return mobility;
+	}
+}